@@ -1,5 +1,5 @@
 import client from './client';
-import type { TransactionResponse, TransferResponse, Page } from '../types/api';
+import type { TransactionResponse, TransferResponse, Page, CursorPage } from '../types/api';
 
 export async function deposit(accountId: number, amount: number, description: string, idempotencyKey: string): Promise<TransactionResponse> {
   const res = await client.post<TransactionResponse>('/transactions/deposit', { accountId, amount, description, idempotencyKey });
@@ -68,3 +68,18 @@ export async function getTransactions(filters: TransactionFilters): Promise<Page
   const res = await client.get<Page<TransactionResponse>>(`/transactions?${params.toString()}`);
   return res.data;
 }
+
+// Newest-first keyset pagination; cost stays flat however deep the history goes
+export async function getTransactionsCursor(
+  filters: Omit<TransactionFilters, 'page' | 'sortBy' | 'sortDir'>,
+  cursor?: string
+): Promise<CursorPage<TransactionResponse>> {
+  const params = new URLSearchParams();
+  Object.entries({ ...filters, cursor }).forEach(([key, value]) => {
+    if (value !== undefined && value !== '') {
+      params.append(key, String(value));
+    }
+  });
+  const res = await client.get<CursorPage<TransactionResponse>>(`/transactions/cursor?${params.toString()}`);
+  return res.data;
+}
@@ -1,8 +1,8 @@
 import { useState } from 'react';
 import { useParams } from 'react-router-dom';
-import { useQuery } from '@tanstack/react-query';
+import { useInfiniteQuery, useQuery } from '@tanstack/react-query';
 import { getAccount } from '../api/accounts';
-import { getTransactions, type TransactionFilters } from '../api/transactions';
+import { getTransactions, getTransactionsCursor, type TransactionFilters } from '../api/transactions';
 import TransactionTable from '../components/TransactionTable';
 import TransactionFilterBar from '../components/TransactionFilters';
 import Pagination from '../components/Pagination';
@@ -30,7 +30,10 @@ export default function AccountDetailPage() {
     queryFn: () => getAccount(accountId),
   });
 
-  const { data: txPage, isLoading: txLoading } = useQuery({
+  // The default newest-first order pages by cursor; other sorts fall back to numbered pages
+  const cursorMode = sortBy === 'createdAt' && sortDir === 'desc';
+
+  const { data: txPage, isLoading: pageLoading } = useQuery({
     queryKey: ['transactions', accountId, filters, page, sortBy, sortDir],
     queryFn: () => getTransactions({
       accountId,
@@ -40,8 +43,28 @@ export default function AccountDetailPage() {
       sortBy,
       sortDir,
     }),
+    enabled: !cursorMode,
+  });
+
+  const {
+    data: txSlices,
+    isLoading: cursorLoading,
+    hasNextPage,
+    fetchNextPage,
+    isFetchingNextPage,
+  } = useInfiniteQuery({
+    queryKey: ['transactions', accountId, filters, 'cursor'],
+    queryFn: ({ pageParam }) => getTransactionsCursor({ accountId, ...filters, size: 20 }, pageParam),
+    initialPageParam: undefined as string | undefined,
+    getNextPageParam: (last) => (last.hasMore ? last.nextCursor ?? undefined : undefined),
+    enabled: cursorMode,
   });
 
+  const txLoading = cursorMode ? cursorLoading : pageLoading;
+  const transactions = cursorMode
+    ? txSlices?.pages.flatMap((slice) => slice.content) ?? []
+    : txPage?.content ?? [];
+
   const handleSort = (field: string) => {
     if (field === sortBy) {
       setSortDir(sortDir === 'asc' ? 'desc' : 'asc');
@@ -168,18 +191,32 @@ export default function AccountDetailPage() {
       ) : (
         <>
           <TransactionTable
-            transactions={txPage?.content || []}
+            transactions={transactions}
             currency={account.currency}
             onSort={handleSort}
             sortBy={sortBy}
             sortDir={sortDir}
           />
-          {txPage && (
-            <Pagination
-              page={txPage.number}
-              totalPages={txPage.totalPages}
-              onPageChange={setPage}
-            />
+          {cursorMode ? (
+            hasNextPage && (
+              <div className="flex justify-center mt-4">
+                <button
+                  onClick={() => fetchNextPage()}
+                  disabled={isFetchingNextPage}
+                  className="h-8 px-4 text-sm font-medium text-text-secondary border border-border-primary rounded-lg hover:bg-surface-hover hover:text-text-primary transition-colors disabled:opacity-40 disabled:cursor-not-allowed"
+                >
+                  {isFetchingNextPage ? 'Loading...' : 'Load more'}
+                </button>
+              </div>
+            )
+          ) : (
+            txPage && (
+              <Pagination
+                page={txPage.number}
+                totalPages={txPage.totalPages}
+                onPageChange={setPage}
+              />
+            )
           )}
         </>
       )}
@@ -44,6 +44,12 @@ export interface Page<T> {
   last: boolean;
 }
 
+export interface CursorPage<T> {
+  content: T[];
+  nextCursor: string | null;
+  hasMore: boolean;
+}
+
 export interface UserProfileResponse {
   id: number;
   email: string;
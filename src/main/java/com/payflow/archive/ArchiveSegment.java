@@ -0,0 +1,271 @@
+package com.payflow.archive;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.payflow.archive.ArchiveSegmentWriter.*;
+
+/**
+ * Read side of a file written by {@link ArchiveSegmentWriter}. The whole file is mapped
+ * read-only, so block reads are served from the page cache without copying through the
+ * heap; only the sparse index is decoded up front. Safe for concurrent readers.
+ */
+public final class ArchiveSegment {
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final Block[] blocks;
+    private final long rowCount;
+
+    private record Block(long offset, int compressedLength, int rawLength, int rows,
+                         long firstAccountId, long firstCreatedAt, long lastAccountId, long lastCreatedAt) {}
+
+    private ArchiveSegment(Path path, MappedByteBuffer data, Block[] blocks, long rowCount) {
+        this.path = path;
+        this.data = data;
+        this.blocks = blocks;
+        this.rowCount = rowCount;
+    }
+
+    public static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            // The mapping outlives the channel
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int footer = (int) size - FOOTER_BYTES;
+            if (data.getLong(0) != MAGIC || data.getLong(footer + FOOTER_BYTES - Long.BYTES) != MAGIC) {
+                throw new IOException("Not an archive segment: " + path);
+            }
+            long indexOffset = data.getLong(footer);
+            int blockCount = data.getInt(footer + Long.BYTES);
+            long rowCount = data.getLong(footer + Long.BYTES + Integer.BYTES);
+            if (indexOffset + (long) blockCount * INDEX_ENTRY_BYTES != footer) {
+                throw new IOException("Corrupt archive segment index: " + path);
+            }
+            Block[] blocks = new Block[blockCount];
+            ByteBuffer index = data.slice((int) indexOffset, blockCount * INDEX_ENTRY_BYTES);
+            for (int i = 0; i < blockCount; i++) {
+                blocks[i] = new Block(index.getLong(), index.getInt(), index.getInt(), index.getInt(),
+                        index.getLong(), index.getLong(), index.getLong(), index.getLong());
+            }
+            return new ArchiveSegment(path, data, blocks, rowCount);
+        }
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Rows of one account with {@code from <= created_at <= to} (either bound may be null),
+     * in key order or reversed. Blocks are located through the sparse index and inflated
+     * lazily as the stream is consumed.
+     */
+    public Stream<ArchivedTransaction> scan(long accountId, LocalDateTime from, LocalDateTime to, boolean descending) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        int first = firstBlockEndingAtOrAfter(accountId, fromMicros);
+        int last = lastBlockStartingAtOrBefore(accountId, toMicros);
+        if (first > last) {
+            return Stream.empty();
+        }
+        IntStream candidates = descending
+                ? IntStream.iterate(last, i -> i >= first, i -> i - 1)
+                : IntStream.rangeClosed(first, last);
+        return candidates.mapToObj(i -> {
+            List<ArchivedTransaction> rows = decode(i);
+            return (descending ? rows.reversed() : rows).stream()
+                    .filter(row -> row.accountId() == accountId)
+                    .filter(row -> {
+                        long micros = toMicros(row.createdAt());
+                        return micros >= fromMicros && micros <= toMicros;
+                    });
+        }).flatMap(rows -> rows);
+    }
+
+    /**
+     * Number of rows {@link #scan} would return for the same arguments. Blocks holding only
+     * this account's rows inside the range are counted from the index; only the blocks at
+     * either edge of the range are inflated.
+     */
+    public long count(long accountId, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        int first = firstBlockEndingAtOrAfter(accountId, fromMicros);
+        int last = lastBlockStartingAtOrBefore(accountId, toMicros);
+        long count = 0;
+        for (int i = first; i <= last; i++) {
+            Block block = blocks[i];
+            if (block.firstAccountId() == accountId && block.lastAccountId() == accountId
+                    && block.firstCreatedAt() >= fromMicros && block.lastCreatedAt() <= toMicros) {
+                count += block.rows();
+                continue;
+            }
+            for (ArchivedTransaction row : decode(i)) {
+                long micros = toMicros(row.createdAt());
+                if (row.accountId() == accountId && micros >= fromMicros && micros <= toMicros) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Blocks are in key order, so both bounds are binary searches over the index
+    private int firstBlockEndingAtOrAfter(long accountId, long micros) {
+        int low = 0;
+        int high = blocks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Block block = blocks[mid];
+            if (compare(block.lastAccountId(), block.lastCreatedAt(), accountId, micros) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int lastBlockStartingAtOrBefore(long accountId, long micros) {
+        int low = 0;
+        int high = blocks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Block block = blocks[mid];
+            if (compare(block.firstAccountId(), block.firstCreatedAt(), accountId, micros) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    private static int compare(long accountA, long microsA, long accountB, long microsB) {
+        int byAccount = Long.compare(accountA, accountB);
+        return byAccount != 0 ? byAccount : Long.compare(microsA, microsB);
+    }
+
+    private List<ArchivedTransaction> decode(int blockIndex) {
+        Block block = blocks[blockIndex];
+        byte[] raw = new byte[block.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice((int) block.offset(), block.compressedLength()));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != raw.length) {
+                throw new IllegalStateException("Truncated block " + blockIndex + " in archive segment " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block " + blockIndex + " in archive segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return decodeColumns(ByteBuffer.wrap(raw));
+    }
+
+    private static List<ArchivedTransaction> decodeColumns(ByteBuffer in) {
+        int rows = in.getInt();
+        long[] ids = new long[rows];
+        long[] accountIds = new long[rows];
+        long[] createdAt = new long[rows];
+        String[] types = new String[rows];
+        String[] statuses = new String[rows];
+        BigDecimal[] amounts = new BigDecimal[rows];
+        BigDecimal[] balances = new BigDecimal[rows];
+        String[] descriptions = new String[rows];
+        UUID[] correlationIds = new UUID[rows];
+        String[] keys = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = in.getLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            accountIds[i] = in.getLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            createdAt[i] = in.getLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            types[i] = readString(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            statuses[i] = readString(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            amounts[i] = readDecimal(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            balances[i] = readDecimal(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            descriptions[i] = readString(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            correlationIds[i] = readUuid(in);
+        }
+        for (int i = 0; i < rows; i++) {
+            keys[i] = readString(in);
+        }
+
+        List<ArchivedTransaction> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(new ArchivedTransaction(ids[i], accountIds[i], TransactionType.valueOf(types[i]),
+                    amounts[i], descriptions[i], correlationIds[i], keys[i],
+                    TransactionStatus.valueOf(statuses[i]), balances[i], fromMicros(createdAt[i])));
+        }
+        return result;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        int length = in.get();
+        if (length == 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return in.get() != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+    }
+}
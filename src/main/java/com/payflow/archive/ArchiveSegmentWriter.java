@@ -0,0 +1,231 @@
+package com.payflow.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one archive segment file. Rows must arrive sorted by (account_id, created_at, id);
+ * they are cut into blocks of {@code blockRows}, and each block is laid out column by
+ * column and deflated on its own, so a reader only inflates the blocks an account's range
+ * touches. After the blocks comes a sparse index with one entry per block (file offset,
+ * lengths, and the first and last key in it), then a fixed-size footer pointing at the index:
+ *
+ * <pre>
+ * MAGIC | block 0 | ... | block n-1 | index entry 0 | ... | index entry n-1 | footer
+ * footer = index offset (long), block count (int), row count (long), MAGIC
+ * </pre>
+ *
+ * A segment is written once and never modified.
+ */
+public final class ArchiveSegmentWriter implements Closeable {
+
+    static final long MAGIC = 0x4650534547303031L; // "FPSEG001"
+    static final int HEADER_BYTES = Long.BYTES;
+    static final int INDEX_ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES + 4 * Long.BYTES;
+    static final int FOOTER_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final int blockRows;
+    private final List<ArchivedTransaction> block;
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final Deflater deflater = new Deflater();
+    private long position;
+    private int blockCount;
+    private long rowCount;
+    private ArchivedTransaction last;
+    private boolean finished;
+
+    public ArchiveSegmentWriter(Path path, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows must be positive");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+        this.blockRows = blockRows;
+        this.block = new ArrayList<>(blockRows);
+        out.writeLong(MAGIC);
+        position = HEADER_BYTES;
+    }
+
+    public void append(ArchivedTransaction row) throws IOException {
+        if (last != null && compareKeys(last, row) > 0) {
+            throw new IllegalArgumentException("Archive rows must be sorted by account_id, created_at, id");
+        }
+        last = row;
+        block.add(row);
+        rowCount++;
+        if (block.size() == blockRows) {
+            flushBlock();
+        }
+    }
+
+    /** Bytes of completed blocks written so far; the open block is not counted. */
+    public long bytesWritten() {
+        return position;
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /** Writes the last block, the index and the footer, and forces the file to disk. */
+    public void finish() throws IOException {
+        if (!block.isEmpty()) {
+            flushBlock();
+        }
+        long indexOffset = position;
+        index.writeTo(out);
+        out.writeLong(indexOffset);
+        out.writeInt(blockCount);
+        out.writeLong(rowCount);
+        out.writeLong(MAGIC);
+        out.flush();
+        channel.force(true);
+        finished = true;
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (finished) {
+            channel.close();
+        } else {
+            // Abandoned: the caller discards the file
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        byte[] raw = encode(block);
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] chunk = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        compressed.writeTo(out);
+
+        ArchivedTransaction first = block.get(0);
+        ArchivedTransaction lastInBlock = block.get(block.size() - 1);
+        DataOutputStream entry = new DataOutputStream(index);
+        entry.writeLong(position);
+        entry.writeInt(compressed.size());
+        entry.writeInt(raw.length);
+        entry.writeInt(block.size());
+        entry.writeLong(first.accountId());
+        entry.writeLong(toMicros(first.createdAt()));
+        entry.writeLong(lastInBlock.accountId());
+        entry.writeLong(toMicros(lastInBlock.createdAt()));
+
+        position += compressed.size();
+        blockCount++;
+        block.clear();
+    }
+
+    // Column by column: similar values sit next to each other and deflate well
+    private static byte[] encode(List<ArchivedTransaction> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 96);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(rows.size());
+        for (ArchivedTransaction row : rows) {
+            data.writeLong(row.id());
+        }
+        for (ArchivedTransaction row : rows) {
+            data.writeLong(row.accountId());
+        }
+        for (ArchivedTransaction row : rows) {
+            data.writeLong(toMicros(row.createdAt()));
+        }
+        for (ArchivedTransaction row : rows) {
+            writeString(data, row.type().name());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeString(data, row.status().name());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeDecimal(data, row.amount());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeDecimal(data, row.balanceAfter());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeString(data, row.description());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeUuid(data, row.correlationId());
+        }
+        for (ArchivedTransaction row : rows) {
+            writeString(data, row.idempotencyKey());
+        }
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(utf8.length);
+        data.write(utf8);
+    }
+
+    // Unscaled two's-complement bytes with their scale; length 0 marks null
+    private static void writeDecimal(DataOutputStream data, BigDecimal value) throws IOException {
+        if (value == null) {
+            data.writeByte(0);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        data.writeByte(unscaled.length);
+        data.write(unscaled);
+        data.writeInt(value.scale());
+    }
+
+    private static void writeUuid(DataOutputStream data, UUID value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeLong(value.getMostSignificantBits());
+            data.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static int compareKeys(ArchivedTransaction a, ArchivedTransaction b) {
+        int byAccount = Long.compare(a.accountId(), b.accountId());
+        if (byAccount != 0) {
+            return byAccount;
+        }
+        int byTime = a.createdAt().compareTo(b.createdAt());
+        return byTime != 0 ? byTime : Long.compare(a.id(), b.id());
+    }
+}
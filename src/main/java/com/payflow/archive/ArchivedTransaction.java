@@ -0,0 +1,22 @@
+package com.payflow.archive;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/** A ledger row as stored in an archive segment; every column of {@code transactions} is kept. */
+public record ArchivedTransaction(
+        long id,
+        long accountId,
+        TransactionType type,
+        BigDecimal amount,
+        String description,
+        UUID correlationId,
+        String idempotencyKey,
+        TransactionStatus status,
+        BigDecimal balanceAfter,
+        LocalDateTime createdAt
+) {}
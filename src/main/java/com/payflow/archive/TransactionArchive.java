@@ -0,0 +1,206 @@
+package com.payflow.archive;
+
+import com.payflow.repository.TransactionFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The archived months of the ledger: one directory {@code transactions-YYYYMM} per month
+ * under {@code app.archive.directory}, holding that month's segment files in key order. A
+ * month directory appears in one atomic rename once all of its segments are written, and
+ * is never modified afterwards.
+ *
+ * Everything before {@link #boundary()} is served from here and everything from it on from
+ * the live table, so callers clamp their live queries to the boundary and a month is never
+ * read twice while its partition waits to be dropped.
+ */
+@Component
+@Slf4j
+public class TransactionArchive {
+
+    private static final Pattern MONTH_DIRECTORY = Pattern.compile("transactions-(\\d{6})");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final int MAX_CACHED_COUNTS = 4096;
+
+    private record MonthCount(YearMonth month, TransactionFilter filter) {}
+
+    private final Path directory;
+    private volatile NavigableMap<YearMonth, List<ArchiveSegment>> months = Collections.emptyNavigableMap();
+    // Access-ordered, so the least recently used counts are evicted first
+    private final Map<MonthCount, Long> monthCounts = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<MonthCount, Long> eldest) {
+                    return size() > MAX_CACHED_COUNTS;
+                }
+            });
+
+    public TransactionArchive(@Value("${app.archive.directory:${java.io.tmpdir}/fluxpay-archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /** Picks up months published by this or another instance sharing the directory. */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${app.archive.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        NavigableMap<YearMonth, List<ArchiveSegment>> current = months;
+        NavigableMap<YearMonth, List<ArchiveSegment>> loaded = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Matcher matcher = MONTH_DIRECTORY.matcher(entry.getFileName().toString());
+                if (!matcher.matches() || !Files.isDirectory(entry)) {
+                    continue;
+                }
+                YearMonth month = YearMonth.parse(matcher.group(1), MONTH);
+                List<ArchiveSegment> segments = current.get(month);
+                loaded.put(month, segments != null ? segments : openSegments(entry));
+            }
+        } catch (IOException e) {
+            log.warn("Could not load transaction archive from {}: {}", directory, e.getMessage());
+            return;
+        }
+        if (loaded.size() != current.size()) {
+            log.info("Transaction archive holds {} months", loaded.size());
+        }
+        months = Collections.unmodifiableNavigableMap(loaded);
+    }
+
+    /** Start of the live table's range: the first instant after the newest archived month, or null if nothing is archived. */
+    public LocalDateTime boundary() {
+        NavigableMap<YearMonth, List<ArchiveSegment>> snapshot = months;
+        return snapshot.isEmpty() ? null : snapshot.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    public Set<YearMonth> months() {
+        return months.keySet();
+    }
+
+    public Optional<Instant> publishedAt(YearMonth month) {
+        try {
+            return Optional.of(Files.getLastModifiedTime(monthDirectory(month)).toInstant());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Path monthDirectory(YearMonth month) {
+        return directory.resolve("transactions-" + month.format(MONTH));
+    }
+
+    public Path stagingDirectory(YearMonth month) {
+        return directory.resolve("transactions-" + month.format(MONTH) + ".part");
+    }
+
+    /**
+     * Archived rows matching every field of {@code filter}, ordered by (created_at, id) in
+     * the requested direction. Only months and blocks overlapping the filter's range are
+     * read; the stream decodes lazily, so callers can stop early with {@code limit}.
+     */
+    public Stream<ArchivedTransaction> stream(TransactionFilter filter, boolean newestFirst) {
+        NavigableMap<YearMonth, List<ArchiveSegment>> range = monthsFor(filter);
+        Stream<List<ArchiveSegment>> ordered = (newestFirst ? range.descendingMap() : range).values().stream();
+        return ordered
+                .flatMap(segments -> (newestFirst ? segments.reversed() : segments).stream())
+                .flatMap(segment -> scan(segment, filter, newestFirst));
+    }
+
+    /**
+     * Number of rows {@link #stream} would return. Months never change once published, so
+     * each month's count is cached per filter; without field filters a month is counted
+     * from the segment indexes, and only with them are its blocks inflated.
+     */
+    public long count(TransactionFilter filter) {
+        long total = 0;
+        for (Map.Entry<YearMonth, List<ArchiveSegment>> month : monthsFor(filter).entrySet()) {
+            MonthCount key = new MonthCount(month.getKey(), filter);
+            Long count = monthCounts.get(key);
+            if (count == null) {
+                // Counted outside the map's lock; two racing readers just compute the same value
+                count = countMonth(month.getValue(), filter);
+                monthCounts.put(key, count);
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private NavigableMap<YearMonth, List<ArchiveSegment>> monthsFor(TransactionFilter filter) {
+        NavigableMap<YearMonth, List<ArchiveSegment>> range = months;
+        if (filter.from() != null) {
+            range = range.tailMap(YearMonth.from(filter.from()), true);
+        }
+        if (filter.to() != null) {
+            range = range.headMap(YearMonth.from(filter.to()), true);
+        }
+        return range;
+    }
+
+    private static long countMonth(List<ArchiveSegment> segments, TransactionFilter filter) {
+        boolean fieldFilters = filter.type() != null || filter.status() != null
+                || filter.minAmount() != null || filter.maxAmount() != null;
+        long count = 0;
+        for (ArchiveSegment segment : segments) {
+            if (fieldFilters) {
+                try (Stream<ArchivedTransaction> rows = scan(segment, filter, false)) {
+                    count += rows.count();
+                }
+            } else {
+                count += segment.count(filter.accountId(), filter.from(), filter.to());
+            }
+        }
+        return count;
+    }
+
+    private static Stream<ArchivedTransaction> scan(ArchiveSegment segment, TransactionFilter filter, boolean newestFirst) {
+        return segment.scan(filter.accountId(), filter.from(), filter.to(), newestFirst)
+                .filter(row -> matches(filter, row));
+    }
+
+    static boolean matches(TransactionFilter filter, ArchivedTransaction row) {
+        return (filter.type() == null || row.type() == filter.type())
+                && (filter.status() == null || row.status() == filter.status())
+                && (filter.minAmount() == null || row.amount().compareTo(filter.minAmount()) >= 0)
+                && (filter.maxAmount() == null || row.amount().compareTo(filter.maxAmount()) <= 0);
+    }
+
+    // Segment files sort by name in the order they were written, which is key order
+    private static List<ArchiveSegment> openSegments(Path monthDirectory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(monthDirectory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+        List<ArchiveSegment> segments = new ArrayList<>(files.size());
+        for (Path file : files) {
+            segments.add(ArchiveSegment.open(file));
+        }
+        return List.copyOf(segments);
+    }
+}
@@ -0,0 +1,35 @@
+package com.payflow.config;
+
+import com.payflow.service.BalanceStrategyRegistry;
+import com.payflow.service.ConcurrencyMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/concurrencymode}: reads or switches the balance concurrency mode without
+ * a restart. Not exposed over HTTP by default; add it to
+ * {@code management.endpoints.web.exposure.include} on an operator-only management port.
+ */
+@Component
+@Endpoint(id = "concurrencymode")
+@RequiredArgsConstructor
+public class ConcurrencyModeEndpoint {
+
+    private final BalanceStrategyRegistry balanceStrategies;
+
+    @ReadOperation
+    public Map<String, ConcurrencyMode> mode() {
+        return Map.of("mode", balanceStrategies.getActiveMode());
+    }
+
+    @WriteOperation
+    public Map<String, ConcurrencyMode> setMode(ConcurrencyMode mode) {
+        balanceStrategies.setActiveMode(mode);
+        return mode();
+    }
+}
@@ -0,0 +1,243 @@
+package com.payflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.TimeoutOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Extra guards for {@code spring.threads.virtual.enabled=true}. Spring Boot itself moves
+ * Tomcat request handling, {@code @Scheduled} jobs and Kafka listener containers onto
+ * virtual threads; what it does not do is stop thousands of them from piling onto resources
+ * that are still sized for a few hundred platform threads:
+ *
+ * - JDBC: connections are handed out behind a fair semaphore sized to the Hikari pool, so
+ *   waiting happens on a cheap park rather than inside the pool. The permit wait and the
+ *   pool checkout share one Hikari connection timeout, so a request that cannot get a
+ *   connection fails within the same bound it did before.
+ * - Redis: Lettuce multiplexes every caller over one connection and queues commands without
+ *   limit by default. The queue is capped at {@code redis-max-queued-commands}, and commands
+ *   issued while disconnected are rejected instead of buffered; both fail fast.
+ * - Kafka: send futures complete on the producer's network thread; {@code OutboxRelay}
+ *   handles each outcome on a virtual thread instead, so that thread only does network I/O.
+ * - BCrypt: hashing is pure CPU; it is capped at the number of cores so logins cannot occupy
+ *   every carrier thread and starve requests that only need I/O.
+ *
+ * Pinning: nothing on our JDBC or Redis paths holds a monitor across I/O. pgjdbc replaced
+ * its {@code synchronized} blocks with locks in 42.6; startup fails on an older driver rather
+ * than pin every carrier under load. Lettuce waits on futures, not monitors. Run with
+ * {@code -Djdk.tracePinnedThreads=short} to catch regressions.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor boundedResourcePostProcessor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMs) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    requireNonPinningDriver();
+                    log.info("Virtual threads: bounding JDBC connections of '{}' to {} concurrent holders",
+                            beanName, poolSize);
+                    return new BoundedDataSource(dataSource, poolSize, connectionTimeoutMs);
+                }
+                if (bean instanceof PasswordEncoder encoder && !(bean instanceof BoundedPasswordEncoder)) {
+                    return new BoundedPasswordEncoder(encoder, cpus);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer boundedRedisClient(
+            @Value("${app.virtual-threads.redis-max-queued-commands:1024}") int maxQueuedCommands) {
+        log.info("Virtual threads: bounding the Redis command queue to {}", maxQueuedCommands);
+        // Replaces Boot's default options, so keep its per-command timeouts
+        return builder -> builder.clientOptions(ClientOptions.builder()
+                .timeoutOptions(TimeoutOptions.enabled())
+                .requestQueueSize(maxQueuedCommands)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+    }
+
+    static void requireNonPinningDriver() {
+        for (Driver driver : DriverManager.drivers().toList()) {
+            if (driver.getClass().getName().equals("org.postgresql.Driver")
+                    && (driver.getMajorVersion() < 42
+                        || (driver.getMajorVersion() == 42 && driver.getMinorVersion() < 6))) {
+                throw new IllegalStateException("pgjdbc " + driver.getMajorVersion() + "." + driver.getMinorVersion()
+                        + " synchronizes on socket I/O and pins virtual threads; upgrade to 42.6 or later,"
+                        + " or set spring.threads.virtual.enabled=false");
+            }
+        }
+    }
+
+    /**
+     * Holds a permit from {@code getConnection()} until the returned connection is closed.
+     * A Hikari target is checked out with whatever is left of {@code timeoutMs} after the
+     * permit wait, instead of starting its own full timeout. Other targets, and the
+     * username/password variant, have no checkout timeout to pass on; they fail once the
+     * permit wait has used up the budget and otherwise delegate.
+     */
+    static class BoundedDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final long timeoutMs;
+
+        BoundedDataSource(DataSource target, int permits, long timeoutMs) {
+            super(target);
+            this.permits = new Semaphore(permits, true);
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            acquire();
+            try {
+                return release(checkout(deadline));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            acquire();
+            try {
+                remainingMs(deadline);
+                return release(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        int availablePermits() {
+            return permits.availablePermits();
+        }
+
+        private Connection checkout(long deadline) throws SQLException {
+            // The pool is created on first use; until then there is no pool to bound
+            long remainingMs = remainingMs(deadline);
+            if (getTargetDataSource() instanceof HikariDataSource hikari
+                    && hikari.getHikariPoolMXBean() instanceof HikariPool pool) {
+                return pool.getConnection(remainingMs);
+            }
+            return super.getConnection();
+        }
+
+        private long remainingMs(long deadline) throws SQLException {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                throw new SQLTransientConnectionException(
+                        "No JDBC connection available within " + timeoutMs + "ms");
+            }
+            return remainingMs;
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "No JDBC connection available within " + timeoutMs + "ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted waiting for a JDBC connection", e);
+            }
+        }
+
+        // Returns the permit exactly once, on the first close()
+        private Connection release(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                            return proxy;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    /** Caps concurrent hashes; matching is where logins spend their time. */
+    static class BoundedPasswordEncoder implements PasswordEncoder {
+
+        private final PasswordEncoder delegate;
+        private final Semaphore permits;
+
+        BoundedPasswordEncoder(PasswordEncoder delegate, int permits) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(permits);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            permits.acquireUninterruptibly();
+            try {
+                return delegate.encode(rawPassword);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            permits.acquireUninterruptibly();
+            try {
+                return delegate.matches(rawPassword, encodedPassword);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+    }
+}
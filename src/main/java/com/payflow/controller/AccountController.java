@@ -1,16 +1,22 @@
 package com.payflow.controller;
 
 import com.payflow.dto.AccountResponse;
+import com.payflow.dto.BalanceAsOfResponse;
 import com.payflow.dto.CreateAccountRequest;
 import com.payflow.dto.UpdateAccountStatusRequest;
+import com.payflow.dto.UpdateShardingRequest;
 import com.payflow.service.AccountService;
+import com.payflow.service.BalanceCheckpointService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +25,7 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final BalanceCheckpointService balanceCheckpointService;
 
     @PostMapping
     public ResponseEntity<AccountResponse> create(
@@ -30,17 +37,29 @@ public class AccountController {
     }
 
     @GetMapping
-    public ResponseEntity<List<AccountResponse>> getAll(Authentication authentication) {
+    public ResponseEntity<List<AccountResponse>> getAll(Authentication authentication, WebRequest webRequest) {
         Long userId = Long.parseLong(authentication.getName());
-        return ResponseEntity.ok(accountService.getByUserId(userId));
+        return ConditionalGet.respond(webRequest, accountService.versionTagForUser(userId),
+                () -> accountService.getByUserId(userId));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<AccountResponse> getById(
             @PathVariable Long id,
+            Authentication authentication,
+            WebRequest webRequest) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ConditionalGet.respond(webRequest, accountService.versionTag(id, userId),
+                () -> accountService.getById(id, userId));
+    }
+
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<BalanceAsOfResponse> getBalanceAsOf(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf,
             Authentication authentication) {
         Long userId = Long.parseLong(authentication.getName());
-        return ResponseEntity.ok(accountService.getById(id, userId));
+        return ResponseEntity.ok(balanceCheckpointService.balanceAsOf(id, asOf, userId));
     }
 
     @PatchMapping("/{id}/status")
@@ -51,4 +70,13 @@ public class AccountController {
         Long userId = Long.parseLong(authentication.getName());
         return ResponseEntity.ok(accountService.updateStatus(id, userId, request));
     }
+
+    @PatchMapping("/{id}/sharding")
+    public ResponseEntity<AccountResponse> updateSharding(
+            @PathVariable Long id,
+            @Valid @RequestBody UpdateShardingRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(accountService.updateSharding(id, userId, request));
+    }
 }
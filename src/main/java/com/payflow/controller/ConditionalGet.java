@@ -0,0 +1,25 @@
+package com.payflow.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET against a version tag that the services read without loading entities.
+ * The tag is read before the body, so a write landing in between costs the client one more
+ * full response at worst; a 304 never covers a representation the client hasn't seen.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // null tells Spring MVC the 304 set by checkNotModified is the whole response
+    static <T> ResponseEntity<T> respond(WebRequest request, String tag, Supplier<T> body) {
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(tag).body(body.get());
+    }
+}
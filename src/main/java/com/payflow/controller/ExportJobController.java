@@ -0,0 +1,148 @@
+package com.payflow.controller;
+
+import com.payflow.dto.CreateExportJobRequest;
+import com.payflow.dto.ExportJobResponse;
+import com.payflow.service.ExportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import jakarta.servlet.ServletOutputStream;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    // Tomcat's sendfile hand-off: the connector streams the file itself once the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long MAP_WINDOW_BYTES = 8L * 1024 * 1024;
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final ExportJobService exportJobService;
+
+    @PostMapping
+    public ResponseEntity<ExportJobResponse> submit(@Valid @RequestBody CreateExportJobRequest request,
+                                                    Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        ExportJobResponse job = exportJobService.submit(request, userId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/exports/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ExportJobResponse>> getAll(Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(exportJobService.getByUserId(userId));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobResponse> getById(@PathVariable Long id, Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(exportJobService.get(id, userId));
+    }
+
+    /**
+     * Serves the finished file, honouring a single-range {@code Range} header (guarded by
+     * {@code If-Range}) so an interrupted download can resume where it stopped.
+     */
+    @GetMapping("/{id}/file")
+    public void download(@PathVariable Long id,
+                         HttpServletRequest request,
+                         HttpServletResponse response,
+                         Authentication authentication) throws IOException {
+        Long userId = Long.parseLong(authentication.getName());
+        ExportJobService.ExportFile file = exportJobService.openFile(id, userId);
+        long size = file.size();
+        String etag = "\"export-" + id + "-" + size + "\"";
+
+        response.setContentType("text/csv");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transactions-" + id + ".csv");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multi-range requests get the whole file, which the spec allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    // A first byte past the end parses fine but cannot be served
+                    if (start >= size || start > end) {
+                        throw new IllegalArgumentException("Range starts past the end of the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        send(file.path(), start, length, request, response);
+    }
+
+    private void send(Path path, long start, long length, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        // No sendfile (e.g. a TLS connector, which has to encrypt in the JVM, or a test container).
+        // Tomcat's stream takes a ByteBuffer, so mapped windows of the file are copied once, straight
+        // into its socket buffer; any other stream gets one heap buffer per read
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(path)) {
+            if (out instanceof CoyoteOutputStream coyote) {
+                long end = start + length;
+                for (long position = start; position < end; position += MAP_WINDOW_BYTES) {
+                    coyote.write(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAP_WINDOW_BYTES, end - position)));
+                }
+                return;
+            }
+            byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_BYTES, Math.max(length, 1))];
+            ByteBuffer window = ByteBuffer.wrap(buffer);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                window.clear().limit((int) Math.min(buffer.length, remaining));
+                int read = channel.read(window, position);
+                if (read <= 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                position += read;
+                remaining -= read;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.payflow.controller;
+
+import com.payflow.dto.CaptureHoldRequest;
+import com.payflow.dto.CreateHoldRequest;
+import com.payflow.dto.HoldResponse;
+import com.payflow.service.HoldService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+public class HoldController {
+
+    private final HoldService holdService;
+
+    @PostMapping
+    public ResponseEntity<HoldResponse> authorize(
+            @Valid @RequestBody CreateHoldRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(holdService.authorize(request, userId));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<HoldResponse>> getByAccount(
+            @RequestParam Long accountId,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(holdService.getByAccountId(accountId, userId));
+    }
+
+    @PostMapping("/{id}/capture")
+    public ResponseEntity<HoldResponse> capture(
+            @PathVariable Long id,
+            @Valid @RequestBody(required = false) CaptureHoldRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(holdService.capture(id, request, userId));
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<HoldResponse> release(
+            @PathVariable Long id,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(holdService.release(id, userId));
+    }
+}
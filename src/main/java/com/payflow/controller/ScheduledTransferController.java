@@ -0,0 +1,44 @@
+package com.payflow.controller;
+
+import com.payflow.dto.CreateScheduledTransferRequest;
+import com.payflow.dto.ScheduledTransferResponse;
+import com.payflow.service.ScheduledTransferService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/scheduled-transfers")
+@RequiredArgsConstructor
+public class ScheduledTransferController {
+
+    private final ScheduledTransferService scheduledTransferService;
+
+    @PostMapping
+    public ResponseEntity<ScheduledTransferResponse> create(
+            @Valid @RequestBody CreateScheduledTransferRequest request,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(scheduledTransferService.create(request, userId));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScheduledTransferResponse>> getAll(Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(scheduledTransferService.getByUserId(userId));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ScheduledTransferResponse> cancel(
+            @PathVariable Long id,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(scheduledTransferService.cancel(id, userId));
+    }
+}
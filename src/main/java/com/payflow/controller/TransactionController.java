@@ -3,6 +3,9 @@ package com.payflow.controller;
 import com.payflow.dto.*;
 import com.payflow.model.TransactionStatus;
 import com.payflow.model.TransactionType;
+import com.payflow.repository.TransactionFilter;
+import com.payflow.service.BatchTransactionService;
+import com.payflow.service.TransactionCsvExporter;
 import com.payflow.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,18 +13,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.PrintWriter;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -36,8 +42,13 @@ public class TransactionController {
             "status", "status"
     );
     private static final int MAX_PAGE_SIZE = 100;
+    // Long-poll cap; keeps waiters short-lived and well inside spring.mvc.async.request-timeout (10m, sized for CSV streaming)
+    private static final long MAX_WAIT_MS = 20_000;
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 
     private final TransactionService transactionService;
+    private final BatchTransactionService batchTransactionService;
+    private final TransactionCsvExporter transactionCsvExporter;
 
     @PostMapping("/deposit")
     public ResponseEntity<TransactionResponse> deposit(@Valid @RequestBody DepositRequest request,
@@ -60,6 +71,31 @@ public class TransactionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(transactionService.transfer(request, userId));
     }
 
+    @PostMapping("/transfer/split")
+    public ResponseEntity<SplitTransferResponse> transferSplit(@Valid @RequestBody SplitTransferRequest request,
+                                                               Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(transactionService.transferSplit(request, userId));
+    }
+
+    @PostMapping("/transfer/async")
+    public ResponseEntity<PendingTransferResponse> transferAsync(@Valid @RequestBody TransferRequest request,
+                                                                 Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        TransactionResponse debit = transactionService.transferAsync(request, userId);
+        String statusUrl = "/api/transactions/" + debit.id();
+        return ResponseEntity.accepted()
+                .location(URI.create(statusUrl))
+                .body(new PendingTransferResponse(debit.id(), debit.correlationId(), debit.status(), statusUrl));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransactionResponse> batch(@Valid @RequestBody BatchTransactionRequest request,
+                                                          Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ResponseEntity.ok(batchTransactionService.execute(request, userId));
+    }
+
     @GetMapping
     public ResponseEntity<Page<TransactionResponse>> getTransactions(
             @RequestParam Long accountId,
@@ -73,7 +109,8 @@ public class TransactionController {
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         Long userId = Long.parseLong(authentication.getName());
 
         // Clamp page size
@@ -86,46 +123,72 @@ public class TransactionController {
         String column = SORT_FIELD_TO_COLUMN.getOrDefault(sortBy, "created_at");
 
         Sort sort = sortDir.equalsIgnoreCase("asc") ? Sort.by(column).ascending() : Sort.by(column).descending();
-        return ResponseEntity.ok(transactionService.getTransactions(
-                accountId, type, status, from, to, minAmount, maxAmount,
-                PageRequest.of(page, size, sort), userId));
+        PageRequest pageable = PageRequest.of(page, size, sort);
+        return ConditionalGet.respond(webRequest, transactionService.ledgerTag(accountId, userId),
+                () -> transactionService.getTransactions(
+                        accountId, type, status, from, to, minAmount, maxAmount, pageable, userId));
     }
 
-    @GetMapping("/export")
-    public void exportCsv(
+    // Keyset pagination: stable cost at any depth, newest first, no total count
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<TransactionResponse>> getTransactionsByCursor(
             @RequestParam Long accountId,
             @RequestParam(required = false) TransactionType type,
             @RequestParam(required = false) TransactionStatus status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             Authentication authentication,
-            jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+            WebRequest webRequest) {
         Long userId = Long.parseLong(authentication.getName());
-        List<com.payflow.model.Transaction> transactions = transactionService.exportTransactions(
-                accountId, type, status, from, to, userId);
-
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", "attachment; filename=transactions.csv");
-
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        PrintWriter writer = response.getWriter();
-        writer.println("Date,Type,Amount,Description,Status,Balance After");
-        for (com.payflow.model.Transaction tx : transactions) {
-            writer.printf("%s,%s,%s,\"%s\",%s,%s%n",
-                    tx.getCreatedAt() != null ? tx.getCreatedAt().format(fmt) : "",
-                    tx.getType(),
-                    tx.getAmount().toPlainString(),
-                    tx.getDescription() != null ? tx.getDescription().replace("\"", "\"\"") : "",
-                    tx.getStatus(),
-                    tx.getBalanceAfter().toPlainString());
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return ConditionalGet.respond(webRequest, transactionService.ledgerTag(accountId, userId),
+                () -> transactionService.getTransactionsAfter(
+                        accountId, type, status, from, to, minAmount, maxAmount, cursor, limit, userId));
+    }
+
+    // Streams from a DB cursor; gzip when the client accepts it
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestParam Long accountId,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication) {
+        Long userId = Long.parseLong(authentication.getName());
+        TransactionFilter filter = transactionCsvExporter.prepare(accountId, type, status, from, to, userId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transactions.csv")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        writer.flush();
+        return response.body(out -> transactionCsvExporter.write(filter, out, gzip));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<TransactionResponse> getById(@PathVariable Long id,
-                                                       Authentication authentication) {
+                                                       Authentication authentication,
+                                                       WebRequest webRequest) {
+        Long userId = Long.parseLong(authentication.getName());
+        return ConditionalGet.respond(webRequest, transactionService.versionTag(id, userId),
+                () -> transactionService.getById(id, userId));
+    }
+
+    // Long-poll: the request thread is released while a PENDING transfer settles
+    @GetMapping(value = "/{id}", params = "waitMs")
+    public CompletableFuture<TransactionResponse> awaitById(@PathVariable Long id,
+                                                            @RequestParam long waitMs,
+                                                            Authentication authentication) {
         Long userId = Long.parseLong(authentication.getName());
-        return ResponseEntity.ok(transactionService.getById(id, userId));
+        return transactionService.awaitTransaction(id, Math.min(Math.max(waitMs, 0), MAX_WAIT_MS), userId);
     }
 }
@@ -11,16 +11,22 @@ public record AccountResponse(
         Long userId,
         String accountName,
         BigDecimal balance,
+        BigDecimal availableBalance,
         String currency,
         AccountStatus status,
         LocalDateTime createdAt
 ) {
     public static AccountResponse from(Account account) {
+        return from(account, account.getBalance());
+    }
+
+    public static AccountResponse from(Account account, BigDecimal balance) {
         return new AccountResponse(
                 account.getId(),
                 account.getUserId(),
                 account.getAccountName(),
-                account.getBalance(),
+                balance,
+                balance.subtract(account.getHeldAmount()),
                 account.getCurrency(),
                 account.getStatus(),
                 account.getCreatedAt()
@@ -0,0 +1,14 @@
+package com.payflow.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** {@code checkpointAsOf} is null when no checkpoint precedes {@code asOf} and the whole history was summed. */
+public record BalanceAsOfResponse(
+        Long accountId,
+        LocalDateTime asOf,
+        BigDecimal balance,
+        String currency,
+        LocalDateTime checkpointAsOf,
+        long tailTransactions
+) {}
@@ -0,0 +1,39 @@
+package com.payflow.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BatchTransactionRequest(
+        @NotEmpty(message = "At least one item is required")
+        @Size(max = 10000, message = "A batch must not exceed 10000 items")
+        List<@Valid Item> items
+) {
+    public enum ItemType {
+        TRANSFER, DEPOSIT, WITHDRAW
+    }
+
+    /**
+     * {@code accountId} is the source for transfers and withdrawals and the target for deposits;
+     * {@code destinationAccountId} is only used by transfers.
+     */
+    public record Item(
+            @NotNull(message = "Item type is required") ItemType type,
+            @NotNull(message = "Account ID is required") Long accountId,
+            Long destinationAccountId,
+            @NotNull(message = "Amount is required")
+            @DecimalMin(value = "0.01", message = "Amount must be positive")
+            @Digits(integer = 15, fraction = 4, message = "Amount exceeds precision limits")
+            BigDecimal amount,
+            @Size(max = 255, message = "Description must not exceed 255 characters") String description,
+            @NotBlank(message = "Idempotency key is required")
+            @Size(max = 100, message = "Idempotency key must not exceed 100 characters") String idempotencyKey
+    ) {}
+}
@@ -0,0 +1,28 @@
+package com.payflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchTransactionResponse(int total, int succeeded, int failed, List<ItemResult> results) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemResult(
+            int index,
+            String idempotencyKey,
+            boolean success,
+            UUID correlationId,
+            List<TransactionResponse> transactions,
+            String error
+    ) {
+        public static ItemResult success(int index, String idempotencyKey, UUID correlationId,
+                                         List<TransactionResponse> transactions) {
+            return new ItemResult(index, idempotencyKey, true, correlationId, transactions, null);
+        }
+
+        public static ItemResult failure(int index, String idempotencyKey, String error) {
+            return new ItemResult(index, idempotencyKey, false, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.payflow.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+
+import java.math.BigDecimal;
+
+/** {@code amount} defaults to the full hold; anything less releases the remainder. */
+public record CaptureHoldRequest(
+        @DecimalMin(value = "0.01", message = "Amount must be positive")
+        @Digits(integer = 15, fraction = 4, message = "Amount exceeds precision limits")
+        BigDecimal amount
+) {}
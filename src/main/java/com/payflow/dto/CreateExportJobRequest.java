@@ -0,0 +1,15 @@
+package com.payflow.dto;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public record CreateExportJobRequest(
+        @NotNull(message = "Account ID is required") Long accountId,
+        TransactionType type,
+        TransactionStatus status,
+        LocalDateTime from,
+        LocalDateTime to
+) {}
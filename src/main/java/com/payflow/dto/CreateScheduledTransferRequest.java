@@ -0,0 +1,25 @@
+package com.payflow.dto;
+
+import com.payflow.model.Recurrence;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CreateScheduledTransferRequest(
+        @NotNull(message = "Source account ID is required") Long sourceAccountId,
+        @NotNull(message = "Destination account ID is required") Long destinationAccountId,
+        @NotNull(message = "Amount is required")
+        @DecimalMin(value = "0.01", message = "Amount must be positive")
+        @Digits(integer = 15, fraction = 4, message = "Amount exceeds precision limits")
+        BigDecimal amount,
+        @Size(max = 255, message = "Description must not exceed 255 characters") String description,
+        @NotNull(message = "Recurrence is required") Recurrence recurrence,
+        @NotNull(message = "First run time is required")
+        @FutureOrPresent(message = "First run time must not be in the past") LocalDateTime firstRunAt,
+        LocalDateTime endAt
+) {}
@@ -0,0 +1,13 @@
+package com.payflow.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. There is no total count; pass {@code nextCursor}
+ * back to fetch the following slice, which is null once {@code hasMore} is false.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasMore
+) {}
@@ -0,0 +1,35 @@
+package com.payflow.dto;
+
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+
+import java.time.LocalDateTime;
+
+/** {@code downloadUrl} is only set once the job has COMPLETED and until its file expires. */
+public record ExportJobResponse(
+        Long id,
+        Long accountId,
+        ExportJobStatus status,
+        Long rowCount,
+        Long sizeBytes,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime completedAt,
+        LocalDateTime expiresAt,
+        String downloadUrl
+) {
+    public static ExportJobResponse from(ExportJob job) {
+        return new ExportJobResponse(
+                job.getId(),
+                job.getAccountId(),
+                job.getStatus(),
+                job.getRowCount(),
+                job.getSizeBytes(),
+                job.getError(),
+                job.getCreatedAt(),
+                job.getCompletedAt(),
+                job.getExpiresAt(),
+                job.getStatus() == ExportJobStatus.COMPLETED ? "/api/exports/" + job.getId() + "/file" : null
+        );
+    }
+}
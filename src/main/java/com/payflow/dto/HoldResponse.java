@@ -0,0 +1,35 @@
+package com.payflow.dto;
+
+import com.payflow.model.Hold;
+import com.payflow.model.HoldStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record HoldResponse(
+        Long id,
+        Long accountId,
+        BigDecimal amount,
+        BigDecimal capturedAmount,
+        String description,
+        HoldStatus status,
+        LocalDateTime expiresAt,
+        Long transactionId,
+        LocalDateTime createdAt,
+        LocalDateTime resolvedAt
+) {
+    public static HoldResponse from(Hold hold) {
+        return new HoldResponse(
+                hold.getId(),
+                hold.getAccountId(),
+                hold.getAmount(),
+                hold.getCapturedAmount(),
+                hold.getDescription(),
+                hold.getStatus(),
+                hold.getExpiresAt(),
+                hold.getTransactionId(),
+                hold.getCreatedAt(),
+                hold.getResolvedAt()
+        );
+    }
+}
@@ -0,0 +1,7 @@
+package com.payflow.dto;
+
+import com.payflow.model.TransactionStatus;
+
+import java.util.UUID;
+
+public record PendingTransferResponse(Long transactionId, UUID correlationId, TransactionStatus status, String statusUrl) {}
@@ -0,0 +1,40 @@
+package com.payflow.dto;
+
+import com.payflow.model.Recurrence;
+import com.payflow.model.ScheduledTransfer;
+import com.payflow.model.ScheduledTransferStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ScheduledTransferResponse(
+        Long id,
+        Long sourceAccountId,
+        Long destinationAccountId,
+        BigDecimal amount,
+        String description,
+        Recurrence recurrence,
+        LocalDateTime nextRunAt,
+        LocalDateTime endAt,
+        ScheduledTransferStatus status,
+        int runCount,
+        String lastError,
+        LocalDateTime createdAt
+) {
+    public static ScheduledTransferResponse from(ScheduledTransfer schedule) {
+        return new ScheduledTransferResponse(
+                schedule.getId(),
+                schedule.getSourceAccountId(),
+                schedule.getDestinationAccountId(),
+                schedule.getAmount(),
+                schedule.getDescription(),
+                schedule.getRecurrence(),
+                schedule.getOccurrenceAt(),
+                schedule.getEndAt(),
+                schedule.getStatus(),
+                schedule.getRunCount(),
+                schedule.getLastError(),
+                schedule.getCreatedAt()
+        );
+    }
+}
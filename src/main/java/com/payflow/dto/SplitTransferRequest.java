@@ -0,0 +1,32 @@
+package com.payflow.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record SplitTransferRequest(
+        @NotNull(message = "Source account ID is required") Long sourceAccountId,
+        @NotEmpty(message = "At least one leg is required")
+        @Size(max = 100, message = "A split transfer must not exceed 100 legs")
+        List<@Valid Leg> legs,
+        @Size(max = 255, message = "Description must not exceed 255 characters") String description,
+        @NotBlank(message = "Idempotency key is required")
+        @Size(max = 100, message = "Idempotency key must not exceed 100 characters") String idempotencyKey
+) {
+    /** A leg without its own description uses the request's. */
+    public record Leg(
+            @NotNull(message = "Destination account ID is required") Long destinationAccountId,
+            @NotNull(message = "Amount is required")
+            @DecimalMin(value = "0.01", message = "Amount must be positive")
+            @Digits(integer = 15, fraction = 4, message = "Amount exceeds precision limits")
+            BigDecimal amount,
+            @Size(max = 255, message = "Description must not exceed 255 characters") String description
+    ) {}
+}
@@ -0,0 +1,6 @@
+package com.payflow.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record SplitTransferResponse(UUID correlationId, TransactionResponse debit, List<TransactionResponse> credits) {}
@@ -1,5 +1,6 @@
 package com.payflow.dto;
 
+import com.payflow.archive.ArchivedTransaction;
 import com.payflow.model.Transaction;
 import com.payflow.model.TransactionStatus;
 import com.payflow.model.TransactionType;
@@ -32,4 +33,18 @@ public record TransactionResponse(
                 tx.getCreatedAt()
         );
     }
+
+    public static TransactionResponse from(ArchivedTransaction tx) {
+        return new TransactionResponse(
+                tx.id(),
+                tx.accountId(),
+                tx.type(),
+                tx.amount(),
+                tx.description(),
+                tx.correlationId(),
+                tx.status(),
+                tx.balanceAfter(),
+                tx.createdAt()
+        );
+    }
 }
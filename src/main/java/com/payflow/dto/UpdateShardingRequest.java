@@ -0,0 +1,11 @@
+package com.payflow.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record UpdateShardingRequest(
+        @NotNull(message = "Shard count is required")
+        @Min(value = 0, message = "Shard count must not be negative")
+        @Max(value = 64, message = "Shard count must not exceed 64") Integer shardCount
+) {}
@@ -3,12 +3,12 @@ package com.payflow.event;
 import com.payflow.config.KafkaConfig;
 import com.payflow.model.DailySummary;
 import com.payflow.repository.DailySummaryRepository;
+import com.payflow.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Component
@@ -28,13 +28,15 @@ public class DailySummaryConsumer {
 
         switch (event.transactionType()) {
             case CREDIT -> summary.setTotalCredits(
-                    summary.getTotalCredits().add(event.amount()));
+                    Money.of(summary.getTotalCredits()).plus(event.amount()).toBigDecimal());
             case DEBIT -> summary.setTotalDebits(
-                    summary.getTotalDebits().add(event.amount()));
+                    Money.of(summary.getTotalDebits()).plus(event.amount()).toBigDecimal());
         }
 
         summary.setTransactionCount(summary.getTransactionCount() + 1);
-        summary.setClosingBalance(event.balanceAfter());
+        if (event.balanceAfter() != null) {
+            summary.setClosingBalance(event.balanceAfter().toBigDecimal());
+        }
 
         dailySummaryRepository.save(summary);
 
@@ -0,0 +1,174 @@
+package com.payflow.event;
+
+import com.payflow.config.KafkaConfig;
+import com.payflow.model.OutboxEvent;
+import com.payflow.repository.OutboxEventRepository;
+import com.payflow.service.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the event outbox to Kafka in three steps, none of which holds a transaction across
+ * the broker round trip:
+ * <ol>
+ *   <li>a short transaction leases the oldest events of up to {@code batch-size} accounts;
+ *   an account's events are only ever leased by one relay at a time;</li>
+ *   <li>the batch is sent asynchronously, keyed by account, so the producer can batch records;</li>
+ *   <li>a second short transaction deletes, per account, the events delivered before its
+ *   first failure and releases the rest with the failure's attempt count bumped.</li>
+ * </ol>
+ * Everything after an account's first failure is sent again in order on the next pass, so
+ * delivery is at-least-once and the latest copy of each event arrives in account order. A
+ * relay that dies mid-send leaves leases that expire after {@code lease-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, TransactionEvent> kafkaTemplate;
+    private final MetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long leaseMs;
+    // Spring Kafka completes sends on the producer's network thread; with virtual threads on,
+    // each outcome is handled on a virtual thread of its own instead
+    private final Executor sendCallbackExecutor;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, TransactionEvent> kafkaTemplate,
+                       MetricsService metricsService,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${app.outbox.relay.lease-ms:60000}") long leaseMs,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (leaseMs <= sendTimeoutMs) {
+            throw new IllegalArgumentException("app.outbox.relay.lease-ms must exceed send-timeout-ms");
+        }
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.metricsService = metricsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.sendCallbackExecutor = virtualThreads
+                ? command -> Thread.ofVirtual().name("outbox-send-callback").start(command)
+                : Runnable::run;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval-ms:200}")
+    public void relay() {
+        // Keep draining while batches come back full and the broker is healthy
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claim());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent row : batch) {
+            sends.add(kafkaTemplate.send(KafkaConfig.TRANSACTION_EVENTS_TOPIC,
+                    String.valueOf(row.getAccountId()), row.toEvent())
+                    .handleAsync((result, failure) -> sent(row, failure), sendCallbackExecutor));
+        }
+
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        List<Long> heldBack = new ArrayList<>();
+        Set<Long> blockedAccounts = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent row = batch.get(i);
+            boolean sent = awaitSend(sends.get(i), deadline);
+            if (blockedAccounts.contains(row.getAccountId())) {
+                // Already on the wire, but resent after the earlier failure so the order holds
+                heldBack.add(row.getId());
+            } else if (sent) {
+                delivered.add(row.getId());
+            } else {
+                failed.add(row.getId());
+                blockedAccounts.add(row.getAccountId());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(delivered);
+            }
+            if (!failed.isEmpty()) {
+                outboxEventRepository.incrementAttempts(failed);
+            }
+            if (!heldBack.isEmpty()) {
+                outboxEventRepository.releaseClaims(heldBack);
+            }
+        });
+
+        if (!delivered.isEmpty()) {
+            metricsService.recordOutboxRelayed(delivered.size());
+        }
+        if (!failed.isEmpty()) {
+            metricsService.recordOutboxFailed(failed.size());
+            log.warn("Outbox relay: {} of {} events failed to send, will retry", failed.size(), batch.size());
+            return 0;
+        }
+        log.debug("Outbox relay: sent {} events", delivered.size());
+        return batch.size();
+    }
+
+    private List<OutboxEvent> claim() {
+        List<Long> accounts = outboxEventRepository.lockClaimableAccounts(batchSize);
+        if (accounts.isEmpty()) {
+            return List.of();
+        }
+        List<OutboxEvent> claimed = new ArrayList<>(outboxEventRepository.claimForAccounts(accounts, batchSize, leaseMs));
+        // RETURNING has no defined order; sends must go out oldest first
+        claimed.sort(Comparator.comparing(OutboxEvent::getId));
+        return claimed;
+    }
+
+    private static boolean sent(OutboxEvent row, Throwable failure) {
+        if (failure != null) {
+            log.debug("Outbox event {} failed to send: {}", row.getId(), failure.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean awaitSend(CompletableFuture<Boolean> send, long deadline) {
+        try {
+            return send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
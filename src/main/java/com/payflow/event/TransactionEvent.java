@@ -1,6 +1,7 @@
 package com.payflow.event;
 
-import java.math.BigDecimal;
+import com.payflow.util.Money;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -9,8 +10,8 @@ public record TransactionEvent(
         Long accountId,
         EventType eventType,
         TransactionEventType transactionType,
-        BigDecimal amount,
-        BigDecimal balanceAfter,
+        Money amount,
+        Money balanceAfter,
         UUID correlationId,
         LocalDateTime timestamp
 ) {
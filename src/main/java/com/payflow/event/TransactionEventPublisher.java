@@ -1,30 +1,34 @@
 package com.payflow.event;
 
-import com.payflow.config.KafkaConfig;
+import com.payflow.model.OutboxEvent;
+import com.payflow.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+/**
+ * Stages events in the outbox as part of the caller's transaction, so an event exists
+ * exactly when its ledger rows commit. {@link OutboxRelay} ships them to Kafka afterwards;
+ * nothing here touches the broker.
+ */
 @Component
 @RequiredArgsConstructor
-@Slf4j
 public class TransactionEventPublisher {
 
-    private final KafkaTemplate<String, TransactionEvent> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publish(TransactionEvent event) {
-        String key = String.valueOf(event.accountId());
-        kafkaTemplate.send(KafkaConfig.TRANSACTION_EVENTS_TOPIC, key, event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish transaction event for account {}: {}",
-                                event.accountId(), ex.getMessage());
-                    } else {
-                        log.debug("Published {} event for account {}, partition {}",
-                                event.eventType(), event.accountId(),
-                                result.getRecordMetadata().partition());
-                    }
-                });
+        outboxEventRepository.save(OutboxEvent.from(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<TransactionEvent> events) {
+        if (!events.isEmpty()) {
+            outboxEventRepository.saveAll(events.stream().map(OutboxEvent::from).toList());
+        }
     }
 }
@@ -0,0 +1,13 @@
+package com.payflow.exception;
+
+import lombok.Getter;
+
+@Getter
+public class AccountBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public AccountBusyException(Long id, long retryAfterSeconds) {
+        super("Account is busy, try again shortly: " + id);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.payflow.exception;
+
+public class ExportLimitExceededException extends RuntimeException {
+    public ExportLimitExceededException(int maxActive) {
+        super("At most " + maxActive + " exports can be queued or running at once; wait for one to finish");
+    }
+}
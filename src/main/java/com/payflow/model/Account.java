@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_id_seq")
+    @SequenceGenerator(name = "accounts_id_seq", sequenceName = "accounts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -30,6 +31,10 @@ public class Account {
     @Column(nullable = false, precision = 19, scale = 4)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    /** Sum of the account's ACTIVE holds; debits may only spend what is above it. */
+    @Column(name = "held_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+
     @Column(nullable = false, length = 3)
     private String currency = "USD";
 
@@ -41,6 +46,9 @@ public class Account {
     @Column(nullable = false)
     private Integer version = 0;
 
+    @Column(name = "shard_count", nullable = false)
+    private Integer shardCount = 0;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -50,6 +58,14 @@ public class Account {
         this.currency = currency;
     }
 
+    public BigDecimal getAvailableBalance() {
+        return balance.subtract(heldAmount);
+    }
+
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 0;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
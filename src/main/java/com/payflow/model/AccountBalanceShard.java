@@ -0,0 +1,41 @@
+package com.payflow.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "account_balance_shards")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AccountBalanceShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_balance_shards_id_seq")
+    @SequenceGenerator(name = "account_balance_shards_id_seq", sequenceName = "account_balance_shards_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "shard_index", nullable = false)
+    private Integer shardIndex;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    // Bumped by every shard write, including the native credit and debit updates
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    public AccountBalanceShard(Long accountId, Integer shardIndex, BigDecimal balance) {
+        this.accountId = accountId;
+        this.shardIndex = shardIndex;
+        this.balance = balance;
+    }
+}
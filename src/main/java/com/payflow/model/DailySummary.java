@@ -16,7 +16,8 @@ import java.time.LocalDate;
 public class DailySummary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_account_summaries_id_seq")
+    @SequenceGenerator(name = "daily_account_summaries_id_seq", sequenceName = "daily_account_summaries_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_id", nullable = false)
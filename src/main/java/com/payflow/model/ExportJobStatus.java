@@ -0,0 +1,5 @@
+package com.payflow.model;
+
+public enum ExportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED, EXPIRED
+}
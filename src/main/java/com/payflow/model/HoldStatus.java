@@ -0,0 +1,5 @@
+package com.payflow.model;
+
+public enum HoldStatus {
+    ACTIVE, CAPTURED, RELEASED, EXPIRED
+}
@@ -0,0 +1,86 @@
+package com.payflow.model;
+
+import com.payflow.event.TransactionEvent;
+import com.payflow.event.TransactionEvent.EventType;
+import com.payflow.event.TransactionEvent.TransactionEventType;
+import com.payflow.util.Money;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "event_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_outbox_id_seq")
+    @SequenceGenerator(name = "event_outbox_id_seq", sequenceName = "event_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private EventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false, length = 10)
+    private TransactionEventType transactionType;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(name = "balance_after", precision = 19, scale = 4)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "correlation_id")
+    private UUID correlationId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Set while a relay holds the row between its claim and its send completing
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public static OutboxEvent from(TransactionEvent event) {
+        OutboxEvent row = new OutboxEvent();
+        row.setTransactionId(event.transactionId());
+        row.setAccountId(event.accountId());
+        row.setEventType(event.eventType());
+        row.setTransactionType(event.transactionType());
+        row.setAmount(event.amount().toBigDecimal());
+        row.setBalanceAfter(event.balanceAfter() != null ? event.balanceAfter().toBigDecimal() : null);
+        row.setCorrelationId(event.correlationId());
+        row.setOccurredAt(event.timestamp());
+        return row;
+    }
+
+    public TransactionEvent toEvent() {
+        return new TransactionEvent(transactionId, accountId, eventType, transactionType,
+                Money.of(amount), Money.of(balanceAfter), correlationId, occurredAt);
+    }
+}
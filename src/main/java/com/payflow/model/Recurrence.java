@@ -0,0 +1,17 @@
+package com.payflow.model;
+
+import java.time.LocalDateTime;
+
+public enum Recurrence {
+    ONCE, DAILY, WEEKLY, MONTHLY;
+
+    /** The occurrence after {@code occurrence}, or null for a one-off transfer. */
+    public LocalDateTime next(LocalDateTime occurrence) {
+        return switch (this) {
+            case ONCE -> null;
+            case DAILY -> occurrence.plusDays(1);
+            case WEEKLY -> occurrence.plusWeeks(1);
+            case MONTHLY -> occurrence.plusMonths(1);
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.payflow.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@Entity
+@Table(name = "scheduled_transfers")
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ScheduledTransfer {
+
+    private static final DateTimeFormatter OCCURRENCE_KEY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scheduled_transfers_id_seq")
+    @SequenceGenerator(name = "scheduled_transfers_id_seq", sequenceName = "scheduled_transfers_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "source_account_id", nullable = false)
+    private Long sourceAccountId;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private Long destinationAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(length = 255)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Recurrence recurrence;
+
+    @Column(name = "occurrence_at", nullable = false)
+    private LocalDateTime occurrenceAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "end_at")
+    private LocalDateTime endAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ScheduledTransferStatus status = ScheduledTransferStatus.ACTIVE;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "run_count", nullable = false)
+    private Integer runCount = 0;
+
+    @Column(name = "last_error", length = 255)
+    private String lastError;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Version
+    @Column(nullable = false)
+    private Integer version = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /** Stable per occurrence, so a run that committed before a crash replays instead of paying twice. */
+    public String occurrenceKey() {
+        return "sched-" + id + "-" + occurrenceAt.format(OCCURRENCE_KEY_FORMAT);
+    }
+
+    /**
+     * Moves on to the next occurrence, or finishes the schedule when there is none.
+     * A missed occurrence stays in the past, so the poller picks it up again right away;
+     * that is how runs missed during downtime are caught up one by one.
+     */
+    public void advance() {
+        LocalDateTime next = recurrence.next(occurrenceAt);
+        attempts = 0;
+        claimedUntil = null;
+        if (next == null || (endAt != null && next.isAfter(endAt))) {
+            status = ScheduledTransferStatus.COMPLETED;
+            return;
+        }
+        occurrenceAt = next;
+        nextAttemptAt = next;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,5 @@
+package com.payflow.model;
+
+public enum ScheduledTransferStatus {
+    ACTIVE, COMPLETED, FAILED, CANCELLED
+}
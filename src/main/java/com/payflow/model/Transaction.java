@@ -19,7 +19,8 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_id_seq")
+    @SequenceGenerator(name = "transactions_id_seq", sequenceName = "transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_id", nullable = false)
@@ -38,14 +39,15 @@ public class Transaction {
     @Column(name = "correlation_id")
     private UUID correlationId;
 
-    @Column(name = "idempotency_key", nullable = false, unique = true, length = 64)
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 104)
     private String idempotencyKey;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TransactionStatus status = TransactionStatus.PENDING;
 
-    @Column(name = "balance_after", nullable = false, precision = 19, scale = 4)
+    // Null while an asynchronous transfer is PENDING
+    @Column(name = "balance_after", precision = 19, scale = 4)
     private BigDecimal balanceAfter;
 
     @Column(name = "created_at", nullable = false, updatable = false)
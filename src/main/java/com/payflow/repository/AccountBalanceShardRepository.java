@@ -0,0 +1,43 @@
+package com.payflow.repository;
+
+import com.payflow.model.AccountBalanceShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountBalanceShardRepository extends JpaRepository<AccountBalanceShard, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceShard s WHERE s.accountId = :accountId ORDER BY s.shardIndex")
+    List<AccountBalanceShard> lockAllForAccount(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceShard s WHERE s.accountId = :accountId")
+    BigDecimal sumBalance(@Param("accountId") Long accountId);
+
+    @Transactional
+    @Query(value = "UPDATE account_balance_shards s SET balance = s.balance + :amount, version = s.version + 1 FROM accounts a " +
+           "WHERE s.account_id = :accountId AND s.shard_index = :shardIndex " +
+           "AND a.id = s.account_id AND a.status = 'ACTIVE' " +
+           "RETURNING s.balance",
+           nativeQuery = true)
+    Optional<BigDecimal> creditShard(@Param("accountId") Long accountId,
+                                     @Param("shardIndex") int shardIndex,
+                                     @Param("amount") BigDecimal amount);
+
+    @Transactional
+    @Query(value = "UPDATE account_balance_shards s SET balance = s.balance - :amount, version = s.version + 1 FROM accounts a " +
+           "WHERE s.account_id = :accountId AND s.shard_index = :shardIndex AND s.balance >= :amount " +
+           "AND a.id = s.account_id AND a.status = 'ACTIVE' " +
+           "RETURNING s.balance",
+           nativeQuery = true)
+    Optional<BigDecimal> debitShardIfSufficient(@Param("accountId") Long accountId,
+                                                @Param("shardIndex") int shardIndex,
+                                                @Param("amount") BigDecimal amount);
+}
@@ -1,10 +1,118 @@
 package com.payflow.repository;
 
 import com.payflow.model.Account;
+import com.payflow.model.AccountStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    List<Account> findByUserId(Long userId);
+
+    // Hot accounts move money through shard rows without bumping the account version, so the
+    // sum of their shard versions (bumped by every shard write), newest ledger row and PENDING
+    // count join the tag; CASE skips all three for plain accounts
+    String VERSION_COLUMNS = "SELECT a.id AS \"id\", a.user_id AS \"userId\", a.version AS \"version\", " +
+            "CASE WHEN a.shard_count > 0 THEN (SELECT COALESCE(sum(s.version), 0) FROM account_balance_shards s " +
+            "WHERE s.account_id = a.id) END AS \"shardVersion\", " +
+            "CASE WHEN a.shard_count > 0 THEN (SELECT t.id FROM transactions t WHERE t.account_id = a.id " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT 1) END AS \"lastTransactionId\", " +
+            "CASE WHEN a.shard_count > 0 THEN (SELECT count(*) FROM transactions t WHERE t.account_id = a.id " +
+            "AND t.status = 'PENDING') END AS \"pendingCount\" FROM accounts a ";
+
+    List<Account> findByUserIdOrderByIdAsc(Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // ORDER BY makes Postgres take the row locks in ascending id order, so overlapping batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM Account a WHERE a.userId = :userId AND a.id IN :ids")
+    Set<Long> findIdsOwnedBy(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id AS id, a.userId AS userId, a.currency AS currency, a.status AS status " +
+           "FROM Account a WHERE a.id = :id")
+    Optional<MetadataView> findMetadataById(@Param("id") Long id);
+
+    @Query(value = VERSION_COLUMNS + "WHERE a.id = :id", nativeQuery = true)
+    Optional<VersionView> findVersionById(@Param("id") Long id);
+
+    @Query(value = VERSION_COLUMNS + "WHERE a.user_id = :userId ORDER BY a.id", nativeQuery = true)
+    List<VersionView> findVersionsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.status FROM Account a WHERE a.id = :id")
+    Optional<AccountStatus> findStatusById(@Param("id") Long id);
+
+    @Query("SELECT a.shardCount FROM Account a WHERE a.id = :id")
+    Optional<Integer> findShardCountById(@Param("id") Long id);
+
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, version = version + 1 " +
+           "WHERE id = :id AND status = 'ACTIVE' AND shard_count = 0 AND balance - held_amount >= :amount " +
+           "RETURNING balance, version",
+           nativeQuery = true)
+    Optional<BalanceSnapshot> debitIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, version = version + 1 " +
+           "WHERE id = :id AND status = 'ACTIVE' AND shard_count = 0 " +
+           "RETURNING balance, version",
+           nativeQuery = true)
+    Optional<BalanceSnapshot> creditIfActive(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // Holds are only taken on unsharded accounts, whose balance lives on this row
+    @Transactional
+    @Query(value = "UPDATE accounts SET held_amount = held_amount + :amount, version = version + 1 " +
+           "WHERE id = :id AND status = 'ACTIVE' AND shard_count = 0 AND balance - held_amount >= :amount " +
+           "RETURNING balance, version",
+           nativeQuery = true)
+    Optional<BalanceSnapshot> reserveIfAvailable(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // Spends part or all of a hold: the captured amount leaves the balance, the whole hold leaves held_amount
+    @Transactional
+    @Query(value = "UPDATE accounts SET balance = balance - :captured, held_amount = held_amount - :held, " +
+           "version = version + 1 WHERE id = :id RETURNING balance, version",
+           nativeQuery = true)
+    Optional<BalanceSnapshot> captureHeld(@Param("id") Long id, @Param("captured") BigDecimal captured,
+                                          @Param("held") BigDecimal held);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE accounts SET held_amount = held_amount - :amount, version = version + 1 WHERE id = :id",
+           nativeQuery = true)
+    int releaseHeld(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    interface MetadataView {
+        Long getId();
+        Long getUserId();
+        String getCurrency();
+        AccountStatus getStatus();
+    }
+
+    interface VersionView {
+        Long getId();
+        Long getUserId();
+        Integer getVersion();
+        Long getShardVersion();
+        Long getLastTransactionId();
+        Long getPendingCount();
+    }
+
+    interface BalanceSnapshot {
+        BigDecimal getBalance();
+        Integer getVersion();
+    }
 }
@@ -0,0 +1,63 @@
+package com.payflow.repository;
+
+import com.payflow.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    // Served by the (account_id, as_of) unique index, read backwards
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId, LocalDateTime asOf);
+
+    @Query("SELECT MAX(c.asOf) FROM BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestAsOf();
+
+    // Serializes checkpoint runs across instances; released when the transaction ends
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLockRun(@Param("key") long key);
+
+    /**
+     * Writes one checkpoint at {@code cut} for every account with COMPLETED rows created in
+     * ({@code from}, {@code cut}]: its previous checkpoint plus the net of those rows. Only
+     * valid when {@code from} is the previous run's cut, so every account's latest
+     * checkpoint is at or before {@code from} and nothing happened to it in between.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO balance_checkpoints (account_id, as_of, balance, last_transaction_id, transaction_count) " +
+           "SELECT t.account_id, :cut, " +
+           "COALESCE((SELECT c.balance FROM balance_checkpoints c WHERE c.account_id = t.account_id " +
+           "ORDER BY c.as_of DESC LIMIT 1), 0) " +
+           "+ SUM(CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END), " +
+           "MAX(t.id), COUNT(*) " +
+           "FROM transactions t WHERE t.status = 'COMPLETED' " +
+           "AND (CAST(:from AS TIMESTAMP) IS NULL OR t.created_at > :from) AND t.created_at <= :cut " +
+           "GROUP BY t.account_id",
+           nativeQuery = true)
+    int writeCheckpoints(@Param("from") LocalDateTime from, @Param("cut") LocalDateTime cut);
+
+    // Settlement rewrites a PENDING row in place without moving its created_at; served by the partial pending index
+    @Query(value = "SELECT MIN(t.created_at) FROM transactions t WHERE t.status = 'PENDING'", nativeQuery = true)
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    /** Live rows only; {@code liveFrom} clamps the sum to the archive boundary so archived months are not read twice. */
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN t.type = 'CREDIT' THEN t.amount ELSE -t.amount END), 0) AS delta, " +
+           "COUNT(*) AS count FROM transactions t WHERE t.account_id = :accountId AND t.status = 'COMPLETED' " +
+           "AND (CAST(:after AS TIMESTAMP) IS NULL OR t.created_at > :after) " +
+           "AND (CAST(:liveFrom AS TIMESTAMP) IS NULL OR t.created_at >= :liveFrom) AND t.created_at <= :asOf",
+           nativeQuery = true)
+    TailSummary sumTail(@Param("accountId") Long accountId,
+                        @Param("after") LocalDateTime after,
+                        @Param("liveFrom") LocalDateTime liveFrom,
+                        @Param("asOf") LocalDateTime asOf);
+
+    interface TailSummary {
+        BigDecimal getDelta();
+        Long getCount();
+    }
+}
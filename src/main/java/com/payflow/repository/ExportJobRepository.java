@@ -0,0 +1,42 @@
+package com.payflow.repository;
+
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExportJobRepository extends JpaRepository<ExportJob, Long> {
+
+    List<ExportJob> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<ExportJob> findByIdAndUserId(Long id, Long userId);
+
+    List<ExportJob> findTop100ByStatusAndExpiresAtBefore(ExportJobStatus status, LocalDateTime now);
+
+    // Serialises a user's submissions so the active-job cap cannot be raced past
+    @Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+    Long lockUser(@Param("userId") Long userId);
+
+    @Query(value = "SELECT COUNT(*) FROM export_jobs WHERE user_id = :userId AND status IN ('QUEUED', 'RUNNING')",
+           nativeQuery = true)
+    long countActiveByUserId(@Param("userId") Long userId);
+
+    // RUNNING rows past their lease belong to a worker that died; they start over from scratch
+    @Query(value = "SELECT * FROM export_jobs WHERE status = 'QUEUED' " +
+           "OR (status = 'RUNNING' AND claimed_until < :now) " +
+           "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<ExportJob> claimPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE export_jobs SET claimed_until = :until WHERE id IN (:ids) AND status = 'RUNNING'",
+           nativeQuery = true)
+    int extendLease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+}
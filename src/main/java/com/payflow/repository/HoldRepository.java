@@ -0,0 +1,29 @@
+package com.payflow.repository;
+
+import com.payflow.model.Hold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    Optional<Hold> findByIdempotencyKey(String idempotencyKey);
+
+    List<Hold> findByAccountIdOrderByCreatedAtDesc(Long accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id = :id")
+    Optional<Hold> findByIdForUpdate(@Param("id") Long id);
+
+    // Holds being captured or released right now are locked by that request; the next sweep gets them
+    @Query(value = "SELECT * FROM holds WHERE status = 'ACTIVE' AND expires_at <= :now " +
+           "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Hold> claimExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
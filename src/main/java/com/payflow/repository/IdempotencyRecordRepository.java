@@ -0,0 +1,25 @@
+package com.payflow.repository;
+
+import com.payflow.model.IdempotencyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Keyset page over live keys, used to (re)build the in-memory filter
+    @Query("SELECT r.idempotencyKey FROM IdempotencyRecord r " +
+           "WHERE r.expiresAt > :now AND r.idempotencyKey > :after ORDER BY r.idempotencyKey")
+    List<String> findLiveKeysAfter(@Param("now") LocalDateTime now, @Param("after") String after, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
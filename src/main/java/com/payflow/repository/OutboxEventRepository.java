@@ -0,0 +1,50 @@
+package com.payflow.repository;
+
+import com.payflow.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Accounts with unleased events, oldest backlog first, each locked for the rest of the
+     * transaction. Accounts another relay is claiming right now are skipped rather than
+     * waited on. The outer WHERE is not pushed below the LIMIT, so only returned accounts lock.
+     */
+    @Query(value = "SELECT p.account_id FROM (SELECT account_id, MIN(id) AS first_id FROM event_outbox " +
+           "WHERE claimed_until IS NULL OR claimed_until < now() " +
+           "GROUP BY account_id ORDER BY first_id LIMIT :limit) p " +
+           "WHERE pg_try_advisory_xact_lock(hashtext('event_outbox'), CAST(p.account_id % 2147483647 AS INTEGER)) " +
+           "ORDER BY p.first_id",
+           nativeQuery = true)
+    List<Long> lockClaimableAccounts(@Param("limit") int limit);
+
+    /**
+     * Leases the oldest events of {@code accountIds}, skipping any account that still has
+     * an unexpired lease. Must run as a separate statement after
+     * {@link #lockClaimableAccounts}, so its snapshot sees every claim committed by whoever
+     * held an account's lock before.
+     */
+    @Query(value = "UPDATE event_outbox SET claimed_until = now() + :leaseMs * INTERVAL '1 millisecond' " +
+           "WHERE id IN (SELECT e.id FROM event_outbox e WHERE e.account_id IN (:accountIds) " +
+           "AND NOT EXISTS (SELECT 1 FROM event_outbox c WHERE c.account_id = e.account_id " +
+           "AND c.claimed_until >= now()) ORDER BY e.id LIMIT :limit) " +
+           "RETURNING *",
+           nativeQuery = true)
+    List<OutboxEvent> claimForAccounts(@Param("accountIds") Collection<Long> accountIds,
+                                       @Param("limit") int limit,
+                                       @Param("leaseMs") long leaseMs);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.attempts = o.attempts + 1, o.claimedUntil = NULL WHERE o.id IN :ids")
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.claimedUntil = NULL WHERE o.id IN :ids")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,24 @@
+package com.payflow.repository;
+
+import com.payflow.model.ScheduledTransfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    List<ScheduledTransfer> findByUserIdOrderByNextAttemptAtAsc(Long userId);
+
+    Optional<ScheduledTransfer> findByIdAndUserId(Long id, Long userId);
+
+    // Rows leased by a runner that is still within its lease are skipped, as are rows another poller is claiming
+    @Query(value = "SELECT * FROM scheduled_transfers WHERE status = 'ACTIVE' AND next_attempt_at <= :now " +
+           "AND (claimed_until IS NULL OR claimed_until < :now) " +
+           "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<ScheduledTransfer> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,31 @@
+package com.payflow.repository;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Optional filters for an account's ledger listing; null fields are left out of the query entirely. */
+public record TransactionFilter(
+        Long accountId,
+        TransactionType type,
+        TransactionStatus status,
+        LocalDateTime from,
+        LocalDateTime to,
+        BigDecimal minAmount,
+        BigDecimal maxAmount
+) {
+
+    public static TransactionFilter forAccount(Long accountId) {
+        return new TransactionFilter(accountId, null, null, null, null, null, null);
+    }
+
+    public TransactionFilter withFrom(LocalDateTime from) {
+        return new TransactionFilter(accountId, type, status, from, to, minAmount, maxAmount);
+    }
+
+    public TransactionFilter withTo(LocalDateTime to) {
+        return new TransactionFilter(accountId, type, status, from, to, minAmount, maxAmount);
+    }
+}
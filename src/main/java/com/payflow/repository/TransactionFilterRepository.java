@@ -0,0 +1,48 @@
+package com.payflow.repository;
+
+import com.payflow.model.Transaction;
+import com.payflow.util.Money;
+import com.payflow.util.TransactionCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Ledger listings whose SQL is assembled from the filters actually supplied, so each
+ * combination gets its own plan against the matching composite index.
+ */
+public interface TransactionFilterRepository {
+
+    Page<Transaction> findByFilters(TransactionFilter filter, Pageable pageable);
+
+    /**
+     * Same ordering as {@link #findByFilters(TransactionFilter, Pageable)}, for windows that
+     * do not align with pages; a negative {@code limit} returns every row from {@code offset}.
+     */
+    List<Transaction> findByFilters(TransactionFilter filter, Sort sort, long offset, int limit);
+
+    long countByFilters(TransactionFilter filter);
+
+    /** Newest first, strictly below {@code after} when it is non-null. */
+    List<Transaction> findByFiltersAfter(TransactionFilter filter, TransactionCursor after, int limit);
+
+    /**
+     * Forward-only scan for CSV export, newest first. Rows arrive {@code fetchSize} at a time
+     * as scalar projections, so nothing accumulates in the persistence context; the caller
+     * must close the stream inside its transaction.
+     */
+    Stream<ExportRow> streamForExport(TransactionFilter filter, int fetchSize);
+
+    record ExportRow(
+            LocalDateTime createdAt,
+            String type,
+            Money amount,
+            String description,
+            String status,
+            Money balanceAfter
+    ) {}
+}
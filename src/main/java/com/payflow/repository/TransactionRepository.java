@@ -1,46 +1,59 @@
 package com.payflow.repository;
 
 import com.payflow.model.Transaction;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.payflow.model.TransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionFilterRepository {
 
     Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
 
     List<Transaction> findByCorrelationId(UUID correlationId);
 
-    @Query(value = "SELECT * FROM transactions t WHERE t.account_id = :accountId " +
-           "AND (CAST(:type AS VARCHAR) IS NULL OR t.type = :type) " +
-           "AND (CAST(:status AS VARCHAR) IS NULL OR t.status = :status) " +
-           "AND (CAST(:from AS TIMESTAMP) IS NULL OR t.created_at >= :from) " +
-           "AND (CAST(:to AS TIMESTAMP) IS NULL OR t.created_at <= :to) " +
-           "AND (CAST(:minAmount AS DECIMAL) IS NULL OR t.amount >= :minAmount) " +
-           "AND (CAST(:maxAmount AS DECIMAL) IS NULL OR t.amount <= :maxAmount)",
-           countQuery = "SELECT COUNT(*) FROM transactions t WHERE t.account_id = :accountId " +
-           "AND (CAST(:type AS VARCHAR) IS NULL OR t.type = :type) " +
-           "AND (CAST(:status AS VARCHAR) IS NULL OR t.status = :status) " +
-           "AND (CAST(:from AS TIMESTAMP) IS NULL OR t.created_at >= :from) " +
-           "AND (CAST(:to AS TIMESTAMP) IS NULL OR t.created_at <= :to) " +
-           "AND (CAST(:minAmount AS DECIMAL) IS NULL OR t.amount >= :minAmount) " +
-           "AND (CAST(:maxAmount AS DECIMAL) IS NULL OR t.amount <= :maxAmount)",
+    List<Transaction> findByCorrelationIdIn(Collection<UUID> correlationIds);
+
+    // SKIP LOCKED lets several settlers (workers, the sweeper, other instances) share the backlog
+    @Query(value = "SELECT * FROM transactions WHERE id IN (:ids) AND status = 'PENDING' AND type = 'DEBIT' " +
+           "ORDER BY id FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Transaction> findPendingDebitsForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT id FROM transactions WHERE status = 'PENDING' AND type = 'DEBIT' " +
+           "AND created_at < :before ORDER BY created_at LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findPendingDebitIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    // The newest row by created_at misses a transfer that commits after a later-stamped one, so the
+    // balance sequence (account version plus shard versions, bumped by every balance write) joins it.
+    // Settling an async transfer rewrites rows in place, so the PENDING count does too.
+    @Query(value = "SELECT (SELECT a.version + COALESCE((SELECT sum(s.version) FROM account_balance_shards s " +
+           "WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = :accountId) AS \"balanceSequence\", " +
+           "(SELECT t.id FROM transactions t WHERE t.account_id = :accountId " +
+           "ORDER BY t.created_at DESC, t.id DESC LIMIT 1) AS \"lastTransactionId\", " +
+           "(SELECT count(*) FROM transactions t WHERE t.account_id = :accountId AND t.status = 'PENDING') " +
+           "AS \"pendingCount\"",
            nativeQuery = true)
-    Page<Transaction> findByFilters(
-            @Param("accountId") Long accountId,
-            @Param("type") String type,
-            @Param("status") String status,
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to,
-            @Param("minAmount") BigDecimal minAmount,
-            @Param("maxAmount") BigDecimal maxAmount,
-            Pageable pageable);
+    LedgerHeadView findLedgerHead(@Param("accountId") Long accountId);
+
+    @Query("SELECT t.accountId AS accountId, t.status AS status FROM Transaction t WHERE t.id = :id")
+    Optional<StatusView> findStatusById(@Param("id") Long id);
+
+    interface LedgerHeadView {
+        Long getBalanceSequence();
+        Long getLastTransactionId();
+        Long getPendingCount();
+    }
+
+    interface StatusView {
+        Long getAccountId();
+        TransactionStatus getStatus();
+    }
 }
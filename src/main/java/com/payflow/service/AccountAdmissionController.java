@@ -0,0 +1,173 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many request threads may write to one account at a time. Writers beyond the cap
+ * wait in a short, bounded queue; when the queue is full or the wait runs out the request
+ * is turned away with {@link AccountBusyException} (503 + Retry-After) instead of joining
+ * a pile of threads retrying against the same row. Other accounts are unaffected because
+ * each account has its own gate.
+ *
+ * Gates exist only while an account has holders or waiters, so the map stays as small as
+ * the set of accounts currently being written.
+ */
+@Component
+@Slf4j
+public class AccountAdmissionController {
+
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final Map<Long, Gate> gates = new ConcurrentHashMap<>();
+
+    /** Releases every account permit taken by one {@link #admit} call. */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit NO_PERMIT = () -> { };
+
+    public AccountAdmissionController(MetricsService metricsService,
+                                      @Value("${app.transactions.admission.enabled:true}") boolean enabled,
+                                      @Value("${app.transactions.admission.max-concurrent-per-account:4}") int maxConcurrent,
+                                      @Value("${app.transactions.admission.max-queued-per-account:64}") int maxQueued,
+                                      @Value("${app.transactions.admission.max-wait-ms:500}") long maxWaitMs,
+                                      @Value("${app.transactions.retry.backoff-base-ms:5}") long backoffBaseMs,
+                                      @Value("${app.transactions.retry.backoff-max-ms:100}") long backoffMaxMs) {
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs + 999));
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+    }
+
+    /**
+     * Takes a permit on every account, in ascending id order so two transfers between the
+     * same pair of accounts cannot each hold one permit and wait for the other.
+     */
+    public Permit admit(Collection<Long> accountIds) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        List<Long> held = new ArrayList<>(accountIds.size());
+        try {
+            for (Long accountId : new TreeSet<>(accountIds)) {
+                acquire(accountId);
+                held.add(accountId);
+            }
+        } catch (RuntimeException e) {
+            held.forEach(this::release);
+            throw e;
+        }
+        return () -> held.forEach(this::release);
+    }
+
+    /** Full-jitter exponential backoff before retry number {@code attempt} (1-based). */
+    public void pauseBeforeRetry(int attempt) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (sleepMs == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int queued(Long accountId) {
+        Gate gate = gates.get(accountId);
+        return gate == null ? 0 : gate.waiting.get();
+    }
+
+    private void acquire(Long accountId) {
+        Gate gate = enter(accountId);
+        if (gate.permits.tryAcquire()) {
+            return;
+        }
+        int depth = gate.waiting.incrementAndGet();
+        boolean admitted = false;
+        try {
+            if (depth > maxQueued) {
+                throw reject(accountId, "queue full");
+            }
+            metricsService.recordAdmissionQueued(depth);
+            long start = System.nanoTime();
+            admitted = gate.permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            metricsService.recordAdmissionWait(System.nanoTime() - start);
+            if (!admitted) {
+                throw reject(accountId, "wait timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(accountId, "interrupted");
+        } finally {
+            gate.waiting.decrementAndGet();
+            if (!admitted) {
+                leave(accountId);
+            }
+        }
+    }
+
+    private void release(Long accountId) {
+        Gate gate = gates.get(accountId);
+        if (gate != null) {
+            gate.permits.release();
+            leave(accountId);
+        }
+    }
+
+    private Gate enter(Long accountId) {
+        return gates.compute(accountId, (id, gate) -> {
+            Gate g = gate != null ? gate : new Gate(maxConcurrent);
+            g.users++;
+            return g;
+        });
+    }
+
+    private void leave(Long accountId) {
+        gates.computeIfPresent(accountId, (id, gate) -> --gate.users == 0 ? null : gate);
+    }
+
+    private AccountBusyException reject(Long accountId, String reason) {
+        metricsService.recordAdmissionRejected();
+        log.warn("Admission rejected for account {} ({}), concurrency cap {}", accountId, reason, maxConcurrent);
+        return new AccountBusyException(accountId, retryAfterSeconds);
+    }
+
+    private static final class Gate {
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        // Holders plus waiters; only read and written inside ConcurrentHashMap.compute for this key
+        private int users;
+
+        private Gate(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process near-cache of the account fields that ownership and status checks need.
+ * {@code userId} and {@code currency} never change; status changes go through
+ * {@link #invalidate}, which evicts locally and broadcasts the id over Redis pub/sub so
+ * every instance drops its copy. Entries also expire after a TTL in case a broadcast is
+ * missed, and the least recently used entries are dropped once {@code max-entries} is
+ * reached. Writers still re-check status on the row they lock, so a stale status here can
+ * only delay a rejection, never let a frozen account move money.
+ */
+@Component
+@Slf4j
+public class AccountMetadataCache {
+
+    static final String INVALIDATION_CHANNEL = "fluxpay:account-metadata:invalidate";
+
+    private final AccountRepository accountRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlNanos;
+    // Access-ordered, so every hit moves the entry to the tail and eviction takes the head
+    private final Map<Long, Entry> entries;
+
+    public record AccountMetadata(Long accountId, Long userId, String currency, AccountStatus status) {}
+
+    private record Entry(AccountMetadata metadata, long loadedAtNanos) {}
+
+    public AccountMetadataCache(AccountRepository accountRepository,
+                                ObjectProvider<StringRedisTemplate> redisTemplate,
+                                ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                @Value("${app.cache.account-metadata.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${app.cache.account-metadata.max-entries:100000}") int maxEntries) {
+        this.accountRepository = accountRepository;
+        this.redisTemplate = redisTemplate.getIfAvailable();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        subscribe(listenerContainer.getIfAvailable());
+    }
+
+    public Optional<AccountMetadata> get(Long accountId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(accountId);
+        }
+        if (entry != null && System.nanoTime() - entry.loadedAtNanos() < ttlNanos) {
+            return Optional.of(entry.metadata());
+        }
+        Optional<AccountMetadata> loaded = accountRepository.findMetadataById(accountId)
+                .map(v -> new AccountMetadata(v.getId(), v.getUserId(), v.getCurrency(), v.getStatus()));
+        loaded.ifPresentOrElse(m -> store(accountId, m), () -> evictLocal(accountId));
+        return loaded;
+    }
+
+    /** Returns the account's metadata, or throws not-found when it does not belong to {@code userId}. */
+    public AccountMetadata requireOwned(Long accountId, Long userId) {
+        return get(accountId)
+                .filter(m -> m.userId().equals(userId))
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    /**
+     * Drops the entry on every instance. Inside a transaction this waits for commit, so no
+     * reader can re-cache the old value between the eviction and the write becoming visible.
+     */
+    public void invalidate(Long accountId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndBroadcast(accountId);
+                }
+            });
+        } else {
+            evictAndBroadcast(accountId);
+        }
+    }
+
+    void evictLocal(Long accountId) {
+        synchronized (entries) {
+            entries.remove(accountId);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void store(Long accountId, AccountMetadata metadata) {
+        synchronized (entries) {
+            entries.put(accountId, new Entry(metadata, System.nanoTime()));
+        }
+    }
+
+    private void evictAndBroadcast(Long accountId) {
+        evictLocal(accountId);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, accountId.toString());
+        } catch (Exception e) {
+            log.warn("Account metadata invalidation broadcast failed for account {}: {}", accountId, e.getMessage());
+        }
+    }
+
+    // The container is a context-managed bean, started and stopped with the application
+    private void subscribe(RedisMessageListenerContainer container) {
+        if (container == null) {
+            log.info("No Redis listener container; account metadata invalidation stays local to this instance");
+            return;
+        }
+        container.addMessageListener((message, pattern) -> {
+            try {
+                evictLocal(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed account metadata invalidation message");
+            }
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+}
@@ -3,15 +3,25 @@ package com.payflow.service;
 import com.payflow.dto.AccountResponse;
 import com.payflow.dto.CreateAccountRequest;
 import com.payflow.dto.UpdateAccountStatusRequest;
+import com.payflow.dto.UpdateShardingRequest;
 import com.payflow.exception.AccountNotFoundException;
 import com.payflow.model.Account;
+import com.payflow.model.AccountBalanceShard;
 import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountBalanceShardRepository;
 import com.payflow.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,6 +30,8 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final BalanceCacheService balanceCacheService;
+    private final AccountBalanceShardRepository shardRepository;
+    private final AccountMetadataCache accountMetadataCache;
 
     @Transactional
     public AccountResponse create(Long userId, CreateAccountRequest request) {
@@ -35,17 +47,40 @@ public class AccountService {
         if (!account.getUserId().equals(userId)) {
             throw new AccountNotFoundException(id);
         }
-        balanceCacheService.put(account.getId(), account.getBalance());
-        return AccountResponse.from(account);
+        return AccountResponse.from(account, balanceOf(account));
     }
 
     @Transactional(readOnly = true)
     public List<AccountResponse> getByUserId(Long userId) {
-        return accountRepository.findByUserId(userId).stream()
-                .map(AccountResponse::from)
+        List<Account> accounts = accountRepository.findByUserIdOrderByIdAsc(userId);
+        Map<Long, BigDecimal> balances = balancesOf(accounts);
+        return accounts.stream()
+                .map(account -> AccountResponse.from(account, balances.get(account.getId())))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Strong validator for {@link #getById}, read without loading the account. Every write
+     * to a plain account bumps its version; see {@link AccountRepository#VERSION_COLUMNS}
+     * for hot accounts.
+     */
+    @Transactional(readOnly = true)
+    public String versionTag(Long id, Long userId) {
+        AccountRepository.VersionView view = accountRepository.findVersionById(id)
+                .filter(v -> v.getUserId().equals(userId))
+                .orElseThrow(() -> new AccountNotFoundException(id));
+        return tagOf(view);
+    }
+
+    // Digest of every account's tag, in the order getByUserId lists them
+    @Transactional(readOnly = true)
+    public String versionTagForUser(Long userId) {
+        String tags = accountRepository.findVersionsByUserId(userId).stream()
+                .map(AccountService::tagOf)
+                .collect(Collectors.joining(","));
+        return DigestUtils.md5DigestAsHex(tags.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Transactional
     public AccountResponse updateStatus(Long id, Long userId, UpdateAccountStatusRequest request) {
         Account account = accountRepository.findById(id)
@@ -56,8 +91,89 @@ public class AccountService {
         validateStatusTransition(account.getStatus(), request.status());
         account.setStatus(request.status());
         account = accountRepository.save(account);
-        balanceCacheService.evict(account.getId());
-        return AccountResponse.from(account);
+        accountMetadataCache.invalidate(account.getId());
+        return AccountResponse.from(account, balanceOf(account));
+    }
+
+    /**
+     * Moves the balance between the account row and {@code shardCount} shard rows.
+     * Existing shards are locked first so in-flight shard writers finish (or retry)
+     * before the balance is consolidated; the version bump on the account row sends
+     * concurrent optimistic writers through a retry as well.
+     */
+    @Transactional
+    public AccountResponse updateSharding(Long id, Long userId, UpdateShardingRequest request) {
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new AccountNotFoundException(id));
+        if (!account.getUserId().equals(userId)) {
+            throw new AccountNotFoundException(id);
+        }
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new IllegalArgumentException("Only active accounts can change hot-account mode");
+        }
+        int shardCount = request.shardCount();
+        if (shardCount > 0 && account.getHeldAmount().signum() > 0) {
+            throw new IllegalArgumentException("Release or capture the account's holds before enabling hot-account mode");
+        }
+        if (account.getShardCount() == shardCount) {
+            throw new IllegalArgumentException("Account already has " + shardCount + " balance shards");
+        }
+
+        List<AccountBalanceShard> existing = shardRepository.lockAllForAccount(id);
+        BigDecimal total = existing.stream()
+                .map(AccountBalanceShard::getBalance)
+                .reduce(account.getBalance(), BigDecimal::add);
+        shardRepository.deleteAll(existing);
+        shardRepository.flush();
+
+        if (shardCount > 0) {
+            List<AccountBalanceShard> shards = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                shards.add(new AccountBalanceShard(id, i, i == 0 ? total : BigDecimal.ZERO));
+            }
+            shardRepository.saveAll(shards);
+            account.setBalance(BigDecimal.ZERO);
+        } else {
+            account.setBalance(total);
+        }
+        account.setShardCount(shardCount);
+        account = accountRepository.save(account);
+
+        balanceCacheService.invalidate(account.getId());
+        return AccountResponse.from(account, total);
+    }
+
+    private BigDecimal balanceOf(Account account) {
+        return balancesOf(List.of(account)).get(account.getId());
+    }
+
+    /**
+     * A plain account's balance is on the row already loaded. A hot account's balance is
+     * the sum of its shards, so those go through the balance cache, all in one round trip.
+     */
+    private Map<Long, BigDecimal> balancesOf(List<Account> accounts) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        List<Long> sharded = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account.isSharded()) {
+                sharded.add(account.getId());
+            } else {
+                balances.put(account.getId(), account.getBalance());
+            }
+        }
+        if (!sharded.isEmpty()) {
+            balances.putAll(balanceCacheService.readThrough(sharded, shardRepository::sumBalance));
+        }
+        return balances;
+    }
+
+    private static String tagOf(AccountRepository.VersionView view) {
+        String tag = view.getId() + "." + view.getVersion();
+        if (view.getPendingCount() == null) {
+            return tag;
+        }
+        return tag + "." + view.getShardVersion() + "." + Objects.toString(view.getLastTransactionId(), "0")
+                + "." + view.getPendingCount();
     }
 
     private void validateStatusTransition(AccountStatus current, AccountStatus target) {
@@ -0,0 +1,206 @@
+package com.payflow.service;
+
+import com.payflow.dto.TransactionResponse;
+import com.payflow.model.TransactionStatus;
+import com.payflow.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settles transfers accepted by {@link TransferExecutor#acceptTransfer}. Accepted debit ids
+ * go onto a bounded queue; a fixed set of workers drains it in batches through
+ * {@link BatchTransferExecutor#settlePendingTransfers}. The queue is only a fast path: the
+ * PENDING rows are the source of truth, so anything dropped on overflow, a failed batch,
+ * or a restart is picked up by {@link #sweep}.
+ *
+ * Long-polling clients register a waiter per transaction id; waiters are completed when
+ * this instance settles the transfer; otherwise they time out and re-read the row.
+ *
+ * Workers start and stop with the application context. With {@code enabled: false} this
+ * instance runs neither workers nor the sweeper: accepted transfers stay PENDING until an
+ * instance with the pipeline enabled sweeps them, and waiters simply time out.
+ */
+@Component
+@Slf4j
+public class AsyncTransferPipeline implements SmartLifecycle {
+
+    private final BatchTransferExecutor batchTransferExecutor;
+    private final TransactionRepository transactionRepository;
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int batchSize;
+    private final long sweepAgeMs;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<Long> accepted;
+    private final Map<Long, CompletableFuture<TransactionResponse>> waiters = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public AsyncTransferPipeline(BatchTransferExecutor batchTransferExecutor,
+                                 TransactionRepository transactionRepository,
+                                 MetricsService metricsService,
+                                 @Value("${app.transactions.async.enabled:true}") boolean enabled,
+                                 @Value("${app.transactions.async.workers:4}") int workers,
+                                 @Value("${app.transactions.async.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${app.transactions.async.batch-size:200}") int batchSize,
+                                 @Value("${app.transactions.async.sweep-age-ms:2000}") long sweepAgeMs,
+                                 @Value("${app.transactions.async.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.batchTransferExecutor = batchTransferExecutor;
+        this.transactionRepository = transactionRepository;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.workerCount = workers;
+        this.batchSize = batchSize;
+        this.sweepAgeMs = sweepAgeMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.accepted = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    /**
+     * Lets in-flight batches finish; ids still queued stay PENDING for the sweeper. Workers
+     * still running after {@code shutdown-timeout-ms} are interrupted.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Async transfer workers still busy after {}ms; interrupting", shutdownTimeoutMs);
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Call after the accepting transaction has committed. */
+    public void enqueue(Long debitId) {
+        if (!running) {
+            // Left PENDING for a sweeper on an instance that runs the pipeline
+            return;
+        }
+        if (!accepted.offer(debitId)) {
+            metricsService.recordAsyncTransferDeferred();
+            log.debug("Settlement queue full, transfer {} left to the sweeper", debitId);
+        }
+    }
+
+    /**
+     * Completes with the settled debit leg, or with null once {@code waitMs} passes. Register
+     * before reading the row's status so a settlement in between is not missed.
+     */
+    public CompletableFuture<TransactionResponse> awaitSettlement(Long debitId, long waitMs) {
+        CompletableFuture<TransactionResponse> shared = waiters.computeIfAbsent(debitId, id -> new CompletableFuture<>());
+        return shared.copy()
+                .completeOnTimeout(null, waitMs, TimeUnit.MILLISECONDS)
+                .whenComplete((settled, e) -> {
+                    if (settled == null) {
+                        // Settled elsewhere or still pending; drop the entry so it cannot leak
+                        waiters.remove(debitId, shared);
+                    }
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${app.transactions.async.sweep-interval-ms:5000}")
+    public void sweep() {
+        if (!running) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(sweepAgeMs));
+        List<Long> ids;
+        do {
+            ids = transactionRepository.findPendingDebitIds(before, batchSize);
+            if (!ids.isEmpty() && settle(ids) == 0) {
+                // Every row is held by another settler; let them finish
+                return;
+            }
+        } while (ids.size() == batchSize && running);
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Long first = accepted.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Long> batch = new ArrayList<>(Math.min(batchSize, accepted.size() + 1));
+                batch.add(first);
+                accepted.drainTo(batch, batchSize - 1);
+                settle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Async transfer worker error", e);
+            }
+        }
+    }
+
+    private int settle(List<Long> debitIds) {
+        List<TransactionResponse> settled;
+        try {
+            settled = batchTransferExecutor.settlePendingTransfers(debitIds);
+        } catch (RuntimeException e) {
+            // Rows stay PENDING and the sweeper retries them
+            log.warn("Settlement of {} pending transfers failed: {}", debitIds.size(), e.getMessage());
+            return 0;
+        }
+        int completed = 0;
+        for (TransactionResponse debit : settled) {
+            if (debit.status() == TransactionStatus.COMPLETED) {
+                completed++;
+            }
+            CompletableFuture<TransactionResponse> waiter = waiters.remove(debit.id());
+            if (waiter != null) {
+                waiter.complete(debit);
+            }
+        }
+        if (!settled.isEmpty()) {
+            metricsService.recordAsyncSettlement(settled.size(), completed, settled.size() - completed);
+        }
+        return settled.size();
+    }
+}
@@ -2,19 +2,56 @@ package com.payflow.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
+/**
+ * Read-through cache for balances that cost a query beyond the account row itself.
+ * Each entry is {@code "<generation>:<balance>"}. Writers never store balances: after
+ * commit they bump the generation and leave an empty tombstone, because a writer only
+ * knows its own shard and may still roll back. Readers remember the generation they
+ * saw on a miss and store the freshly loaded balance only if it is still current, so a
+ * balance loaded before a write can never land after that write's bump.
+ */
 @Service
 @Slf4j
 public class BalanceCacheService {
 
     private static final String KEY_PREFIX = "balance:";
 
+    // KEYS[1] = balance key, ARGV[1] = ttl seconds
+    static final String BUMP_SCRIPT =
+            "local current = redis.call('GET', KEYS[1]) " +
+            "local generation = 0 " +
+            "if current then generation = tonumber(string.match(current, '^(%d+):')) or 0 end " +
+            "redis.call('SET', KEYS[1], (generation + 1) .. ':', 'EX', ARGV[1]) " +
+            "return generation + 1";
+
+    // KEYS[1] = balance key, ARGV[1] = generation seen on the miss, ARGV[2] = balance, ARGV[3] = ttl seconds
+    static final String FILL_SCRIPT =
+            "local current = redis.call('GET', KEYS[1]) " +
+            "local generation = '0' " +
+            "if current then generation = string.match(current, '^(%d+):') or '0' end " +
+            "if generation ~= ARGV[1] then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[1] .. ':' .. ARGV[2], 'EX', ARGV[3]) " +
+            "return 1";
+
     private final StringRedisTemplate redisTemplate;
     private final MetricsService metricsService;
     private final Duration ttl;
@@ -27,34 +64,112 @@ public class BalanceCacheService {
         this.ttl = Duration.ofSeconds(ttlSeconds);
     }
 
-    public Optional<BigDecimal> get(Long accountId) {
-        try {
-            String value = redisTemplate.opsForValue().get(KEY_PREFIX + accountId);
-            if (value != null) {
+    /**
+     * Balances for {@code accountIds} from one MGET; misses are loaded with {@code loader}
+     * and written back in a single pipeline. If Redis is unavailable every balance comes
+     * from the loader.
+     */
+    public Map<Long, BigDecimal> readThrough(Collection<Long> accountIds, Function<Long, BigDecimal> loader) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(accountIds));
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        if (ids.isEmpty()) {
+            return balances;
+        }
+        List<String> values = multiGet(ids);
+        Map<Long, String> missedGenerations = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long accountId = ids.get(i);
+            String value = values != null && i < values.size() ? values.get(i) : null;
+            int separator = value != null ? value.indexOf(':') : -1;
+            if (separator > 0 && separator < value.length() - 1) {
                 metricsService.recordCacheHit();
-                return Optional.of(new BigDecimal(value));
+                balances.put(accountId, new BigDecimal(value.substring(separator + 1)));
+                continue;
             }
             metricsService.recordCacheMiss();
+            balances.put(accountId, loader.apply(accountId));
+            if (values != null) {
+                // Entries from before generations existed count as generation 0
+                missedGenerations.put(accountId, separator > 0 ? value.substring(0, separator) : "0");
+            }
+        }
+        fill(missedGenerations, balances);
+        return balances;
+    }
+
+    /**
+     * Retires any cached balance for the account. Inside a transaction this runs after
+     * commit, so a reader that misses afterwards loads the committed balance.
+     */
+    public void invalidate(Long accountId) {
+        invalidateAll(List.of(accountId));
+    }
+
+    public void invalidateAll(Collection<Long> accountIds) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(accountIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(ids);
+                }
+            });
+        } else {
+            bump(ids);
+        }
+    }
+
+    private List<String> multiGet(List<Long> ids) {
+        try {
+            return redisTemplate.opsForValue().multiGet(ids.stream().map(BalanceCacheService::key).toList());
         } catch (Exception e) {
-            log.warn("Redis GET failed for account {}: {}", accountId, e.getMessage());
-            metricsService.recordCacheMiss();
+            log.warn("Redis MGET failed for {} accounts: {}", ids.size(), e.getMessage());
+            return null;
         }
-        return Optional.empty();
     }
 
-    public void put(Long accountId, BigDecimal balance) {
+    // EVAL rather than EVALSHA: a NOSCRIPT reply can't be retried inside a pipeline
+    private void fill(Map<Long, String> missedGenerations, Map<Long, BigDecimal> balances) {
+        if (missedGenerations.isEmpty()) {
+            return;
+        }
+        byte[] script = bytes(FILL_SCRIPT);
+        byte[] ttlSeconds = bytes(Long.toString(ttl.toSeconds()));
         try {
-            redisTemplate.opsForValue().set(KEY_PREFIX + accountId, balance.toPlainString(), ttl);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                missedGenerations.forEach((accountId, generation) ->
+                        connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, bytes(key(accountId)),
+                                bytes(generation), bytes(balances.get(accountId).toPlainString()), ttlSeconds));
+                return null;
+            });
         } catch (Exception e) {
-            log.warn("Redis SET failed for account {}: {}", accountId, e.getMessage());
+            log.warn("Redis balance fill failed for {} accounts: {}", missedGenerations.size(), e.getMessage());
         }
     }
 
-    public void evict(Long accountId) {
+    private void bump(List<Long> ids) {
+        byte[] script = bytes(BUMP_SCRIPT);
+        byte[] ttlSeconds = bytes(Long.toString(ttl.toSeconds()));
         try {
-            redisTemplate.delete(KEY_PREFIX + accountId);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long accountId : ids) {
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, bytes(key(accountId)), ttlSeconds);
+                }
+                return null;
+            });
         } catch (Exception e) {
-            log.warn("Redis DELETE failed for account {}: {}", accountId, e.getMessage());
+            log.warn("Redis balance invalidation failed for accounts {}: {}", ids, e.getMessage());
         }
     }
+
+    private static String key(Long accountId) {
+        return KEY_PREFIX + accountId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
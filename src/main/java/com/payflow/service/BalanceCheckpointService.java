@@ -0,0 +1,116 @@
+package com.payflow.service;
+
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
+import com.payflow.dto.BalanceAsOfResponse;
+import com.payflow.model.BalanceCheckpoint;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.BalanceCheckpointRepository;
+import com.payflow.repository.BalanceCheckpointRepository.TailSummary;
+import com.payflow.repository.TransactionFilter;
+import com.payflow.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time balances from ledger checkpoints. The balance at T is the nearest checkpoint
+ * at or before T plus the net of the COMPLETED rows created after it, up to T. Checkpoint
+ * runs are incremental: each one covers the rows created since the previous run's cut.
+ *
+ * The cut trails the clock by {@code settle-lag-seconds}, so rows that commit late (long
+ * transactions) are in the ledger before a run covers their {@code created_at}. It also stops
+ * short of the oldest PENDING row: an async transfer settles in place, however long after
+ * acceptance, and a run that had already passed its {@code created_at} would never count it.
+ *
+ * Tails that start before the {@link TransactionArchive} boundary read the archived months
+ * from the archive and the rest from the live table, as listings do.
+ */
+@Service
+@Slf4j
+public class BalanceCheckpointService {
+
+    // Arbitrary constant naming the checkpoint run in pg_advisory_xact_lock
+    private static final long RUN_LOCK_KEY = 0x62616c63_6b707400L;
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final AccountMetadataCache accountMetadataCache;
+    private final TransactionArchive transactionArchive;
+    private final long settleLagSeconds;
+
+    public BalanceCheckpointService(BalanceCheckpointRepository checkpointRepository,
+                                    AccountMetadataCache accountMetadataCache,
+                                    TransactionArchive transactionArchive,
+                                    @Value("${app.checkpoints.settle-lag-seconds:300}") long settleLagSeconds) {
+        this.checkpointRepository = checkpointRepository;
+        this.accountMetadataCache = accountMetadataCache;
+        this.transactionArchive = transactionArchive;
+        this.settleLagSeconds = settleLagSeconds;
+    }
+
+    @Transactional(readOnly = true)
+    public BalanceAsOfResponse balanceAsOf(Long accountId, LocalDateTime asOf, Long userId) {
+        AccountMetadataCache.AccountMetadata account = accountMetadataCache.requireOwned(accountId, userId);
+        LocalDateTime at = asOf != null ? asOf : LocalDateTime.now();
+
+        Optional<BalanceCheckpoint> checkpoint =
+                checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, at);
+        LocalDateTime after = checkpoint.map(BalanceCheckpoint::getAsOf).orElse(null);
+        LocalDateTime boundary = transactionArchive.boundary();
+        boolean reachesArchive = boundary != null && (after == null || after.isBefore(boundary));
+        TailSummary tail = checkpointRepository.sumTail(accountId, after, reachesArchive ? boundary : null, at);
+
+        Money balance = checkpoint.map(c -> Money.of(c.getBalance())).orElse(Money.ZERO)
+                .plus(Money.of(tail.getDelta()));
+        long count = tail.getCount();
+        if (reachesArchive) {
+            TransactionFilter archived = new TransactionFilter(accountId, null, TransactionStatus.COMPLETED,
+                    after, at, null, null);
+            try (Stream<ArchivedTransaction> rows = transactionArchive.stream(archived, false)) {
+                Iterator<ArchivedTransaction> it = rows.iterator();
+                while (it.hasNext()) {
+                    ArchivedTransaction row = it.next();
+                    // The filter's range is inclusive; the checkpoint already covers rows at its own instant
+                    if (after != null && !row.createdAt().isAfter(after)) {
+                        continue;
+                    }
+                    Money amount = Money.of(row.amount());
+                    balance = row.type() == TransactionType.CREDIT ? balance.plus(amount) : balance.minus(amount);
+                    count++;
+                }
+            }
+        }
+        return new BalanceAsOfResponse(accountId, at, balance.toBigDecimal(), account.currency(),
+                after, count);
+    }
+
+    /** Returns the number of checkpoints written, or -1 when another instance holds the run. */
+    @Transactional
+    public int writeCheckpoints() {
+        if (!checkpointRepository.tryLockRun(RUN_LOCK_KEY)) {
+            return -1;
+        }
+        LocalDateTime from = checkpointRepository.findLatestAsOf().orElse(null);
+        LocalDateTime cut = LocalDateTime.now().minusSeconds(settleLagSeconds);
+        Optional<LocalDateTime> oldestPending = checkpointRepository.findOldestPendingCreatedAt();
+        if (oldestPending.isPresent() && !oldestPending.get().isAfter(cut)) {
+            // created_at is stored to the microsecond, so this is the last instant before the pending row
+            cut = oldestPending.get().minus(1, ChronoUnit.MICROS);
+            log.debug("Balance checkpoints: cut held back to {} by a PENDING transaction", cut);
+        }
+        if (from != null && !cut.isAfter(from)) {
+            return 0;
+        }
+        int written = checkpointRepository.writeCheckpoints(from, cut);
+        log.info("Balance checkpoints: wrote {} as of {}", written, cut);
+        return written;
+    }
+}
@@ -0,0 +1,27 @@
+package com.payflow.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/** Runs {@link BalanceCheckpointService#writeCheckpoints} periodically; one instance wins each run. */
+@Component
+@ConditionalOnProperty(name = "app.checkpoints.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceCheckpointWriter {
+
+    private final BalanceCheckpointService checkpointService;
+
+    @Scheduled(fixedDelayString = "${app.checkpoints.interval-ms:900000}",
+               initialDelayString = "${app.checkpoints.initial-delay-ms:60000}")
+    public void write() {
+        try {
+            checkpointService.writeCheckpoints();
+        } catch (RuntimeException e) {
+            log.warn("Balance checkpoint run failed, will retry next interval: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.payflow.service;
+
+import com.payflow.model.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Applies a single debit or credit to an account and returns the resulting balance, or
+ * null when the strategy cannot name an exact one (sharded accounts). Callers validate
+ * status and currency up front; implementations own the sufficient-funds check and make
+ * the change safe under concurrent writers.
+ */
+public interface BalanceMutationStrategy {
+
+    BigDecimal debit(Account account, BigDecimal amount);
+
+    BigDecimal credit(Account account, BigDecimal amount);
+}
@@ -0,0 +1,27 @@
+package com.payflow.service;
+
+import com.payflow.dto.TransactionResponse;
+import com.payflow.model.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * A single-account deposit (CREDIT) or withdrawal (DEBIT) queued for group commit.
+ */
+public record BalanceOperation(
+        Long accountId,
+        TransactionType type,
+        BigDecimal amount,
+        String description,
+        String idempotencyKey
+) {
+    public record Outcome(TransactionResponse response, RuntimeException error) {
+        public static Outcome success(TransactionResponse response) {
+            return new Outcome(response, null);
+        }
+
+        public static Outcome failure(RuntimeException error) {
+            return new Outcome(null, error);
+        }
+    }
+}
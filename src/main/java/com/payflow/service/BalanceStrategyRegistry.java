@@ -0,0 +1,55 @@
+package com.payflow.service;
+
+import com.payflow.model.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class BalanceStrategyRegistry {
+
+    private final Map<ConcurrencyMode, BalanceMutationStrategy> strategies = new EnumMap<>(ConcurrencyMode.class);
+    private final ShardedBalanceStrategy shardedStrategy;
+    private volatile ConcurrencyMode activeMode;
+
+    public BalanceStrategyRegistry(OptimisticBalanceStrategy optimisticStrategy,
+                                   PessimisticBalanceStrategy pessimisticStrategy,
+                                   ConditionalUpdateBalanceStrategy conditionalUpdateStrategy,
+                                   ShardedBalanceStrategy shardedStrategy,
+                                   @Value("${app.transactions.concurrency-mode:OPTIMISTIC}") ConcurrencyMode mode) {
+        this.strategies.put(ConcurrencyMode.OPTIMISTIC, optimisticStrategy);
+        this.strategies.put(ConcurrencyMode.PESSIMISTIC, pessimisticStrategy);
+        this.strategies.put(ConcurrencyMode.CONDITIONAL_UPDATE, conditionalUpdateStrategy);
+        this.shardedStrategy = shardedStrategy;
+        setActiveMode(mode);
+    }
+
+    public BalanceMutationStrategy current() {
+        return strategies.get(activeMode);
+    }
+
+    // Hot accounts always go through their shard rows, whatever the active mode
+    public BalanceMutationStrategy forAccount(Account account) {
+        return account.isSharded() ? shardedStrategy : current();
+    }
+
+    public boolean isPessimistic() {
+        return activeMode == ConcurrencyMode.PESSIMISTIC;
+    }
+
+    public ConcurrencyMode getActiveMode() {
+        return activeMode;
+    }
+
+    public void setActiveMode(ConcurrencyMode mode) {
+        if (!strategies.containsKey(mode)) {
+            throw new IllegalArgumentException("No balance strategy registered for mode " + mode);
+        }
+        this.activeMode = mode;
+        log.info("Balance concurrency mode set to {}", mode);
+    }
+}
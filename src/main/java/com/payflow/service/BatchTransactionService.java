@@ -0,0 +1,149 @@
+package com.payflow.service;
+
+import com.payflow.dto.*;
+import com.payflow.dto.BatchTransactionRequest.ItemType;
+import com.payflow.dto.BatchTransactionResponse.ItemResult;
+import com.payflow.repository.AccountRepository;
+import com.payflow.service.BatchTransferExecutor.IndexedItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class BatchTransactionService {
+
+    private final AccountRepository accountRepository;
+    private final BatchTransferExecutor batchTransferExecutor;
+    private final TransactionService transactionService;
+    private final MetricsService metricsService;
+    private final int chunkSize;
+
+    public BatchTransactionService(AccountRepository accountRepository,
+                                   BatchTransferExecutor batchTransferExecutor,
+                                   TransactionService transactionService,
+                                   MetricsService metricsService,
+                                   @Value("${app.transactions.batch.chunk-size:500}") int chunkSize) {
+        this.accountRepository = accountRepository;
+        this.batchTransferExecutor = batchTransferExecutor;
+        this.transactionService = transactionService;
+        this.metricsService = metricsService;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchTransactionResponse execute(BatchTransactionRequest request, Long userId) {
+        List<BatchTransactionRequest.Item> items = request.items();
+
+        Set<Long> referenced = new HashSet<>();
+        for (BatchTransactionRequest.Item item : items) {
+            referenced.add(item.accountId());
+            if (item.destinationAccountId() != null) {
+                referenced.add(item.destinationAccountId());
+            }
+        }
+        Set<Long> owned = accountRepository.findIdsOwnedBy(userId, referenced);
+
+        ItemResult[] results = new ItemResult[items.size()];
+        // Items replayed one by one went through TransactionService, which already counted them
+        boolean[] countedIndividually = new boolean[items.size()];
+        List<IndexedItem> runnable = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionRequest.Item item = items.get(i);
+            String error = validate(item, owned);
+            if (error != null) {
+                results[i] = ItemResult.failure(i, item.idempotencyKey(), error);
+            } else {
+                runnable.add(new IndexedItem(i, item));
+            }
+        }
+
+        for (int from = 0; from < runnable.size(); from += chunkSize) {
+            List<IndexedItem> chunk = runnable.subList(from, Math.min(from + chunkSize, runnable.size()));
+            for (ItemResult result : executeChunk(chunk, userId, countedIndividually)) {
+                results[result.index()] = result;
+            }
+        }
+
+        int succeeded = 0;
+        for (ItemResult result : results) {
+            if (result.success()) {
+                succeeded++;
+            }
+            if (countedIndividually[result.index()]) {
+                continue;
+            }
+            if (result.success()) {
+                metricsService.recordTransactionSuccess();
+            } else {
+                metricsService.recordTransactionFailure();
+            }
+        }
+        log.info("Batch processed: userId={}, items={}, succeeded={}, chunks={}",
+                userId, items.size(), succeeded, (runnable.size() + chunkSize - 1) / chunkSize);
+
+        return new BatchTransactionResponse(items.size(), succeeded, items.size() - succeeded, Arrays.asList(results));
+    }
+
+    private List<ItemResult> executeChunk(List<IndexedItem> chunk, Long userId, boolean[] countedIndividually) {
+        try {
+            return batchTransferExecutor.executeChunk(chunk);
+        } catch (RuntimeException e) {
+            // The chunk rolled back as a whole; replay its items one by one so only the culprit fails
+            log.warn("Batch chunk of {} items failed ({}), falling back to individual execution",
+                    chunk.size(), e.getClass().getSimpleName());
+            chunk.forEach(c -> countedIndividually[c.index()] = true);
+            return chunk.stream().map(c -> executeSingle(c, userId)).toList();
+        }
+    }
+
+    private ItemResult executeSingle(IndexedItem c, Long userId) {
+        BatchTransactionRequest.Item item = c.item();
+        try {
+            return switch (item.type()) {
+                case TRANSFER -> {
+                    TransferResponse transfer = transactionService.transfer(new TransferRequest(
+                            item.accountId(), item.destinationAccountId(), item.amount(),
+                            item.description(), item.idempotencyKey()), userId);
+                    yield ItemResult.success(c.index(), item.idempotencyKey(), transfer.correlationId(),
+                            List.of(transfer.debit(), transfer.credit()));
+                }
+                case DEPOSIT -> {
+                    TransactionResponse tx = transactionService.deposit(new DepositRequest(
+                            item.accountId(), item.amount(), item.description(), item.idempotencyKey()), userId);
+                    yield ItemResult.success(c.index(), item.idempotencyKey(), null, List.of(tx));
+                }
+                case WITHDRAW -> {
+                    TransactionResponse tx = transactionService.withdraw(new WithdrawRequest(
+                            item.accountId(), item.amount(), item.description(), item.idempotencyKey()), userId);
+                    yield ItemResult.success(c.index(), item.idempotencyKey(), null, List.of(tx));
+                }
+            };
+        } catch (RuntimeException e) {
+            return ItemResult.failure(c.index(), item.idempotencyKey(), e.getMessage());
+        }
+    }
+
+    private static String validate(BatchTransactionRequest.Item item, Set<Long> owned) {
+        if (!owned.contains(item.accountId())) {
+            return "Account not found: " + item.accountId();
+        }
+        if (item.type() == ItemType.TRANSFER) {
+            if (item.destinationAccountId() == null) {
+                return "Destination account ID is required for transfers";
+            }
+            if (item.destinationAccountId().equals(item.accountId())) {
+                return "Source and destination accounts must be different";
+            }
+            if (!owned.contains(item.destinationAccountId())) {
+                return "Account not found: " + item.destinationAccountId();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,387 @@
+package com.payflow.service;
+
+import com.payflow.dto.BatchTransactionRequest;
+import com.payflow.dto.BatchTransactionRequest.ItemType;
+import com.payflow.dto.BatchTransactionResponse.ItemResult;
+import com.payflow.dto.TransactionResponse;
+import com.payflow.dto.TransferResponse;
+import com.payflow.event.TransactionEvent;
+import com.payflow.event.TransactionEvent.EventType;
+import com.payflow.event.TransactionEvent.TransactionEventType;
+import com.payflow.event.TransactionEventPublisher;
+import com.payflow.exception.AccountFrozenException;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.CurrencyMismatchException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.*;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.TransactionRepository;
+import com.payflow.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Applies one chunk of a bulk request in a single transaction. Every account the chunk
+ * touches is locked up front in ascending id order, items are applied against in-memory
+ * running balances, and the results are flushed as one UPDATE per account plus one
+ * saveAll of the ledger rows. Accepted asynchronous transfers settle the same way through
+ * {@link #settlePendingTransfers}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferExecutor {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final BalanceCacheService balanceCacheService;
+    private final TransactionEventPublisher eventPublisher;
+    private final BalanceStrategyRegistry balanceStrategies;
+    private final IdempotencyService idempotencyService;
+
+    public record IndexedItem(int index, BatchTransactionRequest.Item item) {}
+
+    /**
+     * Replays come from the idempotency store, behind its filter, like the single-item writes.
+     * A key that outlived the store's TTL hits the unique key on insert instead; the chunk then
+     * fails and {@link BatchTransactionService} replays it item by item from the ledger.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<ItemResult> executeChunk(List<IndexedItem> chunk) {
+        Map<String, Object> existing = new HashMap<>();
+        for (IndexedItem c : chunk) {
+            String key = c.item().idempotencyKey();
+            if (!existing.containsKey(key)) {
+                idempotencyService.find(key, responseType(c.item().type())).ifPresent(r -> existing.put(key, r));
+            }
+        }
+
+        Set<Long> accountIds = new TreeSet<>();
+        for (IndexedItem c : chunk) {
+            accountIds.add(c.item().accountId());
+            if (c.item().type() == ItemType.TRANSFER) {
+                accountIds.add(c.item().destinationAccountId());
+            }
+        }
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllByIdForUpdate(accountIds).forEach(a -> accounts.put(a.getId(), a));
+
+        Map<Long, Money> balances = new HashMap<>();
+        Map<String, Integer> firstByKey = new HashMap<>();
+        List<List<Transaction>> legs = new ArrayList<>(Collections.nCopies(chunk.size(), null));
+        Object[] replays = new Object[chunk.size()];
+        String[] errors = new String[chunk.size()];
+        boolean[] applied = new boolean[chunk.size()];
+        List<Transaction> created = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            BatchTransactionRequest.Item item = chunk.get(i).item();
+
+            // A key repeated within the chunk resolves to whatever its first occurrence produced
+            Integer first = firstByKey.putIfAbsent(item.idempotencyKey(), i);
+            if (first != null) {
+                legs.set(i, legs.get(first));
+                replays[i] = replays[first];
+                errors[i] = errors[first];
+                continue;
+            }
+
+            Object replay = existing.get(item.idempotencyKey());
+            if (replay != null) {
+                log.info("Idempotent replay for batch item idempotencyKey={}", item.idempotencyKey());
+                replays[i] = replay;
+                continue;
+            }
+
+            try {
+                List<Transaction> rows = apply(item, accounts, balances);
+                legs.set(i, rows);
+                created.addAll(rows);
+                applied[i] = true;
+            } catch (AccountNotFoundException | AccountFrozenException
+                     | CurrencyMismatchException | InsufficientFundsException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        if (!created.isEmpty()) {
+            List<Account> dirty = new ArrayList<>();
+            balances.forEach((id, balance) -> {
+                Account account = accounts.get(id);
+                account.setBalance(balance.toBigDecimal());
+                dirty.add(account);
+            });
+            accountRepository.saveAll(dirty);
+            transactionRepository.saveAll(created);
+            idempotencyService.recordAll(replayResponses(chunk, legs, applied));
+
+            Set<Long> touched = new HashSet<>();
+            List<TransactionEvent> events = new ArrayList<>(created.size());
+            for (Transaction tx : created) {
+                touched.add(tx.getAccountId());
+                events.add(new TransactionEvent(tx.getId(), tx.getAccountId(),
+                        eventType(tx),
+                        tx.getType() == TransactionType.CREDIT ? TransactionEventType.CREDIT : TransactionEventType.DEBIT,
+                        Money.of(tx.getAmount()), Money.of(tx.getBalanceAfter()), tx.getCorrelationId(), LocalDateTime.now()));
+            }
+            eventPublisher.publishAll(events);
+            balanceCacheService.invalidateAll(touched);
+        }
+
+        log.info("Batch chunk: items={}, ledgerRows={}, accountsLocked={}",
+                chunk.size(), created.size(), accounts.size());
+
+        List<ItemResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            IndexedItem c = chunk.get(i);
+            if (errors[i] != null) {
+                results.add(ItemResult.failure(c.index(), c.item().idempotencyKey(), errors[i]));
+            } else if (replays[i] instanceof TransferResponse transfer) {
+                results.add(ItemResult.success(c.index(), c.item().idempotencyKey(), transfer.correlationId(),
+                        List.of(transfer.debit(), transfer.credit())));
+            } else if (replays[i] instanceof TransactionResponse tx) {
+                results.add(ItemResult.success(c.index(), c.item().idempotencyKey(), null, List.of(tx)));
+            } else {
+                List<Transaction> txs = legs.get(i);
+                results.add(ItemResult.success(c.index(), c.item().idempotencyKey(),
+                        txs.get(0).getCorrelationId(),
+                        txs.stream().map(TransactionResponse::from).toList()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Settles PENDING transfer pairs written by {@link TransferExecutor#acceptTransfer}. Debit
+     * legs another settler already holds are skipped rather than waited on. A pair whose
+     * account was frozen or whose source lacks funds by now is marked FAILED and moves no
+     * money. Returns the settled debit legs.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<TransactionResponse> settlePendingTransfers(Collection<Long> debitIds) {
+        List<Transaction> debits = transactionRepository.findPendingDebitsForUpdate(debitIds);
+        if (debits.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Transaction> credits = new HashMap<>();
+        transactionRepository.findByCorrelationIdIn(debits.stream().map(Transaction::getCorrelationId).toList())
+                .stream()
+                .filter(tx -> tx.getType() == TransactionType.CREDIT)
+                .forEach(tx -> credits.put(tx.getCorrelationId(), tx));
+
+        Set<Long> accountIds = new TreeSet<>();
+        for (Transaction debit : debits) {
+            accountIds.add(debit.getAccountId());
+            accountIds.add(credits.get(debit.getCorrelationId()).getAccountId());
+        }
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllByIdForUpdate(accountIds).forEach(a -> accounts.put(a.getId(), a));
+
+        Map<Long, Money> balances = new HashMap<>();
+        List<Transaction> settled = new ArrayList<>(debits.size() * 2);
+        List<Transaction> completed = new ArrayList<>();
+        Map<String, Object> responses = new LinkedHashMap<>();
+        for (Transaction debit : debits) {
+            Transaction credit = credits.get(debit.getCorrelationId());
+            Account source = accounts.get(debit.getAccountId());
+            Account dest = accounts.get(credit.getAccountId());
+            try {
+                requireActive(source);
+                requireActive(dest);
+                LegBalances after = move(source, dest, debit.getAmount(), balances, debit.getCorrelationId());
+                debit.setBalanceAfter(after.source());
+                credit.setBalanceAfter(after.dest());
+                debit.setStatus(TransactionStatus.COMPLETED);
+                credit.setStatus(TransactionStatus.COMPLETED);
+                completed.add(debit);
+                completed.add(credit);
+            } catch (AccountFrozenException | InsufficientFundsException e) {
+                debit.setStatus(TransactionStatus.FAILED);
+                credit.setStatus(TransactionStatus.FAILED);
+                log.info("Pending transfer failed at settlement: correlationId={}, reason={}",
+                        debit.getCorrelationId(), e.getMessage());
+            }
+            settled.add(debit);
+            settled.add(credit);
+            // Replays of the acceptance return the debit leg as it now stands
+            responses.put(debit.getIdempotencyKey(), TransactionResponse.from(debit));
+        }
+
+        List<Account> dirty = new ArrayList<>();
+        balances.forEach((id, balance) -> {
+            Account account = accounts.get(id);
+            account.setBalance(balance.toBigDecimal());
+            dirty.add(account);
+        });
+        accountRepository.saveAll(dirty);
+        transactionRepository.saveAll(settled);
+        idempotencyService.rewriteAll(responses);
+
+        if (!completed.isEmpty()) {
+            Set<Long> touched = new HashSet<>();
+            List<TransactionEvent> events = new ArrayList<>(completed.size());
+            for (Transaction tx : completed) {
+                touched.add(tx.getAccountId());
+                events.add(new TransactionEvent(tx.getId(), tx.getAccountId(), eventType(tx),
+                        tx.getType() == TransactionType.CREDIT ? TransactionEventType.CREDIT : TransactionEventType.DEBIT,
+                        Money.of(tx.getAmount()), Money.of(tx.getBalanceAfter()), tx.getCorrelationId(), LocalDateTime.now()));
+            }
+            eventPublisher.publishAll(events);
+            balanceCacheService.invalidateAll(touched);
+        }
+
+        log.info("Settled pending transfers: requested={}, settled={}, completed={}, accountsLocked={}",
+                debitIds.size(), debits.size(), completed.size() / 2, accounts.size());
+        return debits.stream().map(TransactionResponse::from).toList();
+    }
+
+    /**
+     * Validates both legs before touching any balance, so a rejected item leaves no partial
+     * writes: see {@link #move} for the one leg that can still fail after the first.
+     */
+    private List<Transaction> apply(BatchTransactionRequest.Item item, Map<Long, Account> accounts,
+                                    Map<Long, Money> balances) {
+        Account account = locked(accounts, item.accountId());
+        requireActive(account);
+
+        return switch (item.type()) {
+            case DEPOSIT -> List.of(ledgerRow(account, TransactionType.CREDIT, item.amount(),
+                    item.description() != null ? item.description() : "Deposit",
+                    item.idempotencyKey(), null, credit(account, item.amount(), balances)));
+            case WITHDRAW -> List.of(ledgerRow(account, TransactionType.DEBIT, item.amount(),
+                    item.description() != null ? item.description() : "Withdrawal",
+                    item.idempotencyKey(), null, debit(account, item.amount(), balances)));
+            case TRANSFER -> {
+                Account dest = locked(accounts, item.destinationAccountId());
+                requireActive(dest);
+                if (!account.getCurrency().equals(dest.getCurrency())) {
+                    throw new CurrencyMismatchException(account.getCurrency(), dest.getCurrency());
+                }
+                UUID correlationId = UUID.randomUUID();
+                LegBalances after = move(account, dest, item.amount(), balances, correlationId);
+                yield List.of(
+                        ledgerRow(account, TransactionType.DEBIT, item.amount(), item.description(),
+                                item.idempotencyKey(), correlationId, after.source()),
+                        ledgerRow(dest, TransactionType.CREDIT, item.amount(), item.description(),
+                                item.idempotencyKey() + ":C", correlationId, after.dest()));
+            }
+        };
+    }
+
+    private record LegBalances(BigDecimal source, BigDecimal dest) {}
+
+    /**
+     * Debits then credits between two accounts already locked and checked active. The
+     * debit is the leg that can be refused, and it writes nothing when it is. A credit
+     * can then only fail if the destination's shards changed under the lock. An in-memory
+     * debit is undone so the item fails alone. A debit that already hit a shard row is
+     * escalated instead, because only rolling back the whole chunk undoes it.
+     */
+    private LegBalances move(Account source, Account dest, BigDecimal amount, Map<Long, Money> balances,
+                             UUID correlationId) {
+        Money sourceBefore = balances.get(source.getId());
+        BigDecimal sourceBalance = debit(source, amount, balances);
+        try {
+            return new LegBalances(sourceBalance, credit(dest, amount, balances));
+        } catch (RuntimeException e) {
+            if (source.isSharded()) {
+                throw new IllegalStateException("Credit leg of transfer " + correlationId
+                        + " failed after its shard debit on account " + source.getId(), e);
+            }
+            if (sourceBefore != null) {
+                balances.put(source.getId(), sourceBefore);
+            } else {
+                balances.remove(source.getId());
+            }
+            throw e;
+        }
+    }
+
+    private BigDecimal debit(Account account, BigDecimal amount, Map<Long, Money> balances) {
+        if (account.isSharded()) {
+            return balanceStrategies.forAccount(account).debit(account, amount);
+        }
+        Money current = balances.computeIfAbsent(account.getId(), id -> Money.of(account.getBalance()));
+        Money debit = Money.of(amount);
+        if (current.minus(Money.of(account.getHeldAmount())).isLessThan(debit)) {
+            throw new InsufficientFundsException();
+        }
+        Money next = current.minus(debit);
+        balances.put(account.getId(), next);
+        return next.toBigDecimal();
+    }
+
+    private BigDecimal credit(Account account, BigDecimal amount, Map<Long, Money> balances) {
+        if (account.isSharded()) {
+            return balanceStrategies.forAccount(account).credit(account, amount);
+        }
+        Money next = balances.computeIfAbsent(account.getId(), id -> Money.of(account.getBalance()))
+                .plus(Money.of(amount));
+        balances.put(account.getId(), next);
+        return next.toBigDecimal();
+    }
+
+    // Responses for the items this chunk created, keyed the way the single-item endpoints record them
+    private static Map<String, Object> replayResponses(List<IndexedItem> chunk, List<List<Transaction>> legs,
+                                                       boolean[] applied) {
+        Map<String, Object> responses = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!applied[i]) {
+                continue;
+            }
+            List<Transaction> txs = legs.get(i);
+            responses.put(chunk.get(i).item().idempotencyKey(), txs.size() == 2
+                    ? new TransferResponse(txs.get(0).getCorrelationId(),
+                            TransactionResponse.from(txs.get(0)), TransactionResponse.from(txs.get(1)))
+                    : TransactionResponse.from(txs.get(0)));
+        }
+        return responses;
+    }
+
+    // The type the single-item endpoint for this kind of write records under its key
+    private static Class<?> responseType(ItemType type) {
+        return type == ItemType.TRANSFER ? TransferResponse.class : TransactionResponse.class;
+    }
+
+    private static Account locked(Map<Long, Account> accounts, Long id) {
+        Account account = accounts.get(id);
+        if (account == null) {
+            throw new AccountNotFoundException(id);
+        }
+        return account;
+    }
+
+    private static void requireActive(Account account) {
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountFrozenException(account.getId());
+        }
+    }
+
+    private static Transaction ledgerRow(Account account, TransactionType type, BigDecimal amount, String description,
+                                         String idempotencyKey, UUID correlationId, BigDecimal balanceAfter) {
+        Transaction tx = new Transaction();
+        tx.setAccountId(account.getId());
+        tx.setType(type);
+        tx.setAmount(amount);
+        tx.setDescription(description);
+        tx.setCorrelationId(correlationId);
+        tx.setIdempotencyKey(idempotencyKey);
+        tx.setStatus(TransactionStatus.COMPLETED);
+        tx.setBalanceAfter(balanceAfter);
+        return tx;
+    }
+
+    private static EventType eventType(Transaction tx) {
+        if (tx.getCorrelationId() != null) {
+            return tx.getType() == TransactionType.DEBIT ? EventType.TRANSFER_DEBIT : EventType.TRANSFER_CREDIT;
+        }
+        return tx.getType() == TransactionType.CREDIT ? EventType.DEPOSIT : EventType.WITHDRAWAL;
+    }
+}
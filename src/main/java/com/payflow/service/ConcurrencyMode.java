@@ -0,0 +1,5 @@
+package com.payflow.service;
+
+public enum ConcurrencyMode {
+    OPTIMISTIC, PESSIMISTIC, CONDITIONAL_UPDATE
+}
@@ -0,0 +1,57 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountFrozenException;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Account;
+import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.AccountRepository.BalanceSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Applies the delta in a single guarded {@code UPDATE ... RETURNING} statement. Concurrent
+ * writers queue on the row lock and re-evaluate the guard instead of failing a version
+ * check, so hot accounts never burn through optimistic retries.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalUpdateBalanceStrategy implements BalanceMutationStrategy {
+
+    private final AccountRepository accountRepository;
+
+    @Override
+    public BigDecimal debit(Account account, BigDecimal amount) {
+        BalanceSnapshot snapshot = accountRepository.debitIfSufficient(account.getId(), amount)
+                .orElseThrow(() -> rejection(account.getId()));
+        return snapshot.getBalance();
+    }
+
+    @Override
+    public BigDecimal credit(Account account, BigDecimal amount) {
+        BalanceSnapshot snapshot = accountRepository.creditIfActive(account.getId(), amount)
+                .orElseThrow(() -> rejection(account.getId()));
+        return snapshot.getBalance();
+    }
+
+    // The guard matched no row: re-read the status to report why
+    private RuntimeException rejection(Long accountId) {
+        AccountStatus status = accountRepository.findStatusById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        if (status != AccountStatus.ACTIVE) {
+            return new AccountFrozenException(accountId);
+        }
+        if (accountRepository.findShardCountById(accountId).orElse(0) > 0) {
+            // Switched to hot-account mode after we loaded it; the retry takes the shard path
+            return new ObjectOptimisticLockingFailureException(Account.class, accountId);
+        }
+        log.debug("Conditional debit rejected for account {}: insufficient funds", accountId);
+        return new InsufficientFundsException();
+    }
+}
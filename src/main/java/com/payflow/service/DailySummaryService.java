@@ -14,11 +14,11 @@ import java.util.List;
 public class DailySummaryService {
 
     private final DailySummaryRepository dailySummaryRepository;
-    private final AccountService accountService;
+    private final AccountMetadataCache accountMetadataCache;
 
     @Transactional(readOnly = true)
     public List<DailySummary> getSummaries(Long accountId, LocalDate from, LocalDate to, Long userId) {
-        accountService.getById(accountId, userId);
+        accountMetadataCache.requireOwned(accountId, userId);
         return dailySummaryRepository.findByAccountIdAndSummaryDateBetweenOrderBySummaryDateAsc(accountId, from, to);
     }
 }
@@ -0,0 +1,190 @@
+package com.payflow.service;
+
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+import com.payflow.repository.ExportJobRepository;
+import com.payflow.repository.TransactionFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes queued export jobs to files under {@code app.exports.directory}. Each poll renews
+ * the lease on jobs this instance is still writing, then claims as many pending jobs as it
+ * has idle workers with {@code FOR UPDATE SKIP LOCKED}. A worker streams the CSV through
+ * {@link TransactionCsvExporter} into a {@code .part} file via a {@link FileChannel}, forces
+ * it to disk and renames it into place, so a finished file is never half-written. If an
+ * instance dies mid-export its lease lapses and another poller starts the job over.
+ *
+ * Finished files are deleted once they pass {@code retention-hours} and the job is marked
+ * EXPIRED. Jobs record the file name relative to the directory, so with a shared
+ * {@code EXPORT_DIR} any instance can serve or expire a file another one wrote.
+ */
+@Component
+@ConditionalOnProperty(name = "app.exports.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ExportJobRunner {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final ExportJobRepository exportJobRepository;
+    private final TransactionCsvExporter transactionCsvExporter;
+    private final MetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final int workerCount;
+    private final Path directory;
+    private final long leaseSeconds;
+    private final long retentionHours;
+
+    public ExportJobRunner(ExportJobRepository exportJobRepository,
+                           TransactionCsvExporter transactionCsvExporter,
+                           MetricsService metricsService,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.exports.workers:2}") int workers,
+                           @Value("${app.exports.directory:${java.io.tmpdir}/fluxpay-exports}") String directory,
+                           @Value("${app.exports.lease-seconds:120}") long leaseSeconds,
+                           @Value("${app.exports.retention-hours:24}") long retentionHours) {
+        this.exportJobRepository = exportJobRepository;
+        this.transactionCsvExporter = transactionCsvExporter;
+        this.metricsService = metricsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workers);
+        this.workerCount = workers;
+        this.directory = Path.of(directory);
+        this.leaseSeconds = leaseSeconds;
+        this.retentionHours = retentionHours;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create export directory " + directory, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.exports.poll-interval-ms:1000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!inFlight.isEmpty()) {
+            Set<Long> running = Set.copyOf(inFlight);
+            transactionTemplate.executeWithoutResult(status ->
+                    exportJobRepository.extendLease(running, now.plusSeconds(leaseSeconds)));
+        }
+        int idle = workerCount - inFlight.size();
+        if (idle > 0) {
+            List<ExportJob> claimed = transactionTemplate.execute(status -> claim(now, idle));
+            if (claimed != null) {
+                for (ExportJob job : claimed) {
+                    inFlight.add(job.getId());
+                    workers.submit(() -> run(job));
+                }
+            }
+        }
+        expire(now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private List<ExportJob> claim(LocalDateTime now, int limit) {
+        List<ExportJob> jobs = exportJobRepository.claimPending(now, limit);
+        LocalDateTime leaseEnd = now.plusSeconds(leaseSeconds);
+        for (ExportJob job : jobs) {
+            job.setStatus(ExportJobStatus.RUNNING);
+            job.setClaimedUntil(leaseEnd);
+            job.setStartedAt(now);
+        }
+        return exportJobRepository.saveAll(jobs);
+    }
+
+    void run(ExportJob job) {
+        Path part = directory.resolve("export-" + job.getId() + ".csv.part");
+        Path target = directory.resolve("export-" + job.getId() + ".csv");
+        TransactionFilter filter = new TransactionFilter(job.getAccountId(), job.getFilterType(),
+                job.getFilterStatus(), job.getFromTime(), job.getToTime(), null, null);
+        try {
+            long rows;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                rows = transactionCsvExporter.write(filter, Channels.newOutputStream(channel), false);
+                channel.force(false);
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(target);
+            transactionTemplate.executeWithoutResult(status -> complete(job.getId(), target, rows, size));
+            metricsService.recordExportCompleted();
+            log.info("Export job {} finished: {} rows, {} bytes", job.getId(), rows, size);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(part);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            transactionTemplate.executeWithoutResult(status -> fail(job.getId(), error));
+            metricsService.recordExportFailed();
+            log.warn("Export job {} failed", job.getId(), e);
+        } finally {
+            inFlight.remove(job.getId());
+        }
+    }
+
+    private void complete(Long id, Path file, long rows, long size) {
+        exportJobRepository.findById(id).ifPresent(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(ExportJobStatus.COMPLETED);
+            job.setClaimedUntil(null);
+            job.setFilePath(directory.relativize(file).toString());
+            job.setRowCount(rows);
+            job.setSizeBytes(size);
+            job.setCompletedAt(now);
+            job.setExpiresAt(now.plusHours(retentionHours));
+        });
+    }
+
+    private void fail(Long id, String error) {
+        exportJobRepository.findById(id).ifPresent(job -> {
+            job.setStatus(ExportJobStatus.FAILED);
+            job.setClaimedUntil(null);
+            job.setError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            job.setCompletedAt(LocalDateTime.now());
+        });
+    }
+
+    private void expire(LocalDateTime now) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ExportJob job : exportJobRepository.findTop100ByStatusAndExpiresAtBefore(ExportJobStatus.COMPLETED, now)) {
+                if (job.getFilePath() != null) {
+                    deleteQuietly(directory.resolve(job.getFilePath()));
+                }
+                job.setStatus(ExportJobStatus.EXPIRED);
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.payflow.service;
+
+import com.payflow.dto.CreateExportJobRequest;
+import com.payflow.dto.ExportJobResponse;
+import com.payflow.exception.ExportLimitExceededException;
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+import com.payflow.repository.ExportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Accepts background CSV exports and hands out their finished files; {@link ExportJobRunner}
+ * does the writing. A user may have at most {@code max-active-per-user} jobs queued or
+ * running, which bounds how many export cursors one tenant can hold open at once.
+ */
+@Service
+@Slf4j
+public class ExportJobService {
+
+    private final ExportJobRepository exportJobRepository;
+    private final AccountMetadataCache accountMetadataCache;
+    private final int maxActivePerUser;
+    private final Path directory;
+
+    public ExportJobService(ExportJobRepository exportJobRepository,
+                            AccountMetadataCache accountMetadataCache,
+                            @Value("${app.exports.max-active-per-user:2}") int maxActivePerUser,
+                            @Value("${app.exports.directory:${java.io.tmpdir}/fluxpay-exports}") String directory) {
+        this.exportJobRepository = exportJobRepository;
+        this.accountMetadataCache = accountMetadataCache;
+        this.maxActivePerUser = maxActivePerUser;
+        this.directory = Path.of(directory);
+    }
+
+    public record ExportFile(Path path, long size) {}
+
+    @Transactional
+    public ExportJobResponse submit(CreateExportJobRequest request, Long userId) {
+        if (request.from() != null && request.to() != null && request.to().isBefore(request.from())) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        accountMetadataCache.requireOwned(request.accountId(), userId);
+
+        exportJobRepository.lockUser(userId);
+        if (exportJobRepository.countActiveByUserId(userId) >= maxActivePerUser) {
+            throw new ExportLimitExceededException(maxActivePerUser);
+        }
+
+        ExportJob job = new ExportJob();
+        job.setUserId(userId);
+        job.setAccountId(request.accountId());
+        job.setFilterType(request.type());
+        job.setFilterStatus(request.status());
+        job.setFromTime(request.from());
+        job.setToTime(request.to());
+        job = exportJobRepository.save(job);
+
+        log.info("Export job queued: id={}, accountId={}", job.getId(), job.getAccountId());
+        return ExportJobResponse.from(job);
+    }
+
+    @Transactional(readOnly = true)
+    public ExportJobResponse get(Long id, Long userId) {
+        return ExportJobResponse.from(find(id, userId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ExportJobResponse> getByUserId(Long userId) {
+        return exportJobRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(ExportJobResponse::from)
+                .toList();
+    }
+
+    /**
+     * The file of a COMPLETED job, resolved against the export directory; paths recorded as
+     * absolute by older versions resolve to themselves.
+     */
+    @Transactional(readOnly = true)
+    public ExportFile openFile(Long id, Long userId) {
+        ExportJob job = find(id, userId);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new IllegalArgumentException("Export job " + id + " is " + job.getStatus());
+        }
+        Path path = directory.resolve(job.getFilePath());
+        if (!Files.isReadable(path)) {
+            throw new IllegalArgumentException("Export file is no longer available: " + id);
+        }
+        return new ExportFile(path, job.getSizeBytes());
+    }
+
+    private ExportJob find(Long id, Long userId) {
+        return exportJobRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new IllegalArgumentException("Export job not found: " + id));
+    }
+}
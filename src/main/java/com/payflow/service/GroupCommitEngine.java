@@ -0,0 +1,174 @@
+package com.payflow.service;
+
+import com.payflow.dto.TransactionResponse;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.model.TransactionType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues deposits and withdrawals per account and commits them in micro-batches through
+ * {@link TransferExecutor#executeAccountBatch}. Each account queue is drained by at most
+ * one worker at a time. Operations that arrive while a batch is committing accumulate
+ * and go out together in the next batch. An idle queue is removed under the same map lock
+ * that enqueues take, so an operation never lands in a queue that has already been dropped.
+ */
+@Component
+@Slf4j
+public class GroupCommitEngine {
+
+    private final TransferExecutor transferExecutor;
+    private final MetricsService metricsService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long submitTimeoutMs;
+    private final ExecutorService drainers;
+    private final ConcurrentHashMap<Long, AccountQueue> queues = new ConcurrentHashMap<>();
+
+    public GroupCommitEngine(TransferExecutor transferExecutor,
+                             MetricsService metricsService,
+                             @Value("${app.transactions.group-commit.enabled:false}") boolean enabled,
+                             @Value("${app.transactions.group-commit.max-batch-size:200}") int maxBatchSize,
+                             @Value("${app.transactions.group-commit.workers:8}") int workers,
+                             @Value("${app.transactions.group-commit.submit-timeout-ms:5000}") long submitTimeoutMs) {
+        this.transferExecutor = transferExecutor;
+        this.metricsService = metricsService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.drainers = enabled ? Executors.newFixedThreadPool(workers) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TransactionResponse submit(BalanceOperation operation) {
+        if (!enabled) {
+            throw new IllegalStateException("Group commit is disabled");
+        }
+        PendingOperation pending = new PendingOperation(operation, new CompletableFuture<>());
+        AccountQueue queue = queues.compute(operation.accountId(), (accountId, existing) -> {
+            AccountQueue target = existing != null ? existing : new AccountQueue(accountId);
+            target.operations.add(pending);
+            return target;
+        });
+        scheduleDrain(queue);
+
+        try {
+            return pending.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Group commit failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The operation may still commit; the client retries with the same idempotency key
+            throw new IllegalStateException("Timed out waiting for group commit on account " + operation.accountId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (drainers != null) {
+            drainers.shutdown();
+        }
+    }
+
+    private void scheduleDrain(AccountQueue queue) {
+        if (queue.draining.compareAndSet(false, true)) {
+            drainers.execute(() -> drain(queue));
+        }
+    }
+
+    private void drain(AccountQueue queue) {
+        try {
+            List<PendingOperation> batch;
+            while (!(batch = queue.poll(maxBatchSize)).isEmpty()) {
+                commit(queue.accountId, batch);
+            }
+        } finally {
+            queue.draining.set(false);
+            queues.computeIfPresent(queue.accountId,
+                    (accountId, current) -> current == queue && current.operations.isEmpty() ? null : current);
+            if (!queue.operations.isEmpty()) {
+                // An operation slipped in after the last poll, so the queue was kept
+                scheduleDrain(queue);
+            }
+        }
+    }
+
+    private void commit(Long accountId, List<PendingOperation> batch) {
+        metricsService.recordGroupCommitBatch(batch.size());
+        List<BalanceOperation> operations = batch.stream().map(PendingOperation::operation).toList();
+        try {
+            List<BalanceOperation.Outcome> outcomes = transferExecutor.executeAccountBatch(accountId, operations);
+            for (int i = 0; i < batch.size(); i++) {
+                BalanceOperation.Outcome outcome = outcomes.get(i);
+                if (outcome.error() != null) {
+                    batch.get(i).result().completeExceptionally(outcome.error());
+                } else {
+                    batch.get(i).result().complete(outcome.response());
+                }
+            }
+        } catch (AccountNotFoundException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        } catch (RuntimeException e) {
+            // e.g. a concurrent duplicate idempotency key from another node: isolate the culprit
+            log.warn("Group commit of {} operations for account {} failed, falling back to single commits: {}",
+                    batch.size(), accountId, e.getMessage());
+            batch.forEach(this::commitIndividually);
+        }
+    }
+
+    private void commitIndividually(PendingOperation pending) {
+        BalanceOperation op = pending.operation();
+        try {
+            TransactionResponse response = op.type() == TransactionType.CREDIT
+                    ? transferExecutor.executeDeposit(op.accountId(), op.amount(), op.description(), op.idempotencyKey())
+                    : transferExecutor.executeWithdraw(op.accountId(), op.amount(), op.description(), op.idempotencyKey());
+            pending.result().complete(response);
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingOperation(BalanceOperation operation, CompletableFuture<TransactionResponse> result) {}
+
+    private static final class AccountQueue {
+        private final Long accountId;
+        private final Queue<PendingOperation> operations = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private AccountQueue(Long accountId) {
+            this.accountId = accountId;
+        }
+
+        private List<PendingOperation> poll(int max) {
+            List<PendingOperation> batch = new ArrayList<>(Math.min(max, 16));
+            PendingOperation next;
+            while (batch.size() < max && (next = operations.poll()) != null) {
+                batch.add(next);
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.payflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Returns lapsed holds to the available balance. Until the sweep reaches a lapsed hold its
+ * amount stays reserved, but it can no longer be captured. Several instances can sweep at
+ * once: each batch is claimed with {@code FOR UPDATE SKIP LOCKED}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.holds.expiry.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class HoldExpirySweeper {
+
+    private final HoldService holdService;
+    private final MetricsService metricsService;
+    private final int batchSize;
+
+    public HoldExpirySweeper(HoldService holdService,
+                             MetricsService metricsService,
+                             @Value("${app.holds.expiry.batch-size:500}") int batchSize) {
+        this.holdService = holdService;
+        this.metricsService = metricsService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.holds.expiry.sweep-interval-ms:10000}")
+    public void sweep() {
+        int expired;
+        int total = 0;
+        do {
+            try {
+                expired = holdService.expireBatch(batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Hold expiry sweep failed, will retry: {}", e.getMessage());
+                return;
+            }
+            total += expired;
+        } while (expired == batchSize);
+        if (total > 0) {
+            metricsService.recordHoldsExpired(total);
+            log.info("Expired {} holds", total);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.payflow.service;
+
+import com.payflow.dto.CaptureHoldRequest;
+import com.payflow.dto.CreateHoldRequest;
+import com.payflow.dto.HoldResponse;
+import com.payflow.event.TransactionEvent;
+import com.payflow.event.TransactionEvent.EventType;
+import com.payflow.event.TransactionEvent.TransactionEventType;
+import com.payflow.event.TransactionEventPublisher;
+import com.payflow.exception.AccountFrozenException;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.Hold;
+import com.payflow.model.HoldStatus;
+import com.payflow.model.Transaction;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.AccountRepository.BalanceSnapshot;
+import com.payflow.repository.HoldRepository;
+import com.payflow.repository.TransactionRepository;
+import com.payflow.util.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Authorize/capture holds. Authorizing moves the amount into the account's
+ * {@code held_amount} with one guarded UPDATE, so every debit path sees a smaller
+ * available balance without reading the holds table. Capture writes one DEBIT ledger row
+ * for the captured amount and drops the whole hold from {@code held_amount}; release and
+ * expiry only drop it. Nothing is written to the ledger until capture, so an authorize
+ * that is later released costs two row updates instead of a withdrawal and a refund.
+ */
+@Service
+@Slf4j
+public class HoldService {
+
+    private final HoldRepository holdRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountMetadataCache accountMetadataCache;
+    private final BalanceCacheService balanceCacheService;
+    private final TransactionEventPublisher eventPublisher;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+
+    public HoldService(HoldRepository holdRepository,
+                       AccountRepository accountRepository,
+                       TransactionRepository transactionRepository,
+                       AccountMetadataCache accountMetadataCache,
+                       BalanceCacheService balanceCacheService,
+                       TransactionEventPublisher eventPublisher,
+                       @Value("${app.holds.default-ttl-seconds:604800}") long defaultTtlSeconds,
+                       @Value("${app.holds.max-ttl-seconds:2592000}") long maxTtlSeconds) {
+        this.holdRepository = holdRepository;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountMetadataCache = accountMetadataCache;
+        this.balanceCacheService = balanceCacheService;
+        this.eventPublisher = eventPublisher;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public HoldResponse authorize(CreateHoldRequest request, Long userId) {
+        accountMetadataCache.requireOwned(request.accountId(), userId);
+        Optional<Hold> existing = holdRepository.findByIdempotencyKey(request.idempotencyKey());
+        if (existing.isPresent()) {
+            log.info("Idempotent replay for hold idempotencyKey={}, holdId={}",
+                    request.idempotencyKey(), existing.get().getId());
+            return HoldResponse.from(existing.get());
+        }
+
+        long ttlSeconds = request.expiresInSeconds() != null ? request.expiresInSeconds() : defaultTtlSeconds;
+        if (ttlSeconds > maxTtlSeconds) {
+            throw new IllegalArgumentException("Holds may last at most " + maxTtlSeconds + " seconds");
+        }
+
+        accountRepository.reserveIfAvailable(request.accountId(), request.amount())
+                .orElseThrow(() -> rejection(request.accountId()));
+
+        Hold hold = new Hold();
+        hold.setAccountId(request.accountId());
+        hold.setAmount(request.amount());
+        hold.setDescription(request.description());
+        hold.setIdempotencyKey(request.idempotencyKey());
+        hold.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds));
+        hold = holdRepository.save(hold);
+
+        log.info("Hold authorized: holdId={}, accountId={}, amount={}, expiresAt={}",
+                hold.getId(), hold.getAccountId(), hold.getAmount(), hold.getExpiresAt());
+        return HoldResponse.from(hold);
+    }
+
+    /** Capturing an already captured hold returns it unchanged, so clients can retry safely. */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public HoldResponse capture(Long holdId, CaptureHoldRequest request, Long userId) {
+        Hold hold = lockOwned(holdId, userId);
+        if (hold.getStatus() == HoldStatus.CAPTURED) {
+            return HoldResponse.from(hold);
+        }
+        requireOpen(hold);
+
+        BigDecimal captured = request != null && request.amount() != null ? request.amount() : hold.getAmount();
+        if (captured.compareTo(hold.getAmount()) > 0) {
+            throw new IllegalArgumentException("Capture amount exceeds the held amount of " + hold.getAmount());
+        }
+        BalanceSnapshot snapshot = accountRepository.captureHeld(hold.getAccountId(), captured, hold.getAmount())
+                .orElseThrow(() -> new AccountNotFoundException(hold.getAccountId()));
+
+        Transaction tx = new Transaction();
+        tx.setAccountId(hold.getAccountId());
+        tx.setType(TransactionType.DEBIT);
+        tx.setAmount(captured);
+        tx.setDescription(hold.getDescription() != null ? hold.getDescription() : "Capture");
+        tx.setIdempotencyKey(hold.captureKey());
+        tx.setStatus(TransactionStatus.COMPLETED);
+        tx.setBalanceAfter(snapshot.getBalance());
+        tx = transactionRepository.save(tx);
+
+        hold.setCapturedAmount(captured);
+        hold.setTransactionId(tx.getId());
+        hold.resolve(HoldStatus.CAPTURED);
+        holdRepository.save(hold);
+
+        balanceCacheService.invalidate(hold.getAccountId());
+        eventPublisher.publish(new TransactionEvent(tx.getId(), hold.getAccountId(),
+                EventType.WITHDRAWAL, TransactionEventType.DEBIT,
+                Money.of(captured), Money.of(snapshot.getBalance()), null, LocalDateTime.now()));
+
+        log.info("Hold captured: holdId={}, accountId={}, captured={}, held={}, balanceAfter={}",
+                holdId, hold.getAccountId(), captured, hold.getAmount(), snapshot.getBalance());
+        return HoldResponse.from(hold);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public HoldResponse release(Long holdId, Long userId) {
+        Hold hold = lockOwned(holdId, userId);
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            // Released, expired or captured already: nothing is held any more
+            return HoldResponse.from(hold);
+        }
+        accountRepository.releaseHeld(hold.getAccountId(), hold.getAmount());
+        hold.resolve(HoldStatus.RELEASED);
+        holdRepository.save(hold);
+
+        log.info("Hold released: holdId={}, accountId={}, amount={}", holdId, hold.getAccountId(), hold.getAmount());
+        return HoldResponse.from(hold);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldResponse> getByAccountId(Long accountId, Long userId) {
+        accountMetadataCache.requireOwned(accountId, userId);
+        return holdRepository.findByAccountIdOrderByCreatedAtDesc(accountId).stream()
+                .map(HoldResponse::from)
+                .toList();
+    }
+
+    /**
+     * Expires up to {@code limit} lapsed holds in one transaction. Each account's
+     * {@code held_amount} is reduced once for all of its expired holds, in ascending id
+     * order so concurrent sweeps and batch writers cannot deadlock on the account rows.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public int expireBatch(int limit) {
+        List<Hold> expired = holdRepository.claimExpired(LocalDateTime.now(), limit);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Money> byAccount = new TreeMap<>();
+        for (Hold hold : expired) {
+            byAccount.merge(hold.getAccountId(), Money.of(hold.getAmount()), Money::plus);
+            hold.resolve(HoldStatus.EXPIRED);
+        }
+        byAccount.forEach((accountId, amount) -> accountRepository.releaseHeld(accountId, amount.toBigDecimal()));
+        holdRepository.saveAll(expired);
+
+        log.debug("Expired {} holds across {} accounts", expired.size(), byAccount.size());
+        return expired.size();
+    }
+
+    private Hold lockOwned(Long holdId, Long userId) {
+        Hold hold = holdRepository.findByIdForUpdate(holdId)
+                .orElseThrow(() -> new IllegalArgumentException("Hold not found: " + holdId));
+        accountMetadataCache.requireOwned(hold.getAccountId(), userId);
+        return hold;
+    }
+
+    private static void requireOpen(Hold hold) {
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            throw new IllegalArgumentException("Hold " + hold.getId() + " is " + hold.getStatus());
+        }
+        if (!hold.getExpiresAt().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Hold " + hold.getId() + " has expired");
+        }
+    }
+
+    // The guarded reserve matched no row: re-read the account to report why
+    private RuntimeException rejection(Long accountId) {
+        AccountStatus status = accountRepository.findStatusById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        if (status != AccountStatus.ACTIVE) {
+            return new AccountFrozenException(accountId);
+        }
+        if (accountRepository.findShardCountById(accountId).orElse(0) > 0) {
+            return new IllegalArgumentException("Holds are not supported on hot-account (sharded) balances");
+        }
+        return new InsufficientFundsException();
+    }
+}
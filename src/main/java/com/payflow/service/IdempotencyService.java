@@ -0,0 +1,208 @@
+package com.payflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payflow.model.IdempotencyRecord;
+import com.payflow.repository.IdempotencyRecordRepository;
+import com.payflow.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replay store for write requests. Each committed write records its serialized response
+ * under the client's idempotency key, in the same transaction as the ledger rows.
+ *
+ * An in-memory Bloom filter of live keys sits in front of the table. Most keys are new,
+ * and for those the filter answers "definitely absent" without a database probe. The
+ * filter is per instance, so a key recorded elsewhere can slip past it; the primary key
+ * on {@code idempotency_keys} and the unique key on {@code transactions} then reject the
+ * second write, and {@link #findCommitted} replays the original.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int WARM_PAGE_SIZE = 10_000;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final Duration ttl;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+    private volatile boolean filterReady;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              MetricsService metricsService,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.filter.expected-keys:1000000}") long expectedKeys,
+                              @Value("${app.idempotency.filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = BloomFilter.create(expectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * Replay lookup for the start of a write. Skips the database when the filter has
+     * never seen the key.
+     */
+    public <T> Optional<T> find(String key, Class<T> type) {
+        if (filterReady && !filter.mightContain(key)) {
+            metricsService.recordIdempotencyProbeSkipped();
+            return Optional.empty();
+        }
+        return findCommitted(key, type);
+    }
+
+    /** Direct lookup that bypasses the filter, used after a duplicate-key conflict. */
+    public <T> Optional<T> findCommitted(String key, Class<T> type) {
+        return repository.findById(key)
+                .filter(r -> r.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(r -> {
+                    metricsService.recordIdempotencyReplay();
+                    return deserialize(r, type);
+                });
+    }
+
+    /** Must be called inside the write's transaction so the record commits with the ledger rows. */
+    public void record(String key, Object response) {
+        repository.save(toRecord(key, response, LocalDateTime.now()));
+        remember(key);
+    }
+
+    public void recordAll(Map<String, ?> responses) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<IdempotencyRecord> records = new ArrayList<>(responses.size());
+        responses.forEach((key, response) -> records.add(toRecord(key, response, now)));
+        repository.saveAll(records);
+        responses.keySet().forEach(this::remember);
+    }
+
+    /**
+     * Replaces the stored responses of writes whose outcome changed after they were first
+     * recorded, such as an accepted transfer settling. Must be called inside the transaction
+     * that changed it. A key without a record is recorded fresh.
+     */
+    public void rewriteAll(Map<String, ?> responses) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, IdempotencyRecord> stored = new HashMap<>();
+        repository.findAllById(responses.keySet()).forEach(r -> stored.put(r.getIdempotencyKey(), r));
+        List<IdempotencyRecord> missing = new ArrayList<>();
+        responses.forEach((key, response) -> {
+            IdempotencyRecord replacement = toRecord(key, response, now);
+            IdempotencyRecord current = stored.get(key);
+            if (current == null) {
+                missing.add(replacement);
+            } else {
+                // Managed, so the change flushes with the caller's transaction
+                current.setResponseType(replacement.getResponseType());
+                current.setResponseBody(replacement.getResponseBody());
+            }
+        });
+        if (!missing.isEmpty()) {
+            repository.saveAll(missing);
+        }
+        responses.keySet().forEach(this::remember);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmFilter() {
+        rebuildFilter();
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+               initialDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        log.info("Purged {} expired idempotency keys", deleted);
+        // Bloom filters cannot forget, so drop expired keys by rebuilding from what is left
+        rebuildFilter();
+    }
+
+    void rebuildFilter() {
+        BloomFilter next = BloomFilter.create(expectedKeys, falsePositiveRate);
+        rebuilding = next;
+        LocalDateTime now = LocalDateTime.now();
+        long loaded = 0;
+        String after = "";
+        try {
+            List<String> page;
+            do {
+                page = repository.findLiveKeysAfter(now, after, PageRequest.ofSize(WARM_PAGE_SIZE));
+                page.forEach(next::put);
+                loaded += page.size();
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1);
+                }
+            } while (page.size() == WARM_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            // Without a complete filter every lookup must go to the database
+            rebuilding = null;
+            filterReady = false;
+            log.warn("Idempotency filter rebuild failed, probing the database for every key: {}", e.getMessage());
+            return;
+        }
+        filter = next;
+        rebuilding = null;
+        filterReady = true;
+        log.info("Idempotency filter loaded {} live keys ({} bits, {} hashes)",
+                loaded, next.bitSize(), next.hashFunctions());
+    }
+
+    private void remember(String key) {
+        filter.put(key);
+        BloomFilter pending = rebuilding;
+        if (pending != null) {
+            pending.put(key);
+        }
+    }
+
+    private IdempotencyRecord toRecord(String key, Object response, LocalDateTime now) {
+        try {
+            return new IdempotencyRecord(key, response.getClass().getSimpleName(),
+                    objectMapper.writeValueAsString(response), now, now.plus(ttl));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response for idempotency key " + key, e);
+        }
+    }
+
+    private <T> T deserialize(IdempotencyRecord record, Class<T> type) {
+        if (!type.getSimpleName().equals(record.getResponseType())) {
+            throw new IllegalArgumentException(
+                    "Idempotency key " + record.getIdempotencyKey() + " was already used for a different operation");
+        }
+        try {
+            return objectMapper.readValue(record.getResponseBody(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key "
+                    + record.getIdempotencyKey() + " is unreadable", e);
+        }
+    }
+}
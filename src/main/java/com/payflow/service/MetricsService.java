@@ -1,11 +1,14 @@
 package com.payflow.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MetricsService {
@@ -16,6 +19,25 @@ public class MetricsService {
     private final Counter cacheMiss;
     private final Counter rateLimitRejected;
     private final Timer transactionDuration;
+    private final DistributionSummary groupCommitBatchSize;
+    private final Counter outboxRelayed;
+    private final Counter outboxFailed;
+    private final Counter idempotencyProbeSkipped;
+    private final Counter idempotencyReplay;
+    private final DistributionSummary asyncSettlementBatchSize;
+    private final Counter asyncTransferCompleted;
+    private final Counter asyncTransferFailed;
+    private final Counter asyncTransferDeferred;
+    private final DistributionSummary admissionQueueDepth;
+    private final Timer admissionWait;
+    private final Counter admissionRejected;
+    private final Timer scheduledTransferLateness;
+    private final Counter scheduledTransferExecuted;
+    private final Counter scheduledTransferRetried;
+    private final Counter scheduledTransferFailed;
+    private final Counter holdsExpired;
+    private final Counter exportCompleted;
+    private final Counter exportFailed;
 
     public MetricsService(MeterRegistry registry) {
         this.transactionSuccess = Counter.builder("fluxpay.transactions.success")
@@ -42,6 +64,87 @@ public class MetricsService {
                 .description("Transaction processing time")
                 .publishPercentiles(0.5, 0.95, 0.99)
                 .register(registry);
+
+        this.groupCommitBatchSize = DistributionSummary.builder("fluxpay.groupcommit.batch.size")
+                .description("Operations committed per group-commit batch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.outboxRelayed = Counter.builder("fluxpay.outbox.relayed")
+                .description("Outbox events delivered to Kafka")
+                .register(registry);
+
+        this.outboxFailed = Counter.builder("fluxpay.outbox.failed")
+                .description("Outbox event sends that failed and will be retried")
+                .register(registry);
+
+        this.idempotencyProbeSkipped = Counter.builder("fluxpay.idempotency.probe.skipped")
+                .description("Idempotency lookups answered by the in-memory filter without a DB probe")
+                .register(registry);
+
+        this.idempotencyReplay = Counter.builder("fluxpay.idempotency.replay")
+                .description("Requests answered from the idempotency store")
+                .register(registry);
+
+        this.asyncSettlementBatchSize = DistributionSummary.builder("fluxpay.transfers.async.batch.size")
+                .description("Pending transfers settled per settlement transaction")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.asyncTransferCompleted = Counter.builder("fluxpay.transfers.async.completed")
+                .description("Accepted transfers that settled as COMPLETED")
+                .register(registry);
+
+        this.asyncTransferFailed = Counter.builder("fluxpay.transfers.async.failed")
+                .description("Accepted transfers that settled as FAILED")
+                .register(registry);
+
+        this.asyncTransferDeferred = Counter.builder("fluxpay.transfers.async.deferred")
+                .description("Accepted transfers left to the sweeper because the settlement queue was full")
+                .register(registry);
+
+        this.admissionQueueDepth = DistributionSummary.builder("fluxpay.admission.queue.depth")
+                .description("Writers queued on an account, observed as each one joins the queue")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.admissionWait = Timer.builder("fluxpay.admission.wait")
+                .description("Time a writer waited for an account's admission permit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.admissionRejected = Counter.builder("fluxpay.admission.rejected")
+                .description("Writes turned away with 503 because an account's queue was full or the wait timed out")
+                .register(registry);
+
+        this.scheduledTransferLateness = Timer.builder("fluxpay.scheduled.lateness")
+                .description("Delay between a scheduled transfer's due time and the start of its run")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+
+        this.scheduledTransferExecuted = Counter.builder("fluxpay.scheduled.executed")
+                .description("Scheduled transfer runs that completed")
+                .register(registry);
+
+        this.scheduledTransferRetried = Counter.builder("fluxpay.scheduled.retried")
+                .description("Scheduled transfer runs that failed and were rescheduled")
+                .register(registry);
+
+        this.scheduledTransferFailed = Counter.builder("fluxpay.scheduled.failed")
+                .description("Scheduled transfer occurrences abandoned after the last retry")
+                .register(registry);
+
+        this.holdsExpired = Counter.builder("fluxpay.holds.expired")
+                .description("Holds released by the expiry sweeper")
+                .register(registry);
+
+        this.exportCompleted = Counter.builder("fluxpay.exports.completed")
+                .description("Background export jobs that wrote their file")
+                .register(registry);
+
+        this.exportFailed = Counter.builder("fluxpay.exports.failed")
+                .description("Background export jobs that failed")
+                .register(registry);
     }
 
     public void recordTransactionSuccess() {
@@ -64,6 +167,76 @@ public class MetricsService {
         rateLimitRejected.increment();
     }
 
+    public void recordGroupCommitBatch(int size) {
+        groupCommitBatchSize.record(size);
+    }
+
+    public void recordOutboxRelayed(int count) {
+        outboxRelayed.increment(count);
+    }
+
+    public void recordOutboxFailed(int count) {
+        outboxFailed.increment(count);
+    }
+
+    public void recordIdempotencyProbeSkipped() {
+        idempotencyProbeSkipped.increment();
+    }
+
+    public void recordIdempotencyReplay() {
+        idempotencyReplay.increment();
+    }
+
+    public void recordAsyncSettlement(int batchSize, int completed, int failed) {
+        asyncSettlementBatchSize.record(batchSize);
+        asyncTransferCompleted.increment(completed);
+        asyncTransferFailed.increment(failed);
+    }
+
+    public void recordAsyncTransferDeferred() {
+        asyncTransferDeferred.increment();
+    }
+
+    public void recordAdmissionQueued(int depth) {
+        admissionQueueDepth.record(depth);
+    }
+
+    public void recordAdmissionWait(long nanos) {
+        admissionWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAdmissionRejected() {
+        admissionRejected.increment();
+    }
+
+    public void recordScheduledTransferLateness(Duration lateness) {
+        scheduledTransferLateness.record(lateness.isNegative() ? Duration.ZERO : lateness);
+    }
+
+    public void recordScheduledTransferExecuted() {
+        scheduledTransferExecuted.increment();
+    }
+
+    public void recordScheduledTransferRetried() {
+        scheduledTransferRetried.increment();
+    }
+
+    public void recordScheduledTransferFailed() {
+        scheduledTransferFailed.increment();
+    }
+
+    public void recordHoldsExpired(int count) {
+        holdsExpired.increment(count);
+    }
+
+    public void recordExportCompleted() {
+        exportCompleted.increment();
+    }
+
+    public void recordExportFailed() {
+        exportFailed.increment();
+    }
+
     public <T> T timeTransaction(Callable<T> operation) throws Exception {
         return transactionDuration.recordCallable(operation);
     }
@@ -0,0 +1,38 @@
+package com.payflow.service;
+
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Account;
+import com.payflow.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Read-modify-write on the managed entity. Conflicting writers are detected by the
+ * {@code @Version} column at flush time and retried by {@link TransactionService}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OptimisticBalanceStrategy implements BalanceMutationStrategy {
+
+    private final AccountRepository accountRepository;
+
+    @Override
+    public BigDecimal debit(Account account, BigDecimal amount) {
+        if (account.getAvailableBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException();
+        }
+        account.setBalance(account.getBalance().subtract(amount).setScale(4, RoundingMode.HALF_UP));
+        accountRepository.save(account);
+        return account.getBalance();
+    }
+
+    @Override
+    public BigDecimal credit(Account account, BigDecimal amount) {
+        account.setBalance(account.getBalance().add(amount).setScale(4, RoundingMode.HALF_UP));
+        accountRepository.save(account);
+        return account.getBalance();
+    }
+}
@@ -0,0 +1,52 @@
+package com.payflow.service;
+
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Account;
+import com.payflow.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Read-modify-write on an entity whose row is held with {@code SELECT ... FOR UPDATE}.
+ * The executor locks every row of a request in ascending id order before the first
+ * mutation, so writers queue on the lock instead of conflicting at flush. An account that
+ * reaches this strategy unlocked is locked here; Hibernate's version check on that lock
+ * fails fast if the row changed since it was read.
+ */
+@Component
+@RequiredArgsConstructor
+public class PessimisticBalanceStrategy implements BalanceMutationStrategy {
+
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public BigDecimal debit(Account account, BigDecimal amount) {
+        ensureLocked(account);
+        if (account.getAvailableBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException();
+        }
+        account.setBalance(account.getBalance().subtract(amount).setScale(4, RoundingMode.HALF_UP));
+        accountRepository.save(account);
+        return account.getBalance();
+    }
+
+    @Override
+    public BigDecimal credit(Account account, BigDecimal amount) {
+        ensureLocked(account);
+        account.setBalance(account.getBalance().add(amount).setScale(4, RoundingMode.HALF_UP));
+        accountRepository.save(account);
+        return account.getBalance();
+    }
+
+    private void ensureLocked(Account account) {
+        if (entityManager.getLockMode(account) != LockModeType.PESSIMISTIC_WRITE) {
+            entityManager.lock(account, LockModeType.PESSIMISTIC_WRITE);
+        }
+    }
+}
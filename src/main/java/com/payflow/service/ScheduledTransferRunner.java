@@ -0,0 +1,173 @@
+package com.payflow.service;
+
+import com.payflow.model.Recurrence;
+import com.payflow.model.ScheduledTransfer;
+import com.payflow.model.ScheduledTransferStatus;
+import com.payflow.repository.ScheduledTransferRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes due scheduled transfers. Every poll claims a batch of due rows with
+ * {@code FOR UPDATE SKIP LOCKED}, leases them for {@code lease-seconds} and commits, then
+ * runs the batch in parallel on a fixed worker pool through {@link TransferExecutor}. The
+ * next batch is only claimed once this one has finished, so the pool's queue never holds
+ * more than one batch.
+ *
+ * Each run uses the occurrence's idempotency key, so a run whose outcome was lost (crash,
+ * expired lease) replays the committed transfer instead of paying again. Failed runs are
+ * retried with exponential backoff; after {@code max-attempts} a one-off schedule is marked
+ * FAILED and a recurring one skips to its next occurrence.
+ */
+@Component
+@ConditionalOnProperty(name = "app.scheduled-transfers.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ScheduledTransferRunner {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final TransferExecutor transferExecutor;
+    private final MetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBackoffSeconds;
+
+    public ScheduledTransferRunner(ScheduledTransferRepository scheduledTransferRepository,
+                                   TransferExecutor transferExecutor,
+                                   MetricsService metricsService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.scheduled-transfers.workers:8}") int workers,
+                                   @Value("${app.scheduled-transfers.batch-size:200}") int batchSize,
+                                   @Value("${app.scheduled-transfers.lease-seconds:60}") long leaseSeconds,
+                                   @Value("${app.scheduled-transfers.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.scheduled-transfers.retry-backoff-seconds:30}") long retryBackoffSeconds) {
+        this.scheduledTransferRepository = scheduledTransferRepository;
+        this.transferExecutor = transferExecutor;
+        this.metricsService = metricsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workers);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffSeconds = retryBackoffSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduled-transfers.poll-interval-ms:1000}")
+    public void poll() {
+        // Full batches mean a backlog (e.g. catching up after downtime), so keep going
+        int ran;
+        do {
+            ran = runBatch();
+        } while (ran == batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    int runBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ScheduledTransfer> due = transactionTemplate.execute(status -> claim(now));
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<?>> runs = new ArrayList<>(due.size());
+        for (ScheduledTransfer schedule : due) {
+            runs.add(workers.submit(() -> run(schedule)));
+        }
+        for (Future<?> run : runs) {
+            try {
+                run.get();
+            } catch (ExecutionException e) {
+                log.error("Scheduled transfer run failed unexpectedly", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.debug("Scheduled transfers: ran {} due schedules", due.size());
+        return due.size();
+    }
+
+    private List<ScheduledTransfer> claim(LocalDateTime now) {
+        List<ScheduledTransfer> due = scheduledTransferRepository.claimDue(now, batchSize);
+        LocalDateTime leaseEnd = now.plusSeconds(leaseSeconds);
+        due.forEach(schedule -> schedule.setClaimedUntil(leaseEnd));
+        return scheduledTransferRepository.saveAll(due);
+    }
+
+    void run(ScheduledTransfer schedule) {
+        LocalDateTime started = LocalDateTime.now();
+        metricsService.recordScheduledTransferLateness(Duration.between(schedule.getOccurrenceAt(), started));
+        String error = null;
+        try {
+            transferExecutor.executeTransfer(schedule.getSourceAccountId(), schedule.getDestinationAccountId(),
+                    schedule.getAmount(), schedule.getDescription(), schedule.occurrenceKey());
+        } catch (RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        String outcome = error;
+        transactionTemplate.executeWithoutResult(status -> record(schedule.getId(), outcome, started));
+    }
+
+    private void record(Long id, String error, LocalDateTime started) {
+        ScheduledTransfer schedule = scheduledTransferRepository.findById(id).orElse(null);
+        if (schedule == null) {
+            return;
+        }
+        schedule.setClaimedUntil(null);
+        if (schedule.getStatus() != ScheduledTransferStatus.ACTIVE) {
+            // Cancelled while the run was in flight
+            return;
+        }
+        if (error == null) {
+            schedule.setRunCount(schedule.getRunCount() + 1);
+            schedule.setLastError(null);
+            schedule.advance();
+            metricsService.recordScheduledTransferExecuted();
+            return;
+        }
+
+        schedule.setAttempts(schedule.getAttempts() + 1);
+        schedule.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (schedule.getAttempts() >= maxAttempts) {
+            metricsService.recordScheduledTransferFailed();
+            log.warn("Scheduled transfer {} gave up on occurrence {} after {} attempts: {}",
+                    id, schedule.getOccurrenceAt(), schedule.getAttempts(), error);
+            if (schedule.getRecurrence() == Recurrence.ONCE) {
+                schedule.setStatus(ScheduledTransferStatus.FAILED);
+            } else {
+                String lastError = schedule.getLastError();
+                schedule.advance();
+                schedule.setLastError(lastError);
+            }
+            return;
+        }
+        long backoff = retryBackoffSeconds << Math.min(schedule.getAttempts() - 1, 10);
+        schedule.setNextAttemptAt(started.plusSeconds(backoff));
+        metricsService.recordScheduledTransferRetried();
+        log.info("Scheduled transfer {} attempt {} failed, retrying in {}s: {}",
+                id, schedule.getAttempts(), backoff, error);
+    }
+}
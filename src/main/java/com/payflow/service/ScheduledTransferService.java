@@ -0,0 +1,75 @@
+package com.payflow.service;
+
+import com.payflow.dto.CreateScheduledTransferRequest;
+import com.payflow.dto.ScheduledTransferResponse;
+import com.payflow.exception.CurrencyMismatchException;
+import com.payflow.model.ScheduledTransfer;
+import com.payflow.model.ScheduledTransferStatus;
+import com.payflow.repository.ScheduledTransferRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledTransferService {
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final AccountMetadataCache accountMetadataCache;
+
+    @Transactional
+    public ScheduledTransferResponse create(CreateScheduledTransferRequest request, Long userId) {
+        if (request.sourceAccountId().equals(request.destinationAccountId())) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        if (request.endAt() != null && request.endAt().isBefore(request.firstRunAt())) {
+            throw new IllegalArgumentException("End time must not be before the first run time");
+        }
+        AccountMetadataCache.AccountMetadata source = accountMetadataCache.requireOwned(request.sourceAccountId(), userId);
+        AccountMetadataCache.AccountMetadata dest = accountMetadataCache.requireOwned(request.destinationAccountId(), userId);
+        if (!source.currency().equals(dest.currency())) {
+            throw new CurrencyMismatchException(source.currency(), dest.currency());
+        }
+
+        ScheduledTransfer schedule = new ScheduledTransfer();
+        schedule.setUserId(userId);
+        schedule.setSourceAccountId(request.sourceAccountId());
+        schedule.setDestinationAccountId(request.destinationAccountId());
+        schedule.setAmount(request.amount());
+        schedule.setDescription(request.description());
+        schedule.setRecurrence(request.recurrence());
+        schedule.setOccurrenceAt(request.firstRunAt());
+        schedule.setNextAttemptAt(request.firstRunAt());
+        schedule.setEndAt(request.endAt());
+        schedule = scheduledTransferRepository.save(schedule);
+
+        log.info("Scheduled transfer created: id={}, sourceId={}, destId={}, recurrence={}, firstRunAt={}",
+                schedule.getId(), schedule.getSourceAccountId(), schedule.getDestinationAccountId(),
+                schedule.getRecurrence(), schedule.getOccurrenceAt());
+        return ScheduledTransferResponse.from(schedule);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduledTransferResponse> getByUserId(Long userId) {
+        return scheduledTransferRepository.findByUserIdOrderByNextAttemptAtAsc(userId).stream()
+                .map(ScheduledTransferResponse::from)
+                .toList();
+    }
+
+    /** A run already in flight still completes; no further runs start after this commits. */
+    @Transactional
+    public ScheduledTransferResponse cancel(Long id, Long userId) {
+        ScheduledTransfer schedule = scheduledTransferRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new IllegalArgumentException("Scheduled transfer not found: " + id));
+        if (schedule.getStatus() == ScheduledTransferStatus.ACTIVE) {
+            schedule.setStatus(ScheduledTransferStatus.CANCELLED);
+            schedule = scheduledTransferRepository.save(schedule);
+            log.info("Scheduled transfer cancelled: id={}", id);
+        }
+        return ScheduledTransferResponse.from(schedule);
+    }
+}
@@ -0,0 +1,263 @@
+package com.payflow.service;
+
+import com.payflow.archive.ArchiveSegmentWriter;
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Moves months of the ledger older than {@code min-age-months} out of Postgres into the
+ * {@link TransactionArchive}, one monthly partition per run, oldest first. A month is
+ * streamed from its partition in (account_id, created_at, id) order into segment files in
+ * a staging directory, which is renamed into place once complete; that rename is what
+ * moves the archive boundary, and from then on reads take the month from the archive.
+ * The partition itself is dropped on a later run, once {@code drop-delay-ms} has passed
+ * since publication so every instance sharing the directory has picked the month up.
+ *
+ * Months still holding PENDING rows are skipped. Partitions detached by
+ * {@link TransactionPartitionMaintainer} are archived the same way.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+@Slf4j
+public class TransactionArchiver {
+
+    private static final int FETCH_SIZE = 5000;
+    private static final int BLOCK_ROWS = 4096;
+    private static final long MAX_SEGMENT_LIMIT = 1L << 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionArchive archive;
+    private final int minAgeMonths;
+    private final long maxSegmentBytes;
+    private final Duration dropDelay;
+
+    record PartitionTable(String name, YearMonth month, boolean attached, boolean detachPending) {}
+
+    public TransactionArchiver(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               TransactionArchive archive,
+                               @Value("${app.archive.min-age-months:12}") int minAgeMonths,
+                               @Value("${app.archive.max-segment-bytes:268435456}") long maxSegmentBytes,
+                               @Value("${app.archive.drop-delay-ms:300000}") long dropDelayMs) {
+        if (maxSegmentBytes <= 0 || maxSegmentBytes > MAX_SEGMENT_LIMIT) {
+            throw new IllegalArgumentException("app.archive.max-segment-bytes must be between 1 and " + MAX_SEGMENT_LIMIT);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.archive = archive;
+        this.minAgeMonths = minAgeMonths;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.dropDelay = Duration.ofMillis(dropDelayMs);
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}",
+               initialDelayString = "${app.archive.initial-delay-ms:60000}")
+    public void run() {
+        try {
+            List<PartitionTable> tables = partitionTables();
+            dropArchived(tables);
+            archiveOldestEligible(tables);
+        } catch (RuntimeException e) {
+            log.warn("Transaction archiving failed, will retry next interval: {}", e.getMessage());
+        }
+    }
+
+    private void dropArchived(List<PartitionTable> tables) {
+        Set<YearMonth> archived = archive.months();
+        Instant publishedBefore = Instant.now().minus(dropDelay);
+        for (PartitionTable table : tables) {
+            if (!archived.contains(table.month())
+                    || archive.publishedAt(table.month()).map(at -> at.isAfter(publishedBefore)).orElse(true)) {
+                continue;
+            }
+            try {
+                if (table.attached()) {
+                    jdbcTemplate.execute(TransactionPartitionMaintainer.detachSql(table.name(), table.detachPending()));
+                }
+                // The month's transaction_idempotency_keys rows stay: archived keys are still spent
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + table.name());
+                log.info("Dropped archived transaction partition {}", table.name());
+            } catch (RuntimeException e) {
+                log.warn("Could not drop archived transaction partition {}: {}", table.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void archiveOldestEligible(List<PartitionTable> tables) {
+        YearMonth cutoff = YearMonth.now().minusMonths(minAgeMonths);
+        Set<YearMonth> archived = archive.months();
+        Optional<PartitionTable> next = tables.stream()
+                .filter(table -> table.month().isBefore(cutoff) && !archived.contains(table.month()))
+                .min(Comparator.comparing(PartitionTable::month));
+        if (next.isEmpty()) {
+            return;
+        }
+        PartitionTable table = next.get();
+        Long rows = transactionTemplate.execute(status -> {
+            // Instances sharing the directory take turns; the lock ends with this transaction
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('transaction_archiver'))", Boolean.class))) {
+                return null;
+            }
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + table.name() + " WHERE status = 'PENDING')", Boolean.class))) {
+                log.warn("Not archiving {}: it still holds PENDING transactions", table.name());
+                return null;
+            }
+            return writeMonth(table);
+        });
+        if (rows != null) {
+            log.info("Archived {} transactions from {}", rows, table.name());
+            archive.refresh();
+        }
+    }
+
+    private long writeMonth(PartitionTable table) {
+        Path staging = archive.stagingDirectory(table.month());
+        Path target = archive.monthDirectory(table.month());
+        try {
+            deleteRecursively(staging);
+            Files.createDirectories(staging);
+            SegmentSink sink = new SegmentSink(staging);
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT id, account_id, type, amount, description, correlation_id, idempotency_key, " +
+                            "status, balance_after, created_at FROM " + table.name() +
+                            " ORDER BY account_id, created_at, id");
+                    // pgjdbc streams with a fetch size only inside a transaction
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, (RowCallbackHandler) rs -> sink.append(toArchived(rs)));
+                sink.finish();
+            } finally {
+                sink.close();
+            }
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return sink.rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive for " + table.name(), e);
+        } finally {
+            try {
+                deleteRecursively(staging);
+            } catch (IOException e) {
+                log.warn("Could not clean up archive staging directory {}: {}", staging, e.getMessage());
+            }
+        }
+    }
+
+    List<PartitionTable> partitionTables() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT c.relname, i.inhrelid IS NOT NULL AS attached, COALESCE(i.inhdetachpending, false) AS detach_pending " +
+                "FROM pg_class c LEFT JOIN pg_inherits i ON i.inhrelid = c.oid " +
+                "WHERE c.relkind = 'r' AND pg_table_is_visible(c.oid) AND c.relname LIKE 'transactions\\_p%'");
+        List<PartitionTable> tables = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            String name = (String) row.get("relname");
+            TransactionPartitionMaintainer.monthOf(name).ifPresent(month -> tables.add(new PartitionTable(name, month,
+                    Boolean.TRUE.equals(row.get("attached")), Boolean.TRUE.equals(row.get("detach_pending")))));
+        }
+        return tables;
+    }
+
+    private static ArchivedTransaction toArchived(ResultSet rs) throws SQLException {
+        return new ArchivedTransaction(
+                rs.getLong("id"),
+                rs.getLong("account_id"),
+                TransactionType.valueOf(rs.getString("type")),
+                rs.getBigDecimal("amount"),
+                rs.getString("description"),
+                rs.getObject("correlation_id", UUID.class),
+                rs.getString("idempotency_key"),
+                TransactionStatus.valueOf(rs.getString("status")),
+                rs.getBigDecimal("balance_after"),
+                rs.getObject("created_at", LocalDateTime.class));
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path entry : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(entry);
+            }
+        }
+    }
+
+    /** Rolls over to a new segment file once the current one passes {@code maxSegmentBytes}. */
+    private final class SegmentSink {
+
+        private final Path directory;
+        private ArchiveSegmentWriter writer;
+        private int files;
+        private long rows;
+
+        SegmentSink(Path directory) {
+            this.directory = directory;
+        }
+
+        void append(ArchivedTransaction row) {
+            try {
+                if (writer == null || writer.bytesWritten() >= maxSegmentBytes) {
+                    if (writer != null) {
+                        writer.finish();
+                    }
+                    writer = new ArchiveSegmentWriter(directory.resolve(String.format("%03d.seg", files++)), BLOCK_ROWS);
+                }
+                writer.append(row);
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.finish();
+            }
+        }
+
+        void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.payflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} ahead of the clock, so inserts never
+ * hit a missing range, and detaches partitions older than the retention window. Detached
+ * partitions are left in place as plain tables; nothing is dropped here, and their rows'
+ * {@code transaction_idempotency_keys} entries stay, so a retried request carrying an old
+ * key is still rejected. Rows that arrive for a month with no partition yet land in
+ * {@code transactions_default} (V25); creating the month moves them out, and the default
+ * partition itself is never detached. Concurrent instances are safe: creation skips while
+ * another instance holds its advisory lock, and a detach that loses the race just fails
+ * and is logged.
+ */
+@Component
+@ConditionalOnProperty(name = "app.partitions.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class TransactionPartitionMaintainer {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                          @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                          @Value("${app.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${app.partitions.interval-ms:21600000}",
+               initialDelayString = "${app.partitions.initial-delay-ms:0}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                // Schemas built by Hibernate (create-drop) have a plain transactions table
+                log.debug("transactions is not partitioned, skipping partition maintenance");
+                return;
+            }
+            YearMonth current = YearMonth.now();
+            Integer created = jdbcTemplate.queryForObject("SELECT create_transaction_partitions(?, ?)", Integer.class,
+                    current.atDay(1), current.plusMonths(monthsAhead).atDay(1));
+            if (created != null && created > 0) {
+                log.info("Created {} transaction partitions", created);
+            }
+            if (retentionMonths > 0) {
+                detachOlderThan(current.minusMonths(retentionMonths));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Partition maintenance failed, will retry next interval: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('transactions'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private void detachOlderThan(YearMonth cutoff) {
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname, i.inhdetachpending FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'transactions'::regclass ORDER BY c.relname");
+        for (Map<String, Object> row : partitions) {
+            String partition = (String) row.get("relname");
+            Optional<YearMonth> month = monthOf(partition);
+            if (month.isEmpty() || !month.get().isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute(detachSql(partition, Boolean.TRUE.equals(row.get("inhdetachpending"))));
+                log.info("Detached transaction partition {}", partition);
+            } catch (RuntimeException e) {
+                log.warn("Could not detach transaction partition {}: {}", partition, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Postgres refuses CONCURRENTLY while a default partition exists, so the detach briefly
+     * takes an exclusive lock on transactions. Partitions left pending by an interrupted
+     * CONCURRENTLY detach from before V25 are finalized.
+     */
+    static String detachSql(String partition, boolean detachPending) {
+        return "ALTER TABLE transactions DETACH PARTITION " + partition + (detachPending ? " FINALIZE" : "");
+    }
+
+    // Only names the creation function produces are accepted, so the DDL above never sees anything else
+    static Optional<YearMonth> monthOf(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(matcher.group(1), PARTITION_MONTH));
+    }
+}
@@ -1,13 +1,19 @@
 package com.payflow.service;
 
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
 import com.payflow.dto.*;
 import com.payflow.model.Transaction;
-import com.payflow.repository.AccountRepository;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.TransactionFilter;
 import com.payflow.repository.TransactionRepository;
+import com.payflow.util.TransactionCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
@@ -16,9 +22,18 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,30 +43,53 @@ public class TransactionService {
     private static final int MAX_RETRIES = 3;
 
     private final TransactionRepository transactionRepository;
-    private final AccountRepository accountRepository;
     private final TransferExecutor transferExecutor;
     private final MetricsService metricsService;
+    private final GroupCommitEngine groupCommitEngine;
+    private final BalanceStrategyRegistry balanceStrategies;
+    private final IdempotencyService idempotencyService;
+    private final AccountMetadataCache accountMetadataCache;
+    private final AsyncTransferPipeline asyncTransferPipeline;
+    private final AccountAdmissionController accountAdmission;
+    private final TransactionArchive transactionArchive;
 
     public TransactionResponse deposit(DepositRequest request, Long userId) {
         verifyAccountOwnership(request.accountId(), userId);
-        return executeWithRetry(() ->
-                transferExecutor.executeDeposit(
-                        request.accountId(),
-                        request.amount(),
-                        request.description(),
-                        request.idempotencyKey()
-                ));
+        // Group commit already queues writers per account, so it skips admission control
+        if (groupCommitEngine.isEnabled()) {
+            return executeWithRetry(request.idempotencyKey(), TransactionResponse.class,
+                    () -> groupCommitEngine.submit(new BalanceOperation(
+                            request.accountId(), TransactionType.CREDIT, request.amount(),
+                            request.description(), request.idempotencyKey())));
+        }
+        try (AccountAdmissionController.Permit permit = accountAdmission.admit(List.of(request.accountId()))) {
+            return executeWithRetry(request.idempotencyKey(), TransactionResponse.class, () ->
+                    transferExecutor.executeDeposit(
+                            request.accountId(),
+                            request.amount(),
+                            request.description(),
+                            request.idempotencyKey()
+                    ));
+        }
     }
 
     public TransactionResponse withdraw(WithdrawRequest request, Long userId) {
         verifyAccountOwnership(request.accountId(), userId);
-        return executeWithRetry(() ->
-                transferExecutor.executeWithdraw(
-                        request.accountId(),
-                        request.amount(),
-                        request.description(),
-                        request.idempotencyKey()
-                ));
+        if (groupCommitEngine.isEnabled()) {
+            return executeWithRetry(request.idempotencyKey(), TransactionResponse.class,
+                    () -> groupCommitEngine.submit(new BalanceOperation(
+                            request.accountId(), TransactionType.DEBIT, request.amount(),
+                            request.description(), request.idempotencyKey())));
+        }
+        try (AccountAdmissionController.Permit permit = accountAdmission.admit(List.of(request.accountId()))) {
+            return executeWithRetry(request.idempotencyKey(), TransactionResponse.class, () ->
+                    transferExecutor.executeWithdraw(
+                            request.accountId(),
+                            request.amount(),
+                            request.description(),
+                            request.idempotencyKey()
+                    ));
+        }
     }
 
     public TransferResponse transfer(TransferRequest request, Long userId) {
@@ -62,14 +100,91 @@ public class TransactionService {
         verifyAccountOwnership(request.sourceAccountId(), userId);
         verifyAccountOwnership(request.destinationAccountId(), userId);
 
-        return executeWithRetry(() ->
-                transferExecutor.executeTransfer(
-                        request.sourceAccountId(),
-                        request.destinationAccountId(),
-                        request.amount(),
-                        request.description(),
-                        request.idempotencyKey()
-                ));
+        try (AccountAdmissionController.Permit permit = accountAdmission.admit(
+                List.of(request.sourceAccountId(), request.destinationAccountId()))) {
+            return executeWithRetry(request.idempotencyKey(), TransferResponse.class, () ->
+                    transferExecutor.executeTransfer(
+                            request.sourceAccountId(),
+                            request.destinationAccountId(),
+                            request.amount(),
+                            request.description(),
+                            request.idempotencyKey()
+                    ));
+        }
+    }
+
+    public SplitTransferResponse transferSplit(SplitTransferRequest request, Long userId) {
+        Set<Long> accountIds = new LinkedHashSet<>();
+        accountIds.add(request.sourceAccountId());
+        for (SplitTransferRequest.Leg leg : request.legs()) {
+            if (leg.destinationAccountId().equals(request.sourceAccountId())) {
+                throw new IllegalArgumentException("Source and destination accounts must be different");
+            }
+            accountIds.add(leg.destinationAccountId());
+        }
+        accountIds.forEach(accountId -> verifyAccountOwnership(accountId, userId));
+
+        try (AccountAdmissionController.Permit permit = accountAdmission.admit(accountIds)) {
+            return executeWithRetry(request.idempotencyKey(), SplitTransferResponse.class, () ->
+                    transferExecutor.executeSplitTransfer(
+                            request.sourceAccountId(),
+                            request.legs(),
+                            request.description(),
+                            request.idempotencyKey()
+                    ));
+        }
+    }
+
+    /**
+     * Accepts a transfer without waiting for it to settle. Returns the PENDING debit leg
+     * (or, for a repeated idempotency key, the leg in whatever state it has reached).
+     */
+    public TransactionResponse transferAsync(TransferRequest request, Long userId) {
+        if (request.sourceAccountId().equals(request.destinationAccountId())) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+
+        verifyAccountOwnership(request.sourceAccountId(), userId);
+        verifyAccountOwnership(request.destinationAccountId(), userId);
+
+        TransactionResponse accepted;
+        try {
+            accepted = transferExecutor.acceptTransfer(
+                    request.sourceAccountId(),
+                    request.destinationAccountId(),
+                    request.amount(),
+                    request.description(),
+                    request.idempotencyKey());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key won the insert
+            accepted = idempotencyService.findCommitted(request.idempotencyKey(), TransactionResponse.class)
+                    .or(() -> transactionRepository.findByIdempotencyKey(request.idempotencyKey())
+                            .map(TransactionResponse::from))
+                    .orElseThrow(() -> new IllegalStateException("Concurrent duplicate transaction detected. Please retry.", e));
+        }
+        if (accepted.status() == TransactionStatus.PENDING) {
+            asyncTransferPipeline.enqueue(accepted.id());
+        }
+        return accepted;
+    }
+
+    /**
+     * Long-poll variant of {@link #getById}: completes as soon as a PENDING transaction
+     * settles, or with its current state after {@code waitMs}.
+     */
+    public CompletableFuture<TransactionResponse> awaitTransaction(Long id, long waitMs, Long userId) {
+        TransactionResponse current = getById(id, userId);
+        if (current.status() != TransactionStatus.PENDING || waitMs <= 0) {
+            return CompletableFuture.completedFuture(current);
+        }
+        CompletableFuture<TransactionResponse> settled = asyncTransferPipeline.awaitSettlement(id, waitMs);
+        // Re-read after registering so a settlement that landed in between is not missed
+        TransactionResponse latest = transactionRepository.findById(id).map(TransactionResponse::from).orElse(current);
+        if (latest.status() != TransactionStatus.PENDING) {
+            return CompletableFuture.completedFuture(latest);
+        }
+        return settled.thenApply(tx -> tx != null ? tx
+                : transactionRepository.findById(id).map(TransactionResponse::from).orElse(latest));
     }
 
     @Transactional(readOnly = true)
@@ -83,24 +198,83 @@ public class TransactionService {
                                                      Pageable pageable,
                                                      Long userId) {
         verifyAccountOwnership(accountId, userId);
-        String typeStr = type != null ? type.name() : null;
-        String statusStr = status != null ? status.name() : null;
-        return transactionRepository.findByFilters(accountId, typeStr, statusStr, from, to, minAmount, maxAmount, pageable)
-                .map(TransactionResponse::from);
+        TransactionFilter filter = new TransactionFilter(accountId, type, status, from, to, minAmount, maxAmount);
+        LocalDateTime boundary = transactionArchive.boundary();
+        if (!reachesArchive(filter, boundary)) {
+            return transactionRepository.findByFilters(filter, pageable).map(TransactionResponse::from);
+        }
+        return getTransactionsWithArchive(filter, boundary, pageable);
     }
 
+    /**
+     * Keyset variant of {@link #getTransactions}, newest first. One extra row is fetched to
+     * tell whether another slice follows, so no COUNT query runs.
+     */
     @Transactional(readOnly = true)
-    public List<Transaction> exportTransactions(Long accountId,
-                                                 com.payflow.model.TransactionType type,
-                                                 com.payflow.model.TransactionStatus status,
-                                                 LocalDateTime from,
-                                                 LocalDateTime to,
-                                                 Long userId) {
+    public CursorPage<TransactionResponse> getTransactionsAfter(Long accountId,
+                                                                com.payflow.model.TransactionType type,
+                                                                com.payflow.model.TransactionStatus status,
+                                                                LocalDateTime from,
+                                                                LocalDateTime to,
+                                                                BigDecimal minAmount,
+                                                                BigDecimal maxAmount,
+                                                                String cursor,
+                                                                int size,
+                                                                Long userId) {
+        TransactionCursor after = cursor != null && !cursor.isBlank() ? TransactionCursor.decode(cursor) : null;
         verifyAccountOwnership(accountId, userId);
-        String typeStr = type != null ? type.name() : null;
-        String statusStr = status != null ? status.name() : null;
-        return transactionRepository.findByFilters(accountId, typeStr, statusStr, from, to, null, null,
-                Pageable.unpaged(Sort.by(Sort.Direction.DESC, "created_at"))).getContent();
+        TransactionFilter filter = new TransactionFilter(accountId, type, status, from, to, minAmount, maxAmount);
+        LocalDateTime boundary = transactionArchive.boundary();
+        boolean reachesArchive = reachesArchive(filter, boundary);
+
+        List<TransactionResponse> rows = new ArrayList<>(size + 1);
+        if (!reachesArchive || after == null || !after.createdAt().isBefore(boundary)) {
+            TransactionFilter live = reachesArchive ? filter.withFrom(boundary) : filter;
+            transactionRepository.findByFiltersAfter(live, after, size + 1)
+                    .forEach(tx -> rows.add(TransactionResponse.from(tx)));
+        }
+        // Archived rows are all older than live ones, so they continue the slice
+        if (reachesArchive && rows.size() <= size) {
+            TransactionFilter archived = after != null && (to == null || after.createdAt().isBefore(to))
+                    ? filter.withTo(after.createdAt()) : filter;
+            try (Stream<ArchivedTransaction> older = transactionArchive.stream(archived, true)) {
+                older.filter(tx -> after == null || tx.createdAt().isBefore(after.createdAt())
+                                || (tx.createdAt().isEqual(after.createdAt()) && tx.id() < after.id()))
+                        .limit(size + 1 - rows.size())
+                        .forEach(tx -> rows.add(TransactionResponse.from(tx)));
+            }
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<TransactionResponse> slice = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionResponse last = slice.get(slice.size() - 1);
+            nextCursor = new TransactionCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CursorPage<>(List.copyOf(slice), nextCursor, hasMore);
+    }
+
+    /**
+     * Validator for listings of one account, read without loading any row: the balance
+     * sequence changes on every commit that moves money, the newest ledger row on most
+     * inserts and the PENDING count on every settlement.
+     */
+    @Transactional(readOnly = true)
+    public String ledgerTag(Long accountId, Long userId) {
+        verifyAccountOwnership(accountId, userId);
+        TransactionRepository.LedgerHeadView head = transactionRepository.findLedgerHead(accountId);
+        return accountId + "." + head.getBalanceSequence() + "." + Objects.toString(head.getLastTransactionId(), "0")
+                + "." + head.getPendingCount();
+    }
+
+    // Only settlement changes a ledger row, and it always changes the status
+    @Transactional(readOnly = true)
+    public String versionTag(Long id, Long userId) {
+        TransactionRepository.StatusView view = transactionRepository.findStatusById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + id));
+        verifyAccountOwnership(view.getAccountId(), userId);
+        return id + "." + view.getStatus();
     }
 
     @Transactional(readOnly = true)
@@ -111,14 +285,114 @@ public class TransactionService {
         return TransactionResponse.from(tx);
     }
 
+    private static boolean reachesArchive(TransactionFilter filter, LocalDateTime boundary) {
+        return boundary != null && (filter.from() == null || filter.from().isBefore(boundary));
+    }
+
+    /**
+     * Listing that reaches into archived months. The live query is clamped to the archive
+     * boundary, so no month is read from both sides. Archived rows all predate live ones:
+     * a created_at ordering is the two sources back to back, while any other ordering
+     * streams every archived match through a heap bounded to offset + size, together with
+     * the first offset + size live rows.
+     */
+    private Page<TransactionResponse> getTransactionsWithArchive(TransactionFilter filter, LocalDateTime boundary,
+                                                                 Pageable pageable) {
+        TransactionFilter live = filter.withFrom(boundary);
+        Sort sort = pageable.getSort();
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<Sort.Order> orders = sort.toList();
+        boolean byTime = orders.isEmpty() || (orders.size() == 1 && orders.get(0).getProperty().equals("created_at"));
+
+        List<TransactionResponse> content = new ArrayList<>(size);
+        long total;
+        if (byTime && (orders.isEmpty() || orders.get(0).isDescending())) {
+            long liveTotal = transactionRepository.countByFilters(live);
+            if (offset < liveTotal) {
+                transactionRepository.findByFilters(live, sort, offset, size)
+                        .forEach(tx -> content.add(TransactionResponse.from(tx)));
+            }
+            total = liveTotal + collectArchived(filter, true, Math.max(0, offset - liveTotal),
+                    size - content.size(), content);
+        } else if (byTime) {
+            long archivedTotal = collectArchived(filter, false, offset, size, content);
+            if (content.size() < size) {
+                transactionRepository.findByFilters(live, sort, Math.max(0, offset - archivedTotal), size - content.size())
+                        .forEach(tx -> content.add(TransactionResponse.from(tx)));
+            }
+            total = archivedTotal + transactionRepository.countByFilters(live);
+        } else {
+            Comparator<TransactionResponse> order = comparatorFor(sort);
+            int head = Math.toIntExact(offset + size);
+            // Max-heap of the best offset + size rows seen so far; the worst is evicted as better ones arrive
+            PriorityQueue<TransactionResponse> best = new PriorityQueue<>(Math.min(head, 1024) + 1, order.reversed());
+            long archivedTotal = 0;
+            try (Stream<ArchivedTransaction> rows = transactionArchive.stream(filter, false)) {
+                Iterator<ArchivedTransaction> it = rows.iterator();
+                while (it.hasNext()) {
+                    offerBounded(best, TransactionResponse.from(it.next()), head);
+                    archivedTotal++;
+                }
+            }
+            transactionRepository.findByFilters(live, sort, 0, head)
+                    .forEach(tx -> offerBounded(best, TransactionResponse.from(tx), head));
+            best.stream()
+                    .sorted(order)
+                    .skip(offset)
+                    .forEach(content::add);
+            total = archivedTotal + transactionRepository.countByFilters(live);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // Reads only the requested window of archived matches; the total comes from the archive's counts
+    private long collectArchived(TransactionFilter filter, boolean newestFirst, long skip, int take,
+                                 List<TransactionResponse> sink) {
+        if (take > 0) {
+            try (Stream<ArchivedTransaction> rows = transactionArchive.stream(filter, newestFirst)) {
+                rows.skip(skip).limit(take).map(TransactionResponse::from).forEach(sink::add);
+            }
+        }
+        return transactionArchive.count(filter);
+    }
+
+    private static <T> void offerBounded(PriorityQueue<T> heap, T item, int limit) {
+        heap.add(item);
+        if (heap.size() > limit) {
+            heap.poll();
+        }
+    }
+
+    // Mirrors the SQL ORDER BY, including the id tie-breaker in the last column's direction
+    private static Comparator<TransactionResponse> comparatorFor(Sort sort) {
+        Comparator<TransactionResponse> order = null;
+        Sort.Direction tieBreak = Sort.Direction.DESC;
+        for (Sort.Order column : sort) {
+            Comparator<TransactionResponse> next = switch (column.getProperty()) {
+                case "created_at" -> Comparator.comparing(TransactionResponse::createdAt);
+                case "amount" -> Comparator.comparing(TransactionResponse::amount);
+                case "type" -> Comparator.comparing((TransactionResponse tx) -> tx.type().name());
+                case "status" -> Comparator.comparing((TransactionResponse tx) -> tx.status().name());
+                default -> throw new IllegalArgumentException("Unsupported sort column: " + column.getProperty());
+            };
+            next = column.isDescending() ? next.reversed() : next;
+            order = order == null ? next : order.thenComparing(next);
+            tieBreak = column.getDirection();
+        }
+        Comparator<TransactionResponse> byId = Comparator.comparing(TransactionResponse::id);
+        byId = tieBreak.isDescending() ? byId.reversed() : byId;
+        return order == null ? byId : order.thenComparing(byId);
+    }
+
     private void verifyAccountOwnership(Long accountId, Long userId) {
-        accountRepository.findById(accountId)
-                .filter(account -> account.getUserId().equals(userId))
-                .orElseThrow(() -> new com.payflow.exception.AccountNotFoundException(accountId));
+        accountMetadataCache.requireOwned(accountId, userId);
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T executeWithRetry(java.util.function.Supplier<T> operation) {
+    private <T> T executeWithRetry(String idempotencyKey, Class<T> responseType,
+                                   java.util.function.Supplier<T> operation) {
+        // Rows are locked up front in pessimistic mode, so a version conflict there is not worth retrying
+        int maxAttempts = balanceStrategies.isPessimistic() ? 1 : MAX_RETRIES;
         int attempt = 0;
         while (true) {
             try {
@@ -134,17 +408,19 @@ public class TransactionService {
                 return result;
             } catch (ObjectOptimisticLockingFailureException e) {
                 attempt++;
-                if (attempt >= MAX_RETRIES) {
-                    log.warn("Optimistic lock failed after {} retries", MAX_RETRIES);
+                if (attempt >= maxAttempts) {
+                    log.warn("Optimistic lock failed after {} attempts", attempt);
                     metricsService.recordTransactionFailure();
                     throw e;
                 }
                 log.info("Optimistic lock conflict, retrying (attempt {})", attempt);
+                // Jitter spreads the retries out instead of having every loser hit the row again at once
+                accountAdmission.pauseBeforeRetry(attempt);
             } catch (DataIntegrityViolationException e) {
                 // Safety net: DB unique constraint caught a duplicate idempotency key
                 // that slipped through the application-level check (race condition)
                 log.info("DataIntegrityViolation caught — likely duplicate idempotency key, looking up original");
-                return (T) lookupExistingTransaction(e);
+                return replayDuplicate(idempotencyKey, responseType, e);
             } catch (RuntimeException e) {
                 metricsService.recordTransactionFailure();
                 throw e;
@@ -152,10 +428,43 @@ public class TransactionService {
         }
     }
 
-    private Object lookupExistingTransaction(DataIntegrityViolationException e) {
-        String message = e.getMostSpecificCause().getMessage();
-        // Extract idempotency key if possible; otherwise re-throw
-        log.warn("Duplicate key constraint violation: {}", message);
-        throw new IllegalStateException("Concurrent duplicate transaction detected. Please retry.", e);
+    /**
+     * The competing request has committed by the time the constraint fires, so its response
+     * is in the idempotency store. Keys older than the store's TTL are rebuilt from the ledger.
+     */
+    private <T> T replayDuplicate(String idempotencyKey, Class<T> responseType, DataIntegrityViolationException e) {
+        Optional<T> stored = idempotencyService.findCommitted(idempotencyKey, responseType);
+        if (stored.isPresent()) {
+            metricsService.recordTransactionSuccess();
+            return stored.get();
+        }
+        Optional<Transaction> original = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        if (original.isEmpty()) {
+            log.warn("Constraint violation without a stored original for key {}: {}",
+                    idempotencyKey, e.getMostSpecificCause().getMessage());
+            metricsService.recordTransactionFailure();
+            throw new IllegalStateException("Concurrent duplicate transaction detected. Please retry.", e);
+        }
+        metricsService.recordTransactionSuccess();
+        Transaction tx = original.get();
+        if (responseType == SplitTransferResponse.class) {
+            List<TransactionResponse> credits = transactionRepository.findByCorrelationId(tx.getCorrelationId()).stream()
+                    .filter(t -> t.getType() == TransactionType.CREDIT)
+                    .sorted(Comparator.comparing(Transaction::getId))
+                    .map(TransactionResponse::from)
+                    .toList();
+            return responseType.cast(new SplitTransferResponse(tx.getCorrelationId(),
+                    TransactionResponse.from(tx), credits));
+        }
+        if (responseType == TransferResponse.class) {
+            List<Transaction> pair = transactionRepository.findByCorrelationId(tx.getCorrelationId());
+            Transaction credit = pair.stream()
+                    .filter(t -> !t.getId().equals(tx.getId()))
+                    .findFirst()
+                    .orElse(tx);
+            return responseType.cast(new TransferResponse(tx.getCorrelationId(),
+                    TransactionResponse.from(tx), TransactionResponse.from(credit)));
+        }
+        return responseType.cast(TransactionResponse.from(tx));
     }
 }
@@ -1,5 +1,7 @@
 package com.payflow.service;
 
+import com.payflow.dto.SplitTransferRequest;
+import com.payflow.dto.SplitTransferResponse;
 import com.payflow.dto.TransferResponse;
 import com.payflow.dto.TransactionResponse;
 import com.payflow.event.TransactionEvent;
@@ -13,6 +15,7 @@ import com.payflow.exception.InsufficientFundsException;
 import com.payflow.model.*;
 import com.payflow.repository.AccountRepository;
 import com.payflow.repository.TransactionRepository;
+import com.payflow.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -20,10 +23,16 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
 @Component
@@ -35,30 +44,31 @@ public class TransferExecutor {
     private final TransactionRepository transactionRepository;
     private final BalanceCacheService balanceCacheService;
     private final TransactionEventPublisher eventPublisher;
+    private final BalanceStrategyRegistry balanceStrategies;
+    private final IdempotencyService idempotencyService;
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TransferResponse executeTransfer(Long sourceId, Long destId, BigDecimal amount,
                                             String description, String idempotencyKey) {
         // Idempotency check inside transaction boundary
-        Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        Optional<TransferResponse> existing = idempotencyService.find(idempotencyKey, TransferResponse.class);
         if (existing.isPresent()) {
-            Transaction debit = existing.get();
-            List<Transaction> pair = transactionRepository.findByCorrelationId(debit.getCorrelationId());
-            Transaction credit = pair.stream()
-                    .filter(t -> !t.getId().equals(debit.getId()))
-                    .findFirst()
-                    .orElse(debit);
             log.info("Idempotent replay for transfer idempotencyKey={}, correlationId={}",
-                    idempotencyKey, debit.getCorrelationId());
-            return new TransferResponse(debit.getCorrelationId(),
-                    TransactionResponse.from(debit),
-                    TransactionResponse.from(credit));
+                    idempotencyKey, existing.get().correlationId());
+            return existing.get();
         }
 
-        Account source = accountRepository.findById(sourceId)
-                .orElseThrow(() -> new AccountNotFoundException(sourceId));
-        Account dest = accountRepository.findById(destId)
-                .orElseThrow(() -> new AccountNotFoundException(destId));
+        boolean lock = balanceStrategies.isPessimistic();
+        Account source;
+        Account dest;
+        // Pessimistic mode locks both rows in ascending id order so opposite-direction transfers cannot deadlock
+        if (lock && destId < sourceId) {
+            dest = loadAccount(destId, true);
+            source = loadAccount(sourceId, true);
+        } else {
+            source = loadAccount(sourceId, lock);
+            dest = loadAccount(destId, lock);
+        }
 
         if (source.getStatus() != AccountStatus.ACTIVE) {
             throw new AccountFrozenException(sourceId);
@@ -69,15 +79,21 @@ public class TransferExecutor {
         if (!source.getCurrency().equals(dest.getCurrency())) {
             throw new CurrencyMismatchException(source.getCurrency(), dest.getCurrency());
         }
-        if (source.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException();
-        }
 
         UUID correlationId = UUID.randomUUID();
 
-        // Debit source
-        source.setBalance(source.getBalance().subtract(amount).setScale(4, RoundingMode.HALF_UP));
-        accountRepository.save(source);
+        // Balance writes go in ascending id order whatever the direction: a conditional UPDATE
+        // locks its row as it runs, so opposite-direction transfers on one pair cannot deadlock.
+        // A refused debit after the credit rolls the whole transaction back.
+        BigDecimal sourceBalance;
+        BigDecimal destBalance;
+        if (destId < sourceId) {
+            destBalance = balanceStrategies.forAccount(dest).credit(dest, amount);
+            sourceBalance = balanceStrategies.forAccount(source).debit(source, amount);
+        } else {
+            sourceBalance = balanceStrategies.forAccount(source).debit(source, amount);
+            destBalance = balanceStrategies.forAccount(dest).credit(dest, amount);
+        }
 
         Transaction debit = new Transaction();
         debit.setAccountId(sourceId);
@@ -87,20 +103,16 @@ public class TransferExecutor {
         debit.setCorrelationId(correlationId);
         debit.setIdempotencyKey(idempotencyKey);
         debit.setStatus(TransactionStatus.COMPLETED);
-        debit.setBalanceAfter(source.getBalance());
+        debit.setBalanceAfter(sourceBalance);
         debit = transactionRepository.save(debit);
 
-        balanceCacheService.put(sourceId, source.getBalance());
+        balanceCacheService.invalidate(sourceId);
         eventPublisher.publish(new TransactionEvent(debit.getId(), sourceId,
                 EventType.TRANSFER_DEBIT, TransactionEventType.DEBIT,
-                amount, source.getBalance(), correlationId, LocalDateTime.now()));
+                Money.of(amount), Money.of(sourceBalance), correlationId, LocalDateTime.now()));
 
         log.info("Transfer debit: accountId={}, amount={}, balanceAfter={}, correlationId={}",
-                sourceId, amount, source.getBalance(), correlationId);
-
-        // Credit destination
-        dest.setBalance(dest.getBalance().add(amount).setScale(4, RoundingMode.HALF_UP));
-        accountRepository.save(dest);
+                sourceId, amount, sourceBalance, correlationId);
 
         Transaction credit = new Transaction();
         credit.setAccountId(destId);
@@ -110,41 +122,199 @@ public class TransferExecutor {
         credit.setCorrelationId(correlationId);
         credit.setIdempotencyKey(idempotencyKey + ":C");
         credit.setStatus(TransactionStatus.COMPLETED);
-        credit.setBalanceAfter(dest.getBalance());
+        credit.setBalanceAfter(destBalance);
         credit = transactionRepository.save(credit);
 
-        balanceCacheService.put(destId, dest.getBalance());
+        balanceCacheService.invalidate(destId);
         eventPublisher.publish(new TransactionEvent(credit.getId(), destId,
                 EventType.TRANSFER_CREDIT, TransactionEventType.CREDIT,
-                amount, dest.getBalance(), correlationId, LocalDateTime.now()));
+                Money.of(amount), Money.of(destBalance), correlationId, LocalDateTime.now()));
 
         log.info("Transfer credit: accountId={}, amount={}, balanceAfter={}, correlationId={}",
-                destId, amount, dest.getBalance(), correlationId);
+                destId, amount, destBalance, correlationId);
 
-        return new TransferResponse(correlationId,
+        TransferResponse response = new TransferResponse(correlationId,
                 TransactionResponse.from(debit),
                 TransactionResponse.from(credit));
+        idempotencyService.record(idempotencyKey, response);
+        return response;
+    }
+
+    /**
+     * Debits the source once for the sum of the legs and credits every destination, all in
+     * one transaction under one correlation id. The checks match {@link #executeTransfer}:
+     * every account must be active and share the source's currency, and the source must
+     * cover the total. Credit rows go out in a single saveAll so they insert as one batch.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public SplitTransferResponse executeSplitTransfer(Long sourceId, List<SplitTransferRequest.Leg> legs,
+                                                      String description, String idempotencyKey) {
+        Optional<SplitTransferResponse> existing = idempotencyService.find(idempotencyKey, SplitTransferResponse.class);
+        if (existing.isPresent()) {
+            log.info("Idempotent replay for split transfer idempotencyKey={}, correlationId={}",
+                    idempotencyKey, existing.get().correlationId());
+            return existing.get();
+        }
+
+        Set<Long> accountIds = new TreeSet<>();
+        accountIds.add(sourceId);
+        legs.forEach(leg -> accountIds.add(leg.destinationAccountId()));
+        Map<Long, Account> accounts = new HashMap<>();
+        // Pessimistic mode locks every row up front, in ascending id order like two-party transfers
+        (balanceStrategies.isPessimistic()
+                ? accountRepository.findAllByIdForUpdate(accountIds)
+                : accountRepository.findAllById(accountIds))
+                .forEach(a -> accounts.put(a.getId(), a));
+
+        Account source = accounts.get(sourceId);
+        if (source == null) {
+            throw new AccountNotFoundException(sourceId);
+        }
+        if (source.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountFrozenException(sourceId);
+        }
+        Money total = Money.ZERO;
+        for (SplitTransferRequest.Leg leg : legs) {
+            Account dest = accounts.get(leg.destinationAccountId());
+            if (dest == null) {
+                throw new AccountNotFoundException(leg.destinationAccountId());
+            }
+            if (dest.getStatus() != AccountStatus.ACTIVE) {
+                throw new AccountFrozenException(dest.getId());
+            }
+            if (!source.getCurrency().equals(dest.getCurrency())) {
+                throw new CurrencyMismatchException(source.getCurrency(), dest.getCurrency());
+            }
+            total = total.plus(Money.of(leg.amount()));
+        }
+
+        UUID correlationId = UUID.randomUUID();
+        BigDecimal sourceBalance = balanceStrategies.forAccount(source).debit(source, total.toBigDecimal());
+
+        Transaction debit = new Transaction();
+        debit.setAccountId(sourceId);
+        debit.setType(TransactionType.DEBIT);
+        debit.setAmount(total.toBigDecimal());
+        debit.setDescription(description);
+        debit.setCorrelationId(correlationId);
+        debit.setIdempotencyKey(idempotencyKey);
+        debit.setStatus(TransactionStatus.COMPLETED);
+        debit.setBalanceAfter(sourceBalance);
+
+        List<Transaction> ledger = new ArrayList<>(legs.size() + 1);
+        ledger.add(debit);
+        for (int i = 0; i < legs.size(); i++) {
+            SplitTransferRequest.Leg leg = legs.get(i);
+            Account dest = accounts.get(leg.destinationAccountId());
+            Transaction credit = new Transaction();
+            credit.setAccountId(dest.getId());
+            credit.setType(TransactionType.CREDIT);
+            credit.setAmount(leg.amount());
+            credit.setDescription(leg.description() != null ? leg.description() : description);
+            credit.setCorrelationId(correlationId);
+            credit.setIdempotencyKey(idempotencyKey + ":C" + i);
+            credit.setStatus(TransactionStatus.COMPLETED);
+            credit.setBalanceAfter(balanceStrategies.forAccount(dest).credit(dest, leg.amount()));
+            ledger.add(credit);
+        }
+        transactionRepository.saveAll(ledger);
+
+        Set<Long> touched = new HashSet<>();
+        List<TransactionEvent> events = new ArrayList<>(ledger.size());
+        for (Transaction tx : ledger) {
+            touched.add(tx.getAccountId());
+            events.add(new TransactionEvent(tx.getId(), tx.getAccountId(),
+                    tx.getType() == TransactionType.DEBIT ? EventType.TRANSFER_DEBIT : EventType.TRANSFER_CREDIT,
+                    tx.getType() == TransactionType.DEBIT ? TransactionEventType.DEBIT : TransactionEventType.CREDIT,
+                    Money.of(tx.getAmount()), Money.of(tx.getBalanceAfter()), correlationId, LocalDateTime.now()));
+        }
+        eventPublisher.publishAll(events);
+        balanceCacheService.invalidateAll(touched);
+
+        log.info("Split transfer: sourceId={}, legs={}, total={}, balanceAfter={}, correlationId={}",
+                sourceId, legs.size(), total, sourceBalance, correlationId);
+
+        SplitTransferResponse response = new SplitTransferResponse(correlationId,
+                TransactionResponse.from(debit),
+                ledger.subList(1, ledger.size()).stream().map(TransactionResponse::from).toList());
+        idempotencyService.record(idempotencyKey, response);
+        return response;
+    }
+
+    /**
+     * Records a transfer as a PENDING debit/credit pair without moving money. Status and
+     * currency are checked here so obvious rejections still fail synchronously; funds are
+     * checked when {@link BatchTransferExecutor#settlePendingTransfers} applies the pair.
+     * Returns the debit leg, whose id clients poll for the outcome. Settlement rewrites the
+     * recorded response, so a replay returns the leg in whatever state it has reached.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public TransactionResponse acceptTransfer(Long sourceId, Long destId, BigDecimal amount,
+                                              String description, String idempotencyKey) {
+        Optional<TransactionResponse> existing = idempotencyService.find(idempotencyKey, TransactionResponse.class);
+        if (existing.isPresent()) {
+            log.info("Idempotent replay for async transfer idempotencyKey={}, status={}",
+                    idempotencyKey, existing.get().status());
+            return existing.get();
+        }
+
+        Account source = loadAccount(sourceId, false);
+        Account dest = loadAccount(destId, false);
+        if (source.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountFrozenException(sourceId);
+        }
+        if (dest.getStatus() != AccountStatus.ACTIVE) {
+            throw new AccountFrozenException(destId);
+        }
+        if (!source.getCurrency().equals(dest.getCurrency())) {
+            throw new CurrencyMismatchException(source.getCurrency(), dest.getCurrency());
+        }
+
+        UUID correlationId = UUID.randomUUID();
+        Transaction debit = new Transaction();
+        debit.setAccountId(sourceId);
+        debit.setType(TransactionType.DEBIT);
+        debit.setAmount(amount);
+        debit.setDescription(description);
+        debit.setCorrelationId(correlationId);
+        debit.setIdempotencyKey(idempotencyKey);
+        debit.setStatus(TransactionStatus.PENDING);
+
+        Transaction credit = new Transaction();
+        credit.setAccountId(destId);
+        credit.setType(TransactionType.CREDIT);
+        credit.setAmount(amount);
+        credit.setDescription(description);
+        credit.setCorrelationId(correlationId);
+        credit.setIdempotencyKey(idempotencyKey + ":C");
+        credit.setStatus(TransactionStatus.PENDING);
+
+        transactionRepository.saveAll(List.of(debit, credit));
+
+        log.info("Transfer accepted: sourceId={}, destId={}, amount={}, correlationId={}",
+                sourceId, destId, amount, correlationId);
+        TransactionResponse response = TransactionResponse.from(debit);
+        idempotencyService.record(idempotencyKey, response);
+        return response;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TransactionResponse executeDeposit(Long accountId, BigDecimal amount,
                                               String description, String idempotencyKey) {
         // Idempotency check inside transaction boundary
-        Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        Optional<TransactionResponse> existing = idempotencyService.find(idempotencyKey, TransactionResponse.class);
         if (existing.isPresent()) {
             log.info("Idempotent replay for deposit idempotencyKey={}", idempotencyKey);
-            return TransactionResponse.from(existing.get());
+            return existing.get();
         }
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        Account account = loadAccount(accountId, balanceStrategies.isPessimistic());
 
         if (account.getStatus() != AccountStatus.ACTIVE) {
             throw new AccountFrozenException(accountId);
         }
 
-        account.setBalance(account.getBalance().add(amount).setScale(4, RoundingMode.HALF_UP));
-        accountRepository.save(account);
+        BigDecimal balanceAfter = balanceStrategies.forAccount(account).credit(account, amount);
 
         Transaction tx = new Transaction();
         tx.setAccountId(accountId);
@@ -153,41 +323,38 @@ public class TransferExecutor {
         tx.setDescription(description != null ? description : "Deposit");
         tx.setIdempotencyKey(idempotencyKey);
         tx.setStatus(TransactionStatus.COMPLETED);
-        tx.setBalanceAfter(account.getBalance());
+        tx.setBalanceAfter(balanceAfter);
         tx = transactionRepository.save(tx);
 
-        balanceCacheService.put(accountId, account.getBalance());
+        balanceCacheService.invalidate(accountId);
         eventPublisher.publish(new TransactionEvent(tx.getId(), accountId,
                 EventType.DEPOSIT, TransactionEventType.CREDIT,
-                amount, account.getBalance(), null, LocalDateTime.now()));
+                Money.of(amount), Money.of(balanceAfter), null, LocalDateTime.now()));
 
-        log.info("Deposit: accountId={}, amount={}, balanceAfter={}", accountId, amount, account.getBalance());
+        log.info("Deposit: accountId={}, amount={}, balanceAfter={}", accountId, amount, balanceAfter);
 
-        return TransactionResponse.from(tx);
+        TransactionResponse response = TransactionResponse.from(tx);
+        idempotencyService.record(idempotencyKey, response);
+        return response;
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     public TransactionResponse executeWithdraw(Long accountId, BigDecimal amount,
                                                String description, String idempotencyKey) {
         // Idempotency check inside transaction boundary
-        Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        Optional<TransactionResponse> existing = idempotencyService.find(idempotencyKey, TransactionResponse.class);
         if (existing.isPresent()) {
             log.info("Idempotent replay for withdrawal idempotencyKey={}", idempotencyKey);
-            return TransactionResponse.from(existing.get());
+            return existing.get();
         }
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        Account account = loadAccount(accountId, balanceStrategies.isPessimistic());
 
         if (account.getStatus() != AccountStatus.ACTIVE) {
             throw new AccountFrozenException(accountId);
         }
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException();
-        }
 
-        account.setBalance(account.getBalance().subtract(amount).setScale(4, RoundingMode.HALF_UP));
-        accountRepository.save(account);
+        BigDecimal balanceAfter = balanceStrategies.forAccount(account).debit(account, amount);
 
         Transaction tx = new Transaction();
         tx.setAccountId(accountId);
@@ -196,16 +363,137 @@ public class TransferExecutor {
         tx.setDescription(description != null ? description : "Withdrawal");
         tx.setIdempotencyKey(idempotencyKey);
         tx.setStatus(TransactionStatus.COMPLETED);
-        tx.setBalanceAfter(account.getBalance());
+        tx.setBalanceAfter(balanceAfter);
         tx = transactionRepository.save(tx);
 
-        balanceCacheService.put(accountId, account.getBalance());
+        balanceCacheService.invalidate(accountId);
         eventPublisher.publish(new TransactionEvent(tx.getId(), accountId,
                 EventType.WITHDRAWAL, TransactionEventType.DEBIT,
-                amount, account.getBalance(), null, LocalDateTime.now()));
+                Money.of(amount), Money.of(balanceAfter), null, LocalDateTime.now()));
+
+        log.info("Withdrawal: accountId={}, amount={}, balanceAfter={}", accountId, amount, balanceAfter);
+
+        TransactionResponse response = TransactionResponse.from(tx);
+        idempotencyService.record(idempotencyKey, response);
+        return response;
+    }
 
-        log.info("Withdrawal: accountId={}, amount={}, balanceAfter={}", accountId, amount, account.getBalance());
+    private Account loadAccount(Long id, boolean forUpdate) {
+        return (forUpdate ? accountRepository.findByIdForUpdate(id) : accountRepository.findById(id))
+                .orElseThrow(() -> new AccountNotFoundException(id));
+    }
+
+    /**
+     * Applies a micro-batch of deposits and withdrawals for one account in a single
+     * transaction. The account row is locked once. Each operation is accepted or rejected
+     * against a running balance, and the result is written back with one balance UPDATE
+     * and one saveAll of the ledger rows. Outcomes come back in submission order.
+     *
+     * Replays come from the idempotency store, like the single-operation writes. A key that
+     * outlived the store's TTL hits the unique key on insert, and {@link GroupCommitEngine}
+     * falls back to single commits, which replay it from the ledger.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<BalanceOperation.Outcome> executeAccountBatch(Long accountId, List<BalanceOperation> operations) {
+        Map<String, TransactionResponse> stored = new HashMap<>();
+        for (BalanceOperation op : operations) {
+            if (!stored.containsKey(op.idempotencyKey())) {
+                idempotencyService.find(op.idempotencyKey(), TransactionResponse.class)
+                        .ifPresent(response -> stored.put(op.idempotencyKey(), response));
+            }
+        }
+
+        Account account = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        // Hot accounts keep their balance in shard rows, so each operation goes through the shard strategy
+        BalanceMutationStrategy shardStrategy = account.isSharded() ? balanceStrategies.forAccount(account) : null;
+
+        Money running = Money.of(account.getBalance());
+        Money held = Money.of(account.getHeldAmount());
+        Transaction[] results = new Transaction[operations.size()];
+        TransactionResponse[] replays = new TransactionResponse[operations.size()];
+        RuntimeException[] errors = new RuntimeException[operations.size()];
+        List<Transaction> created = new ArrayList<>();
+        // A key repeated within the batch resolves to the row its first occurrence created
+        Map<String, Transaction> createdByKey = new HashMap<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            BalanceOperation op = operations.get(i);
+            replays[i] = stored.get(op.idempotencyKey());
+            if (replays[i] != null) {
+                continue;
+            }
+            Transaction repeated = createdByKey.get(op.idempotencyKey());
+            if (repeated != null) {
+                results[i] = repeated;
+                continue;
+            }
+            if (account.getStatus() != AccountStatus.ACTIVE) {
+                errors[i] = new AccountFrozenException(accountId);
+                continue;
+            }
+
+            BigDecimal balanceAfter;
+            try {
+                if (shardStrategy != null) {
+                    balanceAfter = op.type() == TransactionType.CREDIT
+                            ? shardStrategy.credit(account, op.amount())
+                            : shardStrategy.debit(account, op.amount());
+                } else {
+                    Money amount = Money.of(op.amount());
+                    if (op.type() == TransactionType.DEBIT && running.minus(held).isLessThan(amount)) {
+                        throw new InsufficientFundsException();
+                    }
+                    running = op.type() == TransactionType.CREDIT ? running.plus(amount) : running.minus(amount);
+                    balanceAfter = running.toBigDecimal();
+                }
+            } catch (InsufficientFundsException | AccountFrozenException e) {
+                errors[i] = e;
+                continue;
+            }
+
+            Transaction tx = new Transaction();
+            tx.setAccountId(accountId);
+            tx.setType(op.type());
+            tx.setAmount(op.amount());
+            tx.setDescription(op.description() != null ? op.description()
+                    : op.type() == TransactionType.CREDIT ? "Deposit" : "Withdrawal");
+            tx.setIdempotencyKey(op.idempotencyKey());
+            tx.setStatus(TransactionStatus.COMPLETED);
+            tx.setBalanceAfter(balanceAfter);
+            created.add(tx);
+            results[i] = tx;
+            createdByKey.put(op.idempotencyKey(), tx);
+        }
 
-        return TransactionResponse.from(tx);
+        if (!created.isEmpty()) {
+            if (shardStrategy == null) {
+                account.setBalance(running.toBigDecimal());
+                accountRepository.save(account);
+            }
+            transactionRepository.saveAll(created);
+            Map<String, TransactionResponse> responses = new LinkedHashMap<>();
+            created.forEach(tx -> responses.put(tx.getIdempotencyKey(), TransactionResponse.from(tx)));
+            idempotencyService.recordAll(responses);
+
+            Transaction last = created.get(created.size() - 1);
+            balanceCacheService.invalidate(accountId);
+            eventPublisher.publishAll(created.stream()
+                    .map(tx -> new TransactionEvent(tx.getId(), accountId,
+                            tx.getType() == TransactionType.CREDIT ? EventType.DEPOSIT : EventType.WITHDRAWAL,
+                            tx.getType() == TransactionType.CREDIT ? TransactionEventType.CREDIT : TransactionEventType.DEBIT,
+                            Money.of(tx.getAmount()), Money.of(tx.getBalanceAfter()), null, LocalDateTime.now()))
+                    .toList());
+            log.info("Group commit: accountId={}, operations={}, committed={}, balanceAfter={}",
+                    accountId, operations.size(), created.size(), last.getBalanceAfter());
+        }
+
+        List<BalanceOperation.Outcome> outcomes = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            outcomes.add(errors[i] != null
+                    ? BalanceOperation.Outcome.failure(errors[i])
+                    : BalanceOperation.Outcome.success(replays[i] != null ? replays[i] : TransactionResponse.from(results[i])));
+        }
+        return outcomes;
     }
 }
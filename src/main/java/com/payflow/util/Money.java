@@ -0,0 +1,74 @@
+package com.payflow.util;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount held as a count of ten-thousandths, matching the DECIMAL(19,4) money columns.
+ * Arithmetic is plain long math, so the balance hot path does not allocate a BigDecimal
+ * per add/subtract/compare; results that leave the long range throw
+ * {@link ArithmeticException} instead of wrapping. Convert with {@link #of(BigDecimal)} and
+ * {@link #toBigDecimal()} only where values cross into JPA entities or JSON.
+ */
+public record Money(long units) implements Comparable<Money> {
+
+    public static final int SCALE = 4;
+    public static final Money ZERO = new Money(0);
+
+    /** Rounds half-up to four places, as the balance updates always have. */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return new Money(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(units, other.units));
+    }
+
+    public boolean isLessThan(Money other) {
+        return units < other.units;
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /** Writes the same text as {@link #toString()} without building a BigDecimal per value. */
+    public void appendTo(Appendable out) throws IOException {
+        if (units < 0) {
+            out.append('-');
+        }
+        out.append(Long.toString(Math.abs(units / 10_000)));
+        out.append('.');
+        long fraction = Math.abs(units % 10_000);
+        for (long place = 1_000; place > 0; place /= 10) {
+            out.append((char) ('0' + fraction / place % 10));
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,11 @@
+-- Replay store for write requests: one row per idempotency key holding the serialized
+-- original response. Rows expire; replays past expiry fall back to the ledger.
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    response_type   VARCHAR(40)  NOT NULL,
+    response_body   TEXT         NOT NULL,
+    created_at      TIMESTAMP    NOT NULL DEFAULT now(),
+    expires_at      TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
@@ -0,0 +1,7 @@
+-- Asynchronous transfers are written as a PENDING debit/credit pair before any balance
+-- moves, so balance_after is only known once the pair settles.
+ALTER TABLE transactions ALTER COLUMN balance_after DROP NOT NULL;
+
+-- Settlement and the sweeper only ever look for unsettled debit legs
+CREATE INDEX idx_transactions_pending_debits ON transactions(created_at)
+    WHERE status = 'PENDING' AND type = 'DEBIT';
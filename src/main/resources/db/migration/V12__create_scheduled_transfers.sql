@@ -0,0 +1,27 @@
+-- Standing orders and one-off future transfers. occurrence_at is the nominal due time of
+-- the next run (it names the run's idempotency key); next_attempt_at is when the poller
+-- should try it, which moves forward on retries. claimed_until leases a row to one runner.
+CREATE TABLE scheduled_transfers (
+    id                     BIGSERIAL      PRIMARY KEY,
+    user_id                BIGINT         NOT NULL REFERENCES users(id),
+    source_account_id      BIGINT         NOT NULL REFERENCES accounts(id),
+    destination_account_id BIGINT         NOT NULL REFERENCES accounts(id),
+    amount                 DECIMAL(19, 4) NOT NULL CHECK (amount > 0),
+    description            VARCHAR(255),
+    recurrence             VARCHAR(10)    NOT NULL,
+    occurrence_at          TIMESTAMP      NOT NULL,
+    next_attempt_at        TIMESTAMP      NOT NULL,
+    end_at                 TIMESTAMP,
+    status                 VARCHAR(20)    NOT NULL,
+    attempts               INTEGER        NOT NULL DEFAULT 0,
+    run_count              INTEGER        NOT NULL DEFAULT 0,
+    last_error             VARCHAR(255),
+    claimed_until          TIMESTAMP,
+    version                INTEGER        NOT NULL DEFAULT 0,
+    created_at             TIMESTAMP      NOT NULL DEFAULT now()
+);
+
+ALTER SEQUENCE scheduled_transfers_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_scheduled_transfers_due ON scheduled_transfers(next_attempt_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_scheduled_transfers_user_id ON scheduled_transfers(user_id);
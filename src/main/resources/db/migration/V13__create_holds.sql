@@ -0,0 +1,25 @@
+-- Authorize/capture holds. held_amount on the account row is the sum of its ACTIVE holds,
+-- so available balance is balance - held_amount without reading this table.
+ALTER TABLE accounts ADD COLUMN held_amount DECIMAL(19, 4) NOT NULL DEFAULT 0;
+ALTER TABLE accounts ADD CONSTRAINT chk_held_amount_within_balance
+    CHECK (held_amount >= 0 AND held_amount <= balance);
+
+CREATE TABLE holds (
+    id              BIGSERIAL      PRIMARY KEY,
+    account_id      BIGINT         NOT NULL REFERENCES accounts(id),
+    amount          DECIMAL(19, 4) NOT NULL CHECK (amount > 0),
+    captured_amount DECIMAL(19, 4),
+    description     VARCHAR(255),
+    idempotency_key VARCHAR(100)   NOT NULL UNIQUE,
+    status          VARCHAR(20)    NOT NULL,
+    expires_at      TIMESTAMP      NOT NULL,
+    transaction_id  BIGINT,
+    version         INTEGER        NOT NULL DEFAULT 0,
+    created_at      TIMESTAMP      NOT NULL DEFAULT now(),
+    resolved_at     TIMESTAMP
+);
+
+ALTER SEQUENCE holds_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_holds_account_id ON holds(account_id, created_at DESC);
+CREATE INDEX idx_holds_expiry ON holds(expires_at) WHERE status = 'ACTIVE';
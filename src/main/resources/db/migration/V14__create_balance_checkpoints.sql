@@ -0,0 +1,20 @@
+-- Per-account ledger checkpoints for point-in-time balance queries. A checkpoint holds the
+-- account's balance as of as_of, i.e. the sum of its COMPLETED ledger rows created at or
+-- before that time. Checkpoints are written in runs that share one as_of, and each run
+-- only covers rows created since the previous run.
+CREATE TABLE balance_checkpoints (
+    id                  BIGSERIAL      PRIMARY KEY,
+    account_id          BIGINT         NOT NULL REFERENCES accounts(id),
+    as_of               TIMESTAMP      NOT NULL,
+    balance             DECIMAL(19, 4) NOT NULL,
+    last_transaction_id BIGINT         NOT NULL,
+    transaction_count   INTEGER        NOT NULL,
+    created_at          TIMESTAMP      NOT NULL DEFAULT now(),
+    CONSTRAINT uq_balance_checkpoints_account_as_of UNIQUE (account_id, as_of)
+);
+
+CREATE INDEX idx_balance_checkpoints_as_of ON balance_checkpoints(as_of);
+
+-- Tail reads after a checkpoint, and the next run's scan for accounts with new rows
+CREATE INDEX idx_transactions_account_created_at ON transactions(account_id, created_at);
+CREATE INDEX idx_transactions_created_at ON transactions(created_at);
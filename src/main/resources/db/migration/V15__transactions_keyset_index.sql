@@ -0,0 +1,5 @@
+-- Keyset pagination seeks on (created_at, id) within an account. Backward scans of this
+-- index serve the DESC listing, and it also covers V14's checkpoint tail reads, which
+-- only need the (account_id, created_at) prefix.
+CREATE INDEX idx_transactions_account_created_at_id ON transactions(account_id, created_at, id);
+DROP INDEX IF EXISTS idx_transactions_account_created_at;
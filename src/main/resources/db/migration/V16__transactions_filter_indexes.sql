@@ -0,0 +1,8 @@
+-- Composite indexes for the filtered ledger listing, which now only carries the predicates
+-- a caller supplied. V15's (account_id, created_at, id) serves the default newest-first
+-- order and date ranges; these cover the type filter and amount ranges / amount sort.
+CREATE INDEX idx_transactions_account_type_created_at ON transactions(account_id, type, created_at, id);
+CREATE INDEX idx_transactions_account_amount ON transactions(account_id, amount);
+
+-- Every lookup by account is now served by a composite index with account_id as its prefix
+DROP INDEX IF EXISTS idx_transactions_account_id;
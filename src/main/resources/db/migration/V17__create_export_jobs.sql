@@ -0,0 +1,28 @@
+-- Background CSV exports. Workers claim QUEUED rows (or RUNNING rows whose lease lapsed,
+-- i.e. the worker died) with FOR UPDATE SKIP LOCKED and renew claimed_until while they
+-- write; file_path points at the finished file on the export directory until expires_at.
+CREATE TABLE export_jobs (
+    id            BIGSERIAL    PRIMARY KEY,
+    user_id       BIGINT       NOT NULL REFERENCES users(id),
+    account_id    BIGINT       NOT NULL REFERENCES accounts(id),
+    filter_type   VARCHAR(10),
+    filter_status VARCHAR(20),
+    from_time     TIMESTAMP,
+    to_time       TIMESTAMP,
+    status        VARCHAR(20)  NOT NULL,
+    claimed_until TIMESTAMP,
+    file_path     VARCHAR(500),
+    row_count     BIGINT,
+    size_bytes    BIGINT,
+    error         VARCHAR(255),
+    created_at    TIMESTAMP    NOT NULL DEFAULT now(),
+    started_at    TIMESTAMP,
+    completed_at  TIMESTAMP,
+    expires_at    TIMESTAMP
+);
+
+ALTER SEQUENCE export_jobs_id_seq INCREMENT BY 50;
+
+CREATE INDEX idx_export_jobs_pending ON export_jobs(created_at) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX idx_export_jobs_user_id ON export_jobs(user_id);
+CREATE INDEX idx_export_jobs_expires_at ON export_jobs(expires_at) WHERE status = 'COMPLETED';
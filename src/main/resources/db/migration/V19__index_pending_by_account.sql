@@ -0,0 +1,5 @@
+-- Conditional GETs count an account's PENDING rows on every poll: settling an async transfer
+-- changes rows in place, without a new ledger row or an account version bump. PENDING rows
+-- are few and short-lived, so this partial index stays tiny on every partition.
+CREATE INDEX idx_transactions_account_pending ON transactions(account_id)
+    WHERE status = 'PENDING';
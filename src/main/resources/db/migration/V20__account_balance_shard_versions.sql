@@ -0,0 +1,4 @@
+-- Conditional GETs on hot accounts need a value that moves on every commit. The newest ledger
+-- row by created_at misses a transfer that commits after a later-stamped one, so every shard
+-- write now bumps its row's version and the tags carry the account's sum of shard versions.
+ALTER TABLE account_balance_shards ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
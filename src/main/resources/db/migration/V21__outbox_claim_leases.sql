@@ -0,0 +1,6 @@
+-- The outbox relay leases rows in a short claim transaction and sends them after it commits.
+-- A lease covers an account's whole backlog head, so no two relays ever ship one account's
+-- events concurrently; an expired lease (crashed relay) makes the rows claimable again.
+ALTER TABLE event_outbox ADD COLUMN claimed_until TIMESTAMP;
+
+CREATE INDEX idx_event_outbox_account_id ON event_outbox(account_id, id);
@@ -0,0 +1,5 @@
+-- Request keys may be 100 characters, and credit legs append ":C" plus a leg index below
+-- 100, so ledger keys need up to 104. Widening a VARCHAR rewrites neither the partitions
+-- nor their indexes.
+ALTER TABLE transactions ALTER COLUMN idempotency_key TYPE VARCHAR(104);
+ALTER TABLE transaction_idempotency_keys ALTER COLUMN idempotency_key TYPE VARCHAR(104);
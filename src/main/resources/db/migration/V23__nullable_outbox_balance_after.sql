@@ -0,0 +1,2 @@
+-- Ledger rows of sharded accounts carry no balance_after, and their events copy that
+ALTER TABLE event_outbox ALTER COLUMN balance_after DROP NOT NULL;
@@ -0,0 +1,3 @@
+-- Same pooled allocation as V9 for the other write-path tables; writeCheckpoints keeps
+-- taking ids from the column default
+ALTER SEQUENCE balance_checkpoints_id_seq INCREMENT BY 50;
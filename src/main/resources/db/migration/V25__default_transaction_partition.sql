@@ -0,0 +1,48 @@
+-- Catch-all partition for created_at values no monthly partition covers yet (maintenance
+-- stalled past months-ahead, a clock jump, a backdated row), so such an insert lands
+-- instead of failing. TransactionPartitionMaintainer and TransactionArchiver only touch
+-- transactions_pYYYYMM tables, so they never detach or archive it.
+--
+-- With a default partition, DETACH PARTITION ... CONCURRENTLY is refused, so partitions are
+-- now detached with a plain DETACH.
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+CREATE INDEX transactions_default_created_at_brin ON transactions_default USING brin (created_at);
+
+-- As in V18, plus: a month whose rows already sit in the default partition cannot be created
+-- there directly (the default would then hold rows outside its new bounds). The month is
+-- built as a plain table, its rows moved over and the table attached. Inserts into the
+-- default partition wait on its lock meanwhile. The moved rows keep their idempotency keys
+-- because the key trigger only fires on inserts into transactions.
+CREATE OR REPLACE FUNCTION create_transaction_partitions(from_month DATE, to_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    month   DATE := date_trunc('month', from_month);
+    next    DATE;
+    name    TEXT;
+    created INTEGER := 0;
+BEGIN
+    IF NOT pg_try_advisory_xact_lock(hashtext('create_transaction_partitions')) THEN
+        RETURN 0;
+    END IF;
+    WHILE month <= to_month LOOP
+        name := 'transactions_p' || to_char(month, 'YYYYMM');
+        next := (month + INTERVAL '1 month')::date;
+        IF to_regclass(name) IS NULL THEN
+            LOCK TABLE transactions_default IN EXCLUSIVE MODE;
+            IF EXISTS (SELECT 1 FROM transactions_default WHERE created_at >= month AND created_at < next) THEN
+                EXECUTE format('CREATE TABLE %I (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', name);
+                EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE created_at >= %L AND created_at < %L '
+                               'RETURNING *) INSERT INTO %I SELECT * FROM moved', month, next, name);
+                EXECUTE format('ALTER TABLE transactions ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               name, month, next);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                               name, month, next);
+            END IF;
+            EXECUTE format('CREATE INDEX %I ON %I USING brin (created_at)', name || '_created_at_brin', name);
+            created := created + 1;
+        END IF;
+        month := next;
+    END LOOP;
+    RETURN created;
+END
+$$ LANGUAGE plpgsql;
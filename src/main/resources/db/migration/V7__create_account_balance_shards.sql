@@ -0,0 +1,12 @@
+-- Opt-in hot-account mode: when shard_count > 0 the balance lives entirely in
+-- account_balance_shards and accounts.balance stays at zero.
+ALTER TABLE accounts ADD COLUMN shard_count INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE account_balance_shards (
+    id          BIGSERIAL      PRIMARY KEY,
+    account_id  BIGINT         NOT NULL REFERENCES accounts(id),
+    shard_index INTEGER        NOT NULL,
+    balance     DECIMAL(19, 4) NOT NULL DEFAULT 0,
+    CONSTRAINT chk_shard_balance_non_negative CHECK (balance >= 0),
+    UNIQUE (account_id, shard_index)
+);
@@ -0,0 +1,15 @@
+-- Transactional outbox: events are written in the same transaction as the ledger rows
+-- and shipped to Kafka by OutboxRelay after commit.
+CREATE TABLE event_outbox (
+    id               BIGSERIAL      PRIMARY KEY,
+    transaction_id   BIGINT,
+    account_id       BIGINT         NOT NULL,
+    event_type       VARCHAR(20)    NOT NULL,
+    transaction_type VARCHAR(10)    NOT NULL,
+    amount           DECIMAL(19, 4) NOT NULL,
+    balance_after    DECIMAL(19, 4) NOT NULL,
+    correlation_id   UUID,
+    occurred_at      TIMESTAMP      NOT NULL,
+    attempts         INTEGER        NOT NULL DEFAULT 0,
+    created_at       TIMESTAMP      NOT NULL DEFAULT now()
+);
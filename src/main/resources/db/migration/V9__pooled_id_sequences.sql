@@ -0,0 +1,8 @@
+-- Hibernate allocates ids from these sequences in blocks of 50 (pooled optimizer) instead of
+-- relying on IDENTITY, which forced an immediate INSERT per row and disabled JDBC batching.
+-- The column defaults still call nextval, so raw SQL inserts keep working.
+ALTER SEQUENCE accounts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transactions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE daily_account_summaries_id_seq INCREMENT BY 50;
+ALTER SEQUENCE account_balance_shards_id_seq INCREMENT BY 50;
+ALTER SEQUENCE event_outbox_id_seq INCREMENT BY 50;
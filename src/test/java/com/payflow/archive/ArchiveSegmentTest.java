@@ -0,0 +1,118 @@
+package com.payflow.archive;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ArchiveSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryColumn() throws IOException {
+        UUID correlation = UUID.randomUUID();
+        ArchivedTransaction row = new ArchivedTransaction(42L, 7L, TransactionType.DEBIT, new BigDecimal("12345678901234.5678"),
+                "Rent \"March\" – ünïcode", correlation, "key-42", TransactionStatus.FAILED, null,
+                LocalDateTime.of(2023, 3, 4, 5, 6, 7, 891_234_000));
+        Path file = write(List.of(row), 16);
+
+        ArchiveSegment segment = ArchiveSegment.open(file);
+
+        assertThat(segment.rowCount()).isEqualTo(1);
+        assertThat(segment.scan(7L, null, null, false).toList()).containsExactly(row);
+    }
+
+    @Test
+    void scansOnlyTheRequestedAccountAndRangeAcrossBlocks() throws IOException {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        long id = 1;
+        for (long account = 1; account <= 3; account++) {
+            for (int hour = 0; hour < 100; hour++) {
+                rows.add(row(id++, account, START.plusHours(hour)));
+            }
+        }
+        ArchiveSegment segment = ArchiveSegment.open(write(rows, 16));
+
+        List<ArchivedTransaction> ascending = segment.scan(2L, START.plusHours(10), START.plusHours(19), false).toList();
+        assertThat(ascending).hasSize(10)
+                .allMatch(tx -> tx.accountId() == 2L)
+                .extracting(ArchivedTransaction::createdAt)
+                .isSorted()
+                .startsWith(START.plusHours(10))
+                .endsWith(START.plusHours(19));
+
+        List<ArchivedTransaction> descending = segment.scan(2L, null, null, true).toList();
+        assertThat(descending).hasSize(100);
+        assertThat(descending.get(0).createdAt()).isEqualTo(START.plusHours(99));
+        assertThat(descending.get(99).createdAt()).isEqualTo(START);
+
+        assertThat(segment.scan(4L, null, null, false)).isEmpty();
+        assertThat(segment.scan(1L, START.plusDays(30), null, false)).isEmpty();
+    }
+
+    @Test
+    void countsMatchScansWithoutInflatingInteriorBlocks() throws IOException {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        long id = 1;
+        for (long account = 1; account <= 3; account++) {
+            for (int hour = 0; hour < 100; hour++) {
+                rows.add(row(id++, account, START.plusHours(hour)));
+            }
+        }
+        ArchiveSegment segment = ArchiveSegment.open(write(rows, 16));
+
+        assertThat(segment.count(2L, null, null)).isEqualTo(100);
+        assertThat(segment.count(2L, START.plusHours(10), START.plusHours(59))).isEqualTo(50);
+        assertThat(segment.count(3L, START.plusHours(99), null)).isEqualTo(1);
+        assertThat(segment.count(4L, null, null)).isZero();
+    }
+
+    @Test
+    void rejectsRowsOutOfKeyOrder() throws IOException {
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(directory.resolve("bad.seg"), 16)) {
+            writer.append(row(1L, 2L, START));
+
+            assertThatThrownBy(() -> writer.append(row(2L, 1L, START)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        Path file = directory.resolve("junk.seg");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> ArchiveSegment.open(file)).isInstanceOf(IOException.class);
+    }
+
+    private Path write(List<ArchivedTransaction> rows, int blockRows) throws IOException {
+        Path file = directory.resolve("000.seg");
+        ArchiveSegmentWriter writer = new ArchiveSegmentWriter(file, blockRows);
+        for (ArchivedTransaction row : rows) {
+            writer.append(row);
+        }
+        writer.finish();
+        return file;
+    }
+
+    static ArchivedTransaction row(long id, long accountId, LocalDateTime createdAt) {
+        return new ArchivedTransaction(id, accountId, id % 2 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT,
+                BigDecimal.valueOf(id, 4), "tx " + id, null, "key-" + id, TransactionStatus.COMPLETED,
+                BigDecimal.valueOf(id * 100, 4), createdAt);
+    }
+}
@@ -0,0 +1,64 @@
+package com.payflow.archive;
+
+import com.payflow.model.TransactionType;
+import com.payflow.repository.TransactionFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TransactionArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void emptyDirectoryHasNoBoundary() {
+        TransactionArchive archive = new TransactionArchive(directory.resolve("missing").toString());
+        archive.refresh();
+
+        assertThat(archive.boundary()).isNull();
+        assertThat(archive.months()).isEmpty();
+    }
+
+    @Test
+    void streamsAcrossMonthsNewestFirstAndAppliesFilters() throws IOException {
+        TransactionArchive archive = new TransactionArchive(directory.toString());
+        publish(archive, YearMonth.of(2023, 1), 1L);
+        publish(archive, YearMonth.of(2023, 2), 100L);
+        Files.createDirectories(archive.stagingDirectory(YearMonth.of(2023, 3)));
+        archive.refresh();
+
+        assertThat(archive.months()).containsExactlyInAnyOrder(YearMonth.of(2023, 1), YearMonth.of(2023, 2));
+        assertThat(archive.boundary()).isEqualTo(LocalDateTime.of(2023, 3, 1, 0, 0));
+
+        assertThat(archive.stream(TransactionFilter.forAccount(5L), true).map(ArchivedTransaction::id).toList())
+                .containsExactly(103L, 102L, 101L, 100L, 4L, 3L, 2L, 1L);
+
+        TransactionFilter debitsInFebruary = new TransactionFilter(5L, TransactionType.DEBIT, null,
+                LocalDateTime.of(2023, 2, 1, 0, 0), null, BigDecimal.ZERO, null);
+        assertThat(archive.stream(debitsInFebruary, false).map(ArchivedTransaction::id).toList())
+                .containsExactly(100L, 102L);
+
+        assertThat(archive.count(TransactionFilter.forAccount(5L))).isEqualTo(8);
+        assertThat(archive.count(debitsInFebruary)).isEqualTo(2);
+        assertThat(archive.count(TransactionFilter.forAccount(6L))).isZero();
+    }
+
+    private static void publish(TransactionArchive archive, YearMonth month, long firstId) throws IOException {
+        Path monthDirectory = Files.createDirectories(archive.monthDirectory(month));
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(monthDirectory.resolve("000.seg"), 2)) {
+            for (int i = 0; i < 4; i++) {
+                writer.append(ArchiveSegmentTest.row(firstId + i, 5L, month.atDay(1).atStartOfDay().plusDays(i)));
+            }
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.payflow.bench;
+
+import com.payflow.FluxPayApplication;
+import com.payflow.dto.TransferRequest;
+import com.payflow.model.Account;
+import com.payflow.model.User;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.UserRepository;
+import com.payflow.service.BalanceCacheService;
+import com.payflow.service.BalanceStrategyRegistry;
+import com.payflow.service.ConcurrencyMode;
+import com.payflow.service.RateLimitService;
+import com.payflow.service.TransactionService;
+import org.mockito.Mockito;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfer throughput on contended rows under each {@link ConcurrencyMode}. The app is started
+ * in-process against the given Postgres (Flyway migrates it; Redis and Kafka are left out,
+ * with the Redis-backed beans stubbed as in the container tests), then every mode runs two
+ * workloads on fresh accounts: all threads moving money from one hot account to another, and
+ * half the threads moving it each way between a hot pair.
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;deps&gt; com.payflow.bench.ContentionBenchmark \
+ *     jdbc:postgresql://localhost:5432/bench &lt;user&gt; &lt;password&gt; [threads=16] [transfersPerThread=25]
+ * </pre>
+ *
+ * Failed transfers are the ones that ran out of optimistic-lock retries; the lock-based modes
+ * queue on the row lock instead.
+ */
+public class ContentionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: ContentionBenchmark <jdbcUrl> <user> <password> [threads] [transfersPerThread]");
+            System.exit(1);
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int transfersPerThread = args.length > 4 ? Integer.parseInt(args[4]) : 25;
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FluxPayApplication.class, Stubs.class)
+                .web(WebApplicationType.NONE)
+                // As arguments, which outrank the test application.yml (builder properties are defaults)
+                .run(Map.ofEntries(
+                        Map.entry("spring.datasource.url", args[0]),
+                        Map.entry("spring.datasource.username", args[1]),
+                        Map.entry("spring.datasource.password", args[2]),
+                        Map.entry("spring.autoconfigure.exclude",
+                                "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,"
+                                        + "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration"),
+                        Map.entry("spring.main.allow-bean-definition-overriding", "true"),
+                        Map.entry("spring.flyway.enabled", "true"),
+                        Map.entry("spring.jpa.hibernate.ddl-auto", "validate"),
+                        // src/test/resources/application.yml shadows the main one, so restate its write batching
+                        Map.entry("spring.jpa.properties.hibernate.jdbc.batch_size", "50"),
+                        Map.entry("spring.jpa.properties.hibernate.jdbc.batch_versioned_data", "true"),
+                        Map.entry("spring.jpa.properties.hibernate.order_inserts", "true"),
+                        Map.entry("spring.jpa.properties.hibernate.order_updates", "true"),
+                        Map.entry("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "true"),
+                        Map.entry("app.outbox.relay.enabled", "false"),
+                        // Compare the modes, not admission control: queued writers wait rather than fail
+                        Map.entry("app.transactions.admission.max-wait-ms", "30000"))
+                        .entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new))) {
+            ContentionBenchmark bench = new ContentionBenchmark(context);
+            System.out.printf("threads=%d transfersPerThread=%d%n", threads, transfersPerThread);
+            for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+                System.out.println(bench.run(mode, "hot account", threads, transfersPerThread, false));
+            }
+            for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+                System.out.println(bench.run(mode, "hot pair", threads, transfersPerThread, true));
+            }
+        }
+    }
+
+    private final TransactionService transactionService;
+    private final BalanceStrategyRegistry balanceStrategies;
+    private final AccountRepository accountRepository;
+    private final Long userId;
+
+    private ContentionBenchmark(ConfigurableApplicationContext context) {
+        this.transactionService = context.getBean(TransactionService.class);
+        this.balanceStrategies = context.getBean(BalanceStrategyRegistry.class);
+        this.accountRepository = context.getBean(AccountRepository.class);
+        this.userId = context.getBean(UserRepository.class)
+                .save(new User("bench-" + UUID.randomUUID() + "@test.com", "hash", "Bench")).getId();
+    }
+
+    /** With {@code bothWays}, odd threads send from b to a, so every transfer locks the same two rows. */
+    private String run(ConcurrencyMode mode, String label, int threads, int transfersPerThread, boolean bothWays)
+            throws InterruptedException {
+        balanceStrategies.setActiveMode(mode);
+        Long a = openAccount("A " + mode);
+        Long b = openAccount("B " + mode);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            boolean forward = !bothWays || t % 2 == 0;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    try {
+                        transactionService.transfer(new TransferRequest(forward ? a : b, forward ? b : a,
+                                BigDecimal.ONE, "Contention benchmark", UUID.randomUUID().toString()), userId);
+                        succeeded.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(mode + " " + label + " did not finish");
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        BigDecimal total = accountRepository.findById(a).orElseThrow().getBalance()
+                .add(accountRepository.findById(b).orElseThrow().getBalance());
+        if (total.compareTo(BigDecimal.valueOf(2_000_000)) != 0) {
+            throw new IllegalStateException(mode + " " + label + " lost money: total " + total);
+        }
+        return String.format("%-11s %-18s %5d ok %5d failed %6d ms %7.1f transfers/s",
+                label, mode, succeeded.get(), failed.get(), elapsedMillis, succeeded.get() * 1000.0 / elapsedMillis);
+    }
+
+    private Long openAccount(String name) {
+        Account account = new Account(userId, name, "USD");
+        account.setBalance(BigDecimal.valueOf(1_000_000));
+        return accountRepository.save(account).getId();
+    }
+
+    /**
+     * Stand-ins for the Redis-backed beans, replacing the scanned ones by name. Registered only
+     * as a source of this run; an annotated configuration would be scanned into every test context.
+     */
+    static class Stubs {
+
+        @Bean
+        BalanceCacheService balanceCacheService() {
+            return Mockito.mock(BalanceCacheService.class);
+        }
+
+        @Bean
+        RateLimitService rateLimitService() {
+            return Mockito.mock(RateLimitService.class);
+        }
+
+        @Bean
+        RedisMessageListenerContainer redisMessageListenerContainer() {
+            return Mockito.mock(RedisMessageListenerContainer.class);
+        }
+    }
+}
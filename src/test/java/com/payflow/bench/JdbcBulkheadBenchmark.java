@@ -0,0 +1,146 @@
+package com.payflow.bench;
+
+import com.payflow.config.VirtualThreadConfig;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process companion to {@link VirtualThreadLoadBenchmark} that needs no database: every
+ * client loops checking out a connection from a simulated pool (unfair hand-off, its own
+ * checkout timeout, a fixed hold per connection), once against the raw pool and once behind
+ * the {@link VirtualThreadConfig} bulkhead, and reports throughput, checkout wait and timeouts.
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;deps&gt; com.payflow.bench.JdbcBulkheadBenchmark \
+ *     [clients=1000] [pool=10] [holdMs=5] [timeoutMs=250] [seconds=10] [threads=virtual|platform]
+ * </pre>
+ *
+ * Clients run on virtual threads by default, as requests do with {@code VIRTUAL_THREADS_ENABLED};
+ * {@code platform} gives each client a platform thread for comparison. The HTTP comparison of
+ * the two request-handling modes is {@link VirtualThreadLoadBenchmark}.
+ */
+public class JdbcBulkheadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int pool = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long holdMs = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        long timeoutMs = args.length > 3 ? Long.parseLong(args[3]) : 250;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        boolean virtual = args.length <= 5 || args[5].equals("virtual");
+
+        DataSource raw = new SimulatedPool(pool, timeoutMs);
+        DataSource bounded = (DataSource) VirtualThreadConfig.boundedResourcePostProcessor(pool, timeoutMs)
+                .postProcessAfterInitialization(new SimulatedPool(pool, timeoutMs), "dataSource");
+
+        System.out.printf("clients=%d pool=%d hold=%dms timeout=%dms seconds=%d threads=%s%n",
+                clients, pool, holdMs, timeoutMs, seconds, virtual ? "virtual" : "platform");
+        run("raw pool", raw, clients, holdMs, seconds, virtual);
+        run("bulkhead", bounded, clients, holdMs, seconds, virtual);
+    }
+
+    private static void run(String label, DataSource dataSource, int clients, long holdMs, int seconds,
+                            boolean virtual) throws Exception {
+        AtomicInteger timeouts = new AtomicInteger();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        ExecutorService pool = virtual ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+        try {
+            for (int c = 0; c < clients; c++) {
+                results.add(pool.submit(() -> {
+                    long[] waits = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try (Connection connection = dataSource.getConnection()) {
+                            if (n == waits.length) {
+                                waits = Arrays.copyOf(waits, n * 2);
+                            }
+                            waits[n++] = System.nanoTime() - start;
+                            Thread.sleep(holdMs);
+                        } catch (SQLTransientConnectionException e) {
+                            timeouts.incrementAndGet();
+                        }
+                    }
+                    return Arrays.copyOf(waits, n);
+                }));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        }
+
+        long[] all = results.stream().map(JdbcBulkheadBenchmark::join)
+                .flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-9s checkouts=%d timeouts=%d throughput=%.0f/s wait ms: p50=%.1f p99=%.1f max=%.1f%n",
+                label, all.length, timeouts.get(), all.length / (double) seconds,
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /** A fixed number of connections, handed out unfairly with a checkout timeout, like Hikari. */
+    private static class SimulatedPool extends AbstractDataSource {
+
+        private final Semaphore connections;
+        private final long timeoutMs;
+
+        SimulatedPool(int size, long timeoutMs) {
+            this.connections = new Semaphore(size, false);
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                if (!connections.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException("Connection is not available, request timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted", e);
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, methodArgs) -> {
+                        if (method.getName().equals("close")) {
+                            connections.release();
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
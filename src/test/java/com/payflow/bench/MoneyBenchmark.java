@@ -0,0 +1,77 @@
+package com.payflow.bench;
+
+import com.payflow.util.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the executor's per-operation balance math with BigDecimal against {@link Money}.
+ * Run from the IDE or with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.payflow.bench.MoneyBenchmark}; the gc profiler reports
+ * {@code gc.alloc.rate.norm} (bytes/op) next to ns/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final int OPERATIONS = 32;
+
+    private BigDecimal[] decimalAmounts;
+    private Money[] moneyAmounts;
+    private BigDecimal decimalOpening;
+    private Money moneyOpening;
+
+    @Setup
+    public void setUp() {
+        decimalAmounts = new BigDecimal[OPERATIONS];
+        moneyAmounts = new Money[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            decimalAmounts[i] = new BigDecimal(i + 1 + ".25").setScale(4, RoundingMode.HALF_UP);
+            moneyAmounts[i] = Money.of(decimalAmounts[i]);
+        }
+        decimalOpening = new BigDecimal("1000000.0000");
+        moneyOpening = Money.of(decimalOpening);
+    }
+
+    /** Debit-if-covered then credit, the way the group-commit loop did before Money. */
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal running = decimalOpening;
+        for (BigDecimal amount : decimalAmounts) {
+            if (running.compareTo(amount) >= 0) {
+                running = running.subtract(amount).setScale(4, RoundingMode.HALF_UP);
+            }
+            running = running.add(amount).setScale(4, RoundingMode.HALF_UP);
+        }
+        return running;
+    }
+
+    @Benchmark
+    public long money() {
+        Money running = moneyOpening;
+        for (Money amount : moneyAmounts) {
+            if (!running.isLessThan(amount)) {
+                running = running.minus(amount);
+            }
+            running = running.plus(amount);
+        }
+        return running.units();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
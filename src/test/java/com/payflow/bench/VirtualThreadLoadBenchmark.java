@@ -0,0 +1,111 @@
+package com.payflow.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load against a running instance, for comparing platform and virtual thread
+ * request handling. Start the app twice, once with {@code VIRTUAL_THREADS_ENABLED=true},
+ * and run this against each with the same arguments:
+ *
+ * <pre>
+ * java -cp target/test-classes com.payflow.bench.VirtualThreadLoadBenchmark \
+ *     http://localhost:8080 &lt;access-token&gt; &lt;accountId&gt; [clients=1000] [seconds=30]
+ * </pre>
+ *
+ * Each client repeatedly reads the account's transactions (JDBC + metadata cache) and its
+ * balance (Redis). {@link JdbcBulkheadBenchmark} exercises the JDBC bulkhead on its own.
+ */
+public class VirtualThreadLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: VirtualThreadLoadBenchmark <baseUrl> <token> <accountId> [clients] [seconds]");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        String token = args[1];
+        long accountId = Long.parseLong(args[2]);
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+
+        List<HttpRequest> requests = List.of(
+                get(baseUrl + "/api/transactions?accountId=" + accountId + "&size=20", token),
+                get(baseUrl + "/api/accounts/" + accountId, token));
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        AtomicInteger errors = new AtomicInteger();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                results.add(pool.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int n = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(requests.get(i % requests.size()),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, n * 2);
+                        }
+                        latencies[n++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, n);
+                }));
+            }
+        }
+
+        long[] all = results.stream().map(VirtualThreadLoadBenchmark::join)
+                .flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("clients=%d seconds=%d requests=%d errors=%d throughput=%.0f req/s%n",
+                clients, seconds, all.length, errors.get(), all.length / (double) seconds);
+        System.out.printf("latency ms: p50=%.1f p99=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
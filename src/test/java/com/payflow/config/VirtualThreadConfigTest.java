@@ -0,0 +1,117 @@
+package com.payflow.config;
+
+import com.payflow.config.VirtualThreadConfig.BoundedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import io.lettuce.core.ClientOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadConfigTest {
+
+    @Mock
+    private DataSource target;
+    @Mock
+    private Connection connection;
+
+    @Test
+    void connectionHoldsPermitUntilClosedOnce() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(target, 2, 50);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.availablePermits()).isZero();
+
+        first.close();
+        first.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        verify(connection, times(2)).close();
+
+        second.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void exhaustedPermitsTimeOutAsTransientFailure() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(target, 1, 20);
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+    }
+
+    @Test
+    void credentialedCheckoutIsBoundedByTheSamePermits() throws SQLException {
+        when(target.getConnection("app", "secret")).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(target, 1, 20);
+        Connection held = dataSource.getConnection("app", "secret");
+
+        assertThatThrownBy(() -> dataSource.getConnection("app", "secret"))
+                .isInstanceOf(SQLTransientConnectionException.class);
+        verify(target).getConnection("app", "secret");
+
+        held.close();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCheckoutReturnsPermit() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+        BoundedDataSource dataSource = new BoundedDataSource(target, 1, 20);
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class);
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void hikariCheckoutGetsOnlyWhatThePermitWaitLeft() throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        HikariPool pool = mock(HikariPool.class);
+        when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+        when(pool.getConnection(anyLong())).thenReturn(connection);
+        BoundedDataSource dataSource = new BoundedDataSource(hikari, 1, 1000);
+        Connection held = dataSource.getConnection();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(600);
+                held.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        releaser.start();
+        dataSource.getConnection();
+        releaser.join();
+
+        verify(pool).getConnection(longThat(ms -> ms > 900));
+        verify(pool).getConnection(longThat(ms -> ms <= 400));
+    }
+
+    @Test
+    void redisClientQueueIsBoundedAndRejectsWhileDisconnected() {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder();
+
+        new VirtualThreadConfig().boundedRedisClient(256).customize(builder);
+
+        ClientOptions options = builder.build().getClientOptions().orElseThrow();
+        assertThat(options.getRequestQueueSize()).isEqualTo(256);
+        assertThat(options.getDisconnectedBehavior()).isEqualTo(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS);
+        assertThat(options.getTimeoutOptions().isTimeoutCommands()).isTrue();
+    }
+}
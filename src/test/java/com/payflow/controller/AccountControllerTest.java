@@ -2,11 +2,14 @@ package com.payflow.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.payflow.dto.AccountResponse;
+import com.payflow.dto.BalanceAsOfResponse;
 import com.payflow.dto.CreateAccountRequest;
 import com.payflow.dto.UpdateAccountStatusRequest;
+import com.payflow.dto.UpdateShardingRequest;
 import com.payflow.exception.AccountNotFoundException;
 import com.payflow.model.AccountStatus;
 import com.payflow.service.AccountService;
+import com.payflow.service.BalanceCheckpointService;
 import com.payflow.util.JwtUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,11 +26,15 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -56,6 +63,9 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private BalanceCheckpointService balanceCheckpointService;
+
     @MockBean
     private JwtUtil jwtUtil;
 
@@ -69,12 +79,14 @@ class AccountControllerTest {
     void setUp() {
         org.mockito.Mockito.when(rateLimitService.isAllowed(org.mockito.ArgumentMatchers.anyString()))
                 .thenReturn(new com.payflow.service.RateLimitService.RateLimitResult(true, 100, 99, 0));
+        when(accountService.versionTagForUser(USER_ID)).thenReturn("5d41402abc4b2a76");
+        when(accountService.versionTag(any(), eq(USER_ID))).thenReturn("1.3");
     }
 
     private static final Long USER_ID = 1L;
 
     private static final AccountResponse STUB_ACCOUNT = new AccountResponse(
-            1L, USER_ID, "Checking", BigDecimal.valueOf(1000), "USD",
+            1L, USER_ID, "Checking", BigDecimal.valueOf(1000), BigDecimal.valueOf(1000), "USD",
             AccountStatus.ACTIVE, LocalDateTime.now());
 
     // -------------------------------------------------------------------------
@@ -113,6 +125,15 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$[0].accountName").value("Checking"));
     }
 
+    @Test
+    void getAllAccountsReturns304WhenTagMatches() throws Exception {
+        mockMvc.perform(get("/api/accounts").with(user("1")).header("If-None-Match", "\"5d41402abc4b2a76\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(accountService, never()).getByUserId(any());
+    }
+
     @Test
     void getAllAccountsReturnsEmptyListWhenNoneExist() throws Exception {
         when(accountService.getByUserId(USER_ID)).thenReturn(Collections.emptyList());
@@ -135,12 +156,44 @@ class AccountControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.accountName").value("Checking"))
-                .andExpect(jsonPath("$.balance").value(1000));
+                .andExpect(jsonPath("$.balance").value(1000))
+                .andExpect(header().string("ETag", "\"1.3\""));
+    }
+
+    @Test
+    void getAccountByIdReturns304WhenTagMatches() throws Exception {
+        mockMvc.perform(get("/api/accounts/1").with(user("1")).header("If-None-Match", "\"1.3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1.3\""));
+
+        verify(accountService, never()).getById(any(), any());
+    }
+
+    @Test
+    void getAccountByIdReturns200WhenTagIsStale() throws Exception {
+        when(accountService.getById(1L, USER_ID)).thenReturn(STUB_ACCOUNT);
+
+        mockMvc.perform(get("/api/accounts/1").with(user("1")).header("If-None-Match", "\"1.2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1.3\""))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void getBalanceAsOfReturns200() throws Exception {
+        LocalDateTime asOf = LocalDateTime.of(2024, 6, 15, 12, 0);
+        when(balanceCheckpointService.balanceAsOf(1L, asOf, USER_ID)).thenReturn(new BalanceAsOfResponse(
+                1L, asOf, BigDecimal.valueOf(750), "USD", asOf.minusMinutes(10), 3));
+
+        mockMvc.perform(get("/api/accounts/1/balance").param("asOf", "2024-06-15T12:00:00").with(user("1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(750))
+                .andExpect(jsonPath("$.tailTransactions").value(3));
     }
 
     @Test
     void getAccountReturns404WhenNotFound() throws Exception {
-        when(accountService.getById(99L, USER_ID)).thenThrow(new AccountNotFoundException(99L));
+        when(accountService.versionTag(99L, USER_ID)).thenThrow(new AccountNotFoundException(99L));
 
         mockMvc.perform(get("/api/accounts/99").with(user("1")))
                 .andExpect(status().isNotFound())
@@ -155,7 +208,7 @@ class AccountControllerTest {
     @Test
     void updateStatusReturns200() throws Exception {
         AccountResponse frozenAccount = new AccountResponse(
-                1L, USER_ID, "Checking", BigDecimal.valueOf(1000), "USD",
+                1L, USER_ID, "Checking", BigDecimal.valueOf(1000), BigDecimal.valueOf(1000), "USD",
                 AccountStatus.FROZEN, LocalDateTime.now());
 
         when(accountService.updateStatus(eq(1L), eq(USER_ID), any(UpdateAccountStatusRequest.class)))
@@ -171,4 +224,30 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.status").value("FROZEN"));
     }
+
+    // -------------------------------------------------------------------------
+    // PATCH /api/accounts/{id}/sharding
+    // -------------------------------------------------------------------------
+
+    @Test
+    void updateShardingReturns200() throws Exception {
+        when(accountService.updateSharding(eq(1L), eq(USER_ID), any(UpdateShardingRequest.class)))
+                .thenReturn(STUB_ACCOUNT);
+
+        mockMvc.perform(patch("/api/accounts/1/sharding")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateShardingRequest(8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void updateShardingReturns400WhenShardCountTooLarge() throws Exception {
+        mockMvc.perform(patch("/api/accounts/1/sharding")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateShardingRequest(1000))))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,118 @@
+package com.payflow.controller;
+
+import com.payflow.dto.ExportJobResponse;
+import com.payflow.model.ExportJobStatus;
+import com.payflow.service.ExportJobService;
+import com.payflow.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExportJobController.class)
+@Import(TestSecurityConfig.class)
+class ExportJobControllerTest {
+
+    private static final String CSV = "Date,Type,Amount\n2024-01-15 10:00:00,CREDIT,500.0000\n";
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportJobService exportJobService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private com.payflow.service.RateLimitService rateLimitService;
+
+    @MockBean
+    private com.payflow.service.MetricsService metricsService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(rateLimitService.isAllowed(org.mockito.ArgumentMatchers.anyString()))
+                .thenReturn(new com.payflow.service.RateLimitService.RateLimitResult(true, 100, 99, 0));
+        Path file = Files.writeString(dir.resolve("export-3.csv"), CSV);
+        when(exportJobService.openFile(3L, 1L)).thenReturn(new ExportJobService.ExportFile(file, CSV.length()));
+    }
+
+    @Test
+    void submitReturns202WithStatusLocation() throws Exception {
+        when(exportJobService.submit(any(), eq(1L))).thenReturn(new ExportJobResponse(3L, 1L,
+                ExportJobStatus.QUEUED, null, null, null, LocalDateTime.now(), null, null, null));
+
+        mockMvc.perform(post("/api/exports")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountId\":1,\"type\":\"CREDIT\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/exports/3"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void downloadServesWholeFileAndAdvertisesRanges() throws Exception {
+        mockMvc.perform(get("/api/exports/3/file").with(user("1")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().longValue("Content-Length", CSV.length()))
+                .andExpect(content().string(CSV));
+    }
+
+    @Test
+    void downloadResumesFromARange() throws Exception {
+        mockMvc.perform(get("/api/exports/3/file").with(user("1")).header("Range", "bytes=17-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 17-" + (CSV.length() - 1) + "/" + CSV.length()))
+                .andExpect(content().string(CSV.substring(17)));
+    }
+
+    @Test
+    void downloadServesABoundedRangeFromTheMiddle() throws Exception {
+        mockMvc.perform(get("/api/exports/3/file").with(user("1")).header("Range", "bytes=5-8"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue("Content-Length", 4))
+                .andExpect(content().string(CSV.substring(5, 9)));
+    }
+
+    @Test
+    void staleIfRangeFallsBackToTheWholeFile() throws Exception {
+        mockMvc.perform(get("/api/exports/3/file").with(user("1"))
+                        .header("Range", "bytes=17-")
+                        .header("If-Range", "\"export-3-1\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CSV));
+    }
+
+    @Test
+    void unsatisfiableRangeReturns416() throws Exception {
+        mockMvc.perform(get("/api/exports/3/file").with(user("1")).header("Range", "bytes=9999-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + CSV.length()));
+    }
+}
@@ -1,13 +1,21 @@
 package com.payflow.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.payflow.dto.BatchTransactionRequest;
+import com.payflow.dto.BatchTransactionResponse;
+import com.payflow.dto.CursorPage;
 import com.payflow.dto.DepositRequest;
+import com.payflow.dto.SplitTransferRequest;
+import com.payflow.dto.SplitTransferResponse;
 import com.payflow.dto.TransactionResponse;
 import com.payflow.dto.TransferRequest;
 import com.payflow.dto.TransferResponse;
 import com.payflow.dto.WithdrawRequest;
 import com.payflow.model.TransactionStatus;
 import com.payflow.model.TransactionType;
+import com.payflow.repository.TransactionFilter;
+import com.payflow.service.BatchTransactionService;
+import com.payflow.service.TransactionCsvExporter;
 import com.payflow.service.TransactionService;
 import com.payflow.util.JwtUtil;
 import org.junit.jupiter.api.Test;
@@ -20,23 +28,32 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -64,6 +81,12 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private BatchTransactionService batchTransactionService;
+
+    @MockBean
+    private TransactionCsvExporter transactionCsvExporter;
+
     @MockBean
     private JwtUtil jwtUtil;
 
@@ -77,6 +100,8 @@ class TransactionControllerTest {
     void setUp() {
         org.mockito.Mockito.when(rateLimitService.isAllowed(org.mockito.ArgumentMatchers.anyString()))
                 .thenReturn(new com.payflow.service.RateLimitService.RateLimitResult(true, 100, 99, 0));
+        when(transactionService.ledgerTag(any(), eq(USER_ID))).thenReturn("1.42.0");
+        when(transactionService.versionTag(any(), eq(USER_ID))).thenReturn("1.COMPLETED");
     }
 
     private static final Long USER_ID = 1L;
@@ -174,6 +199,124 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.debit.amount").value(200));
     }
 
+    @Test
+    void transferReturns503WithRetryAfterWhenAccountIsBusy() throws Exception {
+        when(transactionService.transfer(any(TransferRequest.class), eq(USER_ID)))
+                .thenThrow(new com.payflow.exception.AccountBusyException(1L, 2));
+
+        TransferRequest request = new TransferRequest(1L, 2L, BigDecimal.valueOf(200), "Transfer", "idem-key-5");
+
+        mockMvc.perform(post("/api/transactions/transfer")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/transactions/transfer/split
+    // -------------------------------------------------------------------------
+
+    @Test
+    void splitTransferReturns201WithAllLegs() throws Exception {
+        when(transactionService.transferSplit(any(SplitTransferRequest.class), eq(USER_ID)))
+                .thenReturn(new SplitTransferResponse(CORRELATION_ID, STUB_TRANSFER_RESPONSE.debit(),
+                        List.of(STUB_TRANSFER_RESPONSE.credit(), STUB_TRANSFER_RESPONSE.credit())));
+
+        SplitTransferRequest request = new SplitTransferRequest(1L, List.of(
+                new SplitTransferRequest.Leg(2L, BigDecimal.valueOf(100), null),
+                new SplitTransferRequest.Leg(3L, BigDecimal.valueOf(100), null)), "Payout", "idem-key-6");
+
+        mockMvc.perform(post("/api/transactions/transfer/split")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.correlationId").value(CORRELATION_ID.toString()))
+                .andExpect(jsonPath("$.credits.length()").value(2));
+    }
+
+    @Test
+    void splitTransferReturns400WithoutLegs() throws Exception {
+        mockMvc.perform(post("/api/transactions/transfer/split")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sourceAccountId\":1,\"legs\":[],\"idempotencyKey\":\"k\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/transactions/transfer/async
+    // -------------------------------------------------------------------------
+
+    @Test
+    void asyncTransferReturns202WithStatusUrl() throws Exception {
+        when(transactionService.transferAsync(any(TransferRequest.class), eq(USER_ID)))
+                .thenReturn(new TransactionResponse(3L, 1L, TransactionType.DEBIT, BigDecimal.valueOf(200),
+                        "Transfer", CORRELATION_ID, TransactionStatus.PENDING, null, LocalDateTime.now()));
+
+        TransferRequest request = new TransferRequest(1L, 2L, BigDecimal.valueOf(200), "Transfer", "idem-key-4");
+
+        mockMvc.perform(post("/api/transactions/transfer/async")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/transactions/3"))
+                .andExpect(jsonPath("$.transactionId").value(3))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.statusUrl").value("/api/transactions/3"));
+    }
+
+    // -------------------------------------------------------------------------
+    // POST /api/transactions/batch
+    // -------------------------------------------------------------------------
+
+    @Test
+    void batchReturns200WithPerItemResults() throws Exception {
+        when(batchTransactionService.execute(any(BatchTransactionRequest.class), eq(USER_ID)))
+                .thenReturn(new BatchTransactionResponse(2, 1, 1, List.of(
+                        BatchTransactionResponse.ItemResult.success(0, "b-1", null, List.of(STUB_CREDIT_TX)),
+                        BatchTransactionResponse.ItemResult.failure(1, "b-2", "Insufficient funds to complete this transaction"))));
+
+        BatchTransactionRequest request = new BatchTransactionRequest(List.of(
+                new BatchTransactionRequest.Item(BatchTransactionRequest.ItemType.DEPOSIT, 1L, null,
+                        BigDecimal.valueOf(500), null, "b-1"),
+                new BatchTransactionRequest.Item(BatchTransactionRequest.ItemType.WITHDRAW, 1L, null,
+                        BigDecimal.valueOf(99999), null, "b-2")));
+
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].transactions[0].id").value(1))
+                .andExpect(jsonPath("$.results[1].success").value(false))
+                .andExpect(jsonPath("$.results[1].error").value("Insufficient funds to complete this transaction"));
+    }
+
+    @Test
+    void batchReturns400WhenEmpty() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchReturns400WhenItemInvalid() throws Exception {
+        mockMvc.perform(post("/api/transactions/batch")
+                        .with(user("1"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": [{\"type\": \"DEPOSIT\", \"accountId\": 1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     // -------------------------------------------------------------------------
     // GET /api/transactions
     // -------------------------------------------------------------------------
@@ -193,7 +336,21 @@ class TransactionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content[0].id").value(1))
-                .andExpect(jsonPath("$.totalElements").value(1));
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(header().string("ETag", "\"1.42.0\""));
+    }
+
+    @Test
+    void getTransactionsReturns304WhenLedgerUnchanged() throws Exception {
+        mockMvc.perform(get("/api/transactions")
+                        .with(user("1"))
+                        .param("accountId", "1")
+                        .header("If-None-Match", "\"1.42.0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(transactionService, never()).getTransactions(
+                any(), any(), any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -241,6 +398,69 @@ class TransactionControllerTest {
                 eq(USER_ID));
     }
 
+    // -------------------------------------------------------------------------
+    // GET /api/transactions/cursor
+    // -------------------------------------------------------------------------
+
+    @Test
+    void getTransactionsByCursorReturnsSliceAndClampsSize() throws Exception {
+        when(transactionService.getTransactionsAfter(
+                eq(1L), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), eq("abc"), eq(100), eq(USER_ID)))
+                .thenReturn(new CursorPage<>(List.of(STUB_CREDIT_TX), "next", true));
+
+        mockMvc.perform(get("/api/transactions/cursor")
+                        .with(user("1"))
+                        .param("accountId", "1")
+                        .param("cursor", "abc")
+                        .param("size", "999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void getTransactionsByCursorReturns304WhenLedgerUnchanged() throws Exception {
+        mockMvc.perform(get("/api/transactions/cursor")
+                        .with(user("1"))
+                        .param("accountId", "1")
+                        .header("If-None-Match", "\"1.41.0\", \"1.42.0\""))
+                .andExpect(status().isNotModified());
+
+        verify(transactionService, never()).getTransactionsAfter(
+                any(), any(), any(), any(), any(), any(), any(), any(), anyInt(), any());
+    }
+
+    // -------------------------------------------------------------------------
+    // GET /api/transactions/export
+    // -------------------------------------------------------------------------
+
+    @Test
+    void exportStreamsCsvAndGzipsWhenAccepted() throws Exception {
+        TransactionFilter filter = TransactionFilter.forAccount(1L);
+        when(transactionCsvExporter.prepare(eq(1L), isNull(), isNull(), isNull(), isNull(), eq(USER_ID)))
+                .thenReturn(filter);
+        doAnswer(inv -> {
+            inv.<java.io.OutputStream>getArgument(1).write("csv".getBytes());
+            return null;
+        }).when(transactionCsvExporter).write(eq(filter), any(), eq(true));
+
+        MvcResult pending = mockMvc.perform(get("/api/transactions/export")
+                        .with(user("1"))
+                        .param("accountId", "1")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=transactions.csv"))
+                .andExpect(content().string("csv"));
+    }
+
     // -------------------------------------------------------------------------
     // GET /api/transactions/{id}
     // -------------------------------------------------------------------------
@@ -253,6 +473,30 @@ class TransactionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.type").value("CREDIT"))
-                .andExpect(jsonPath("$.amount").value(500));
+                .andExpect(jsonPath("$.amount").value(500))
+                .andExpect(header().string("ETag", "\"1.COMPLETED\""));
+    }
+
+    @Test
+    void getTransactionByIdReturns304WhenStatusUnchanged() throws Exception {
+        mockMvc.perform(get("/api/transactions/1").with(user("1")).header("If-None-Match", "\"1.COMPLETED\""))
+                .andExpect(status().isNotModified());
+
+        verify(transactionService, never()).getById(any(), any());
+    }
+
+    @Test
+    void getTransactionByIdLongPollsWhenWaitMsGiven() throws Exception {
+        when(transactionService.awaitTransaction(3L, 20_000L, USER_ID))
+                .thenReturn(CompletableFuture.completedFuture(STUB_TRANSFER_RESPONSE.debit()));
+
+        MvcResult pending = mockMvc.perform(get("/api/transactions/3").param("waitMs", "600000").with(user("1")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
     }
 }
@@ -4,6 +4,7 @@ import com.payflow.event.TransactionEvent.EventType;
 import com.payflow.event.TransactionEvent.TransactionEventType;
 import com.payflow.model.DailySummary;
 import com.payflow.repository.DailySummaryRepository;
+import com.payflow.util.Money;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -34,7 +35,7 @@ class DailySummaryConsumerTest {
         LocalDateTime now = LocalDateTime.of(2024, 6, 15, 10, 30);
         TransactionEvent event = new TransactionEvent(
                 1L, 42L, EventType.DEPOSIT, TransactionEventType.CREDIT,
-                BigDecimal.valueOf(500), BigDecimal.valueOf(1500), null, now
+                Money.of(BigDecimal.valueOf(500)), Money.of(BigDecimal.valueOf(1500)), null, now
         );
 
         when(dailySummaryRepository.findByAccountIdAndSummaryDate(42L, LocalDate.of(2024, 6, 15)))
@@ -60,7 +61,7 @@ class DailySummaryConsumerTest {
         LocalDateTime now = LocalDateTime.of(2024, 6, 15, 14, 0);
         TransactionEvent event = new TransactionEvent(
                 2L, 42L, EventType.WITHDRAWAL, TransactionEventType.DEBIT,
-                BigDecimal.valueOf(200), BigDecimal.valueOf(800), null, now
+                Money.of(BigDecimal.valueOf(200)), Money.of(BigDecimal.valueOf(800)), null, now
         );
 
         DailySummary existing = new DailySummary(42L, LocalDate.of(2024, 6, 15));
@@ -94,7 +95,7 @@ class DailySummaryConsumerTest {
 
         TransactionEvent event = new TransactionEvent(
                 3L, 42L, EventType.DEPOSIT, TransactionEventType.CREDIT,
-                BigDecimal.valueOf(300), BigDecimal.valueOf(1700), null,
+                Money.of(BigDecimal.valueOf(300)), Money.of(BigDecimal.valueOf(1700)), null,
                 date.atTime(16, 0)
         );
 
@@ -0,0 +1,164 @@
+package com.payflow.event;
+
+import com.payflow.config.KafkaConfig;
+import com.payflow.event.TransactionEvent.EventType;
+import com.payflow.event.TransactionEvent.TransactionEventType;
+import com.payflow.model.OutboxEvent;
+import com.payflow.repository.OutboxEventRepository;
+import com.payflow.service.MetricsService;
+import com.payflow.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private KafkaTemplate<String, TransactionEvent> kafkaTemplate;
+    @Mock
+    private MetricsService metricsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, metricsService, transactionManager, 2, 1000, 5000, false);
+    }
+
+    @Test
+    void deliveredEventsAreDeletedKeyedByAccount() {
+        claim(List.of(42L, 43L), row(2L, 43L), row(1L, 42L));
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isEqualTo(2);
+        verify(kafkaTemplate).send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("42"), any());
+        verify(kafkaTemplate).send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("43"), any());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository, never()).incrementAttempts(any());
+        verify(metricsService).recordOutboxRelayed(2);
+    }
+
+    @Test
+    void failedSendsStayInOutboxAndStopTheDrain() {
+        claim(List.of(42L, 43L), row(1L, 42L), row(2L, 43L));
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("42"), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("43"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        int relayed = relay.relayBatch();
+
+        assertThat(relayed).isZero();
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxEventRepository).incrementAttempts(List.of(2L));
+        verify(metricsService).recordOutboxFailed(1);
+    }
+
+    @Test
+    void eventsAfterAnAccountsFirstFailureAreReleasedForResendInOrder() {
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, metricsService, transactionManager, 3, 1000, 5000, false);
+        when(outboxEventRepository.lockClaimableAccounts(3)).thenReturn(List.of(42L, 43L));
+        when(outboxEventRepository.claimForAccounts(List.of(42L, 43L), 3, 5000))
+                .thenReturn(List.of(row(1L, 42L), row(2L, 42L), row(3L, 43L)));
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.relayBatch();
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(outboxEventRepository).incrementAttempts(List.of(1L));
+        verify(outboxEventRepository).releaseClaims(List.of(2L));
+    }
+
+    @Test
+    void virtualThreadCallbacksSeeSendsCompletedLaterOnAnotherThread() {
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, metricsService, transactionManager, 2, 1000, 5000, true);
+        claim(List.of(42L, 43L), row(1L, 42L), row(2L, 43L));
+        CompletableFuture<SendResult<String, TransactionEvent>> delivered = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, TransactionEvent>> failed = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("42"), any())).thenReturn(delivered);
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("43"), any())).thenReturn(failed);
+        // Stands in for the producer's network thread
+        Thread.ofPlatform().start(() -> {
+            delivered.complete(mock(SendResult.class));
+            failed.completeExceptionally(new RuntimeException("broker down"));
+        });
+
+        assertThat(relay.relayBatch()).isZero();
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxEventRepository).incrementAttempts(List.of(2L));
+    }
+
+    @Test
+    void sendsHappenBetweenTwoShortTransactions() {
+        claim(List.of(42L), row(1L, 42L));
+        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.relayBatch();
+
+        InOrder order = inOrder(transactionManager, outboxEventRepository, kafkaTemplate);
+        order.verify(outboxEventRepository).claimForAccounts(any(), anyInt(), anyLong());
+        order.verify(transactionManager).commit(any());
+        order.verify(kafkaTemplate).send(anyString(), anyString(), any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void emptyOutboxSendsNothing() {
+        when(outboxEventRepository.lockClaimableAccounts(anyInt())).thenReturn(List.of());
+
+        assertThat(relay.relayBatch()).isZero();
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).claimForAccounts(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void leaseMustOutlastTheSendTimeout() {
+        assertThatThrownBy(() -> new OutboxRelay(outboxEventRepository, kafkaTemplate, metricsService,
+                transactionManager, 2, 1000, 1000, false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void claim(List<Long> accounts, OutboxEvent... rows) {
+        when(outboxEventRepository.lockClaimableAccounts(2)).thenReturn(accounts);
+        when(outboxEventRepository.claimForAccounts(accounts, 2, 5000)).thenReturn(List.of(rows));
+    }
+
+    private static OutboxEvent row(Long id, Long accountId) {
+        OutboxEvent row = OutboxEvent.from(new TransactionEvent(id, accountId, EventType.DEPOSIT,
+                TransactionEventType.CREDIT, Money.of(BigDecimal.TEN), Money.of(BigDecimal.TEN), null, LocalDateTime.now()));
+        row.setId(id);
+        return row;
+    }
+}
@@ -1,63 +1,79 @@
 package com.payflow.event;
 
-import com.payflow.config.KafkaConfig;
 import com.payflow.event.TransactionEvent.EventType;
 import com.payflow.event.TransactionEvent.TransactionEventType;
+import com.payflow.model.OutboxEvent;
+import com.payflow.repository.OutboxEventRepository;
+import com.payflow.util.Money;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
-import static org.mockito.ArgumentMatchers.eq;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionEventPublisherTest {
 
     @Mock
-    private KafkaTemplate<String, TransactionEvent> kafkaTemplate;
+    private OutboxEventRepository outboxEventRepository;
 
     @InjectMocks
     private TransactionEventPublisher publisher;
 
     @Test
-    void publishSendsEventWithAccountIdAsKey() {
+    void publishStagesEventInOutbox() {
         TransactionEvent event = new TransactionEvent(
                 1L, 42L, EventType.DEPOSIT, TransactionEventType.CREDIT,
-                BigDecimal.valueOf(100), BigDecimal.valueOf(1100),
+                Money.of(BigDecimal.valueOf(100)), Money.of(BigDecimal.valueOf(1100)),
                 null, LocalDateTime.now()
         );
 
-        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("42"), eq(event)))
-                .thenReturn(new CompletableFuture<>());
-
         publisher.publish(event);
 
-        verify(kafkaTemplate).send(KafkaConfig.TRANSACTION_EVENTS_TOPIC, "42", event);
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        assertThat(captor.getValue().getAccountId()).isEqualTo(42L);
+        assertThat(captor.getValue().toEvent()).isEqualTo(event);
     }
 
     @Test
-    void publishSendsTransferEventWithCorrelationId() {
+    @SuppressWarnings("unchecked")
+    void publishAllStagesTransferEventsWithCorrelationId() {
         UUID correlationId = UUID.randomUUID();
-        TransactionEvent event = new TransactionEvent(
+        TransactionEvent debit = new TransactionEvent(
                 2L, 10L, EventType.TRANSFER_DEBIT, TransactionEventType.DEBIT,
-                BigDecimal.valueOf(250), BigDecimal.valueOf(750),
+                Money.of(BigDecimal.valueOf(250)), Money.of(BigDecimal.valueOf(750)),
+                correlationId, LocalDateTime.now()
+        );
+        TransactionEvent credit = new TransactionEvent(
+                3L, 11L, EventType.TRANSFER_CREDIT, TransactionEventType.CREDIT,
+                Money.of(BigDecimal.valueOf(250)), Money.of(BigDecimal.valueOf(1250)),
                 correlationId, LocalDateTime.now()
         );
 
-        when(kafkaTemplate.send(eq(KafkaConfig.TRANSACTION_EVENTS_TOPIC), eq("10"), eq(event)))
-                .thenReturn(new CompletableFuture<>());
+        publisher.publishAll(List.of(debit, credit));
 
-        publisher.publish(event);
+        ArgumentCaptor<List<OutboxEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(OutboxEvent::getCorrelationId)
+                .containsExactly(correlationId, correlationId);
+    }
+
+    @Test
+    void publishAllSkipsEmptyList() {
+        publisher.publishAll(List.of());
 
-        verify(kafkaTemplate).send(KafkaConfig.TRANSACTION_EVENTS_TOPIC, "10", event);
+        verify(outboxEventRepository, never()).saveAll(any());
     }
 }
@@ -0,0 +1,168 @@
+package com.payflow.repository;
+
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.service.BalanceCacheService;
+import com.payflow.service.RateLimitService;
+import com.payflow.util.TransactionCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs EXPLAIN on the SQL {@link TransactionFilterRepositoryImpl} assembles for every
+ * combination of the six optional filters, against the Flyway schema (so the real indexes
+ * exist) and a few thousand analyzed rows, and checks none of them scans the whole seeded
+ * partition and that date-bounded queries prune the other monthly partitions.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@TestPropertySource(properties = {
+        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
+        // Own database: the other container tests build their schema with create-drop
+        // TEST_POSTGRES_URL (e.g. jdbc:postgresql://localhost:5432/) runs against an existing server instead of Docker
+        "spring.datasource.url=${TEST_POSTGRES_URL:jdbc:tc:postgresql:16:///}plantestdb",
+        // Blank: the driver follows the URL, overriding the Testcontainers driver pinned in application-test.yml
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.flyway.enabled=true",
+        "app.outbox.relay.enabled=false",
+        "app.checkpoints.enabled=false"
+})
+class TransactionFilterQueryPlanTest {
+
+    private static final int ACCOUNTS = 100;
+    private static final int ROWS_PER_ACCOUNT = 200;
+    private static final String SEEDED_PARTITION = "transactions_p202401";
+    private static final String SEEDED_ACCOUNT_SQL =
+            "SELECT min(a.id) FROM accounts a JOIN users u ON u.id = a.user_id WHERE u.email = 'plan@test.com'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @MockBean
+    private BalanceCacheService balanceCacheService;
+    @MockBean
+    private RateLimitService rateLimitService;
+    @MockBean
+    private org.springframework.data.redis.listener.RedisMessageListenerContainer redisMessageListenerContainer;
+    @MockBean
+    private com.payflow.event.TransactionEventPublisher transactionEventPublisher;
+
+    private long accountId;
+
+    @BeforeEach
+    void seed() {
+        // V6 seeds demo accounts, so look for our own user's rather than any account
+        Long existing = jdbcTemplate.queryForObject(SEEDED_ACCOUNT_SQL, Long.class);
+        if (existing != null) {
+            accountId = existing;
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT create_transaction_partitions('2024-01-01', '2024-01-01')", Integer.class);
+        jdbcTemplate.update("INSERT INTO users (email, password_hash, full_name) VALUES ('plan@test.com', 'hash', 'Plan')");
+        jdbcTemplate.update("INSERT INTO accounts (user_id, account_name) " +
+                "SELECT (SELECT id FROM users WHERE email = 'plan@test.com'), 'acct-' || g FROM generate_series(1, ?) g", ACCOUNTS);
+        jdbcTemplate.update("INSERT INTO transactions (account_id, type, amount, idempotency_key, status, balance_after, created_at) " +
+                "SELECT a.id, CASE WHEN g % 3 = 0 THEN 'DEBIT' ELSE 'CREDIT' END, 1 + (g % 500), " +
+                "'plan-' || a.id || '-' || g, CASE WHEN g % 50 = 0 THEN 'FAILED' ELSE 'COMPLETED' END, 0, " +
+                "TIMESTAMP '2024-01-01' + g * INTERVAL '1 hour' " +
+                "FROM accounts a JOIN users u ON u.id = a.user_id AND u.email = 'plan@test.com' " +
+                "CROSS JOIN generate_series(1, ?) g", ROWS_PER_ACCOUNT);
+        jdbcTemplate.execute("ANALYZE transactions");
+        accountId = jdbcTemplate.queryForObject(SEEDED_ACCOUNT_SQL, Long.class);
+    }
+
+    @Test
+    void everyFilterCombinationUsesAnIndex() {
+        for (int mask = 0; mask < 64; mask++) {
+            TransactionFilter filter = filterFor(mask);
+            TransactionFilterRepositoryImpl.Predicates where = TransactionFilterRepositoryImpl.Predicates.of(filter);
+            String sql = "SELECT * FROM transactions t" + where.sql +
+                    TransactionFilterRepositoryImpl.orderBy(Sort.by(Sort.Direction.DESC, "created_at")) + " LIMIT 20";
+
+            assertIndexScan(sql, where, "filters " + Integer.toBinaryString(mask));
+        }
+    }
+
+    @Test
+    void cursorSeekUsesAnIndex() {
+        TransactionFilterRepositoryImpl.Predicates where =
+                TransactionFilterRepositoryImpl.Predicates.of(TransactionFilter.forAccount(accountId));
+        TransactionCursor after = new TransactionCursor(LocalDateTime.of(2024, 1, 5, 0, 0), 1_000L);
+        where.and("(t.created_at, t.id) < (:cursorAt, :cursorId)")
+                .and("t.created_at <= :cursorAt")
+                .param("cursorAt", after.createdAt())
+                .param("cursorId", after.id());
+        String sql = "SELECT * FROM transactions t" + where.sql + " ORDER BY t.created_at DESC, t.id DESC LIMIT 21";
+
+        assertIndexScan(sql, where, "cursor seek");
+        assertThat(explain(sql, where)).as("cursor seek").doesNotContain(currentPartition());
+    }
+
+    @Test
+    void dateRangePrunesOtherPartitions() {
+        TransactionFilterRepositoryImpl.Predicates where = TransactionFilterRepositoryImpl.Predicates.of(
+                new TransactionFilter(accountId, null, null,
+                        LocalDateTime.of(2024, 1, 2, 0, 0), LocalDateTime.of(2024, 1, 6, 0, 0), null, null));
+        String plan = explain("SELECT * FROM transactions t" + where.sql + " ORDER BY t.created_at DESC, t.id DESC LIMIT 20", where);
+
+        assertThat(plan).as(plan)
+                .contains(SEEDED_PARTITION)
+                .doesNotContain(currentPartition());
+    }
+
+    @Test
+    void orderByRejectsColumnsOutsideTheWhitelist() {
+        assertThatThrownBy(() -> TransactionFilterRepositoryImpl.orderBy(Sort.by("balance_after; DROP TABLE users")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(TransactionFilterRepositoryImpl.orderBy(Sort.by("amount").ascending()))
+                .isEqualTo(" ORDER BY t.amount ASC, t.id ASC");
+    }
+
+    private TransactionFilter filterFor(int mask) {
+        return new TransactionFilter(accountId,
+                (mask & 1) != 0 ? TransactionType.DEBIT : null,
+                (mask & 2) != 0 ? TransactionStatus.COMPLETED : null,
+                (mask & 4) != 0 ? LocalDateTime.of(2024, 1, 2, 0, 0) : null,
+                (mask & 8) != 0 ? LocalDateTime.of(2024, 1, 6, 0, 0) : null,
+                (mask & 16) != 0 ? BigDecimal.valueOf(10) : null,
+                (mask & 32) != 0 ? BigDecimal.valueOf(400) : null);
+    }
+
+    // Empty partitions may legitimately be seq-scanned; only the seeded one has to use an index
+    private void assertIndexScan(String sql, TransactionFilterRepositoryImpl.Predicates where, String description) {
+        String text = explain(sql, where);
+        assertThat(text).as(description + "\n" + text)
+                .doesNotContain("Seq Scan on " + SEEDED_PARTITION)
+                .contains("Index");
+    }
+
+    private String explain(String sql, TransactionFilterRepositoryImpl.Predicates where) {
+        List<String> plan = namedJdbcTemplate.queryForList("EXPLAIN " + sql, where.params, String.class);
+        return String.join("\n", plan);
+    }
+
+    private static String currentPartition() {
+        return "transactions_p" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
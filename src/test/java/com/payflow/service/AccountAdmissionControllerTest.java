@@ -0,0 +1,115 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountBusyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountAdmissionControllerTest {
+
+    @Mock
+    private MetricsService metricsService;
+
+    private AccountAdmissionController controller(int maxConcurrent, int maxQueued, long maxWaitMs) {
+        return new AccountAdmissionController(metricsService, true, maxConcurrent, maxQueued, maxWaitMs, 5, 100);
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() {
+        AccountAdmissionController admission = controller(1, 0, 1000);
+
+        try (AccountAdmissionController.Permit held = admission.admit(List.of(1L))) {
+            assertThatThrownBy(() -> admission.admit(List.of(1L)))
+                    .isInstanceOf(AccountBusyException.class)
+                    .extracting("retryAfterSeconds").isEqualTo(1L);
+        }
+        verify(metricsService).recordAdmissionRejected();
+        verify(metricsService, never()).recordAdmissionWait(anyLong());
+    }
+
+    @Test
+    void queuedWriterIsAdmittedWhenHolderReleases() throws Exception {
+        AccountAdmissionController admission = controller(1, 4, 5000);
+        AccountAdmissionController.Permit held = admission.admit(List.of(1L));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<?> waiter = executor.submit(() -> {
+                started.countDown();
+                admission.admit(List.of(1L)).close();
+            });
+            started.await();
+            while (admission.queued(1L) == 0) {
+                Thread.onSpinWait();
+            }
+            held.close();
+
+            waiter.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(metricsService).recordAdmissionQueued(1);
+        verify(metricsService).recordAdmissionWait(anyLong());
+        assertThat(admission.queued(1L)).isZero();
+    }
+
+    @Test
+    void waitTimeoutRejectsAndLeavesNoQueuedWriter() {
+        AccountAdmissionController admission = controller(1, 4, 20);
+
+        try (AccountAdmissionController.Permit held = admission.admit(List.of(1L))) {
+            assertThatThrownBy(() -> admission.admit(List.of(1L)))
+                    .isInstanceOf(AccountBusyException.class);
+            assertThat(admission.queued(1L)).isZero();
+        }
+        // Once released, the account admits again
+        admission.admit(List.of(1L)).close();
+    }
+
+    @Test
+    void failedTransferAdmissionReleasesPermitsAlreadyTaken() {
+        AccountAdmissionController admission = controller(1, 0, 1000);
+
+        try (AccountAdmissionController.Permit held = admission.admit(List.of(2L))) {
+            // Account 1 is taken first, then 2 is busy; 1 must not stay held
+            assertThatThrownBy(() -> admission.admit(List.of(2L, 1L)))
+                    .isInstanceOf(AccountBusyException.class);
+            admission.admit(List.of(1L)).close();
+        }
+    }
+
+    @Test
+    void otherAccountsAreNotAffected() {
+        AccountAdmissionController admission = controller(1, 0, 1000);
+
+        try (AccountAdmissionController.Permit held = admission.admit(List.of(1L))) {
+            admission.admit(List.of(2L)).close();
+        }
+        verify(metricsService, never()).recordAdmissionQueued(anyInt());
+    }
+
+    @Test
+    void disabledControllerAdmitsEverything() {
+        AccountAdmissionController admission =
+                new AccountAdmissionController(metricsService, false, 1, 0, 0, 5, 100);
+
+        admission.admit(List.of(1L));
+        admission.admit(List.of(1L)).close();
+
+        verifyNoInteractions(metricsService);
+    }
+}
@@ -0,0 +1,121 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountMetadataCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    @Mock
+    private ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    private AccountMetadataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplateProvider.getIfAvailable()).thenReturn(redisTemplate);
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(null);
+        cache = new AccountMetadataCache(accountRepository, redisTemplateProvider, listenerContainerProvider, 300, 2);
+    }
+
+    @Test
+    void secondLookupIsServedFromMemory() {
+        when(accountRepository.findMetadataById(1L)).thenReturn(Optional.of(view(1L, 7L, AccountStatus.ACTIVE)));
+
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(1L).get().status()).isEqualTo(AccountStatus.ACTIVE);
+
+        verify(accountRepository, times(1)).findMetadataById(1L);
+    }
+
+    @Test
+    void requireOwnedThrowsForAnotherUsersAccount() {
+        when(accountRepository.findMetadataById(1L)).thenReturn(Optional.of(view(1L, 7L, AccountStatus.ACTIVE)));
+
+        assertThat(cache.requireOwned(1L, 7L).currency()).isEqualTo("USD");
+        assertThatThrownBy(() -> cache.requireOwned(1L, 8L))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    void requireOwnedThrowsWhenAccountIsMissing() {
+        when(accountRepository.findMetadataById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cache.requireOwned(99L, 7L))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    void invalidateEvictsAndBroadcastsOutsideTransaction() {
+        when(accountRepository.findMetadataById(1L))
+                .thenReturn(Optional.of(view(1L, 7L, AccountStatus.ACTIVE)))
+                .thenReturn(Optional.of(view(1L, 7L, AccountStatus.FROZEN)));
+        cache.get(1L);
+
+        cache.invalidate(1L);
+
+        verify(redisTemplate).convertAndSend(AccountMetadataCache.INVALIDATION_CHANNEL, "1");
+        assertThat(cache.get(1L).get().status()).isEqualTo(AccountStatus.FROZEN);
+    }
+
+    @Test
+    void fullCacheEvictsTheLeastRecentlyUsedEntry() {
+        for (long id = 1; id <= 3; id++) {
+            when(accountRepository.findMetadataById(id)).thenReturn(Optional.of(view(id, 7L, AccountStatus.ACTIVE)));
+        }
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(1L);
+
+        cache.get(3L);
+        cache.get(1L);
+
+        assertThat(cache.size()).isEqualTo(2);
+        verify(accountRepository, times(1)).findMetadataById(1L);
+        cache.get(2L);
+        verify(accountRepository, times(2)).findMetadataById(2L);
+    }
+
+    @Test
+    void registersOnTheSharedListenerContainerWithoutStartingIt() {
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        when(listenerContainerProvider.getIfAvailable()).thenReturn(container);
+
+        new AccountMetadataCache(accountRepository, redisTemplateProvider, listenerContainerProvider, 300, 2);
+
+        verify(container).addMessageListener(any(), eq(new ChannelTopic(AccountMetadataCache.INVALIDATION_CHANNEL)));
+        verify(container, never()).start();
+    }
+
+    private static AccountRepository.MetadataView view(Long id, Long userId, AccountStatus status) {
+        return new AccountRepository.MetadataView() {
+            public Long getId() { return id; }
+            public Long getUserId() { return userId; }
+            public String getCurrency() { return "USD"; }
+            public AccountStatus getStatus() { return status; }
+        };
+    }
+}
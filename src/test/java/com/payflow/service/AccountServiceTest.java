@@ -3,23 +3,33 @@ package com.payflow.service;
 import com.payflow.dto.AccountResponse;
 import com.payflow.dto.CreateAccountRequest;
 import com.payflow.dto.UpdateAccountStatusRequest;
+import com.payflow.dto.UpdateShardingRequest;
 import com.payflow.exception.AccountNotFoundException;
 import com.payflow.model.Account;
+import com.payflow.model.AccountBalanceShard;
 import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountBalanceShardRepository;
 import com.payflow.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +39,10 @@ class AccountServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private BalanceCacheService balanceCacheService;
+    @Mock
+    private AccountBalanceShardRepository shardRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
 
     @InjectMocks
     private AccountService accountService;
@@ -81,7 +95,7 @@ class AccountServiceTest {
 
     @Test
     void getByUserIdReturnsList() {
-        when(accountRepository.findByUserId(1L)).thenReturn(List.of(testAccount));
+        when(accountRepository.findByUserIdOrderByIdAsc(1L)).thenReturn(List.of(testAccount));
 
         List<AccountResponse> result = accountService.getByUserId(1L);
 
@@ -98,6 +112,7 @@ class AccountServiceTest {
                 new UpdateAccountStatusRequest(AccountStatus.FROZEN));
 
         verify(accountRepository).save(any(Account.class));
+        verify(accountMetadataCache).invalidate(1L);
     }
 
     @Test
@@ -108,4 +123,179 @@ class AccountServiceTest {
                 new UpdateAccountStatusRequest(AccountStatus.FROZEN)))
                 .isInstanceOf(AccountNotFoundException.class);
     }
+
+    @Test
+    void getByIdSumsShardsForHotAccount() {
+        testAccount.setShardCount(4);
+        testAccount.setBalance(BigDecimal.ZERO);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(shardRepository.sumBalance(1L)).thenReturn(BigDecimal.valueOf(4321));
+        when(balanceCacheService.readThrough(eq(List.of(1L)), any())).thenAnswer(AccountServiceTest::loadAll);
+
+        AccountResponse response = accountService.getById(1L, 1L);
+
+        assertThat(response.balance()).isEqualByComparingTo(BigDecimal.valueOf(4321));
+    }
+
+    @Test
+    void getByIdReadsPlainBalanceFromRow() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+
+        AccountResponse response = accountService.getById(1L, 1L);
+
+        assertThat(response.balance()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+        verifyNoInteractions(balanceCacheService, shardRepository);
+    }
+
+    @Test
+    void getByUserIdFetchesHotBalancesInOneCacheRead() {
+        Account hot = new Account(1L, "Merchant", "USD");
+        hot.setId(2L);
+        hot.setShardCount(4);
+        hot.setBalance(BigDecimal.ZERO);
+        Account otherHot = new Account(1L, "Payouts", "USD");
+        otherHot.setId(3L);
+        otherHot.setShardCount(2);
+        otherHot.setBalance(BigDecimal.ZERO);
+        when(accountRepository.findByUserIdOrderByIdAsc(1L)).thenReturn(List.of(testAccount, hot, otherHot));
+        when(balanceCacheService.readThrough(eq(List.of(2L, 3L)), any()))
+                .thenReturn(Map.of(2L, BigDecimal.valueOf(500), 3L, BigDecimal.valueOf(250)));
+
+        List<AccountResponse> responses = accountService.getByUserId(1L);
+
+        assertThat(responses).extracting(AccountResponse::balance)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.valueOf(1000), BigDecimal.valueOf(500), BigDecimal.valueOf(250));
+        verify(balanceCacheService).readThrough(any(), any());
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    void versionTagUsesVersionAloneForPlainAccount() {
+        AccountRepository.VersionView view = versionView(1L, 1L, 7, null, null, null);
+        when(accountRepository.findVersionById(1L)).thenReturn(Optional.of(view));
+
+        assertThat(accountService.versionTag(1L, 1L)).isEqualTo("1.7");
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void versionTagFoldsShardVersionAndLedgerHeadIntoHotAccountTag() {
+        AccountRepository.VersionView view = versionView(1L, 1L, 7, 12L, 99L, 1L);
+        when(accountRepository.findVersionById(1L)).thenReturn(Optional.of(view));
+
+        assertThat(accountService.versionTag(1L, 1L)).isEqualTo("1.7.12.99.1");
+    }
+
+    @Test
+    void versionTagMovesWhenAShardWriteCommitsBehindTheNewestRow() {
+        // A transfer stamped before the newest row commits late: only the shard versions move
+        when(accountRepository.findVersionById(1L)).thenReturn(
+                Optional.of(versionView(1L, 1L, 7, 12L, 99L, 0L)),
+                Optional.of(versionView(1L, 1L, 7, 13L, 99L, 0L)));
+
+        assertThat(accountService.versionTag(1L, 1L)).isNotEqualTo(accountService.versionTag(1L, 1L));
+    }
+
+    @Test
+    void versionTagThrowsWhenWrongUser() {
+        AccountRepository.VersionView view = versionView(1L, 1L, 7, null, null, null);
+        when(accountRepository.findVersionById(1L)).thenReturn(Optional.of(view));
+
+        assertThatThrownBy(() -> accountService.versionTag(1L, 999L))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    void versionTagForUserChangesWhenAnyAccountChanges() {
+        when(accountRepository.findVersionsByUserId(1L)).thenReturn(
+                List.of(versionView(1L, 1L, 7, null, null, null), versionView(2L, 1L, 3, 8L, 50L, 0L)),
+                List.of(versionView(1L, 1L, 7, null, null, null), versionView(2L, 1L, 3, 8L, 51L, 0L)));
+
+        String before = accountService.versionTagForUser(1L);
+        String after = accountService.versionTagForUser(1L);
+
+        assertThat(before).isNotEqualTo(after);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateShardingMovesBalanceIntoShards() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(shardRepository.lockAllForAccount(1L)).thenReturn(List.of());
+        when(accountRepository.save(any(Account.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        AccountResponse response = accountService.updateSharding(1L, 1L, new UpdateShardingRequest(4));
+
+        ArgumentCaptor<List<AccountBalanceShard>> captor = ArgumentCaptor.forClass(List.class);
+        verify(shardRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(4);
+        assertThat(captor.getValue().get(0).getBalance()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+        assertThat(testAccount.getBalance()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(testAccount.getShardCount()).isEqualTo(4);
+        assertThat(response.balance()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+        verify(balanceCacheService).invalidate(1L);
+    }
+
+    @Test
+    void updateShardingFoldsShardsBackIntoAccount() {
+        testAccount.setShardCount(2);
+        testAccount.setBalance(BigDecimal.ZERO);
+        List<AccountBalanceShard> shards = List.of(
+                new AccountBalanceShard(1L, 0, BigDecimal.valueOf(700)),
+                new AccountBalanceShard(1L, 1, BigDecimal.valueOf(300)));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(shardRepository.lockAllForAccount(1L)).thenReturn(shards);
+        when(accountRepository.save(any(Account.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        AccountResponse response = accountService.updateSharding(1L, 1L, new UpdateShardingRequest(0));
+
+        verify(shardRepository).deleteAll(shards);
+        assertThat(testAccount.isSharded()).isFalse();
+        assertThat(response.balance()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, BigDecimal> loadAll(InvocationOnMock invocation) {
+        Collection<Long> ids = invocation.getArgument(0);
+        Function<Long, BigDecimal> loader = invocation.getArgument(1);
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        ids.forEach(id -> balances.put(id, loader.apply(id)));
+        return balances;
+    }
+
+    private static AccountRepository.VersionView versionView(Long id, Long userId, Integer version, Long shardVersion,
+                                                             Long lastTransactionId, Long pendingCount) {
+        return new AccountRepository.VersionView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Integer getVersion() {
+                return version;
+            }
+
+            @Override
+            public Long getShardVersion() {
+                return shardVersion;
+            }
+
+            @Override
+            public Long getLastTransactionId() {
+                return lastTransactionId;
+            }
+
+            @Override
+            public Long getPendingCount() {
+                return pendingCount;
+            }
+        };
+    }
 }
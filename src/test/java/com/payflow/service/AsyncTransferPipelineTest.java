@@ -0,0 +1,63 @@
+package com.payflow.service;
+
+import com.payflow.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferPipelineTest {
+
+    @Mock
+    private BatchTransferExecutor batchTransferExecutor;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private MetricsService metricsService;
+
+    @Test
+    void workersRunOnlyBetweenStartAndStop() {
+        AsyncTransferPipeline pipeline = pipeline(true);
+        when(batchTransferExecutor.settlePendingTransfers(List.of(5L))).thenReturn(List.of());
+
+        pipeline.enqueue(1L);
+        assertThat(pipeline.isRunning()).isFalse();
+
+        pipeline.start();
+        pipeline.enqueue(5L);
+        verify(batchTransferExecutor, timeout(2000)).settlePendingTransfers(List.of(5L));
+
+        pipeline.stop();
+        assertThat(pipeline.isRunning()).isFalse();
+        pipeline.enqueue(6L);
+        pipeline.sweep();
+        verifyNoInteractions(transactionRepository);
+        verify(batchTransferExecutor, times(1)).settlePendingTransfers(any());
+    }
+
+    @Test
+    void disabledPipelineNeverStartsOrSweeps() {
+        AsyncTransferPipeline pipeline = pipeline(false);
+
+        pipeline.start();
+        pipeline.enqueue(5L);
+        pipeline.sweep();
+
+        assertThat(pipeline.isRunning()).isFalse();
+        verify(transactionRepository, never()).findPendingDebitIds(any(), anyInt());
+        verifyNoInteractions(batchTransferExecutor);
+    }
+
+    private AsyncTransferPipeline pipeline(boolean enabled) {
+        return new AsyncTransferPipeline(batchTransferExecutor, transactionRepository, metricsService,
+                enabled, 1, 10, 200, 2000, 5000);
+    }
+}
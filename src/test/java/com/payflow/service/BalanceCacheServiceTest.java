@@ -3,14 +3,24 @@ package com.payflow.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
-import java.time.Duration;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,62 +36,128 @@ class BalanceCacheServiceTest {
     private ValueOperations<String, String> valueOps;
     @Mock
     private MetricsService metricsService;
+    @Mock
+    private RedisConnection connection;
+    @Mock
+    private RedisScriptingCommands scripting;
 
     private BalanceCacheService cacheService;
 
     @BeforeEach
     void setUp() {
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        lenient().when(connection.scriptingCommands()).thenReturn(scripting);
+        lenient().when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            RedisCallback<?> callback = inv.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
         cacheService = new BalanceCacheService(redisTemplate, metricsService, 300);
     }
 
     @Test
-    void getCacheHitReturnsBalance() {
-        when(valueOps.get("balance:1")).thenReturn("1000.5000");
+    void readThroughServesHitsFromOneMultiGet() {
+        when(valueOps.multiGet(List.of("balance:1", "balance:2"))).thenReturn(List.of("3:1000.5000", "1:20.0000"));
+
+        Map<Long, BigDecimal> balances = cacheService.readThrough(List.of(1L, 2L), id -> {
+            throw new AssertionError("loader called for " + id);
+        });
 
-        Optional<BigDecimal> result = cacheService.get(1L);
+        assertThat(balances.get(1L)).isEqualByComparingTo("1000.5000");
+        assertThat(balances.get(2L)).isEqualByComparingTo("20.0000");
+        verify(metricsService, times(2)).recordCacheHit();
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
 
-        assertThat(result).isPresent();
-        assertThat(result.get()).isEqualByComparingTo(new BigDecimal("1000.5000"));
+    @Test
+    void readThroughLoadsMissesAndFillsAtTheGenerationSeen() {
+        when(valueOps.multiGet(List.of("balance:1", "balance:2", "balance:3")))
+                .thenReturn(Arrays.asList("4:", null, "2:75.0000"));
+        List<Long> loaded = new ArrayList<>();
+
+        Map<Long, BigDecimal> balances = cacheService.readThrough(List.of(1L, 2L, 3L), id -> {
+            loaded.add(id);
+            return BigDecimal.valueOf(id * 100);
+        });
+
+        assertThat(loaded).containsExactly(1L, 2L);
+        assertThat(balances.get(1L)).isEqualByComparingTo("100");
+        assertThat(balances.get(2L)).isEqualByComparingTo("200");
+        assertThat(balances.get(3L)).isEqualByComparingTo("75.0000");
+        verify(metricsService, times(2)).recordCacheMiss();
+        verify(metricsService).recordCacheHit();
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        assertThat(fillGenerations()).containsExactly("4", "0");
     }
 
     @Test
-    void getCacheMissReturnsEmpty() {
-        when(valueOps.get("balance:1")).thenReturn(null);
+    void readThroughTreatsUntaggedValuesAsMisses() {
+        when(valueOps.multiGet(List.of("balance:1"))).thenReturn(List.of("1000.5000"));
 
-        Optional<BigDecimal> result = cacheService.get(1L);
+        Map<Long, BigDecimal> balances = cacheService.readThrough(List.of(1L), id -> BigDecimal.ONE);
 
-        assertThat(result).isEmpty();
+        assertThat(balances.get(1L)).isEqualByComparingTo("1");
+        assertThat(fillGenerations()).containsExactly("0");
     }
 
     @Test
-    void putStoresBalanceWithTtl() {
-        cacheService.put(1L, new BigDecimal("500.0000"));
+    void readThroughFallsBackToLoaderWhenRedisIsDown() {
+        when(valueOps.multiGet(any())).thenThrow(new RuntimeException("Redis down"));
+
+        Map<Long, BigDecimal> balances = cacheService.readThrough(List.of(1L, 2L), id -> BigDecimal.TEN);
 
-        verify(valueOps).set(eq("balance:1"), eq("500.0000"), eq(Duration.ofSeconds(300)));
+        assertThat(balances).containsOnlyKeys(1L, 2L);
+        verify(metricsService, times(2)).recordCacheMiss();
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
     }
 
     @Test
-    void evictDeletesKey() {
-        cacheService.evict(1L);
+    void readThroughSurvivesFailedFill() {
+        when(valueOps.multiGet(any())).thenReturn(Arrays.asList((String) null));
+        doThrow(new RuntimeException("Redis down")).when(redisTemplate).executePipelined(any(RedisCallback.class));
 
-        verify(redisTemplate).delete("balance:1");
+        Map<Long, BigDecimal> balances = cacheService.readThrough(List.of(1L), id -> BigDecimal.TEN);
+
+        assertThat(balances.get(1L)).isEqualByComparingTo("10");
     }
 
     @Test
-    void getReturnsEmptyOnRedisFailure() {
-        when(valueOps.get(any())).thenThrow(new RuntimeException("Redis down"));
-
-        Optional<BigDecimal> result = cacheService.get(1L);
+    void invalidateBumpsGenerationImmediatelyOutsideTransaction() {
+        cacheService.invalidateAll(List.of(1L, 2L));
+
+        ArgumentCaptor<byte[]> keys = ArgumentCaptor.forClass(byte[].class);
+        verify(scripting, times(2)).eval(eq(BalanceCacheService.BUMP_SCRIPT.getBytes(StandardCharsets.UTF_8)),
+                eq(ReturnType.INTEGER), eq(1), keys.capture(), any(byte[].class));
+        assertThat(keys.getAllValues()).extracting(key -> new String(key, StandardCharsets.UTF_8))
+                .containsExactly("balance:1", "balance:2");
+    }
 
-        assertThat(result).isEmpty();
+    @Test
+    void invalidateWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheService.invalidate(1L);
+
+            verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
-    void putDoesNotThrowOnRedisFailure() {
-        doThrow(new RuntimeException("Redis down")).when(valueOps).set(any(), any(), any(Duration.class));
+    void invalidateDoesNotThrowOnRedisFailure() {
+        doThrow(new RuntimeException("Redis down")).when(redisTemplate).executePipelined(any(RedisCallback.class));
 
-        cacheService.put(1L, BigDecimal.TEN);
+        cacheService.invalidate(1L);
         // No exception thrown
     }
+
+    private List<String> fillGenerations() {
+        ArgumentCaptor<byte[]> generations = ArgumentCaptor.forClass(byte[].class);
+        verify(scripting, atLeastOnce()).eval(eq(BalanceCacheService.FILL_SCRIPT.getBytes(StandardCharsets.UTF_8)),
+                eq(ReturnType.INTEGER), eq(1), any(byte[].class), generations.capture(), any(byte[].class), any(byte[].class));
+        return generations.getAllValues().stream().map(g -> new String(g, StandardCharsets.UTF_8)).toList();
+    }
 }
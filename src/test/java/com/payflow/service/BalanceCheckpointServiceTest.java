@@ -0,0 +1,183 @@
+package com.payflow.service;
+
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
+import com.payflow.dto.BalanceAsOfResponse;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.BalanceCheckpoint;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.BalanceCheckpointRepository;
+import com.payflow.repository.BalanceCheckpointRepository.TailSummary;
+import com.payflow.repository.TransactionFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCheckpointServiceTest {
+
+    @Mock
+    private BalanceCheckpointRepository checkpointRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+    @Mock
+    private TransactionArchive transactionArchive;
+    @Mock
+    private TailSummary tail;
+
+    private BalanceCheckpointService service;
+
+    private final LocalDateTime asOf = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        service = new BalanceCheckpointService(checkpointRepository, accountMetadataCache, transactionArchive, 300);
+    }
+
+    @Test
+    void balanceIsCheckpointPlusTail() {
+        when(accountMetadataCache.requireOwned(1L, 7L)).thenReturn(metadata());
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAsOf(asOf.minusMinutes(15));
+        checkpoint.setBalance(new BigDecimal("1000.0000"));
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+                .thenReturn(Optional.of(checkpoint));
+        when(tail.getDelta()).thenReturn(new BigDecimal("-250.5000"));
+        when(tail.getCount()).thenReturn(2L);
+        when(checkpointRepository.sumTail(1L, asOf.minusMinutes(15), null, asOf)).thenReturn(tail);
+
+        BalanceAsOfResponse response = service.balanceAsOf(1L, asOf, 7L);
+
+        assertThat(response.balance()).isEqualByComparingTo("749.5");
+        assertThat(response.checkpointAsOf()).isEqualTo(asOf.minusMinutes(15));
+        assertThat(response.tailTransactions()).isEqualTo(2);
+        assertThat(response.currency()).isEqualTo("USD");
+    }
+
+    @Test
+    void withoutCheckpointSumsWholeHistory() {
+        when(accountMetadataCache.requireOwned(1L, 7L)).thenReturn(metadata());
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+                .thenReturn(Optional.empty());
+        when(tail.getDelta()).thenReturn(new BigDecimal("300"));
+        when(checkpointRepository.sumTail(eq(1L), isNull(), isNull(), eq(asOf))).thenReturn(tail);
+
+        BalanceAsOfResponse response = service.balanceAsOf(1L, asOf, 7L);
+
+        assertThat(response.balance()).isEqualByComparingTo("300");
+        assertThat(response.checkpointAsOf()).isNull();
+    }
+
+    @Test
+    void tailBeforeTheArchiveBoundarySumsArchivedMonthsAndClampsTheLiveQuery() {
+        LocalDateTime checkpointAt = LocalDateTime.of(2024, 3, 10, 0, 0);
+        LocalDateTime boundary = LocalDateTime.of(2024, 5, 1, 0, 0);
+        when(accountMetadataCache.requireOwned(1L, 7L)).thenReturn(metadata());
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAsOf(checkpointAt);
+        checkpoint.setBalance(new BigDecimal("100"));
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+                .thenReturn(Optional.of(checkpoint));
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionArchive.stream(any(TransactionFilter.class), eq(false))).thenReturn(Stream.of(
+                archived(TransactionType.CREDIT, "999", checkpointAt),
+                archived(TransactionType.CREDIT, "40", checkpointAt.plusDays(1)),
+                archived(TransactionType.DEBIT, "15", checkpointAt.plusDays(20))));
+        when(tail.getDelta()).thenReturn(new BigDecimal("5"));
+        when(tail.getCount()).thenReturn(1L);
+        when(checkpointRepository.sumTail(1L, checkpointAt, boundary, asOf)).thenReturn(tail);
+
+        BalanceAsOfResponse response = service.balanceAsOf(1L, asOf, 7L);
+
+        // The row at the checkpoint's own instant is already in its balance
+        assertThat(response.balance()).isEqualByComparingTo("130");
+        assertThat(response.tailTransactions()).isEqualTo(3);
+        verify(transactionArchive).stream(argThat(filter -> filter.status() == TransactionStatus.COMPLETED
+                && filter.accountId() == 1L && checkpointAt.equals(filter.from()) && asOf.equals(filter.to())), eq(false));
+    }
+
+    @Test
+    void checkpointAfterTheArchiveBoundaryReadsOnlyTheLiveTable() {
+        when(accountMetadataCache.requireOwned(1L, 7L)).thenReturn(metadata());
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAsOf(asOf.minusDays(1));
+        checkpoint.setBalance(new BigDecimal("10"));
+        when(checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(1L, asOf))
+                .thenReturn(Optional.of(checkpoint));
+        when(transactionArchive.boundary()).thenReturn(LocalDateTime.of(2024, 5, 1, 0, 0));
+        when(tail.getDelta()).thenReturn(BigDecimal.ZERO);
+        when(checkpointRepository.sumTail(1L, asOf.minusDays(1), null, asOf)).thenReturn(tail);
+
+        assertThat(service.balanceAsOf(1L, asOf, 7L).balance()).isEqualByComparingTo("10");
+        verify(transactionArchive, never()).stream(any(), anyBoolean());
+    }
+
+    @Test
+    void cutStopsShortOfTheOldestPendingTransaction() {
+        LocalDateTime previous = LocalDateTime.now().minusHours(2);
+        LocalDateTime pending = LocalDateTime.now().minusHours(1);
+        when(checkpointRepository.tryLockRun(anyLong())).thenReturn(true);
+        when(checkpointRepository.findLatestAsOf()).thenReturn(Optional.of(previous));
+        when(checkpointRepository.findOldestPendingCreatedAt()).thenReturn(Optional.of(pending));
+        when(checkpointRepository.writeCheckpoints(eq(previous), any())).thenReturn(1);
+
+        service.writeCheckpoints();
+
+        verify(checkpointRepository).writeCheckpoints(previous, pending.minusNanos(1_000));
+    }
+
+    @Test
+    void runWaitsWhileThePreviousCutIsPastAPendingTransaction() {
+        LocalDateTime previous = LocalDateTime.now().minusHours(1);
+        when(checkpointRepository.tryLockRun(anyLong())).thenReturn(true);
+        when(checkpointRepository.findLatestAsOf()).thenReturn(Optional.of(previous));
+        when(checkpointRepository.findOldestPendingCreatedAt()).thenReturn(Optional.of(previous.minusMinutes(5)));
+
+        assertThat(service.writeCheckpoints()).isZero();
+        verify(checkpointRepository, never()).writeCheckpoints(any(), any());
+    }
+
+    @Test
+    void runContinuesFromPreviousCut() {
+        LocalDateTime previous = LocalDateTime.now().minusHours(1);
+        when(checkpointRepository.tryLockRun(anyLong())).thenReturn(true);
+        when(checkpointRepository.findLatestAsOf()).thenReturn(Optional.of(previous));
+        when(checkpointRepository.writeCheckpoints(eq(previous), any())).thenReturn(4);
+
+        assertThat(service.writeCheckpoints()).isEqualTo(4);
+        verify(checkpointRepository).writeCheckpoints(eq(previous),
+                argThat(cut -> cut.isBefore(LocalDateTime.now().minusSeconds(299))));
+    }
+
+    @Test
+    void runSkipsWhenAnotherInstanceHoldsTheLock() {
+        when(checkpointRepository.tryLockRun(anyLong())).thenReturn(false);
+
+        assertThat(service.writeCheckpoints()).isEqualTo(-1);
+        verify(checkpointRepository, never()).writeCheckpoints(any(), any());
+    }
+
+    private static ArchivedTransaction archived(TransactionType type, String amount, LocalDateTime createdAt) {
+        return new ArchivedTransaction(1, 1L, type, new BigDecimal(amount), null, null, "key-" + createdAt,
+                TransactionStatus.COMPLETED, null, createdAt);
+    }
+
+    private static AccountMetadataCache.AccountMetadata metadata() {
+        return new AccountMetadataCache.AccountMetadata(1L, 7L, "USD", AccountStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,253 @@
+package com.payflow.service;
+
+import com.payflow.exception.AccountFrozenException;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Account;
+import com.payflow.model.AccountBalanceShard;
+import com.payflow.model.AccountStatus;
+import com.payflow.repository.AccountBalanceShardRepository;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.AccountRepository.BalanceSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceMutationStrategyTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private AccountBalanceShardRepository shardRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    private OptimisticBalanceStrategy optimistic;
+    private PessimisticBalanceStrategy pessimistic;
+    private ConditionalUpdateBalanceStrategy conditional;
+    private ShardedBalanceStrategy sharded;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        optimistic = new OptimisticBalanceStrategy(accountRepository);
+        pessimistic = new PessimisticBalanceStrategy(accountRepository, entityManager);
+        conditional = new ConditionalUpdateBalanceStrategy(accountRepository);
+        sharded = new ShardedBalanceStrategy(shardRepository, accountRepository);
+
+        account = new Account(1L, "Checking", "USD");
+        account.setId(1L);
+        account.setBalance(BigDecimal.valueOf(1000));
+    }
+
+    @Test
+    void optimisticDebitMutatesEntityAndSaves() {
+        BigDecimal result = optimistic.debit(account, new BigDecimal("100.12345"));
+
+        assertThat(result).isEqualByComparingTo("899.8766");
+        assertThat(account.getBalance()).isEqualByComparingTo("899.8766");
+        verify(accountRepository).save(account);
+    }
+
+    @Test
+    void optimisticDebitRejectsInsufficientFunds() {
+        assertThatThrownBy(() -> optimistic.debit(account, BigDecimal.valueOf(1000.01)))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void optimisticDebitCannotSpendHeldFunds() {
+        account.setHeldAmount(BigDecimal.valueOf(950));
+
+        assertThatThrownBy(() -> optimistic.debit(account, BigDecimal.valueOf(50.01)))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(optimistic.debit(account, BigDecimal.valueOf(50))).isEqualByComparingTo("950");
+    }
+
+    @Test
+    void optimisticCreditMutatesEntityAndSaves() {
+        BigDecimal result = optimistic.credit(account, BigDecimal.valueOf(250));
+
+        assertThat(result).isEqualByComparingTo("1250");
+        verify(accountRepository).save(account);
+    }
+
+    @Test
+    void conditionalDebitReturnsBalanceFromUpdate() {
+        when(accountRepository.debitIfSufficient(1L, BigDecimal.TEN))
+                .thenReturn(Optional.of(snapshot("990.0000", 4)));
+
+        BigDecimal result = conditional.debit(account, BigDecimal.TEN);
+
+        assertThat(result).isEqualByComparingTo("990");
+        // The managed entity is never touched, so no version check happens at flush
+        assertThat(account.getBalance()).isEqualByComparingTo("1000");
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void conditionalDebitReportsInsufficientFundsWhenGuardFails() {
+        when(accountRepository.debitIfSufficient(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.ACTIVE));
+
+        assertThatThrownBy(() -> conditional.debit(account, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    void conditionalCreditReportsFrozenAccountWhenGuardFails() {
+        when(accountRepository.creditIfActive(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.FROZEN));
+
+        assertThatThrownBy(() -> conditional.credit(account, BigDecimal.TEN))
+                .isInstanceOf(AccountFrozenException.class);
+    }
+
+    @Test
+    void conditionalDebitReportsMissingAccount() {
+        when(accountRepository.debitIfSufficient(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> conditional.debit(account, BigDecimal.TEN))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    void conditionalDebitAsksForRetryWhenAccountWasSharded() {
+        when(accountRepository.debitIfSufficient(1L, BigDecimal.TEN)).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.ACTIVE));
+        when(accountRepository.findShardCountById(1L)).thenReturn(Optional.of(4));
+
+        assertThatThrownBy(() -> conditional.debit(account, BigDecimal.TEN))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void shardedCreditReportsNoBalanceAfter() {
+        account.setShardCount(4);
+        when(shardRepository.creditShard(eq(1L), anyInt(), eq(BigDecimal.TEN)))
+                .thenReturn(Optional.of(BigDecimal.valueOf(260)));
+
+        assertThat(sharded.credit(account, BigDecimal.TEN)).isNull();
+        verify(shardRepository, never()).sumBalance(any());
+    }
+
+    @Test
+    void shardedDebitReportsNoBalanceAfter() {
+        account.setShardCount(4);
+        when(shardRepository.debitShardIfSufficient(eq(1L), anyInt(), eq(BigDecimal.TEN)))
+                .thenReturn(Optional.of(BigDecimal.valueOf(240)));
+
+        assertThat(sharded.debit(account, BigDecimal.TEN)).isNull();
+        verify(shardRepository, never()).lockAllForAccount(any());
+    }
+
+    @Test
+    void shardedDebitSweepsShardsWhenPickedShardIsShort() {
+        account.setShardCount(3);
+        List<AccountBalanceShard> shards = List.of(
+                new AccountBalanceShard(1L, 0, BigDecimal.valueOf(40)),
+                new AccountBalanceShard(1L, 1, BigDecimal.valueOf(30)),
+                new AccountBalanceShard(1L, 2, BigDecimal.valueOf(50)));
+        when(shardRepository.debitShardIfSufficient(eq(1L), anyInt(), eq(BigDecimal.valueOf(100))))
+                .thenReturn(Optional.empty());
+        when(shardRepository.lockAllForAccount(1L)).thenReturn(shards);
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.ACTIVE));
+
+        assertThat(sharded.debit(account, BigDecimal.valueOf(100))).isNull();
+
+        assertThat(shards).extracting(AccountBalanceShard::getBalance)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.valueOf(20));
+        verify(shardRepository).saveAll(shards);
+    }
+
+    @Test
+    void shardedDebitSweepRejectsWhenTotalIsShort() {
+        account.setShardCount(2);
+        when(shardRepository.debitShardIfSufficient(eq(1L), anyInt(), any())).thenReturn(Optional.empty());
+        when(shardRepository.lockAllForAccount(1L)).thenReturn(List.of(
+                new AccountBalanceShard(1L, 0, BigDecimal.ONE),
+                new AccountBalanceShard(1L, 1, BigDecimal.ONE)));
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.ACTIVE));
+
+        assertThatThrownBy(() -> sharded.debit(account, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(shardRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void pessimisticWriteReusesTheExecutorsRowLock() {
+        when(entityManager.getLockMode(account)).thenReturn(LockModeType.PESSIMISTIC_WRITE);
+
+        assertThat(pessimistic.debit(account, BigDecimal.TEN)).isEqualByComparingTo("990");
+        verify(entityManager, never()).lock(any(), any());
+        verify(accountRepository).save(account);
+    }
+
+    @Test
+    void pessimisticWriteLocksAnAccountThatArrivesUnlocked() {
+        when(entityManager.getLockMode(account)).thenReturn(LockModeType.NONE);
+
+        assertThat(pessimistic.credit(account, BigDecimal.TEN)).isEqualByComparingTo("1010");
+        verify(entityManager).lock(account, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    @Test
+    void pessimisticDebitRejectsWhenShort() {
+        when(entityManager.getLockMode(account)).thenReturn(LockModeType.PESSIMISTIC_WRITE);
+
+        assertThatThrownBy(() -> pessimistic.debit(account, BigDecimal.valueOf(5000)))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void registrySelectsConfiguredModeAndShardsHotAccounts() {
+        BalanceStrategyRegistry registry = new BalanceStrategyRegistry(
+                optimistic, pessimistic, conditional, sharded, ConcurrencyMode.CONDITIONAL_UPDATE);
+
+        assertThat(registry.current()).isSameAs(conditional);
+        assertThat(registry.forAccount(account)).isSameAs(conditional);
+
+        registry.setActiveMode(ConcurrencyMode.OPTIMISTIC);
+        assertThat(registry.current()).isSameAs(optimistic);
+
+        registry.setActiveMode(ConcurrencyMode.PESSIMISTIC);
+        assertThat(registry.isPessimistic()).isTrue();
+        assertThat(registry.current()).isSameAs(pessimistic);
+
+        account.setShardCount(8);
+        assertThat(registry.forAccount(account)).isSameAs(sharded);
+    }
+
+    private static BalanceSnapshot snapshot(String balance, int version) {
+        return new BalanceSnapshot() {
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+
+            @Override
+            public Integer getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package com.payflow.service;
+
+import com.payflow.dto.BatchTransactionRequest;
+import com.payflow.dto.BatchTransactionRequest.Item;
+import com.payflow.dto.BatchTransactionRequest.ItemType;
+import com.payflow.dto.BatchTransactionResponse;
+import com.payflow.dto.BatchTransactionResponse.ItemResult;
+import com.payflow.dto.DepositRequest;
+import com.payflow.dto.TransactionResponse;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.AccountRepository;
+import com.payflow.service.BatchTransferExecutor.IndexedItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransactionServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private BatchTransferExecutor batchTransferExecutor;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private MetricsService metricsService;
+
+    private BatchTransactionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BatchTransactionService(accountRepository, batchTransferExecutor,
+                transactionService, metricsService, 2);
+    }
+
+    @Test
+    void itemsAreSplitIntoChunksAndResultsKeepRequestOrder() {
+        when(accountRepository.findIdsOwnedBy(eq(USER_ID), any())).thenReturn(Set.of(1L, 2L));
+        when(batchTransferExecutor.executeChunk(anyList())).thenAnswer(inv -> {
+            List<IndexedItem> chunk = inv.getArgument(0);
+            return chunk.stream()
+                    .map(c -> ItemResult.success(c.index(), c.item().idempotencyKey(), null, List.of()))
+                    .toList();
+        });
+
+        BatchTransactionResponse response = service.execute(new BatchTransactionRequest(List.of(
+                deposit(1L, "k0"), deposit(2L, "k1"), transfer(1L, 2L, "k2"))), USER_ID);
+
+        verify(batchTransferExecutor, times(2)).executeChunk(anyList());
+        assertThat(response.total()).isEqualTo(3);
+        assertThat(response.succeeded()).isEqualTo(3);
+        assertThat(response.results()).extracting(ItemResult::idempotencyKey).containsExactly("k0", "k1", "k2");
+    }
+
+    @Test
+    void itemsOnForeignAccountsFailWithoutReachingTheExecutor() {
+        when(accountRepository.findIdsOwnedBy(eq(USER_ID), any())).thenReturn(Set.of(1L));
+        when(batchTransferExecutor.executeChunk(anyList())).thenAnswer(inv -> {
+            List<IndexedItem> chunk = inv.getArgument(0);
+            return chunk.stream()
+                    .map(c -> ItemResult.success(c.index(), c.item().idempotencyKey(), null, List.of()))
+                    .toList();
+        });
+
+        BatchTransactionResponse response = service.execute(new BatchTransactionRequest(List.of(
+                transfer(1L, 9L, "k0"), transfer(1L, 1L, "k1"), deposit(1L, "k2"))), USER_ID);
+
+        assertThat(response.failed()).isEqualTo(2);
+        assertThat(response.results().get(0).error()).isEqualTo("Account not found: 9");
+        assertThat(response.results().get(1).error()).isEqualTo("Source and destination accounts must be different");
+        assertThat(response.results().get(2).success()).isTrue();
+        verify(batchTransferExecutor).executeChunk(argThat(chunk -> chunk.size() == 1));
+    }
+
+    @Test
+    void failedChunkFallsBackToIndividualExecution() {
+        when(accountRepository.findIdsOwnedBy(eq(USER_ID), any())).thenReturn(Set.of(1L));
+        when(batchTransferExecutor.executeChunk(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(transactionService.deposit(any(DepositRequest.class), eq(USER_ID)))
+                .thenReturn(new TransactionResponse(5L, 1L, TransactionType.CREDIT, BigDecimal.TEN, "Deposit",
+                        null, TransactionStatus.COMPLETED, BigDecimal.TEN, LocalDateTime.now()))
+                .thenThrow(new InsufficientFundsException());
+
+        BatchTransactionResponse response = service.execute(new BatchTransactionRequest(List.of(
+                deposit(1L, "k0"), deposit(1L, "k1"))), USER_ID);
+
+        assertThat(response.succeeded()).isEqualTo(1);
+        assertThat(response.results().get(0).transactions()).extracting(TransactionResponse::id).containsExactly(5L);
+        assertThat(response.results().get(1).error()).isEqualTo("Insufficient funds to complete this transaction");
+        // TransactionService counts the replayed items itself
+        verify(metricsService, never()).recordTransactionSuccess();
+        verify(metricsService, never()).recordTransactionFailure();
+    }
+
+    @Test
+    void eachItemIsCountedOnce() {
+        when(accountRepository.findIdsOwnedBy(eq(USER_ID), any())).thenReturn(Set.of(1L));
+        when(batchTransferExecutor.executeChunk(anyList())).thenAnswer(inv -> {
+            List<IndexedItem> chunk = inv.getArgument(0);
+            return chunk.stream()
+                    .map(c -> ItemResult.success(c.index(), c.item().idempotencyKey(), null, List.of()))
+                    .toList();
+        });
+
+        service.execute(new BatchTransactionRequest(List.of(
+                deposit(1L, "k0"), deposit(1L, "k1"), transfer(1L, 9L, "k2"))), USER_ID);
+
+        verify(metricsService, times(2)).recordTransactionSuccess();
+        verify(metricsService).recordTransactionFailure();
+    }
+
+    private static Item deposit(Long accountId, String key) {
+        return new Item(ItemType.DEPOSIT, accountId, null, BigDecimal.TEN, null, key);
+    }
+
+    private static Item transfer(Long sourceId, Long destId, String key) {
+        return new Item(ItemType.TRANSFER, sourceId, destId, BigDecimal.TEN, null, key);
+    }
+}
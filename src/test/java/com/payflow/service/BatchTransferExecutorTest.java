@@ -0,0 +1,231 @@
+package com.payflow.service;
+
+import com.payflow.dto.BatchTransactionRequest.Item;
+import com.payflow.dto.BatchTransactionRequest.ItemType;
+import com.payflow.dto.BatchTransactionResponse.ItemResult;
+import com.payflow.dto.TransactionResponse;
+import com.payflow.dto.TransferResponse;
+import com.payflow.event.TransactionEventPublisher;
+import com.payflow.model.Account;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.Transaction;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.TransactionRepository;
+import com.payflow.service.BatchTransferExecutor.IndexedItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferExecutorTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BalanceCacheService balanceCacheService;
+    @Mock
+    private TransactionEventPublisher eventPublisher;
+    @Mock
+    private BalanceStrategyRegistry balanceStrategies;
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @InjectMocks
+    private BatchTransferExecutor executor;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void chunkLocksAccountsInIdOrderAndWritesEachAccountOnce() {
+        Account a = account(1L, "100.0000");
+        Account b = account(2L, "0.0000");
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(a, b));
+
+        List<ItemResult> results = executor.executeChunk(List.of(
+                new IndexedItem(0, new Item(ItemType.TRANSFER, 2L, 1L, new BigDecimal("5"), null, "k0")),
+                new IndexedItem(1, new Item(ItemType.TRANSFER, 1L, 2L, new BigDecimal("60"), null, "k1")),
+                new IndexedItem(2, new Item(ItemType.WITHDRAW, 1L, null, new BigDecimal("60"), null, "k2")),
+                new IndexedItem(3, new Item(ItemType.DEPOSIT, 2L, null, new BigDecimal("10"), null, "k3"))));
+
+        ArgumentCaptor<Collection<Long>> lockedIds = ArgumentCaptor.forClass(Collection.class);
+        verify(accountRepository).findAllByIdForUpdate(lockedIds.capture());
+        assertThat(new ArrayList<>(lockedIds.getValue())).containsExactly(1L, 2L);
+
+        // b starts empty, so the first transfer is rejected; a cannot cover 60 twice
+        assertThat(results).extracting(ItemResult::success).containsExactly(false, true, false, true);
+        assertThat(a.getBalance()).isEqualByComparingTo("40");
+        assertThat(b.getBalance()).isEqualByComparingTo("70");
+
+        ArgumentCaptor<List<Transaction>> ledger = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(ledger.capture());
+        assertThat(ledger.getValue()).extracting(Transaction::getIdempotencyKey).containsExactly("k1", "k1:C", "k3");
+        verify(accountRepository).saveAll(anyList());
+        verify(accountRepository, never()).save(any());
+        verify(eventPublisher).publishAll(argThat(events -> events.size() == 3));
+        verify(idempotencyService).recordAll(argThat(responses -> responses.keySet().equals(java.util.Set.of("k1", "k3"))
+                && responses.get("k1") instanceof com.payflow.dto.TransferResponse));
+    }
+
+    @Test
+    void frozenAccountFailsOnlyItsOwnItems() {
+        Account a = account(1L, "100.0000");
+        Account frozen = account(2L, "100.0000");
+        frozen.setStatus(AccountStatus.FROZEN);
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(a, frozen));
+
+        List<ItemResult> results = executor.executeChunk(List.of(
+                new IndexedItem(0, new Item(ItemType.DEPOSIT, 2L, null, BigDecimal.TEN, null, "k0")),
+                new IndexedItem(1, new Item(ItemType.DEPOSIT, 1L, null, BigDecimal.TEN, null, "k1"))));
+
+        assertThat(results.get(0).error()).isEqualTo(new com.payflow.exception.AccountFrozenException(2L).getMessage());
+        assertThat(results.get(1).success()).isTrue();
+        assertThat(frozen.getBalance()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void refusedShardCreditUndoesTheInMemoryDebitAndFailsOnlyItsItem() {
+        Account a = account(1L, "100.0000");
+        Account hot = account(2L, "0.0000");
+        hot.setShardCount(2);
+        BalanceMutationStrategy shards = mock(BalanceMutationStrategy.class);
+        when(balanceStrategies.forAccount(hot)).thenReturn(shards);
+        when(shards.credit(hot, new BigDecimal("50"))).thenThrow(new com.payflow.exception.AccountFrozenException(2L));
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(a, hot));
+
+        List<ItemResult> results = executor.executeChunk(List.of(
+                new IndexedItem(0, new Item(ItemType.TRANSFER, 1L, 2L, new BigDecimal("50"), null, "k0")),
+                new IndexedItem(1, new Item(ItemType.WITHDRAW, 1L, null, new BigDecimal("60"), null, "k1"))));
+
+        assertThat(results).extracting(ItemResult::success).containsExactly(false, true);
+        assertThat(a.getBalance()).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void refusedCreditAfterAShardDebitFailsTheWholeChunk() {
+        Account hotSource = account(1L, "0.0000");
+        hotSource.setShardCount(2);
+        Account hotDest = account(2L, "0.0000");
+        hotDest.setShardCount(2);
+        BalanceMutationStrategy shards = mock(BalanceMutationStrategy.class);
+        when(balanceStrategies.forAccount(any())).thenReturn(shards);
+        when(shards.debit(hotSource, BigDecimal.TEN)).thenReturn(new BigDecimal("90"));
+        when(shards.credit(hotDest, BigDecimal.TEN)).thenThrow(new com.payflow.exception.AccountFrozenException(2L));
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(hotSource, hotDest));
+
+        assertThatThrownBy(() -> executor.executeChunk(List.of(
+                new IndexedItem(0, new Item(ItemType.TRANSFER, 1L, 2L, BigDecimal.TEN, null, "k0")))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(com.payflow.exception.AccountFrozenException.class);
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void existingAndRepeatedKeysAreReplayedFromTheIdempotencyStoreWithoutNewWrites() {
+        Account a = account(1L, "100.0000");
+        TransactionResponse previous = new TransactionResponse(7L, 1L, TransactionType.CREDIT, BigDecimal.TEN, null,
+                null, TransactionStatus.COMPLETED, new BigDecimal("100.0000"), LocalDateTime.now());
+        UUID correlationId = UUID.randomUUID();
+        TransferResponse previousTransfer = new TransferResponse(correlationId,
+                new TransactionResponse(8L, 1L, TransactionType.DEBIT, BigDecimal.ONE, null, correlationId,
+                        TransactionStatus.COMPLETED, new BigDecimal("99.0000"), LocalDateTime.now()),
+                new TransactionResponse(9L, 2L, TransactionType.CREDIT, BigDecimal.ONE, null, correlationId,
+                        TransactionStatus.COMPLETED, BigDecimal.ONE, LocalDateTime.now()));
+        doReturn(Optional.of(previous)).when(idempotencyService).find("k0", TransactionResponse.class);
+        doReturn(Optional.of(previousTransfer)).when(idempotencyService).find("k1", TransferResponse.class);
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(a));
+
+        List<ItemResult> results = executor.executeChunk(List.of(
+                new IndexedItem(0, new Item(ItemType.DEPOSIT, 1L, null, BigDecimal.TEN, null, "k0")),
+                new IndexedItem(1, new Item(ItemType.DEPOSIT, 1L, null, BigDecimal.TEN, null, "k0")),
+                new IndexedItem(2, new Item(ItemType.TRANSFER, 1L, 2L, BigDecimal.ONE, null, "k1"))));
+
+        assertThat(results).allMatch(ItemResult::success);
+        assertThat(results.get(1).transactions().get(0).id()).isEqualTo(7L);
+        assertThat(results.get(2).correlationId()).isEqualTo(correlationId);
+        assertThat(results.get(2).transactions()).extracting(TransactionResponse::id).containsExactly(8L, 9L);
+        // One probe per distinct key
+        verify(idempotencyService).find("k0", TransactionResponse.class);
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(accountRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void pendingTransfersSettleAgainstRunningBalancesAndFailWhenUnfunded() {
+        Account a = account(1L, "100.0000");
+        Account b = account(2L, "0.0000");
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Transaction debit1 = pendingLeg(10L, 1L, TransactionType.DEBIT, "70", first);
+        Transaction credit1 = pendingLeg(11L, 2L, TransactionType.CREDIT, "70", first);
+        Transaction debit2 = pendingLeg(12L, 1L, TransactionType.DEBIT, "70", second);
+        Transaction credit2 = pendingLeg(13L, 2L, TransactionType.CREDIT, "70", second);
+        when(transactionRepository.findPendingDebitsForUpdate(anyCollection())).thenReturn(List.of(debit1, debit2));
+        when(transactionRepository.findByCorrelationIdIn(anyCollection()))
+                .thenReturn(List.of(debit1, credit1, debit2, credit2));
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(a, b));
+
+        List<com.payflow.dto.TransactionResponse> settled = executor.settlePendingTransfers(List.of(10L, 12L));
+
+        assertThat(settled).extracting(com.payflow.dto.TransactionResponse::status)
+                .containsExactly(TransactionStatus.COMPLETED, TransactionStatus.FAILED);
+        assertThat(credit1.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(credit1.getBalanceAfter()).isEqualByComparingTo("70");
+        assertThat(credit2.getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(credit2.getBalanceAfter()).isNull();
+        assertThat(a.getBalance()).isEqualByComparingTo("30");
+        assertThat(b.getBalance()).isEqualByComparingTo("70");
+        verify(eventPublisher).publishAll(argThat(events -> events.size() == 2));
+        verify(idempotencyService).rewriteAll(argThat(responses -> responses.keySet().equals(java.util.Set.of("key-10", "key-12"))
+                && ((com.payflow.dto.TransactionResponse) responses.get("key-12")).status() == TransactionStatus.FAILED));
+    }
+
+    @Test
+    void settlementSkipsRowsHeldByAnotherSettler() {
+        when(transactionRepository.findPendingDebitsForUpdate(anyCollection())).thenReturn(List.of());
+
+        assertThat(executor.settlePendingTransfers(List.of(10L))).isEmpty();
+        verifyNoInteractions(accountRepository, eventPublisher);
+    }
+
+    private static Transaction pendingLeg(Long id, Long accountId, TransactionType type, String amount, UUID correlationId) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setAccountId(accountId);
+        tx.setType(type);
+        tx.setAmount(new BigDecimal(amount));
+        tx.setCorrelationId(correlationId);
+        tx.setIdempotencyKey("key-" + id);
+        tx.setStatus(TransactionStatus.PENDING);
+        return tx;
+    }
+
+    private static Account account(Long id, String balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setUserId(1L);
+        account.setCurrency("USD");
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+}
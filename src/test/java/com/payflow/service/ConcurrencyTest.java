@@ -5,18 +5,33 @@ import com.payflow.model.Account;
 import com.payflow.model.User;
 import com.payflow.repository.AccountRepository;
 import com.payflow.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.payflow.model.OutboxEvent;
+import com.payflow.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,26 +43,48 @@ import static org.assertj.core.api.Assertions.*;
 @Testcontainers
 @TestPropertySource(properties = {
         "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
-        "spring.datasource.url=jdbc:tc:postgresql:16:///testdb",
-        "spring.datasource.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver",
+        // TEST_POSTGRES_URL (e.g. jdbc:postgresql://localhost:5432/) runs against an existing server instead of Docker
+        "spring.datasource.url=${TEST_POSTGRES_URL:jdbc:tc:postgresql:16:///}testdb",
+        // Blank: the driver follows the URL, overriding the Testcontainers driver pinned in application-test.yml
+        "spring.datasource.driver-class-name=",
         "spring.jpa.hibernate.ddl-auto=create-drop",
-        "spring.flyway.enabled=false"
+        "spring.flyway.enabled=false",
+        "app.outbox.relay.enabled=false",
+        // The strategy benchmarks expect every transfer to land; admission only queues them here
+        "app.transactions.admission.max-wait-ms=30000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // src/test/resources/application.yml shadows the main one, so restate its write batching
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.jdbc.batch_versioned_data=true",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=true"
 })
 class ConcurrencyTest {
 
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyTest.class);
+
     @Autowired
     private TransactionService transactionService;
     @Autowired
+    private BalanceStrategyRegistry balanceStrategies;
+    @Autowired
     private AccountRepository accountRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @MockBean
     private BalanceCacheService balanceCacheService;
     @MockBean
     private RateLimitService rateLimitService;
     @MockBean
-    private com.payflow.event.TransactionEventPublisher transactionEventPublisher;
+    private org.springframework.data.redis.listener.RedisMessageListenerContainer redisMessageListenerContainer;
 
     private Account sourceAccount;
     private Account destAccount;
@@ -67,6 +104,11 @@ class ConcurrencyTest {
         destAccount = accountRepository.save(destAccount);
     }
 
+    @AfterEach
+    void restoreMode() {
+        balanceStrategies.setActiveMode(ConcurrencyMode.OPTIMISTIC);
+    }
+
     @Test
     void concurrentTransfersProduceCorrectBalance() throws Exception {
         int threadCount = 10;
@@ -116,4 +158,199 @@ class ConcurrencyTest {
         assertThat(updatedDest.getBalance())
                 .isEqualByComparingTo(BigDecimal.valueOf(succeeded * 10L));
     }
+
+    // Throughput per mode is measured by com.payflow.bench.ContentionBenchmark; these check outcomes
+    @Test
+    void hotAccountTransfersAllLandUnderConditionalUpdate() throws Exception {
+        int threads = 16;
+        int transfersPerThread = 25;
+
+        ContentionResult optimistic = runHotAccountWorkload(ConcurrencyMode.OPTIMISTIC, threads, transfersPerThread);
+        ContentionResult conditional = runHotAccountWorkload(ConcurrencyMode.CONDITIONAL_UPDATE, threads, transfersPerThread);
+
+        log.info("Hot account ({} threads x {} transfers): {} | {}",
+                threads, transfersPerThread, optimistic, conditional);
+
+        // Row-lock queuing instead of version conflicts: every conditional transfer lands
+        assertThat(conditional.succeeded()).isEqualTo(threads * transfersPerThread);
+        assertThat(conditional.succeeded()).isGreaterThanOrEqualTo(optimistic.succeeded());
+    }
+
+    @Test
+    void hotPairTransfersAllLandInLockBasedModes() throws Exception {
+        int threads = 16;
+        int transfersPerThread = 25;
+
+        Map<ConcurrencyMode, ContentionResult> results = new EnumMap<>(ConcurrencyMode.class);
+        for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+            results.put(mode, runHotPairWorkload(mode, threads, transfersPerThread));
+        }
+        log.info("Hot pair ({} threads x {} opposite-direction transfers):\n  {}",
+                threads, transfersPerThread,
+                String.join("\n  ", results.values().stream().map(ContentionResult::toString).toList()));
+
+        // Row locks taken in id order in both lock-based modes: no version conflicts and no
+        // deadlocks, so every transfer lands
+        ContentionResult optimistic = results.get(ConcurrencyMode.OPTIMISTIC);
+        for (ConcurrencyMode mode : List.of(ConcurrencyMode.PESSIMISTIC, ConcurrencyMode.CONDITIONAL_UPDATE)) {
+            assertThat(results.get(mode).succeeded()).as(mode.name()).isEqualTo(threads * transfersPerThread);
+            assertThat(results.get(mode).succeeded()).as(mode.name()).isGreaterThanOrEqualTo(optimistic.succeeded());
+        }
+    }
+
+    /**
+     * Half the threads move money A -> B and the other half B -> A, the worst case for
+     * lock ordering. Both accounts start funded so no transfer fails on balance.
+     */
+    private ContentionResult runHotPairWorkload(ConcurrencyMode mode, int threads, int transfersPerThread)
+            throws Exception {
+        balanceStrategies.setActiveMode(mode);
+
+        Account a = new Account(userId, "Pair A " + mode, "USD");
+        a.setBalance(BigDecimal.valueOf(1_000_000));
+        a = accountRepository.save(a);
+        Account b = new Account(userId, "Pair B " + mode, "USD");
+        b.setBalance(BigDecimal.valueOf(1_000_000));
+        b = accountRepository.save(b);
+
+        Long aId = a.getId();
+        Long bId = b.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            boolean forward = t % 2 == 0;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    try {
+                        transactionService.transfer(new TransferRequest(forward ? aId : bId, forward ? bId : aId,
+                                BigDecimal.ONE, "Hot pair", UUID.randomUUID().toString()), userId);
+                        succeeded.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(120, TimeUnit.SECONDS)).isTrue();
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        BigDecimal total = accountRepository.findById(aId).orElseThrow().getBalance()
+                .add(accountRepository.findById(bId).orElseThrow().getBalance());
+        assertThat(total).isEqualByComparingTo(BigDecimal.valueOf(2_000_000));
+
+        return new ContentionResult(mode, succeeded.get(), failed.get(), elapsedMillis);
+    }
+
+    @Test
+    void transferRoundTripsWithPooledIdsAndBatchedWrites() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        balanceStrategies.setActiveMode(ConcurrencyMode.OPTIMISTIC);
+        int transfers = 50;
+
+        // Warm up so the first sequence block fetch does not skew the numbers
+        transactionService.transfer(new TransferRequest(sourceAccount.getId(), destAccount.getId(),
+                BigDecimal.ONE, "Round trip warm-up", UUID.randomUUID().toString()), userId);
+
+        double unbatched = statementsPerTransfer(stats, transfers, 1);
+        double batched = statementsPerTransfer(stats, transfers, null);
+        long ledgerInserts = stats.getEntityStatistics(Transaction.class.getName()).getInsertCount();
+        long outboxInserts = stats.getEntityStatistics(OutboxEvent.class.getName()).getInsertCount();
+        log.info("Round trips per transfer: {} batched vs {} unbatched ({} ledger inserts, {} outbox inserts, "
+                        + "{} updates over {} transfers)", String.format("%.2f", batched), String.format("%.2f", unbatched),
+                ledgerInserts, outboxInserts, stats.getEntityUpdateCount(), transfers);
+
+        // Each transfer writes a debit and a credit row, one outbox event per leg and two balance
+        // updates. Batched, each of those pairs goes out as one statement instead of two. The
+        // statistics are factory-wide, so scheduled jobs add a little noise to either run.
+        assertThat(ledgerInserts).isEqualTo(transfers * 2L);
+        assertThat(outboxInserts).isEqualTo(transfers * 2L);
+        assertThat(batched).isLessThanOrEqualTo(unbatched - 2.5);
+    }
+
+    /**
+     * Runs {@code transfers} transfers, each joined to an outer transaction so the session's
+     * JDBC batch size can be overridden ({@code null} keeps the configured one), and returns
+     * the prepared statements per transfer. Statistics are left covering only this run.
+     */
+    private double statementsPerTransfer(Statistics stats, int transfers, Integer jdbcBatchSize) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        stats.clear();
+        for (int i = 0; i < transfers; i++) {
+            template.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                transactionService.transfer(new TransferRequest(sourceAccount.getId(), destAccount.getId(),
+                        BigDecimal.ONE, "Round trip benchmark", UUID.randomUUID().toString()), userId);
+            });
+        }
+        return stats.getPrepareStatementCount() / (double) transfers;
+    }
+
+    private ContentionResult runHotAccountWorkload(ConcurrencyMode mode, int threads, int transfersPerThread)
+            throws Exception {
+        balanceStrategies.setActiveMode(mode);
+
+        Account source = new Account(userId, "Hot source " + mode, "USD");
+        source.setBalance(BigDecimal.valueOf(1_000_000));
+        source = accountRepository.save(source);
+        Account dest = new Account(userId, "Hot dest " + mode, "USD");
+        dest = accountRepository.save(dest);
+
+        Long sourceId = source.getId();
+        Long destId = dest.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    try {
+                        transactionService.transfer(new TransferRequest(sourceId, destId, BigDecimal.ONE,
+                                "Hot account", UUID.randomUUID().toString()), userId);
+                        succeeded.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(120, TimeUnit.SECONDS)).isTrue();
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+        Account updatedSource = accountRepository.findById(sourceId).orElseThrow();
+        Account updatedDest = accountRepository.findById(destId).orElseThrow();
+        assertThat(updatedSource.getBalance().add(updatedDest.getBalance()))
+                .isEqualByComparingTo(BigDecimal.valueOf(1_000_000));
+        assertThat(updatedDest.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(succeeded.get()));
+
+        return new ContentionResult(mode, succeeded.get(), failed.get(), elapsedMillis);
+    }
+
+    private record ContentionResult(ConcurrencyMode mode, int succeeded, int failed, long elapsedMillis) {
+        double throughput() {
+            return succeeded * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d ok, %d failed, %d ms, %.1f transfers/s",
+                    mode, succeeded, failed, elapsedMillis, throughput());
+        }
+    }
 }
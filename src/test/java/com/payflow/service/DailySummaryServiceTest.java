@@ -1,6 +1,5 @@
 package com.payflow.service;
 
-import com.payflow.dto.AccountResponse;
 import com.payflow.exception.AccountNotFoundException;
 import com.payflow.model.AccountStatus;
 import com.payflow.model.DailySummary;
@@ -24,7 +23,7 @@ class DailySummaryServiceTest {
     @Mock
     private DailySummaryRepository dailySummaryRepository;
     @Mock
-    private AccountService accountService;
+    private AccountMetadataCache accountMetadataCache;
 
     @InjectMocks
     private DailySummaryService dailySummaryService;
@@ -36,9 +35,8 @@ class DailySummaryServiceTest {
         LocalDate from = LocalDate.of(2026, 1, 1);
         LocalDate to = LocalDate.of(2026, 1, 31);
 
-        AccountResponse accountResponse = new AccountResponse(accountId, userId, "Checking",
-                BigDecimal.valueOf(1000), "USD", AccountStatus.ACTIVE, null);
-        when(accountService.getById(accountId, userId)).thenReturn(accountResponse);
+        when(accountMetadataCache.requireOwned(accountId, userId)).thenReturn(
+                new AccountMetadataCache.AccountMetadata(accountId, userId, "USD", AccountStatus.ACTIVE));
 
         DailySummary summary = new DailySummary(accountId, LocalDate.of(2026, 1, 15));
         summary.setTotalCredits(BigDecimal.valueOf(500));
@@ -53,7 +51,7 @@ class DailySummaryServiceTest {
         assertThat(result.get(0).getAccountId()).isEqualTo(accountId);
         assertThat(result.get(0).getTotalCredits()).isEqualByComparingTo(BigDecimal.valueOf(500));
         assertThat(result.get(0).getTransactionCount()).isEqualTo(3);
-        verify(accountService).getById(accountId, userId);
+        verify(accountMetadataCache).requireOwned(accountId, userId);
         verify(dailySummaryRepository).findByAccountIdAndSummaryDateBetweenOrderBySummaryDateAsc(accountId, from, to);
     }
 
@@ -64,12 +62,12 @@ class DailySummaryServiceTest {
         LocalDate from = LocalDate.of(2026, 1, 1);
         LocalDate to = LocalDate.of(2026, 1, 31);
 
-        when(accountService.getById(accountId, userId)).thenThrow(new AccountNotFoundException(accountId));
+        when(accountMetadataCache.requireOwned(accountId, userId)).thenThrow(new AccountNotFoundException(accountId));
 
         assertThatThrownBy(() -> dailySummaryService.getSummaries(accountId, from, to, userId))
                 .isInstanceOf(AccountNotFoundException.class);
 
-        verify(accountService).getById(accountId, userId);
+        verify(accountMetadataCache).requireOwned(accountId, userId);
         verifyNoInteractions(dailySummaryRepository);
     }
 }
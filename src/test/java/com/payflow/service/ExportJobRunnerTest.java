@@ -0,0 +1,125 @@
+package com.payflow.service;
+
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.ExportJobRepository;
+import com.payflow.repository.TransactionFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+    @Mock
+    private TransactionCsvExporter transactionCsvExporter;
+    @Mock
+    private MetricsService metricsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExportJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        runner = new ExportJobRunner(exportJobRepository, transactionCsvExporter, metricsService,
+                transactionManager, 2, dir.toString(), 120, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void runWritesTheFileAndRecordsCompletion() throws Exception {
+        ExportJob job = job();
+        when(exportJobRepository.findById(3L)).thenReturn(Optional.of(job));
+        when(transactionCsvExporter.write(any(), any(), eq(false))).thenAnswer(inv -> {
+            inv.<OutputStream>getArgument(1).write("header\nrow\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        runner.run(job);
+
+        Path file = dir.resolve("export-3.csv");
+        assertThat(Files.readString(file)).isEqualTo("header\nrow\n");
+        assertThat(dir.resolve("export-3.csv.part")).doesNotExist();
+        assertThat(job.getStatus()).isEqualTo(ExportJobStatus.COMPLETED);
+        assertThat(job.getRowCount()).isEqualTo(1L);
+        assertThat(job.getSizeBytes()).isEqualTo(11L);
+        assertThat(job.getFilePath()).isEqualTo("export-3.csv");
+        assertThat(job.getExpiresAt()).isAfter(LocalDateTime.now().plusHours(23));
+        verify(transactionCsvExporter).write(
+                eq(new TransactionFilter(1L, TransactionType.CREDIT, null, null, null, null, null)), any(), eq(false));
+        verify(metricsService).recordExportCompleted();
+    }
+
+    @Test
+    void failedRunDeletesThePartialFileAndRecordsTheError() throws Exception {
+        ExportJob job = job();
+        when(exportJobRepository.findById(3L)).thenReturn(Optional.of(job));
+        when(transactionCsvExporter.write(any(), any(), eq(false))).thenThrow(new IllegalStateException("cursor closed"));
+
+        runner.run(job);
+
+        assertThat(dir.resolve("export-3.csv.part")).doesNotExist();
+        assertThat(job.getStatus()).isEqualTo(ExportJobStatus.FAILED);
+        assertThat(job.getError()).isEqualTo("cursor closed");
+        verify(metricsService).recordExportFailed();
+    }
+
+    @Test
+    void pollClaimsNoMoreJobsThanIdleWorkersAndExpiresOldFiles() throws Exception {
+        Path old = Files.writeString(dir.resolve("export-9.csv"), "x");
+        ExportJob expired = job();
+        expired.setId(9L);
+        expired.setStatus(ExportJobStatus.COMPLETED);
+        expired.setFilePath(old.toString());
+        when(exportJobRepository.claimPending(any(), eq(2))).thenReturn(List.of());
+        when(exportJobRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(exportJobRepository.findTop100ByStatusAndExpiresAtBefore(eq(ExportJobStatus.COMPLETED), any()))
+                .thenReturn(List.of(expired));
+
+        runner.poll();
+
+        verify(exportJobRepository).claimPending(any(), eq(2));
+        verify(exportJobRepository, never()).extendLease(any(), any());
+        assertThat(old).doesNotExist();
+        assertThat(expired.getStatus()).isEqualTo(ExportJobStatus.EXPIRED);
+    }
+
+    private static ExportJob job() {
+        ExportJob job = new ExportJob();
+        job.setId(3L);
+        job.setUserId(7L);
+        job.setAccountId(1L);
+        job.setFilterType(TransactionType.CREDIT);
+        job.setStatus(ExportJobStatus.RUNNING);
+        return job;
+    }
+}
@@ -0,0 +1,134 @@
+package com.payflow.service;
+
+import com.payflow.dto.CreateExportJobRequest;
+import com.payflow.dto.ExportJobResponse;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.ExportLimitExceededException;
+import com.payflow.model.ExportJob;
+import com.payflow.model.ExportJobStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.ExportJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+
+    @TempDir
+    Path exportDir;
+
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() {
+        exportJobService = new ExportJobService(exportJobRepository, accountMetadataCache, 2, exportDir.toString());
+    }
+
+    @Test
+    void submitQueuesJobAfterCheckingTheCapUnderTheUserLock() {
+        when(exportJobRepository.countActiveByUserId(7L)).thenReturn(1L);
+        when(exportJobRepository.save(any(ExportJob.class))).thenAnswer(inv -> {
+            ExportJob job = inv.getArgument(0);
+            job.setId(3L);
+            return job;
+        });
+
+        ExportJobResponse response = exportJobService.submit(
+                new CreateExportJobRequest(1L, TransactionType.DEBIT, null, null, null), 7L);
+
+        assertThat(response.status()).isEqualTo(ExportJobStatus.QUEUED);
+        assertThat(response.downloadUrl()).isNull();
+        InOrder order = inOrder(accountMetadataCache, exportJobRepository);
+        order.verify(accountMetadataCache).requireOwned(1L, 7L);
+        order.verify(exportJobRepository).lockUser(7L);
+        order.verify(exportJobRepository).countActiveByUserId(7L);
+        order.verify(exportJobRepository).save(argThat(job -> job.getFilterType() == TransactionType.DEBIT));
+    }
+
+    @Test
+    void submitRejectsWhenUserAlreadyHasTheMaximumActiveJobs() {
+        when(exportJobRepository.countActiveByUserId(7L)).thenReturn(2L);
+
+        assertThatThrownBy(() -> exportJobService.submit(new CreateExportJobRequest(1L, null, null, null, null), 7L))
+                .isInstanceOf(ExportLimitExceededException.class);
+        verify(exportJobRepository, never()).save(any());
+    }
+
+    @Test
+    void submitRejectsAccountsTheUserDoesNotOwn() {
+        when(accountMetadataCache.requireOwned(1L, 7L)).thenThrow(new AccountNotFoundException(1L));
+
+        assertThatThrownBy(() -> exportJobService.submit(new CreateExportJobRequest(1L, null, null, null, null), 7L))
+                .isInstanceOf(AccountNotFoundException.class);
+        verifyNoInteractions(exportJobRepository);
+    }
+
+    @Test
+    void submitRejectsInvertedRange() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThatThrownBy(() -> exportJobService.submit(
+                new CreateExportJobRequest(1L, null, null, now, now.minusDays(1)), 7L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void openFileOnlyServesCompletedJobsWhoseFileExists(@TempDir Path dir) throws Exception {
+        Path file = Files.writeString(dir.resolve("export-3.csv"), "Date\n");
+        ExportJob job = job(ExportJobStatus.RUNNING, file);
+        when(exportJobRepository.findByIdAndUserId(3L, 7L)).thenReturn(Optional.of(job));
+
+        assertThatThrownBy(() -> exportJobService.openFile(3L, 7L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("RUNNING");
+
+        job.setStatus(ExportJobStatus.COMPLETED);
+        assertThat(exportJobService.openFile(3L, 7L))
+                .isEqualTo(new ExportJobService.ExportFile(file, 5L));
+
+        Files.delete(file);
+        assertThatThrownBy(() -> exportJobService.openFile(3L, 7L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no longer available");
+    }
+
+    @Test
+    void openFileResolvesRelativeNamesAgainstTheSharedDirectory() throws Exception {
+        Path file = Files.writeString(exportDir.resolve("export-3.csv"), "Date\n");
+        ExportJob job = job(ExportJobStatus.COMPLETED, Path.of("export-3.csv"));
+        when(exportJobRepository.findByIdAndUserId(3L, 7L)).thenReturn(Optional.of(job));
+
+        assertThat(exportJobService.openFile(3L, 7L))
+                .isEqualTo(new ExportJobService.ExportFile(file, 5L));
+    }
+
+    private static ExportJob job(ExportJobStatus status, Path file) {
+        ExportJob job = new ExportJob();
+        job.setId(3L);
+        job.setUserId(7L);
+        job.setAccountId(1L);
+        job.setStatus(status);
+        job.setFilePath(file.toString());
+        job.setSizeBytes(5L);
+        return job;
+    }
+}
@@ -0,0 +1,126 @@
+package com.payflow.service;
+
+import com.payflow.dto.TransactionResponse;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitEngineTest {
+
+    @Mock
+    private TransferExecutor transferExecutor;
+    @Mock
+    private MetricsService metricsService;
+
+    private GroupCommitEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GroupCommitEngine(transferExecutor, metricsService, true, 50, 2, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void operationsArrivingDuringACommitShareTheNextBatch() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        when(transferExecutor.executeAccountBatch(eq(1L), anyList())).thenAnswer(inv -> {
+            List<BalanceOperation> ops = inv.getArgument(1);
+            batchSizes.add(ops.size());
+            if (batchSizes.size() == 1) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            return ops.stream().map(op -> BalanceOperation.Outcome.success(response(op))).toList();
+        });
+
+        CompletableFuture<TransactionResponse> first = CompletableFuture.supplyAsync(() -> engine.submit(deposit("k0")));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<TransactionResponse>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String key = "k" + i;
+            queued.add(CompletableFuture.supplyAsync(() -> engine.submit(deposit(key))));
+        }
+        // Let the five callers enqueue behind the in-flight batch
+        Thread.sleep(200);
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).description()).isEqualTo("k0");
+        for (int i = 0; i < queued.size(); i++) {
+            assertThat(queued.get(i).get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(batchSizes).containsExactly(1, 5);
+        verify(metricsService).recordGroupCommitBatch(5);
+    }
+
+    @Test
+    void perOperationFailureIsRethrownToItsCaller() {
+        when(transferExecutor.executeAccountBatch(eq(1L), anyList()))
+                .thenReturn(List.of(BalanceOperation.Outcome.failure(new InsufficientFundsException())));
+
+        assertThatThrownBy(() -> engine.submit(withdrawal("w1")))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    void batchFailureFallsBackToSingleCommits() {
+        when(transferExecutor.executeAccountBatch(eq(1L), anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        TransactionResponse single = response(deposit("d1"));
+        when(transferExecutor.executeDeposit(1L, BigDecimal.TEN, "d1", "d1")).thenReturn(single);
+
+        assertThat(engine.submit(deposit("d1"))).isSameAs(single);
+        verify(transferExecutor).executeDeposit(any(), any(), any(), any());
+    }
+
+    @Test
+    void submitRejectedWhenDisabled() {
+        GroupCommitEngine disabled = new GroupCommitEngine(transferExecutor, metricsService, false, 50, 2, 5000);
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThatThrownBy(() -> disabled.submit(deposit("x")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static BalanceOperation deposit(String key) {
+        return new BalanceOperation(1L, TransactionType.CREDIT, BigDecimal.TEN, key, key);
+    }
+
+    private static BalanceOperation withdrawal(String key) {
+        return new BalanceOperation(1L, TransactionType.DEBIT, BigDecimal.TEN, key, key);
+    }
+
+    private static TransactionResponse response(BalanceOperation op) {
+        return new TransactionResponse(1L, op.accountId(), op.type(), op.amount(), op.description(),
+                null, TransactionStatus.COMPLETED, BigDecimal.valueOf(100), null);
+    }
+}
@@ -0,0 +1,202 @@
+package com.payflow.service;
+
+import com.payflow.dto.CaptureHoldRequest;
+import com.payflow.dto.CreateHoldRequest;
+import com.payflow.dto.HoldResponse;
+import com.payflow.event.TransactionEventPublisher;
+import com.payflow.exception.AccountFrozenException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.Hold;
+import com.payflow.model.HoldStatus;
+import com.payflow.model.Transaction;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.AccountRepository.BalanceSnapshot;
+import com.payflow.repository.HoldRepository;
+import com.payflow.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+    @Mock
+    private BalanceCacheService balanceCacheService;
+    @Mock
+    private TransactionEventPublisher eventPublisher;
+    @Mock
+    private BalanceSnapshot snapshot;
+
+    private HoldService holdService;
+
+    @BeforeEach
+    void setUp() {
+        holdService = new HoldService(holdRepository, accountRepository, transactionRepository,
+                accountMetadataCache, balanceCacheService, eventPublisher, 3600, 86400);
+    }
+
+    @Test
+    void authorizeReservesFundsAndStoresHold() {
+        when(holdRepository.findByIdempotencyKey("h1")).thenReturn(Optional.empty());
+        when(accountRepository.reserveIfAvailable(1L, BigDecimal.valueOf(40))).thenReturn(Optional.of(snapshot));
+        when(holdRepository.save(any(Hold.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        HoldResponse response = holdService.authorize(request(40, null), 7L);
+
+        assertThat(response.status()).isEqualTo(HoldStatus.ACTIVE);
+        assertThat(response.expiresAt()).isAfter(LocalDateTime.now().plusMinutes(59));
+        verify(accountMetadataCache).requireOwned(1L, 7L);
+        verifyNoInteractions(transactionRepository, eventPublisher);
+    }
+
+    @Test
+    void authorizeReplaysExistingKey() {
+        Hold existing = hold(HoldStatus.ACTIVE, 40);
+        when(holdRepository.findByIdempotencyKey("h1")).thenReturn(Optional.of(existing));
+
+        assertThat(holdService.authorize(request(40, null), 7L).id()).isEqualTo(9L);
+        verify(accountRepository, never()).reserveIfAvailable(any(), any());
+    }
+
+    @Test
+    void authorizeReportsWhyTheReserveFailed() {
+        when(holdRepository.findByIdempotencyKey("h1")).thenReturn(Optional.empty());
+        when(accountRepository.reserveIfAvailable(eq(1L), any())).thenReturn(Optional.empty());
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.ACTIVE));
+        when(accountRepository.findShardCountById(1L)).thenReturn(Optional.of(0));
+
+        assertThatThrownBy(() -> holdService.authorize(request(40, null), 7L))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        when(accountRepository.findStatusById(1L)).thenReturn(Optional.of(AccountStatus.FROZEN));
+        assertThatThrownBy(() -> holdService.authorize(request(40, null), 7L))
+                .isInstanceOf(AccountFrozenException.class);
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    void authorizeRejectsExpiryBeyondMaximum() {
+        when(holdRepository.findByIdempotencyKey("h1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> holdService.authorize(request(40, 90000L), 7L))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void partialCaptureDebitsCapturedAmountAndDropsWholeHold() {
+        Hold hold = hold(HoldStatus.ACTIVE, 40);
+        when(holdRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(hold));
+        when(snapshot.getBalance()).thenReturn(BigDecimal.valueOf(75));
+        when(accountRepository.captureHeld(1L, BigDecimal.valueOf(25), BigDecimal.valueOf(40)))
+                .thenReturn(Optional.of(snapshot));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> {
+            Transaction tx = inv.getArgument(0);
+            tx.setId(100L);
+            return tx;
+        });
+
+        HoldResponse response = holdService.capture(9L, new CaptureHoldRequest(BigDecimal.valueOf(25)), 7L);
+
+        assertThat(response.status()).isEqualTo(HoldStatus.CAPTURED);
+        assertThat(response.capturedAmount()).isEqualByComparingTo("25");
+        assertThat(response.transactionId()).isEqualTo(100L);
+        verify(transactionRepository).save(argThat(tx -> tx.getType() == TransactionType.DEBIT
+                && tx.getIdempotencyKey().equals("hold-9-capture")
+                && tx.getBalanceAfter().compareTo(BigDecimal.valueOf(75)) == 0));
+        verify(balanceCacheService).invalidate(1L);
+        verify(eventPublisher).publish(any());
+    }
+
+    @Test
+    void captureOfCapturedHoldReplays() {
+        Hold hold = hold(HoldStatus.CAPTURED, 40);
+        when(holdRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(hold));
+
+        assertThat(holdService.capture(9L, null, 7L).status()).isEqualTo(HoldStatus.CAPTURED);
+        verify(accountRepository, never()).captureHeld(any(), any(), any());
+    }
+
+    @Test
+    void captureRejectsMoreThanHeldAndExpiredHolds() {
+        Hold hold = hold(HoldStatus.ACTIVE, 40);
+        when(holdRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(hold));
+
+        assertThatThrownBy(() -> holdService.capture(9L, new CaptureHoldRequest(BigDecimal.valueOf(41)), 7L))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        hold.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        assertThatThrownBy(() -> holdService.capture(9L, null, 7L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("expired");
+        verify(accountRepository, never()).captureHeld(any(), any(), any());
+    }
+
+    @Test
+    void releaseReturnsFundsOnce() {
+        Hold hold = hold(HoldStatus.ACTIVE, 40);
+        when(holdRepository.findByIdForUpdate(9L)).thenReturn(Optional.of(hold));
+
+        assertThat(holdService.release(9L, 7L).status()).isEqualTo(HoldStatus.RELEASED);
+        holdService.release(9L, 7L);
+
+        verify(accountRepository, times(1)).releaseHeld(1L, BigDecimal.valueOf(40));
+    }
+
+    @Test
+    void expireBatchReleasesOncePerAccountInIdOrder() {
+        Hold a = hold(HoldStatus.ACTIVE, 10);
+        a.setAccountId(5L);
+        Hold b = hold(HoldStatus.ACTIVE, 20);
+        b.setAccountId(2L);
+        Hold c = hold(HoldStatus.ACTIVE, 30);
+        c.setAccountId(5L);
+        when(holdRepository.claimExpired(any(), eq(100))).thenReturn(List.of(a, b, c));
+
+        assertThat(holdService.expireBatch(100)).isEqualTo(3);
+
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).releaseHeld(2L, new BigDecimal("20.0000"));
+        order.verify(accountRepository).releaseHeld(5L, new BigDecimal("40.0000"));
+        assertThat(List.of(a, b, c)).allMatch(h -> h.getStatus() == HoldStatus.EXPIRED);
+        verify(holdRepository).saveAll(List.of(a, b, c));
+    }
+
+    private static CreateHoldRequest request(int amount, Long expiresInSeconds) {
+        return new CreateHoldRequest(1L, BigDecimal.valueOf(amount), "Card auth", expiresInSeconds, "h1");
+    }
+
+    private static Hold hold(HoldStatus status, int amount) {
+        Hold hold = new Hold();
+        hold.setId(9L);
+        hold.setAccountId(1L);
+        hold.setAmount(BigDecimal.valueOf(amount));
+        hold.setStatus(status);
+        hold.setIdempotencyKey("h1");
+        hold.setExpiresAt(LocalDateTime.now().plusHours(1));
+        return hold;
+    }
+}
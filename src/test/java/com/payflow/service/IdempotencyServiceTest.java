@@ -0,0 +1,147 @@
+package com.payflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.payflow.dto.TransactionResponse;
+import com.payflow.dto.TransferResponse;
+import com.payflow.model.IdempotencyRecord;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+    @Mock
+    private MetricsService metricsService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private IdempotencyService service;
+
+    private final TransactionResponse response = new TransactionResponse(1L, 1L, TransactionType.CREDIT,
+            new BigDecimal("500.0000"), "Deposit", null, TransactionStatus.COMPLETED,
+            new BigDecimal("1500.0000"), LocalDateTime.of(2024, 1, 1, 12, 0));
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(repository, objectMapper, metricsService, 24, 1000, 0.01);
+    }
+
+    @Test
+    void recordedResponseRoundTripsThroughTheStore() {
+        service.record("k1", response);
+
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(captor.capture());
+        IdempotencyRecord stored = captor.getValue();
+        assertThat(stored.isNew()).isTrue();
+        assertThat(stored.getResponseType()).isEqualTo("TransactionResponse");
+        assertThat(stored.getExpiresAt()).isAfter(LocalDateTime.now().plusHours(23));
+
+        when(repository.findById("k1")).thenReturn(Optional.of(stored));
+        assertThat(service.findCommitted("k1", TransactionResponse.class)).contains(response);
+        verify(metricsService).recordIdempotencyReplay();
+    }
+
+    @Test
+    void unseenKeySkipsDatabaseOnceFilterIsWarm() {
+        when(repository.findLiveKeysAfter(any(), anyString(), any())).thenReturn(List.of("existing"));
+        service.warmFilter();
+
+        assertThat(service.find("brand-new", TransactionResponse.class)).isEmpty();
+
+        verify(repository, never()).findById(anyString());
+        verify(metricsService).recordIdempotencyProbeSkipped();
+    }
+
+    @Test
+    void knownKeyIsProbedEvenWhenFilterIsWarm() {
+        when(repository.findLiveKeysAfter(any(), anyString(), any())).thenReturn(List.of("existing"));
+        service.warmFilter();
+        when(repository.findById("existing")).thenReturn(Optional.empty());
+
+        assertThat(service.find("existing", TransactionResponse.class)).isEmpty();
+
+        verify(repository).findById("existing");
+    }
+
+    @Test
+    void coldFilterFallsBackToDatabaseProbe() {
+        when(repository.findById("k1")).thenReturn(Optional.empty());
+
+        assertThat(service.find("k1", TransactionResponse.class)).isEmpty();
+
+        verify(repository).findById("k1");
+    }
+
+    @Test
+    void expiredRecordIsNotReplayed() {
+        IdempotencyRecord expired = new IdempotencyRecord("k1", "TransactionResponse", "{}",
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        when(repository.findById("k1")).thenReturn(Optional.of(expired));
+
+        assertThat(service.findCommitted("k1", TransactionResponse.class)).isEmpty();
+    }
+
+    @Test
+    void keyReusedForDifferentOperationIsRejected() {
+        service.record("k1", response);
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(captor.capture());
+        when(repository.findById("k1")).thenReturn(Optional.of(captor.getValue()));
+
+        assertThatThrownBy(() -> service.findCommitted("k1", TransferResponse.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("different operation");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rewriteReplacesStoredResponsesAndRecordsMissingKeys() {
+        IdempotencyRecord pending = new IdempotencyRecord("k1", "TransactionResponse", "{}",
+                LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        when(repository.findAllById(any())).thenReturn(List.of(pending));
+
+        service.rewriteAll(java.util.Map.of("k1", response, "k2", response));
+
+        when(repository.findById("k1")).thenReturn(Optional.of(pending));
+        assertThat(service.findCommitted("k1", TransactionResponse.class)).contains(response);
+        ArgumentCaptor<List<IdempotencyRecord>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(inserted.capture());
+        assertThat(inserted.getValue()).extracting(IdempotencyRecord::getIdempotencyKey).containsExactly("k2");
+    }
+
+    @Test
+    void purgeDeletesExpiredRowsAndRebuildsFilter() {
+        when(repository.deleteExpired(any())).thenReturn(3);
+        when(repository.findLiveKeysAfter(any(), eq(""), any())).thenReturn(List.of());
+
+        service.purgeExpired();
+
+        verify(repository).deleteExpired(any());
+        verify(repository).findLiveKeysAfter(any(), eq(""), any());
+    }
+}
@@ -1,6 +1,7 @@
 package com.payflow.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
@@ -76,4 +77,24 @@ class MetricsServiceTest {
         assertThat(timer).isNotNull();
         assertThat(timer.count()).isEqualTo(1);
     }
+
+    @Test
+    void recordGroupCommitBatchRecordsSize() {
+        metricsService.recordGroupCommitBatch(12);
+        metricsService.recordGroupCommitBatch(4);
+
+        DistributionSummary summary = registry.find("fluxpay.groupcommit.batch.size").summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo(16.0);
+    }
+
+    @Test
+    void recordOutboxCountersIncrementByCount() {
+        metricsService.recordOutboxRelayed(5);
+        metricsService.recordOutboxFailed(2);
+
+        assertThat(registry.find("fluxpay.outbox.relayed").counter().count()).isEqualTo(5.0);
+        assertThat(registry.find("fluxpay.outbox.failed").counter().count()).isEqualTo(2.0);
+    }
 }
@@ -0,0 +1,165 @@
+package com.payflow.service;
+
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Recurrence;
+import com.payflow.model.ScheduledTransfer;
+import com.payflow.model.ScheduledTransferStatus;
+import com.payflow.repository.ScheduledTransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferRunnerTest {
+
+    private static final LocalDateTime DUE = LocalDateTime.of(2026, 3, 1, 9, 0);
+
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+    @Mock
+    private TransferExecutor transferExecutor;
+    @Mock
+    private MetricsService metricsService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ScheduledTransferRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        runner = new ScheduledTransferRunner(scheduledTransferRepository, transferExecutor, metricsService,
+                transactionManager, 2, 10, 60, 3, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void dueSchedulesAreLeasedRunWithOccurrenceKeyAndAdvanced() {
+        ScheduledTransfer schedule = schedule(Recurrence.MONTHLY);
+        when(scheduledTransferRepository.claimDue(any(), eq(10))).thenReturn(List.of(schedule));
+        when(scheduledTransferRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(scheduledTransferRepository.findById(7L)).thenReturn(Optional.of(schedule));
+
+        assertThat(runner.runBatch()).isEqualTo(1);
+
+        verify(transferExecutor).executeTransfer(1L, 2L, BigDecimal.TEN, "rent", "sched-7-20260301090000");
+        assertThat(schedule.getOccurrenceAt()).isEqualTo(DUE.plusMonths(1));
+        assertThat(schedule.getNextAttemptAt()).isEqualTo(DUE.plusMonths(1));
+        assertThat(schedule.getRunCount()).isEqualTo(1);
+        assertThat(schedule.getClaimedUntil()).isNull();
+        verify(metricsService).recordScheduledTransferLateness(any());
+        verify(metricsService).recordScheduledTransferExecuted();
+    }
+
+    @Test
+    void failedRunIsRetriedWithBackoffOnTheSameOccurrence() {
+        ScheduledTransfer schedule = schedule(Recurrence.DAILY);
+        when(scheduledTransferRepository.findById(7L)).thenReturn(Optional.of(schedule));
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new InsufficientFundsException());
+
+        runner.run(schedule);
+
+        assertThat(schedule.getAttempts()).isEqualTo(1);
+        assertThat(schedule.getOccurrenceAt()).isEqualTo(DUE);
+        assertThat(schedule.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(25));
+        assertThat(schedule.getLastError()).isNotBlank();
+        verify(metricsService).recordScheduledTransferRetried();
+    }
+
+    @Test
+    void recurringScheduleSkipsOccurrenceAfterLastAttempt() {
+        ScheduledTransfer schedule = schedule(Recurrence.WEEKLY);
+        schedule.setAttempts(2);
+        when(scheduledTransferRepository.findById(7L)).thenReturn(Optional.of(schedule));
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new InsufficientFundsException());
+
+        runner.run(schedule);
+
+        assertThat(schedule.getStatus()).isEqualTo(ScheduledTransferStatus.ACTIVE);
+        assertThat(schedule.getOccurrenceAt()).isEqualTo(DUE.plusWeeks(1));
+        assertThat(schedule.getAttempts()).isZero();
+        assertThat(schedule.getLastError()).isNotBlank();
+        verify(metricsService).recordScheduledTransferFailed();
+    }
+
+    @Test
+    void oneOffScheduleFailsAfterLastAttempt() {
+        ScheduledTransfer schedule = schedule(Recurrence.ONCE);
+        schedule.setAttempts(2);
+        when(scheduledTransferRepository.findById(7L)).thenReturn(Optional.of(schedule));
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new InsufficientFundsException());
+
+        runner.run(schedule);
+
+        assertThat(schedule.getStatus()).isEqualTo(ScheduledTransferStatus.FAILED);
+    }
+
+    @Test
+    void scheduleCancelledMidRunIsLeftCancelled() {
+        ScheduledTransfer schedule = schedule(Recurrence.DAILY);
+        ScheduledTransfer reloaded = schedule(Recurrence.DAILY);
+        reloaded.setStatus(ScheduledTransferStatus.CANCELLED);
+        when(scheduledTransferRepository.findById(7L)).thenReturn(Optional.of(reloaded));
+
+        runner.run(schedule);
+
+        assertThat(reloaded.getStatus()).isEqualTo(ScheduledTransferStatus.CANCELLED);
+        assertThat(reloaded.getOccurrenceAt()).isEqualTo(DUE);
+        verify(metricsService, never()).recordScheduledTransferExecuted();
+    }
+
+    @Test
+    void missedOccurrencesStayDueSoTheyAreCaughtUp() {
+        ScheduledTransfer schedule = schedule(Recurrence.DAILY);
+        schedule.advance();
+
+        // Still in the past, so the next poll claims it again
+        assertThat(schedule.getNextAttemptAt()).isBefore(LocalDateTime.now());
+        assertThat(schedule.occurrenceKey()).isEqualTo("sched-7-20260302090000");
+    }
+
+    @Test
+    void emptyPollRunsNothing() {
+        when(scheduledTransferRepository.claimDue(any(), anyInt())).thenReturn(List.of());
+        when(scheduledTransferRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        runner.poll();
+
+        verifyNoInteractions(transferExecutor);
+    }
+
+    private static ScheduledTransfer schedule(Recurrence recurrence) {
+        ScheduledTransfer schedule = new ScheduledTransfer();
+        schedule.setId(7L);
+        schedule.setUserId(1L);
+        schedule.setSourceAccountId(1L);
+        schedule.setDestinationAccountId(2L);
+        schedule.setAmount(BigDecimal.TEN);
+        schedule.setDescription("rent");
+        schedule.setRecurrence(recurrence);
+        schedule.setOccurrenceAt(DUE);
+        schedule.setNextAttemptAt(DUE);
+        return schedule;
+    }
+}
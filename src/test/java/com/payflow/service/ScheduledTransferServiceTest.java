@@ -0,0 +1,100 @@
+package com.payflow.service;
+
+import com.payflow.dto.CreateScheduledTransferRequest;
+import com.payflow.dto.ScheduledTransferResponse;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.exception.CurrencyMismatchException;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.Recurrence;
+import com.payflow.model.ScheduledTransfer;
+import com.payflow.model.ScheduledTransferStatus;
+import com.payflow.repository.ScheduledTransferRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferServiceTest {
+
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+
+    @InjectMocks
+    private ScheduledTransferService scheduledTransferService;
+
+    private final LocalDateTime firstRun = LocalDateTime.now().plusDays(1);
+
+    @Test
+    void createStoresFirstOccurrenceAsDue() {
+        when(accountMetadataCache.requireOwned(1L, 1L)).thenReturn(metadata(1L, "USD"));
+        when(accountMetadataCache.requireOwned(2L, 1L)).thenReturn(metadata(2L, "USD"));
+        when(scheduledTransferRepository.save(any(ScheduledTransfer.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        ScheduledTransferResponse response = scheduledTransferService.create(request(2L), 1L);
+
+        assertThat(response.status()).isEqualTo(ScheduledTransferStatus.ACTIVE);
+        assertThat(response.nextRunAt()).isEqualTo(firstRun);
+        verify(scheduledTransferRepository).save(argThat(s -> s.getNextAttemptAt().equals(firstRun)
+                && s.getUserId().equals(1L)));
+    }
+
+    @Test
+    void createRejectsUnownedDestination() {
+        when(accountMetadataCache.requireOwned(1L, 1L)).thenReturn(metadata(1L, "USD"));
+        when(accountMetadataCache.requireOwned(2L, 1L)).thenThrow(new AccountNotFoundException(2L));
+
+        assertThatThrownBy(() -> scheduledTransferService.create(request(2L), 1L))
+                .isInstanceOf(AccountNotFoundException.class);
+        verifyNoInteractions(scheduledTransferRepository);
+    }
+
+    @Test
+    void createRejectsCurrencyMismatch() {
+        when(accountMetadataCache.requireOwned(1L, 1L)).thenReturn(metadata(1L, "USD"));
+        when(accountMetadataCache.requireOwned(2L, 1L)).thenReturn(metadata(2L, "EUR"));
+
+        assertThatThrownBy(() -> scheduledTransferService.create(request(2L), 1L))
+                .isInstanceOf(CurrencyMismatchException.class);
+    }
+
+    @Test
+    void cancelStopsActiveSchedule() {
+        ScheduledTransfer schedule = new ScheduledTransfer();
+        schedule.setId(5L);
+        schedule.setOccurrenceAt(firstRun);
+        schedule.setRecurrence(Recurrence.DAILY);
+        when(scheduledTransferRepository.findByIdAndUserId(5L, 1L)).thenReturn(Optional.of(schedule));
+        when(scheduledTransferRepository.save(schedule)).thenReturn(schedule);
+
+        assertThat(scheduledTransferService.cancel(5L, 1L).status()).isEqualTo(ScheduledTransferStatus.CANCELLED);
+    }
+
+    @Test
+    void cancelThrowsForAnotherUsersSchedule() {
+        when(scheduledTransferRepository.findByIdAndUserId(5L, 2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> scheduledTransferService.cancel(5L, 2L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CreateScheduledTransferRequest request(Long destinationId) {
+        return new CreateScheduledTransferRequest(1L, destinationId, BigDecimal.TEN, "rent",
+                Recurrence.MONTHLY, firstRun, null);
+    }
+
+    private static AccountMetadataCache.AccountMetadata metadata(Long id, String currency) {
+        return new AccountMetadataCache.AccountMetadata(id, 1L, currency, AccountStatus.ACTIVE);
+    }
+}
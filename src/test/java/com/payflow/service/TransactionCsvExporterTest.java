@@ -0,0 +1,105 @@
+package com.payflow.service;
+
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
+import com.payflow.exception.AccountNotFoundException;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.TransactionFilter;
+import com.payflow.repository.TransactionFilterRepository.ExportRow;
+import com.payflow.repository.TransactionRepository;
+import com.payflow.util.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionCsvExporterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private AccountMetadataCache accountMetadataCache;
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @InjectMocks
+    private TransactionCsvExporter exporter;
+
+    private static final TransactionFilter FILTER = TransactionFilter.forAccount(1L);
+
+    private static final ExportRow DEPOSIT = new ExportRow(LocalDateTime.of(2024, 1, 15, 10, 0, 5), "CREDIT",
+            Money.of(new BigDecimal("500")), "Salary", "COMPLETED", Money.of(new BigDecimal("1500")));
+    private static final ExportRow QUOTED = new ExportRow(LocalDateTime.of(2024, 1, 16, 9, 30), "DEBIT",
+            Money.of(new BigDecimal("20.5")), "Say \"hi\", twice", "PENDING", null);
+
+    @Test
+    void writesHeaderAndRowsInTheExistingFormatAndClosesTheCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionRepository.streamForExport(eq(FILTER), anyInt()))
+                .thenReturn(Stream.of(DEPOSIT, QUOTED).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exporter.write(FILTER, out, false)).isEqualTo(2);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "Date,Type,Amount,Description,Status,Balance After\n" +
+                "2024-01-15 10:00:05,CREDIT,500.0000,\"Salary\",COMPLETED,1500.0000\n" +
+                "2024-01-16 09:30:00,DEBIT,20.5000,\"Say \"\"hi\"\", twice\",PENDING,\n");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void archivedRowsFollowTheLiveOnes() throws Exception {
+        LocalDateTime boundary = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionRepository.streamForExport(eq(FILTER.withFrom(boundary)), anyInt())).thenReturn(Stream.of(DEPOSIT));
+        when(transactionArchive.stream(FILTER, true)).thenReturn(Stream.of(new ArchivedTransaction(7L, 1L,
+                TransactionType.DEBIT, new BigDecimal("12.0000"), "Rent", null, "k-7", TransactionStatus.COMPLETED,
+                new BigDecimal("988.0000"), LocalDateTime.of(2023, 12, 31, 23, 59))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exporter.write(FILTER, out, false)).isEqualTo(2);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith(
+                "2024-01-15 10:00:05,CREDIT,500.0000,\"Salary\",COMPLETED,1500.0000\n" +
+                "2023-12-31 23:59:00,DEBIT,12.0000,\"Rent\",COMPLETED,988.0000\n");
+    }
+
+    @Test
+    void gzipOutputDecompressesToTheSameCsv() throws Exception {
+        when(transactionRepository.streamForExport(eq(FILTER), anyInt())).thenReturn(Stream.of(DEPOSIT));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.write(FILTER, out, true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .startsWith(TransactionCsvExporter.HEADER)
+                    .endsWith("\"Salary\",COMPLETED,1500.0000\n");
+        }
+    }
+
+    @Test
+    void prepareChecksOwnershipBeforeAnythingIsStreamed() {
+        when(accountMetadataCache.requireOwned(1L, 2L)).thenThrow(new AccountNotFoundException(1L));
+
+        assertThatThrownBy(() -> exporter.prepare(1L, null, null, null, null, 2L))
+                .isInstanceOf(AccountNotFoundException.class);
+        verifyNoInteractions(transactionRepository);
+    }
+}
@@ -2,6 +2,7 @@ package com.payflow.service;
 
 import com.payflow.dto.*;
 import com.payflow.model.Account;
+import com.payflow.model.TransactionType;
 import com.payflow.model.User;
 import com.payflow.repository.AccountRepository;
 import com.payflow.repository.UserRepository;
@@ -15,25 +16,41 @@ import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ActiveProfiles("test")
 @Testcontainers
 @TestPropertySource(properties = {
         "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
-        "spring.datasource.url=jdbc:tc:postgresql:16:///testdb",
-        "spring.datasource.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver",
+        // TEST_POSTGRES_URL (e.g. jdbc:postgresql://localhost:5432/) runs against an existing server instead of Docker
+        "spring.datasource.url=${TEST_POSTGRES_URL:jdbc:tc:postgresql:16:///}testdb",
+        // Blank: the driver follows the URL, overriding the Testcontainers driver pinned in application-test.yml
+        "spring.datasource.driver-class-name=",
         "spring.jpa.hibernate.ddl-auto=create-drop",
-        "spring.flyway.enabled=false"
+        "spring.flyway.enabled=false",
+        "app.outbox.relay.enabled=false"
 })
 class TransactionIntegrationTest {
 
     @Autowired
     private TransactionService transactionService;
     @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransferExecutor transferExecutor;
+    @Autowired
+    private BatchTransactionService batchTransactionService;
+    @Autowired
     private AccountRepository accountRepository;
     @Autowired
     private UserRepository userRepository;
@@ -43,6 +60,8 @@ class TransactionIntegrationTest {
     @MockBean
     private RateLimitService rateLimitService;
     @MockBean
+    private org.springframework.data.redis.listener.RedisMessageListenerContainer redisMessageListenerContainer;
+    @MockBean
     private com.payflow.event.TransactionEventPublisher transactionEventPublisher;
 
     private Account sourceAccount;
@@ -50,7 +69,15 @@ class TransactionIntegrationTest {
     private Long userId;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        when(balanceCacheService.readThrough(any(), any())).thenAnswer(inv -> {
+            Function<Long, BigDecimal> loader = inv.getArgument(1);
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            inv.<Collection<Long>>getArgument(0).forEach(id -> balances.put(id, loader.apply(id)));
+            return balances;
+        });
+
         User user = userRepository.save(new User("integ-" + UUID.randomUUID() + "@test.com", "hash", "Test User"));
         userId = user.getId();
 
@@ -114,4 +141,159 @@ class TransactionIntegrationTest {
         Account updatedSource = accountRepository.findById(sourceAccount.getId()).orElseThrow();
         assertThat(updatedSource.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(900));
     }
+
+    @Test
+    void hotAccountKeepsTotalsConsistent() {
+        accountService.updateSharding(destAccount.getId(), userId, new UpdateShardingRequest(4));
+
+        for (int i = 0; i < 5; i++) {
+            transactionService.transfer(new TransferRequest(sourceAccount.getId(), destAccount.getId(),
+                    BigDecimal.valueOf(10), "To hot account", UUID.randomUUID().toString()), userId);
+        }
+        TransactionResponse withdraw = transactionService.withdraw(new WithdrawRequest(destAccount.getId(),
+                BigDecimal.valueOf(520), "Drain across shards", UUID.randomUUID().toString()), userId);
+
+        // 500 + 5 x 10 - 520, drawn from whichever shards hold the funds; sharded rows carry no balance_after
+        assertThat(withdraw.balanceAfter()).isNull();
+        assertThat(accountService.getById(destAccount.getId(), userId).balance())
+                .isEqualByComparingTo(BigDecimal.valueOf(30));
+
+        accountService.updateSharding(destAccount.getId(), userId, new UpdateShardingRequest(0));
+        Account folded = accountRepository.findById(destAccount.getId()).orElseThrow();
+        assertThat(folded.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(30));
+    }
+
+    @Test
+    void versionTagsMoveWithShardWritesOnHotAccount() {
+        accountService.updateSharding(destAccount.getId(), userId, new UpdateShardingRequest(2));
+        String accountTag = accountService.versionTag(destAccount.getId(), userId);
+        String userTag = accountService.versionTagForUser(userId);
+        String ledgerTag = transactionService.ledgerTag(destAccount.getId(), userId);
+
+        // Lands on a shard row only: the account version stays put
+        TransactionResponse deposit = transactionService.deposit(new DepositRequest(destAccount.getId(),
+                BigDecimal.TEN, "Shard write", UUID.randomUUID().toString()), userId);
+
+        assertThat(accountService.versionTag(destAccount.getId(), userId)).isNotEqualTo(accountTag);
+        assertThat(accountService.versionTagForUser(userId)).isNotEqualTo(userTag);
+        assertThat(transactionService.ledgerTag(destAccount.getId(), userId))
+                .isNotEqualTo(ledgerTag)
+                .endsWith("." + deposit.id() + ".0");
+        assertThat(transactionService.versionTag(deposit.id(), userId)).isEqualTo(deposit.id() + ".COMPLETED");
+    }
+
+    @Test
+    void accountBatchAppliesOperationsInOrderWithOneBalanceWrite() {
+        Long id = sourceAccount.getId();
+        String depositKey = UUID.randomUUID().toString();
+        List<BalanceOperation> ops = List.of(
+                new BalanceOperation(id, TransactionType.CREDIT, BigDecimal.valueOf(100), null, depositKey),
+                new BalanceOperation(id, TransactionType.DEBIT, BigDecimal.valueOf(5000), null, UUID.randomUUID().toString()),
+                new BalanceOperation(id, TransactionType.DEBIT, BigDecimal.valueOf(600), null, UUID.randomUUID().toString()),
+                new BalanceOperation(id, TransactionType.CREDIT, BigDecimal.valueOf(100), null, depositKey));
+
+        List<BalanceOperation.Outcome> outcomes = transferExecutor.executeAccountBatch(id, ops);
+
+        assertThat(outcomes.get(0).response().balanceAfter()).isEqualByComparingTo(BigDecimal.valueOf(1100));
+        assertThat(outcomes.get(1).error()).isInstanceOf(com.payflow.exception.InsufficientFundsException.class);
+        assertThat(outcomes.get(2).response().balanceAfter()).isEqualByComparingTo(BigDecimal.valueOf(500));
+        // Duplicate key inside the batch replays the first operation
+        assertThat(outcomes.get(3).response().id()).isEqualTo(outcomes.get(0).response().id());
+
+        Account updated = accountRepository.findById(id).orElseThrow();
+        assertThat(updated.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(500));
+        assertThat(updated.getVersion()).isEqualTo(sourceAccount.getVersion() + 1);
+    }
+
+    @Test
+    void bulkBatchCommitsValidItemsAndReportsFailures() {
+        Long src = sourceAccount.getId();
+        Long dst = destAccount.getId();
+        String transferKey = UUID.randomUUID().toString();
+        BatchTransactionRequest request = new BatchTransactionRequest(List.of(
+                new BatchTransactionRequest.Item(BatchTransactionRequest.ItemType.TRANSFER, src, dst,
+                        BigDecimal.valueOf(300), "bulk", transferKey),
+                new BatchTransactionRequest.Item(BatchTransactionRequest.ItemType.WITHDRAW, src, null,
+                        BigDecimal.valueOf(5000), null, UUID.randomUUID().toString()),
+                new BatchTransactionRequest.Item(BatchTransactionRequest.ItemType.DEPOSIT, dst, null,
+                        BigDecimal.valueOf(50), null, UUID.randomUUID().toString())));
+
+        BatchTransactionResponse response = batchTransactionService.execute(request, userId);
+
+        assertThat(response.succeeded()).isEqualTo(2);
+        assertThat(response.results().get(1).success()).isFalse();
+        assertThat(response.results().get(0).transactions()).hasSize(2);
+        assertThat(accountRepository.findById(src).orElseThrow().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(700));
+        assertThat(accountRepository.findById(dst).orElseThrow().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(850));
+
+        // Resubmitting the same transfer key replays the original pair
+        BatchTransactionResponse replay = batchTransactionService.execute(
+                new BatchTransactionRequest(List.of(request.items().get(0))), userId);
+        assertThat(replay.results().get(0).correlationId()).isEqualTo(response.results().get(0).correlationId());
+        assertThat(accountRepository.findById(src).orElseThrow().getBalance()).isEqualByComparingTo(BigDecimal.valueOf(700));
+    }
+
+    @Test
+    void asyncTransferIsAcceptedPendingThenSettles() {
+        TransferRequest request = new TransferRequest(sourceAccount.getId(), destAccount.getId(),
+                BigDecimal.valueOf(250), "async", UUID.randomUUID().toString());
+
+        TransactionResponse accepted = transactionService.transferAsync(request, userId);
+        assertThat(accepted.status()).isEqualTo(com.payflow.model.TransactionStatus.PENDING);
+        assertThat(accepted.balanceAfter()).isNull();
+
+        TransactionResponse settled = transactionService.awaitTransaction(accepted.id(), 10_000, userId).join();
+        assertThat(settled.status()).isEqualTo(com.payflow.model.TransactionStatus.COMPLETED);
+        assertThat(settled.balanceAfter()).isEqualByComparingTo(BigDecimal.valueOf(750));
+        assertThat(accountRepository.findById(destAccount.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(750));
+
+        // Re-accepting the same key returns the settled leg instead of a second transfer
+        assertThat(transactionService.transferAsync(request, userId).status())
+                .isEqualTo(com.payflow.model.TransactionStatus.COMPLETED);
+    }
+
+    @Test
+    void splitTransferFansOutUnderOneCorrelationId() {
+        Account third = new Account(userId, "Payee", "USD");
+        third = accountRepository.save(third);
+        String key = UUID.randomUUID().toString();
+        SplitTransferRequest request = new SplitTransferRequest(sourceAccount.getId(), List.of(
+                new SplitTransferRequest.Leg(destAccount.getId(), BigDecimal.valueOf(100), null),
+                new SplitTransferRequest.Leg(third.getId(), BigDecimal.valueOf(150), "commission")),
+                "settlement", key);
+
+        SplitTransferResponse response = transactionService.transferSplit(request, userId);
+
+        assertThat(response.debit().amount()).isEqualByComparingTo(BigDecimal.valueOf(250));
+        assertThat(response.credits()).hasSize(2);
+        assertThat(accountRepository.findById(sourceAccount.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(750));
+        assertThat(accountRepository.findById(destAccount.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(600));
+        assertThat(accountRepository.findById(third.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(150));
+
+        SplitTransferResponse replay = transactionService.transferSplit(request, userId);
+        assertThat(replay.correlationId()).isEqualTo(response.correlationId());
+        assertThat(accountRepository.findById(sourceAccount.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(750));
+    }
+
+    @Test
+    void maximumLengthKeyFitsEverySplitLegKey() {
+        List<SplitTransferRequest.Leg> legs = new java.util.ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            legs.add(new SplitTransferRequest.Leg(destAccount.getId(), BigDecimal.ONE, null));
+        }
+        String key = UUID.randomUUID() + "x".repeat(64);
+
+        SplitTransferResponse response = transactionService.transferSplit(
+                new SplitTransferRequest(sourceAccount.getId(), legs, "payroll", key), userId);
+
+        assertThat(key).hasSize(100);
+        assertThat(response.credits()).hasSize(100);
+        assertThat(accountRepository.findById(destAccount.getId()).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(600));
+    }
 }
@@ -0,0 +1,88 @@
+package com.payflow.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createsPartitionsAheadOfTheCurrentMonth() {
+        givenPartitioned(true);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT create_transaction_partitions"), eq(Integer.class), any(), any()))
+                .thenReturn(1);
+
+        new TransactionPartitionMaintainer(jdbcTemplate, 3, 0).maintain();
+
+        YearMonth current = YearMonth.now();
+        verify(jdbcTemplate).queryForObject(startsWith("SELECT create_transaction_partitions"), eq(Integer.class),
+                eq(current.atDay(1)), eq(current.plusMonths(3).atDay(1)));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void detachesOnlyPartitionsOlderThanTheRetentionWindow() {
+        givenPartitioned(true);
+        YearMonth current = YearMonth.now();
+        when(jdbcTemplate.queryForList(startsWith("SELECT c.relname"))).thenReturn(List.of(
+                partition(current.minusMonths(14), false),
+                partition(current.minusMonths(13), true),
+                partition(current.minusMonths(12), false),
+                Map.of("relname", "transactions_archive_copy", "inhdetachpending", false),
+                Map.of("relname", "transactions_default", "inhdetachpending", false)));
+
+        new TransactionPartitionMaintainer(jdbcTemplate, 3, 12).maintain();
+
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION " + name(current.minusMonths(14)));
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION " + name(current.minusMonths(13)) + " FINALIZE");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+        // Detached months keep their idempotency keys
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void skipsUnpartitionedSchemas() {
+        givenPartitioned(false);
+
+        new TransactionPartitionMaintainer(jdbcTemplate, 3, 12).maintain();
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Integer.class), any(), any());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void monthOfAcceptsOnlyGeneratedPartitionNames() {
+        assertThat(TransactionPartitionMaintainer.monthOf("transactions_p202401")).contains(YearMonth.of(2024, 1));
+        assertThat(TransactionPartitionMaintainer.monthOf("transactions_p2024011")).isEmpty();
+        assertThat(TransactionPartitionMaintainer.monthOf("transactions_p202401; DROP TABLE users")).isEmpty();
+    }
+
+    private void givenPartitioned(boolean partitioned) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS"), eq(Boolean.class))).thenReturn(partitioned);
+    }
+
+    private static Map<String, Object> partition(YearMonth month, boolean detachPending) {
+        return Map.of("relname", name(month), "inhdetachpending", detachPending);
+    }
+
+    private static String name(YearMonth month) {
+        return String.format("transactions_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+}
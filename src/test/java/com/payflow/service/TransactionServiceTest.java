@@ -1,26 +1,40 @@
 package com.payflow.service;
 
+import com.payflow.archive.ArchivedTransaction;
+import com.payflow.archive.TransactionArchive;
 import com.payflow.dto.*;
+import com.payflow.exception.AccountBusyException;
 import com.payflow.exception.AccountNotFoundException;
 import com.payflow.exception.AccountFrozenException;
 import com.payflow.exception.InsufficientFundsException;
 import com.payflow.model.*;
-import com.payflow.repository.AccountRepository;
+import com.payflow.repository.TransactionFilter;
 import com.payflow.repository.TransactionRepository;
+import com.payflow.util.TransactionCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
@@ -31,11 +45,23 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     @Mock
-    private AccountRepository accountRepository;
+    private AccountMetadataCache accountMetadataCache;
     @Mock
     private TransferExecutor transferExecutor;
     @Mock
     private MetricsService metricsService;
+    @Mock
+    private GroupCommitEngine groupCommitEngine;
+    @Mock
+    private BalanceStrategyRegistry balanceStrategies;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private AsyncTransferPipeline asyncTransferPipeline;
+    @Mock
+    private AccountAdmissionController accountAdmission;
+    @Mock
+    private TransactionArchive transactionArchive;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -45,8 +71,6 @@ class TransactionServiceTest {
     private WithdrawRequest withdrawRequest;
     private TransferResponse mockTransferResponse;
     private TransactionResponse mockTxResponse;
-    private Account sourceAccount;
-    private Account destAccount;
 
     private static final Long USER_ID = 1L;
 
@@ -71,20 +95,10 @@ class TransactionServiceTest {
 
         mockTxResponse = new TransactionResponse(1L, 1L, TransactionType.CREDIT,
                 BigDecimal.valueOf(500), "Deposit", null, TransactionStatus.COMPLETED, BigDecimal.valueOf(1500), null);
-
-        sourceAccount = new Account(USER_ID, "Source", "USD");
-        sourceAccount.setId(1L);
-        sourceAccount.setBalance(BigDecimal.valueOf(1000));
-
-        destAccount = new Account(USER_ID, "Dest", "USD");
-        destAccount.setId(2L);
-        destAccount.setBalance(BigDecimal.valueOf(1000));
     }
 
     @Test
     void transferSuccessfully() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(eq(1L), eq(2L), eq(BigDecimal.valueOf(100)),
                 eq("Test transfer"), eq("idem-key-1"))).thenReturn(mockTransferResponse);
 
@@ -106,9 +120,7 @@ class TransactionServiceTest {
 
     @Test
     void transferThrowsWhenUserDoesNotOwnSource() {
-        Account otherUsersAccount = new Account(999L, "Other", "USD");
-        otherUsersAccount.setId(1L);
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(otherUsersAccount));
+        when(accountMetadataCache.requireOwned(1L, USER_ID)).thenThrow(new AccountNotFoundException(1L));
 
         assertThatThrownBy(() -> transactionService.transfer(transferRequest, USER_ID))
                 .isInstanceOf(AccountNotFoundException.class);
@@ -116,8 +128,6 @@ class TransactionServiceTest {
 
     @Test
     void transferRetriesOnOptimisticLock() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
                 .thenThrow(new ObjectOptimisticLockingFailureException(Account.class.getName(), 1L))
                 .thenReturn(mockTransferResponse);
@@ -130,8 +140,6 @@ class TransactionServiceTest {
 
     @Test
     void transferThrowsAfterMaxRetries() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
                 .thenThrow(new ObjectOptimisticLockingFailureException(Account.class.getName(), 1L));
 
@@ -140,10 +148,52 @@ class TransactionServiceTest {
         verify(transferExecutor, times(3)).executeTransfer(any(), any(), any(), any(), any());
     }
 
+    @Test
+    void pessimisticModeDoesNotRetryVersionConflicts() {
+        when(balanceStrategies.isPessimistic()).thenReturn(true);
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Account.class.getName(), 1L));
+
+        assertThatThrownBy(() -> transactionService.transfer(transferRequest, USER_ID))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(transferExecutor, times(1)).executeTransfer(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void concurrentDuplicateTransferReplaysStoredResponse() {
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        when(idempotencyService.findCommitted("idem-key-1", TransferResponse.class))
+                .thenReturn(Optional.of(mockTransferResponse));
+
+        TransferResponse result = transactionService.transfer(transferRequest, USER_ID);
+
+        assertThat(result).isSameAs(mockTransferResponse);
+        verify(transferExecutor, times(1)).executeTransfer(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void concurrentDuplicateDepositFallsBackToLedgerWhenStoreEntryExpired() {
+        when(transferExecutor.executeDeposit(any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+        when(idempotencyService.findCommitted("idem-dep-1", TransactionResponse.class)).thenReturn(Optional.empty());
+        Transaction original = new Transaction();
+        original.setId(9L);
+        original.setAccountId(1L);
+        original.setType(TransactionType.CREDIT);
+        original.setAmount(BigDecimal.valueOf(500));
+        original.setIdempotencyKey("idem-dep-1");
+        original.setStatus(TransactionStatus.COMPLETED);
+        original.setBalanceAfter(BigDecimal.valueOf(1500));
+        when(transactionRepository.findByIdempotencyKey("idem-dep-1")).thenReturn(Optional.of(original));
+
+        TransactionResponse result = transactionService.deposit(depositRequest, USER_ID);
+
+        assertThat(result.id()).isEqualTo(9L);
+    }
+
     @Test
     void transferThrowsOnInsufficientFunds() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
                 .thenThrow(new InsufficientFundsException());
 
@@ -153,8 +203,6 @@ class TransactionServiceTest {
 
     @Test
     void transferThrowsOnFrozenAccount() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
                 .thenThrow(new AccountFrozenException(1L));
 
@@ -164,8 +212,6 @@ class TransactionServiceTest {
 
     @Test
     void transferThrowsOnMissingAccount() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findById(2L)).thenReturn(Optional.of(destAccount));
         when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
                 .thenThrow(new AccountNotFoundException(99L));
 
@@ -175,7 +221,6 @@ class TransactionServiceTest {
 
     @Test
     void depositSuccessfully() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
         when(transferExecutor.executeDeposit(eq(1L), eq(BigDecimal.valueOf(500)),
                 eq("Test deposit"), eq("idem-dep-1"))).thenReturn(mockTxResponse);
 
@@ -185,11 +230,22 @@ class TransactionServiceTest {
         assertThat(result.type()).isEqualTo(TransactionType.CREDIT);
     }
 
+    @Test
+    void depositGoesThroughGroupCommitWhenEnabled() {
+        when(groupCommitEngine.isEnabled()).thenReturn(true);
+        when(groupCommitEngine.submit(any(BalanceOperation.class))).thenReturn(mockTxResponse);
+
+        TransactionResponse result = transactionService.deposit(depositRequest, USER_ID);
+
+        assertThat(result).isSameAs(mockTxResponse);
+        verify(groupCommitEngine).submit(new BalanceOperation(1L, TransactionType.CREDIT,
+                BigDecimal.valueOf(500), "Test deposit", "idem-dep-1"));
+        verify(transferExecutor, never()).executeDeposit(any(), any(), any(), any());
+    }
+
     @Test
     void depositThrowsWhenUserDoesNotOwnAccount() {
-        Account otherUsersAccount = new Account(999L, "Other", "USD");
-        otherUsersAccount.setId(1L);
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(otherUsersAccount));
+        when(accountMetadataCache.requireOwned(1L, USER_ID)).thenThrow(new AccountNotFoundException(1L));
 
         assertThatThrownBy(() -> transactionService.deposit(depositRequest, USER_ID))
                 .isInstanceOf(AccountNotFoundException.class);
@@ -199,7 +255,6 @@ class TransactionServiceTest {
     void withdrawSuccessfully() {
         TransactionResponse withdrawResp = new TransactionResponse(1L, 1L, TransactionType.DEBIT,
                 BigDecimal.valueOf(50), "Withdrawal", null, TransactionStatus.COMPLETED, BigDecimal.valueOf(950), null);
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
         when(transferExecutor.executeWithdraw(eq(1L), eq(BigDecimal.valueOf(50)),
                 eq("Test withdraw"), eq("idem-wd-1"))).thenReturn(withdrawResp);
 
@@ -211,7 +266,6 @@ class TransactionServiceTest {
 
     @Test
     void withdrawThrowsOnInsufficientFunds() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
         when(transferExecutor.executeWithdraw(any(), any(), any(), any()))
                 .thenThrow(new InsufficientFundsException());
 
@@ -231,7 +285,6 @@ class TransactionServiceTest {
         tx.setIdempotencyKey("key");
 
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(tx));
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(sourceAccount));
 
         TransactionResponse result = transactionService.getById(1L, USER_ID);
 
@@ -246,6 +299,38 @@ class TransactionServiceTest {
                 .isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    void ledgerTagCombinesBalanceSequenceNewestRowAndPendingCount() {
+        TransactionRepository.LedgerHeadView head = mock(TransactionRepository.LedgerHeadView.class);
+        when(head.getBalanceSequence()).thenReturn(5L);
+        when(head.getLastTransactionId()).thenReturn(42L);
+        when(head.getPendingCount()).thenReturn(2L);
+        when(transactionRepository.findLedgerHead(1L)).thenReturn(head);
+
+        assertThat(transactionService.ledgerTag(1L, USER_ID)).isEqualTo("1.5.42.2");
+        verify(accountMetadataCache).requireOwned(1L, USER_ID);
+    }
+
+    @Test
+    void ledgerTagChecksOwnershipBeforeQuerying() {
+        when(accountMetadataCache.requireOwned(1L, USER_ID)).thenThrow(new AccountNotFoundException(1L));
+
+        assertThatThrownBy(() -> transactionService.ledgerTag(1L, USER_ID))
+                .isInstanceOf(AccountNotFoundException.class);
+        verify(transactionRepository, never()).findLedgerHead(any());
+    }
+
+    @Test
+    void versionTagReadsStatusWithoutLoadingRow() {
+        TransactionRepository.StatusView view = mock(TransactionRepository.StatusView.class);
+        when(view.getAccountId()).thenReturn(1L);
+        when(view.getStatus()).thenReturn(TransactionStatus.PENDING);
+        when(transactionRepository.findStatusById(7L)).thenReturn(Optional.of(view));
+
+        assertThat(transactionService.versionTag(7L, USER_ID)).isEqualTo("7.PENDING");
+        verify(transactionRepository, never()).findById(any());
+    }
+
     @Test
     void getByIdThrowsWhenUserDoesNotOwnAccount() {
         Transaction tx = new Transaction();
@@ -257,13 +342,269 @@ class TransactionServiceTest {
         tx.setBalanceAfter(BigDecimal.valueOf(1100));
         tx.setIdempotencyKey("key");
 
-        Account otherUsersAccount = new Account(999L, "Other", "USD");
-        otherUsersAccount.setId(1L);
-
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(tx));
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(otherUsersAccount));
+        when(accountMetadataCache.requireOwned(1L, USER_ID)).thenThrow(new AccountNotFoundException(1L));
 
         assertThatThrownBy(() -> transactionService.getById(1L, USER_ID))
                 .isInstanceOf(AccountNotFoundException.class);
     }
+
+    @Test
+    void transferAsyncEnqueuesPendingTransfer() {
+        TransactionResponse pending = new TransactionResponse(5L, 1L, TransactionType.DEBIT, BigDecimal.valueOf(100),
+                "Test transfer", UUID.randomUUID(), TransactionStatus.PENDING, null, null);
+        when(transferExecutor.acceptTransfer(1L, 2L, BigDecimal.valueOf(100), "Test transfer", "idem-key-1"))
+                .thenReturn(pending);
+
+        TransactionResponse result = transactionService.transferAsync(transferRequest, USER_ID);
+
+        assertThat(result.status()).isEqualTo(TransactionStatus.PENDING);
+        verify(asyncTransferPipeline).enqueue(5L);
+    }
+
+    @Test
+    void transferAsyncReplayOfSettledTransferIsNotRequeued() {
+        when(transferExecutor.acceptTransfer(any(), any(), any(), any(), any()))
+                .thenReturn(mockTransferResponse.debit());
+
+        TransactionResponse result = transactionService.transferAsync(transferRequest, USER_ID);
+
+        assertThat(result.status()).isEqualTo(TransactionStatus.COMPLETED);
+        verifyNoInteractions(asyncTransferPipeline);
+    }
+
+    @Test
+    void awaitTransactionReturnsSettledLegWhenPipelineCompletes() {
+        Transaction tx = new Transaction();
+        tx.setId(5L);
+        tx.setAccountId(1L);
+        tx.setType(TransactionType.DEBIT);
+        tx.setAmount(BigDecimal.valueOf(100));
+        tx.setStatus(TransactionStatus.PENDING);
+        tx.setIdempotencyKey("key");
+        when(transactionRepository.findById(5L)).thenReturn(Optional.of(tx));
+        CompletableFuture<TransactionResponse> settlement = new CompletableFuture<>();
+        when(asyncTransferPipeline.awaitSettlement(5L, 1000L)).thenReturn(settlement);
+
+        CompletableFuture<TransactionResponse> result = transactionService.awaitTransaction(5L, 1000L, USER_ID);
+        assertThat(result).isNotDone();
+
+        settlement.complete(mockTransferResponse.debit());
+        assertThat(result.join().status()).isEqualTo(TransactionStatus.COMPLETED);
+    }
+
+    @Test
+    void awaitTransactionDoesNotWaitForSettledTransaction() {
+        Transaction tx = new Transaction();
+        tx.setId(1L);
+        tx.setAccountId(1L);
+        tx.setType(TransactionType.CREDIT);
+        tx.setAmount(BigDecimal.valueOf(100));
+        tx.setStatus(TransactionStatus.COMPLETED);
+        tx.setBalanceAfter(BigDecimal.valueOf(1100));
+        tx.setIdempotencyKey("key");
+        when(transactionRepository.findById(1L)).thenReturn(Optional.of(tx));
+
+        assertThat(transactionService.awaitTransaction(1L, 1000L, USER_ID).join().id()).isEqualTo(1L);
+        verifyNoInteractions(asyncTransferPipeline);
+    }
+
+    @Test
+    void transferBacksOffBetweenRetries() {
+        when(transferExecutor.executeTransfer(any(), any(), any(), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Account.class.getName(), 1L))
+                .thenReturn(mockTransferResponse);
+
+        transactionService.transfer(transferRequest, USER_ID);
+
+        verify(accountAdmission).admit(java.util.List.of(1L, 2L));
+        verify(accountAdmission).pauseBeforeRetry(1);
+    }
+
+    @Test
+    void busyAccountIsRejectedBeforeExecuting() {
+        when(accountAdmission.admit(java.util.List.of(1L))).thenThrow(new AccountBusyException(1L, 1));
+
+        assertThatThrownBy(() -> transactionService.deposit(depositRequest, USER_ID))
+                .isInstanceOf(AccountBusyException.class);
+        verifyNoInteractions(transferExecutor);
+    }
+
+    @Test
+    void splitTransferAdmitsEveryAccountAndExecutesOnce() {
+        SplitTransferRequest request = new SplitTransferRequest(1L, java.util.List.of(
+                new SplitTransferRequest.Leg(2L, BigDecimal.TEN, null),
+                new SplitTransferRequest.Leg(3L, BigDecimal.ONE, null)), "payout", "split-key");
+        SplitTransferResponse response = new SplitTransferResponse(UUID.randomUUID(),
+                mockTransferResponse.debit(), java.util.List.of(mockTransferResponse.credit()));
+        when(transferExecutor.executeSplitTransfer(1L, request.legs(), "payout", "split-key")).thenReturn(response);
+
+        assertThat(transactionService.transferSplit(request, USER_ID)).isSameAs(response);
+        verify(accountMetadataCache).requireOwned(3L, USER_ID);
+        verify(accountAdmission).admit(java.util.Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void splitTransferRejectsSourceAsDestination() {
+        SplitTransferRequest request = new SplitTransferRequest(1L, java.util.List.of(
+                new SplitTransferRequest.Leg(1L, BigDecimal.TEN, null)), null, "split-key");
+
+        assertThatThrownBy(() -> transactionService.transferSplit(request, USER_ID))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(transferExecutor);
+    }
+
+    @Test
+    void getTransactionsAfterFetchesOneExtraRowAndEncodesNextCursor() {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<Transaction> rows = List.of(ledgerRow(30L, base.plusMinutes(2)), ledgerRow(20L, base.plusMinutes(1)),
+                ledgerRow(10L, base));
+        when(transactionRepository.findByFiltersAfter(TransactionFilter.forAccount(1L), null, 3))
+                .thenReturn(rows);
+
+        CursorPage<TransactionResponse> page = transactionService.getTransactionsAfter(
+                1L, null, null, null, null, null, null, null, 2, USER_ID);
+
+        assertThat(page.content()).extracting(TransactionResponse::id).containsExactly(30L, 20L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(TransactionCursor.decode(page.nextCursor()))
+                .isEqualTo(new TransactionCursor(base.plusMinutes(1), 20L));
+        verify(accountMetadataCache).requireOwned(1L, USER_ID);
+    }
+
+    @Test
+    void getTransactionsAfterSeeksPastDecodedCursor() {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_456_000);
+        String cursor = new TransactionCursor(at, 20L).encode();
+        when(transactionRepository.findByFiltersAfter(
+                new TransactionFilter(1L, TransactionType.DEBIT, null, null, null, null, null),
+                new TransactionCursor(at, 20L), 21))
+                .thenReturn(List.of(ledgerRow(10L, at.minusSeconds(1))));
+
+        CursorPage<TransactionResponse> page = transactionService.getTransactionsAfter(
+                1L, TransactionType.DEBIT, null, null, null, null, null, cursor, 20, USER_ID);
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void getTransactionsAfterRejectsMalformedCursor() {
+        assertThatThrownBy(() -> transactionService.getTransactionsAfter(
+                1L, null, null, null, null, null, null, "not-a-cursor", 20, USER_ID))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getTransactionsContinuesNewestFirstPagesIntoTheArchive() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 2, 1, 0, 0);
+        TransactionFilter filter = TransactionFilter.forAccount(1L);
+        Sort sort = Sort.by("created_at").descending();
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionRepository.countByFilters(filter.withFrom(boundary))).thenReturn(1L);
+        when(transactionRepository.findByFilters(filter.withFrom(boundary), sort, 0, 3))
+                .thenReturn(List.of(ledgerRow(30L, boundary.plusDays(3))));
+        when(transactionArchive.stream(filter, true)).thenReturn(Stream.of(
+                archivedRow(2L, boundary.minusDays(1)), archivedRow(1L, boundary.minusDays(2))));
+        when(transactionArchive.count(filter)).thenReturn(2L);
+
+        Page<TransactionResponse> page = transactionService.getTransactions(
+                1L, null, null, null, null, null, null, PageRequest.of(0, 3, sort), USER_ID);
+
+        assertThat(page.getContent()).extracting(TransactionResponse::id).containsExactly(30L, 2L, 1L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void getTransactionsSkipsTheArchiveWhenTheRangeStartsAfterIt() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 2, 1, 0, 0);
+        TransactionFilter filter = new TransactionFilter(1L, null, null, boundary.plusDays(1), null, null, null);
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by("created_at").descending());
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionRepository.findByFilters(filter, pageable)).thenReturn(Page.empty(pageable));
+
+        transactionService.getTransactions(1L, null, null, boundary.plusDays(1), null, null, null, pageable, USER_ID);
+
+        verify(transactionArchive, never()).stream(any(), anyBoolean());
+    }
+
+    @Test
+    void getTransactionsAfterFillsTheSliceFromTheArchive() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 2, 1, 0, 0);
+        TransactionFilter filter = TransactionFilter.forAccount(1L);
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionRepository.findByFiltersAfter(filter.withFrom(boundary), null, 3))
+                .thenReturn(List.of(ledgerRow(30L, boundary.plusDays(3))));
+        when(transactionArchive.stream(filter, true)).thenReturn(Stream.of(
+                archivedRow(2L, boundary.minusDays(1)), archivedRow(1L, boundary.minusDays(2))));
+
+        CursorPage<TransactionResponse> page = transactionService.getTransactionsAfter(
+                1L, null, null, null, null, null, null, null, 2, USER_ID);
+
+        assertThat(page.content()).extracting(TransactionResponse::id).containsExactly(30L, 2L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(TransactionCursor.decode(page.nextCursor()))
+                .isEqualTo(new TransactionCursor(boundary.minusDays(1), 2L));
+    }
+
+    @Test
+    void getTransactionsAfterReadsOnlyTheArchiveBelowTheBoundary() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime at = boundary.minusDays(1);
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        when(transactionArchive.stream(TransactionFilter.forAccount(1L).withTo(at), true)).thenReturn(Stream.of(
+                archivedRow(3L, at), archivedRow(2L, at), archivedRow(1L, at.minusHours(1))));
+
+        CursorPage<TransactionResponse> page = transactionService.getTransactionsAfter(
+                1L, null, null, null, null, null, null, new TransactionCursor(at, 3L).encode(), 20, USER_ID);
+
+        assertThat(page.content()).extracting(TransactionResponse::id).containsExactly(2L, 1L);
+        verify(transactionRepository, never()).findByFiltersAfter(any(), any(), anyInt());
+    }
+
+    @Test
+    void getTransactionsMergesTheArchiveForNonTimeSorts() {
+        LocalDateTime boundary = LocalDateTime.of(2024, 2, 1, 0, 0);
+        TransactionFilter filter = TransactionFilter.forAccount(1L);
+        Sort sort = Sort.by("amount").descending();
+        when(transactionArchive.boundary()).thenReturn(boundary);
+        Transaction small = ledgerRow(31L, boundary.plusDays(2));
+        small.setAmount(BigDecimal.valueOf(2));
+        when(transactionRepository.findByFilters(filter.withFrom(boundary), sort, 0, 4))
+                .thenReturn(List.of(ledgerRow(30L, boundary.plusDays(3)), small));
+        when(transactionRepository.countByFilters(filter.withFrom(boundary))).thenReturn(2L);
+        when(transactionArchive.stream(filter, false)).thenReturn(Stream.of(
+                archivedRow(1L, BigDecimal.valueOf(5)), archivedRow(2L, BigDecimal.ONE),
+                archivedRow(3L, BigDecimal.valueOf(8)), archivedRow(4L, BigDecimal.valueOf(3))));
+
+        Page<TransactionResponse> page = transactionService.getTransactions(
+                1L, null, null, null, null, null, null, PageRequest.of(1, 2, sort), USER_ID);
+
+        assertThat(page.getContent()).extracting(TransactionResponse::id).containsExactly(1L, 4L);
+        assertThat(page.getTotalElements()).isEqualTo(6);
+    }
+
+    private static ArchivedTransaction archivedRow(long id, BigDecimal amount) {
+        return new ArchivedTransaction(id, 1L, TransactionType.CREDIT, amount, null, null, "archived-" + id,
+                TransactionStatus.COMPLETED, BigDecimal.ONE, LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(id));
+    }
+
+    private static ArchivedTransaction archivedRow(long id, LocalDateTime createdAt) {
+        return new ArchivedTransaction(id, 1L, TransactionType.CREDIT, BigDecimal.ONE, null, null, "archived-" + id,
+                TransactionStatus.COMPLETED, BigDecimal.ONE, createdAt);
+    }
+
+    private static Transaction ledgerRow(Long id, LocalDateTime createdAt) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setAccountId(1L);
+        tx.setType(TransactionType.DEBIT);
+        tx.setAmount(BigDecimal.TEN);
+        tx.setStatus(TransactionStatus.COMPLETED);
+        tx.setCreatedAt(createdAt);
+        return tx;
+    }
 }
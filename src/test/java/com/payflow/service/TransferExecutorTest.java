@@ -0,0 +1,186 @@
+package com.payflow.service;
+
+import com.payflow.dto.SplitTransferRequest.Leg;
+import com.payflow.dto.SplitTransferResponse;
+import com.payflow.dto.TransactionResponse;
+import com.payflow.event.TransactionEventPublisher;
+import com.payflow.exception.CurrencyMismatchException;
+import com.payflow.exception.InsufficientFundsException;
+import com.payflow.model.Account;
+import com.payflow.model.AccountStatus;
+import com.payflow.model.Transaction;
+import com.payflow.model.TransactionStatus;
+import com.payflow.model.TransactionType;
+import com.payflow.repository.AccountRepository;
+import com.payflow.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferExecutorTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BalanceCacheService balanceCacheService;
+    @Mock
+    private TransactionEventPublisher eventPublisher;
+    @Mock
+    private BalanceStrategyRegistry balanceStrategies;
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @InjectMocks
+    private TransferExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(idempotencyService.find(any(), any())).thenReturn(Optional.empty());
+        lenient().when(balanceStrategies.forAccount(any())).thenReturn(new OptimisticBalanceStrategy(accountRepository));
+    }
+
+    @Test
+    void transferWritesBalancesInAscendingIdOrder() {
+        Account source = account(2L, "100.0000", "USD");
+        Account dest = account(1L, "0.0000", "USD");
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(source));
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(dest));
+        BalanceMutationStrategy strategy = mock(BalanceMutationStrategy.class);
+        when(balanceStrategies.forAccount(any())).thenReturn(strategy);
+        when(strategy.credit(dest, BigDecimal.TEN)).thenReturn(BigDecimal.TEN);
+        when(strategy.debit(source, BigDecimal.TEN)).thenReturn(new BigDecimal("90"));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        executor.executeTransfer(2L, 1L, BigDecimal.TEN, "reverse", "t-1");
+
+        InOrder order = inOrder(strategy);
+        order.verify(strategy).credit(dest, BigDecimal.TEN);
+        order.verify(strategy).debit(source, BigDecimal.TEN);
+    }
+
+    @Test
+    void acceptTransferRecordsThePendingLegForReplay() {
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account(1L, "100.0000", "USD")));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(account(2L, "0.0000", "USD")));
+
+        TransactionResponse accepted = executor.acceptTransfer(1L, 2L, BigDecimal.TEN, "later", "async-1");
+
+        assertThat(accepted.status()).isEqualTo(TransactionStatus.PENDING);
+        verify(transactionRepository).saveAll(anyList());
+        verify(idempotencyService).record("async-1", accepted);
+    }
+
+    @Test
+    void acceptTransferReplaysFromTheIdempotencyStore() {
+        TransactionResponse settled = new TransactionResponse(5L, 1L, TransactionType.DEBIT, BigDecimal.TEN,
+                "later", null, TransactionStatus.COMPLETED, new BigDecimal("90"), null);
+        when(idempotencyService.find("async-1", TransactionResponse.class)).thenReturn(Optional.of(settled));
+
+        assertThat(executor.acceptTransfer(1L, 2L, BigDecimal.TEN, "later", "async-1")).isSameAs(settled);
+        verifyNoInteractions(accountRepository, transactionRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void accountBatchReplaysStoredKeysAndRepeatedKeysWithoutNewRows() {
+        Account account = account(1L, "100.0000", "USD");
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        TransactionResponse stored = new TransactionResponse(5L, 1L, TransactionType.CREDIT, BigDecimal.TEN,
+                "Deposit", null, TransactionStatus.COMPLETED, new BigDecimal("100"), null);
+        when(idempotencyService.find("g0", TransactionResponse.class)).thenReturn(Optional.of(stored));
+
+        List<BalanceOperation.Outcome> outcomes = executor.executeAccountBatch(1L, List.of(
+                new BalanceOperation(1L, TransactionType.CREDIT, BigDecimal.TEN, null, "g0"),
+                new BalanceOperation(1L, TransactionType.CREDIT, BigDecimal.ONE, null, "g1"),
+                new BalanceOperation(1L, TransactionType.CREDIT, BigDecimal.ONE, null, "g1")));
+
+        assertThat(outcomes.get(0).response()).isSameAs(stored);
+        assertThat(outcomes.get(2).response()).isEqualTo(outcomes.get(1).response());
+        assertThat(account.getBalance()).isEqualByComparingTo("101");
+        ArgumentCaptor<List<Transaction>> ledger = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(ledger.capture());
+        assertThat(ledger.getValue()).extracting(Transaction::getIdempotencyKey).containsExactly("g1");
+        verify(idempotencyService).recordAll(argThat(responses -> responses.keySet().equals(java.util.Set.of("g1"))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void splitTransferDebitsTotalOnceAndBatchesCredits() {
+        Account source = account(1L, "100.0000", "USD");
+        Account a = account(2L, "0.0000", "USD");
+        Account b = account(3L, "10.0000", "USD");
+        when(accountRepository.findAllById(anyCollection())).thenReturn(List.of(source, a, b));
+
+        SplitTransferResponse response = executor.executeSplitTransfer(1L, List.of(
+                new Leg(2L, new BigDecimal("30"), "fee"),
+                new Leg(3L, new BigDecimal("45"), null)), "payout", "split-1");
+
+        assertThat(response.debit().amount()).isEqualByComparingTo("75");
+        assertThat(response.debit().balanceAfter()).isEqualByComparingTo("25");
+        assertThat(response.credits()).extracting(c -> c.balanceAfter().stripTrailingZeros().toPlainString())
+                .containsExactly("30", "55");
+        assertThat(response.credits()).extracting(c -> c.description()).containsExactly("fee", "payout");
+        assertThat(response.credits()).allMatch(c -> c.correlationId().equals(response.correlationId()));
+
+        ArgumentCaptor<List<Transaction>> ledger = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(ledger.capture());
+        assertThat(ledger.getValue()).extracting(Transaction::getIdempotencyKey)
+                .containsExactly("split-1", "split-1:C0", "split-1:C1");
+        verify(transactionRepository, never()).save(any());
+        verify(eventPublisher).publishAll(argThat(events -> events.size() == 3));
+        verify(idempotencyService).record("split-1", response);
+    }
+
+    @Test
+    void splitTransferRejectsWholeRequestWhenTotalIsNotCovered() {
+        Account source = account(1L, "50.0000", "USD");
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(source, account(2L, "0", "USD"), account(3L, "0", "USD")));
+
+        assertThatThrownBy(() -> executor.executeSplitTransfer(1L, List.of(
+                new Leg(2L, new BigDecimal("30"), null),
+                new Leg(3L, new BigDecimal("30"), null)), null, "split-2"))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(transactionRepository, never()).saveAll(anyList());
+        assertThat(source.getBalance()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void splitTransferRejectsForeignCurrencyLeg() {
+        when(accountRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(account(1L, "100", "USD"), account(2L, "0", "EUR")));
+
+        assertThatThrownBy(() -> executor.executeSplitTransfer(1L,
+                List.of(new Leg(2L, BigDecimal.TEN, null)), null, "split-3"))
+                .isInstanceOf(CurrencyMismatchException.class);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static Account account(Long id, String balance, String currency) {
+        Account account = new Account();
+        account.setId(id);
+        account.setUserId(1L);
+        account.setCurrency(currency);
+        account.setStatus(AccountStatus.ACTIVE);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+}
@@ -0,0 +1,60 @@
+package com.payflow.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void roundTripsThroughBigDecimalAtFourPlaces() {
+        Money money = Money.of(new BigDecimal("12.34565"));
+
+        assertThat(money.units()).isEqualTo(123457L);
+        assertThat(money.toBigDecimal()).isEqualTo(new BigDecimal("12.3457"));
+        assertThat(Money.of(null)).isNull();
+    }
+
+    @Test
+    void arithmeticMatchesBigDecimal() {
+        Money balance = Money.of(new BigDecimal("100.10"));
+        Money amount = Money.of(new BigDecimal("0.0001"));
+
+        assertThat(balance.plus(amount).toBigDecimal()).isEqualByComparingTo("100.1001");
+        assertThat(balance.minus(amount).toBigDecimal()).isEqualByComparingTo("100.0999");
+        assertThat(amount.isLessThan(balance)).isTrue();
+        assertThat(Money.ZERO.minus(amount).signum()).isNegative();
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Money max = new Money(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(new Money(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e20"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void appendsSameTextAsToString() throws Exception {
+        for (String value : new String[] {"0", "0.0001", "12.5", "-0.5", "-1234.0042", "922337203685477.5807"}) {
+            Money money = Money.of(new BigDecimal(value));
+            StringBuilder out = new StringBuilder();
+
+            money.appendTo(out);
+
+            assertThat(out.toString()).isEqualTo(money.toString());
+        }
+    }
+
+    @Test
+    void serializesAsDecimalNumber() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThat(mapper.writeValueAsString(Money.of(new BigDecimal("25.5")))).isEqualTo("25.5000");
+        assertThat(mapper.readValue("25.5", Money.class)).isEqualTo(new Money(255000));
+    }
+}